@@ -41,17 +41,22 @@ __TEST_THE_WORLD__ = [
 	"uk.ac.manchester.tornado.unittests.functional.TestLambdas",
 	"uk.ac.manchester.tornado.unittests.vectortypes.TestFloats",
 	"uk.ac.manchester.tornado.unittests.vectortypes.TestDoubles",
+	"uk.ac.manchester.tornado.unittests.vectortypes.TestHalfs",
 	"uk.ac.manchester.tornado.unittests.vectortypes.TestInts",
 	"uk.ac.manchester.tornado.unittests.vectortypes.TestVectorAllocation",
+	"uk.ac.manchester.tornado.unittests.vectortypes.TestOffHeapVectors",
 	"uk.ac.manchester.tornado.unittests.prebuilt.PrebuiltTest",
 	"uk.ac.manchester.tornado.unittests.virtualization.TestsVirtualLayer",
 	"uk.ac.manchester.tornado.unittests.tasks.TestSingleTaskSingleDevice",
 	"uk.ac.manchester.tornado.unittests.tasks.TestMultipleTasksSingleDevice",
+	"uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion",
+	"uk.ac.manchester.tornado.unittests.tasks.TestConcurrentExecution",
 	"uk.ac.manchester.tornado.unittests.images.TestImages",
 	"uk.ac.manchester.tornado.unittests.images.TestResizeImage",
 	"uk.ac.manchester.tornado.unittests.branching.TestConditionals",
 	"uk.ac.manchester.tornado.unittests.loops.TestLoops",
 	"uk.ac.manchester.tornado.unittests.loops.TestParallelDimensions",
+	"uk.ac.manchester.tornado.unittests.loops.TestWorkGroupTuning",
 	"uk.ac.manchester.tornado.unittests.matrices.TestMatrices",
 	"uk.ac.manchester.tornado.unittests.reductions.TestReductionsIntegers",
 	"uk.ac.manchester.tornado.unittests.reductions.TestReductionsFloats",
@@ -70,6 +75,12 @@ __TEST_THE_WORLD__ = [
 	"uk.ac.manchester.tornado.unittests.fields.TestFields",
 	"uk.ac.manchester.tornado.unittests.profiler.TestProfiler",
 	"uk.ac.manchester.tornado.unittests.reductions.MultipleReductions",
+	"uk.ac.manchester.tornado.unittests.reductions.TestScan",
+	"uk.ac.manchester.tornado.unittests.reductions.TestSegmentedReduction",
+	"uk.ac.manchester.tornado.unittests.reductions.TestDeviceReduction",
+	"uk.ac.manchester.tornado.unittests.algorithms.TestSort",
+	"uk.ac.manchester.tornado.unittests.atomics.TestAtomics",
+	"uk.ac.manchester.tornado.unittests.kernelcontext.TestKernelContext",
 	"uk.ac.manchester.tornado.unittests.bitsets.BitSetTests",
 	"uk.ac.manchester.tornado.unittests.fails.TestFails",
     "uk.ac.manchester.tornado.unittests.math.TestTornadoMathCollection",
@@ -78,7 +89,21 @@ __TEST_THE_WORLD__ = [
 	"uk.ac.manchester.tornado.unittests.dynamic.TestDynamic",
 	"uk.ac.manchester.tornado.unittests.loops.TestLoopTransformations",
     "uk.ac.manchester.tornado.unittests.numpromotion.TestNumericPromotion",
-	"uk.ac.manchester.tornado.unittests.fails.CodeFail",
+	"uk.ac.manchester.tornado.unittests.memory.TestHeapAllocator",
+]
+
+## List of classes that are tested with additional JVM options. Format: [class, options]
+__TEST_THE_WORLD_WITH_OPTIONS__ = [
+	["uk.ac.manchester.tornado.unittests.jvm.TestJVMDevice", "-Dtornado.jvm.enable=True "],
+	["uk.ac.manchester.tornado.unittests.batches.TestBatchPipeline", "-Dtornado.batch.pipeline=True -Dtornado.log.profiler=True "],
+	["uk.ac.manchester.tornado.unittests.codecache.TestOpenCLCodeCache", "-Dtornado.opencl.codecache.enable=True -Dtornado.opencl.codecache.dir=var/codecache-unittests "],
+	["uk.ac.manchester.tornado.unittests.compilation.TestAsyncCompilation", "-Dtornado.compile.async=True "],
+	["uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion", "-Dtornado.experimental.fusion=True -Dtornado.log.profiler=True "],
+	["uk.ac.manchester.tornado.unittests.loops.TestWorkGroupTuning", "-Dtornado.autotune=True -Dtornado.autotune.file=/tmp/tornado-tuning-unittests.properties "],
+	["uk.ac.manchester.tornado.unittests.arrays.TestArrays", "-Dtornado.opencl.directargs=True "],
+	["uk.ac.manchester.tornado.unittests.tasks.TestMultipleTasksSingleDevice", "-Dtornado.opencl.queues=2 "],
+	["uk.ac.manchester.tornado.unittests.tasks.TestConcurrentExecution", "-Dtornado.opencl.queues=2 "],
+	["uk.ac.manchester.tornado.unittests.fails.CodeFail", "-Dtornado.fallback.threads=4 "],
 ]
 
 ## List of tests that can be ignored. Format: class#testMethod
@@ -231,14 +256,8 @@ def runCommandWithStats(command, stats):
 	return processStats(out, stats)
 
 
-def runTests(args):
-	""" Run the tests using the TornadoTestRunner program """	
-
-	options = composeAllOptions(args)
-
-	stats = {"[PASS]" : 0, "[FAILED]": 0}
-
-	## Run test
+def composeTestRunnerCommand(args, options):
+	""" It builds the command that runs a test class with the TornadoTestRunner """
 	cmd = ""
 	if (args.useOptirun):
 		cmd = "optirun " + TORNADO_CMD + __IGNORE_INTEL_PLATFORM__ + options
@@ -249,6 +268,18 @@ def runTests(args):
 		cmd += " -m " + __MAIN_TORNADO_TEST_RUNNER_MODULE__ + __MAIN_TORNADO_TEST_RUNNER__
 	else:
 		cmd += " " + __MAIN_TORNADO_TEST_RUNNER__
+	return cmd
+
+
+def runTests(args):
+	""" Run the tests using the TornadoTestRunner program """	
+
+	options = composeAllOptions(args)
+
+	stats = {"[PASS]" : 0, "[FAILED]": 0}
+
+	## Run test
+	cmd = composeTestRunnerCommand(args, options)
 
 	if (args.testClass != None):
 		if (args.fast):
@@ -265,6 +296,14 @@ def runTests(args):
 			else:
 				print command
 				stats = runCommandWithStats(command, stats)
+
+		for t, testOptions in __TEST_THE_WORLD_WITH_OPTIONS__:
+			command = composeTestRunnerCommand(args, options + testOptions) + t
+			if (args.fast):
+				os.system(command)
+			else:
+				print command
+				stats = runCommandWithStats(command, stats)
 		
 		end = time.time()
 		print Colors.CYAN
@@ -302,6 +341,8 @@ def runWithJUnit(args):
 		for t in __TEST_THE_WORLD__:
 			command = cmd + t
 			os.system(command)
+		for t, testOptions in __TEST_THE_WORLD_WITH_OPTIONS__:
+			os.system(TORNADO_CMD + testOptions + cmd[len(TORNADO_CMD):] + t)
 
 
 def parseArguments():
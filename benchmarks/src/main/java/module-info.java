@@ -55,4 +55,5 @@ module tornado.benchmarks {
     exports uk.ac.manchester.tornado.benchmarks.spmv.generated;
     exports uk.ac.manchester.tornado.benchmarks.stencil;
     exports uk.ac.manchester.tornado.benchmarks.stencil.generated;
+    exports uk.ac.manchester.tornado.benchmarks.vmoverhead;
 }
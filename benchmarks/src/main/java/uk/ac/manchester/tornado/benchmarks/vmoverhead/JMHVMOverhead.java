@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.vmoverhead;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of each invocation of the TornadoVM. The kernels work on a
+ * few elements, so the time is dominated by the interpretation of the bytecodes
+ * and the submission of the commands rather than by the device.
+ */
+public class JMHVMOverhead {
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+
+        private int numElements = Integer.parseInt(System.getProperty("x", "16"));
+        private float[] x;
+        private float[] y;
+        private final float alpha = 2f;
+
+        private TaskSchedule launchOnly;
+        private TaskSchedule withTransfers;
+        private TaskSchedule multipleTasks;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            x = new float[numElements];
+            y = new float[numElements];
+
+            for (int i = 0; i < numElements; i++) {
+                x[i] = i;
+            }
+
+            // The data stays on the device: each execution only launches the kernel
+            launchOnly = new TaskSchedule("launch") //
+                    .task("saxpy", LinearAlgebraArrays::saxpy, alpha, x, y);
+            launchOnly.warmup();
+
+            withTransfers = new TaskSchedule("transfers") //
+                    .streamIn(x) //
+                    .task("saxpy", LinearAlgebraArrays::saxpy, alpha, x, y) //
+                    .streamOut(y);
+            withTransfers.warmup();
+
+            multipleTasks = new TaskSchedule("tasks") //
+                    .streamIn(x) //
+                    .task("t0", LinearAlgebraArrays::saxpy, alpha, x, y) //
+                    .task("t1", LinearAlgebraArrays::saxpy, alpha, y, x) //
+                    .task("t2", LinearAlgebraArrays::saxpy, alpha, x, y) //
+                    .task("t3", LinearAlgebraArrays::saxpy, alpha, y, x) //
+                    .streamOut(x);
+            multipleTasks.warmup();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void launchOnly(BenchmarkSetup state, Blackhole blackhole) {
+        TaskSchedule t = state.launchOnly;
+        t.execute();
+        blackhole.consume(t);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void withTransfers(BenchmarkSetup state, Blackhole blackhole) {
+        TaskSchedule t = state.withTransfers;
+        t.execute();
+        blackhole.consume(t);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void multipleTasks(BenchmarkSetup state, Blackhole blackhole) {
+        TaskSchedule t = state.multipleTasks;
+        t.execute();
+        blackhole.consume(t);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHVMOverhead.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.NANOSECONDS) //
+                .warmupTime(TimeValue.seconds(30)) //
+                .warmupIterations(2) //
+                .measurementTime(TimeValue.seconds(30)) //
+                .measurementIterations(5) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
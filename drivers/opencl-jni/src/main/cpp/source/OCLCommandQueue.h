@@ -225,6 +225,22 @@ extern "C" {
     JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_readArrayFromDevice__J_3DJZJJJ_3J
     (JNIEnv *, jclass, jlong, jdoubleArray, jboolean, jlong, jlong, jlong, jlongArray);
 
+    /*
+     * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+     * Method:    writeBufferToDevice
+     * Signature: (JLjava/nio/ByteBuffer;JZZJJJ[J)J
+     */
+    JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_writeBufferToDevice
+    (JNIEnv *, jclass, jlong, jobject, jlong, jboolean, jboolean, jlong, jlong, jlong, jlongArray);
+
+    /*
+     * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+     * Method:    readBufferFromDevice
+     * Signature: (JLjava/nio/ByteBuffer;JZZJJJ[J)J
+     */
+    JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_readBufferFromDevice
+    (JNIEnv *, jclass, jlong, jobject, jlong, jboolean, jboolean, jlong, jlong, jlong, jlongArray);
+
     /*
      * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
      * Method:    clEnqueueMarker
@@ -31,6 +31,7 @@
     #include <CL/cl.h>
 #endif
 #include <stdio.h>
+#include <string.h>
 #include "macros.h"
 #include "utils.h"
 
@@ -135,3 +136,83 @@ READ_ARRAY(Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue, I, int)
 READ_ARRAY(Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue, J, long)
 READ_ARRAY(Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue, F, float)
 READ_ARRAY(Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue, D, double)
+
+/*
+ * Copies between host memory and a region of a buffer allocated with
+ * CL_MEM_ALLOC_HOST_PTR on a device that shares the host memory. The region is
+ * mapped into the host address space and copied with memcpy, so the driver
+ * does not stage the data in a pinned buffer for a DMA transfer. The event is
+ * the event of the unmap, which publishes the region to the device.
+ */
+static cl_int copyThroughMap(cl_command_queue queue, cl_mem mem, int toDevice, size_t offset, size_t num_bytes, void *host, cl_uint num_events, const cl_event *events, cl_event *event) {
+    cl_int status;
+    cl_map_flags flags = toDevice ? CL_MAP_WRITE_INVALIDATE_REGION : CL_MAP_READ;
+    void *mapped = clEnqueueMapBuffer(queue, mem, CL_TRUE, flags, offset, num_bytes, num_events, events, NULL, &status);
+    if (status != CL_SUCCESS) {
+        return status;
+    }
+    if (toDevice) {
+        memcpy(mapped, host, num_bytes);
+    } else {
+        memcpy(host, mapped, num_bytes);
+    }
+    return clEnqueueUnmapMemObject(queue, mem, mapped, 0, NULL, event);
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+ * Method:    writeBufferToDevice
+ * Signature: (JLjava/nio/ByteBuffer;JZZJJJ[J)J
+ */
+JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_writeBufferToDevice
+    (JNIEnv *env, jclass clazz, jlong queue_id, jobject directBuffer, jlong hostOffset, jboolean blocking, jboolean map, jlong offset, jlong cb, jlong device_ptr, jlongArray array2) {
+    OPENCL_PROLOGUE;
+    cl_bool blocking_write = blocking ? CL_TRUE : CL_FALSE;
+    jbyte *buffer = (jbyte *) (*env)->GetDirectBufferAddress(env, directBuffer);
+    size_t num_bytes = (cb != -1) ? (size_t) cb : (size_t) (*env)->GetDirectBufferCapacity(env, directBuffer);
+    OPENCL_DECODE_WAITLIST(array2, events, num_events)
+    if (PRINT_DATA_SIZES) {
+        printf("uk.ac.manchester.tornado.drivers.opencl> write buffer 0x%lx (%zu bytes) from %p%s\n", offset, num_bytes, buffer, map ? " (mapped)" : "");
+    }
+    cl_event event;
+    cl_int status;
+    if (map) {
+        status = copyThroughMap((cl_command_queue) queue_id, (cl_mem) device_ptr, 1, (size_t) offset, num_bytes, &buffer[hostOffset], (cl_uint) num_events, (cl_event*) events, &event);
+        if (status == CL_SUCCESS && blocking_write) {
+            status = clWaitForEvents(1, &event);
+        }
+    } else {
+        status = clEnqueueWriteBuffer((cl_command_queue) queue_id, (cl_mem) device_ptr, blocking_write, (size_t) offset, num_bytes, &buffer[hostOffset], (cl_uint) num_events, (cl_event*) events, &event);
+    }
+    OPENCL_SOFT_ERROR("clEnqueueWriteBuffer (direct buffer)", status, -1);
+    OPENCL_RELEASE_WAITLIST(array2);
+    return (jlong) event;
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+ * Method:    readBufferFromDevice
+ * Signature: (JLjava/nio/ByteBuffer;JZZJJJ[J)J
+ */
+JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_readBufferFromDevice
+    (JNIEnv *env, jclass clazz, jlong queue_id, jobject directBuffer, jlong hostOffset, jboolean blocking, jboolean map, jlong offset, jlong cb, jlong device_ptr, jlongArray array2) {
+    OPENCL_PROLOGUE;
+    cl_bool blocking_read = blocking ? CL_TRUE : CL_FALSE;
+    jbyte *buffer = (jbyte *) (*env)->GetDirectBufferAddress(env, directBuffer);
+    size_t num_bytes = (cb != -1) ? (size_t) cb : (size_t) (*env)->GetDirectBufferCapacity(env, directBuffer);
+    OPENCL_DECODE_WAITLIST(array2, events, num_events)
+    if (PRINT_DATA_SIZES) {
+        printf("uk.ac.manchester.tornado.drivers.opencl> read buffer 0x%lx (%zu bytes) to %p%s\n", offset, num_bytes, buffer, map ? " (mapped)" : "");
+    }
+    cl_event event;
+    cl_int status;
+    if (map) {
+        // The map is blocking, so the host memory is up to date when it returns
+        status = copyThroughMap((cl_command_queue) queue_id, (cl_mem) device_ptr, 0, (size_t) offset, num_bytes, (void *) &buffer[hostOffset], (cl_uint) num_events, (cl_event*) events, &event);
+    } else {
+        status = clEnqueueReadBuffer((cl_command_queue) queue_id, (cl_mem) device_ptr, blocking_read, (size_t) offset, num_bytes, (void *) &buffer[hostOffset], (cl_uint) num_events, (cl_event*) events, &event);
+    }
+    OPENCL_SOFT_ERROR("clEnqueueReadBuffer (direct buffer)", status, -1);
+    OPENCL_RELEASE_WAITLIST(array2);
+    return (jlong) event;
+}
@@ -39,8 +39,8 @@ public class OCLAMDScheduler extends OCLKernelScheduler {
     }
 
     @Override
-    public int launch(OCLKernel kernel, TaskMetaData meta, int[] waitEvents, long batchThreads) {
-        return deviceContext.enqueueNDRangeKernel(kernel, meta.getDims(), meta.getGlobalOffset(), meta.getGlobalWork(), null, waitEvents);
+    public int launch(OCLKernel kernel, TaskMetaData meta, int[] waitEvents, long batchThreads, int queueIndex) {
+        return deviceContext.enqueueNDRangeKernel(kernel, meta.getDims(), meta.getGlobalOffset(), meta.getGlobalWork(), null, waitEvents, queueIndex);
     }
 
     @Override
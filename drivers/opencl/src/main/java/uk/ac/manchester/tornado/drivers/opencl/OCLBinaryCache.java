@@ -0,0 +1,459 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl;
+
+import static uk.ac.manchester.tornado.runtime.common.Tornado.debug;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.getProperty;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.warn;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
+import uk.ac.manchester.tornado.runtime.domain.Domain;
+import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.domain.IntDomain;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Content-addressed cache of OpenCL kernels on disk. Each entry stores the
+ * generated OpenCL C source, the binary returned by the OpenCL driver and the
+ * domain of the parallel loops, which the compiler infers and the kernel
+ * launch needs. The key is a hash of everything that determines the generated code:
+ *
+ * <ul>
+ * <li>the bytecodes of the task and of all the methods it calls,</li>
+ * <li>the values of the arguments that are specialised into the kernel
+ * (scalars, array lengths and primitive fields),</li>
+ * <li>the compiler flags and the Tornado properties,</li>
+ * <li>the OpenCL platform, device and driver versions,</li>
+ * <li>the version and the build of Tornado.</li>
+ * </ul>
+ *
+ * Entries are written to a temporary file and atomically renamed, so several
+ * JVMs can share the same directory. The least recently used entries are
+ * removed when the directory is larger than
+ * {@code tornado.opencl.codecache.maxsize}.
+ */
+public class OCLBinaryCache {
+
+    private static final String BINARY_SUFFIX = ".bin";
+    private static final String SOURCE_SUFFIX = ".cl";
+    private static final String DOMAIN_SUFFIX = ".domain";
+    private static final String NO_DOMAIN = "none";
+    private static final String CACHE_PROPERTY_PREFIX = "tornado.opencl.codecache";
+    private static final int KEY_FORMAT_VERSION = 2;
+    private static final int MAX_FIELD_DEPTH = 4;
+
+    private static String tornadoVersion;
+
+    private final Path directory;
+    private final String deviceSignature;
+
+    OCLBinaryCache(Path directory, OCLDeviceContext deviceContext) {
+        this.directory = directory;
+        final OCLDevice device = deviceContext.getDevice();
+        final OCLPlatform platform = deviceContext.getPlatformContext().getPlatform();
+        this.deviceSignature = String.join("|", platform.getName(), platform.getVendor(), platform.getVersion(), device.getDeviceName(), device.getDeviceVersion(), device.getDriverVersion());
+    }
+
+    /**
+     * Cached entry with the OpenCL C source, the binary and the domain of a
+     * kernel. The domain is null for sequential kernels.
+     */
+    static class Entry {
+        final byte[] source;
+        final byte[] binary;
+        final DomainTree domain;
+
+        Entry(byte[] source, byte[] binary, DomainTree domain) {
+            this.source = source;
+            this.binary = binary;
+            this.domain = domain;
+        }
+    }
+
+    /**
+     * It writes one line per dimension with the offset, step and length of the
+     * domain.
+     *
+     * @return the domain as text, or null if it cannot be described.
+     */
+    private static String encodeDomain(DomainTree domain) {
+        if (domain == null) {
+            return NO_DOMAIN;
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < domain.getDepth(); i++) {
+            final Domain dimension = domain.get(i);
+            if (!(dimension instanceof IntDomain)) {
+                return null;
+            }
+            final IntDomain intDomain = (IntDomain) dimension;
+            sb.append(intDomain.getOffset()).append(' ').append(intDomain.getStep()).append(' ').append(intDomain.cardinality()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static DomainTree decodeDomain(String text) {
+        if (text.equals(NO_DOMAIN)) {
+            return null;
+        }
+        final String[] lines = text.isEmpty() ? new String[0] : text.split("\n");
+        final DomainTree domain = new DomainTree(lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            final String[] values = lines[i].split(" ");
+            domain.set(i, new IntDomain(Integer.parseInt(values[0]), Integer.parseInt(values[1]), Integer.parseInt(values[2])));
+        }
+        return domain;
+    }
+
+    private static synchronized String getTornadoVersion() {
+        if (tornadoVersion == null) {
+            tornadoVersion = "unknown";
+            try {
+                URL location = OCLBinaryCache.class.getProtectionDomain().getCodeSource().getLocation();
+                File file = new File(location.toURI());
+                if (file.isFile()) {
+                    try (JarFile jar = new JarFile(file)) {
+                        Manifest manifest = jar.getManifest();
+                        if (manifest != null) {
+                            Attributes attributes = manifest.getMainAttributes();
+                            tornadoVersion = attributes.getValue("Implementation-Version") + "-" + attributes.getValue("Implementation-Build");
+                        }
+                    }
+                } else {
+                    // Classes directory: the build changes with every compilation
+                    tornadoVersion = "dev-" + file.lastModified();
+                }
+            } catch (Exception e) {
+                debug("unable to read the Tornado version: %s", e.getMessage());
+            }
+        }
+        return tornadoVersion;
+    }
+
+    private static void collectMethods(ResolvedJavaMethod method, Set<ResolvedJavaMethod> methods) {
+        if (!methods.add(method)) {
+            return;
+        }
+        final StructuredGraph graph = (StructuredGraph) TornadoSketcher.lookup(method).getGraph().getReadonlyCopy();
+        methods.addAll(graph.getMethods());
+        for (Invoke invoke : graph.getInvokes()) {
+            collectMethods(invoke.callTarget().targetMethod(), methods);
+        }
+    }
+
+    private static void updateMethod(MessageDigest digest, ResolvedJavaMethod method) {
+        digest.update(method.format("%H.%n(%P)%R").getBytes(StandardCharsets.UTF_8));
+        final byte[] code = method.getCode();
+        if (code != null) {
+            digest.update(code);
+        }
+    }
+
+    /**
+     * Arguments are specialised into the kernel. It appends the values that can
+     * end up in the generated code.
+     *
+     * @return false if the argument cannot be described.
+     */
+    private static boolean appendArgument(StringBuilder sb, Object arg, int depth, Map<Object, Boolean> visited) {
+        if (arg == null) {
+            sb.append("null;");
+            return true;
+        }
+        final Class<?> klass = arg.getClass();
+        sb.append(klass.getName()).append(':');
+        if (RuntimeUtilities.isBoxedPrimitiveClass(klass) || arg instanceof String) {
+            sb.append(arg).append(';');
+            return true;
+        } else if (klass.isArray()) {
+            sb.append(Array.getLength(arg)).append(';');
+            return true;
+        } else if (depth >= MAX_FIELD_DEPTH || visited.put(arg, Boolean.TRUE) != null) {
+            return false;
+        }
+
+        for (Class<?> current = klass; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    sb.append(field.getName()).append('=');
+                    if (!appendArgument(sb, field.get(arg), depth + 1, visited)) {
+                        return false;
+                    }
+                } catch (RuntimeException | IllegalAccessException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void appendTornadoProperties(StringBuilder sb) {
+        final TreeMap<String, String> properties = new TreeMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("tornado.") && !name.startsWith(CACHE_PROPERTY_PREFIX)) {
+                properties.put(name, System.getProperty(name));
+            }
+        }
+        properties.forEach((name, value) -> sb.append(name).append('=').append(value).append(';'));
+    }
+
+    /**
+     * Maximum size of the cache. A number without a unit is a size in MB. It is
+     * read on every eviction, so it can be changed while the application runs.
+     */
+    private static long getMaxCacheSize() {
+        final String size = getProperty("tornado.opencl.codecache.maxsize", "1024");
+        return size.endsWith("B") ? RuntimeUtilities.parseSize(size) : Long.parseLong(size) * 1024 * 1024;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * It computes the key of a task for this device.
+     *
+     * @return the key, or null if the task cannot be cached.
+     */
+    String computeKey(Sketch sketch, CompilableTask task, long batchThreads) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append(KEY_FORMAT_VERSION).append('|').append(getTornadoVersion()).append('|').append(deviceSignature).append('|');
+
+        final TaskMetaData meta = task.meta();
+        sb.append(meta.getCompilerFlags()).append('|').append(meta.shouldUseOpenCLRelativeAddresses()).append('|');
+        sb.append(meta.getNumThreads()).append('|').append(batchThreads).append('|');
+        appendTornadoProperties(sb);
+
+        final Map<Object, Boolean> visited = new IdentityHashMap<>();
+        for (Object arg : task.getArguments()) {
+            if (!appendArgument(sb, arg, 0, visited)) {
+                debug("task %s is not cached: unsupported argument %s", task.getId(), arg.getClass().getName());
+                return null;
+            }
+        }
+        digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        final Set<ResolvedJavaMethod> methods = new LinkedHashSet<>();
+        final StructuredGraph graph = (StructuredGraph) sketch.getGraph().getReadonlyCopy();
+        // The sketch of a fused task is not registered in the sketcher: start from its own graph
+        methods.add(graph.method());
+        methods.addAll(graph.getMethods());
+        for (Invoke invoke : graph.getInvokes()) {
+            collectMethods(invoke.callTarget().targetMethod(), methods);
+        }
+        for (ResolvedJavaMethod method : methods) {
+            updateMethod(digest, method);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * It reads an entry and marks it as recently used.
+     *
+     * @return the entry, or null if it is not in the cache.
+     */
+    Entry lookup(String key) {
+        final Path binaryFile = directory.resolve(key + BINARY_SUFFIX);
+        final Path sourceFile = directory.resolve(key + SOURCE_SUFFIX);
+        final Path domainFile = directory.resolve(key + DOMAIN_SUFFIX);
+        try {
+            final byte[] binary = Files.readAllBytes(binaryFile);
+            final byte[] source = Files.readAllBytes(sourceFile);
+            final DomainTree domain = decodeDomain(new String(Files.readAllBytes(domainFile), StandardCharsets.UTF_8));
+            if (binary.length == 0) {
+                return null;
+            }
+            final FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+            Files.setLastModifiedTime(binaryFile, now);
+            return new Entry(source, binary, domain);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (RuntimeException e) {
+            warn("unable to read the domain of cached kernel %s: %s", key, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            warn("unable to read cached kernel %s: %s", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, content);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * It stores a new entry. The source and the domain are written before the
+     * binary: an entry is only visible to other JVMs once its binary exists.
+     */
+    void store(String key, byte[] source, byte[] binary, DomainTree domain) {
+        final String encodedDomain = encodeDomain(domain);
+        if (binary == null || binary.length == 0 || encodedDomain == null) {
+            return;
+        }
+        try {
+            writeAtomically(directory.resolve(key + DOMAIN_SUFFIX), encodedDomain.getBytes(StandardCharsets.UTF_8));
+            writeAtomically(directory.resolve(key + SOURCE_SUFFIX), source);
+            writeAtomically(directory.resolve(key + BINARY_SUFFIX), binary);
+        } catch (IOException e) {
+            warn("unable to store kernel %s in the code cache: %s", key, e.getMessage());
+            return;
+        }
+        evict();
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Another JVM may be using the same directory
+        }
+    }
+
+    /**
+     * It removes the least recently used entries until the directory fits in the
+     * maximum size of the cache.
+     */
+    private void evict() {
+        final List<Path> binaries = new ArrayList<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + BINARY_SUFFIX)) {
+            for (Path binary : stream) {
+                binaries.add(binary);
+                totalSize += sizeOf(binary) + sizeOf(getSourceFile(binary)) + sizeOf(getDomainFile(binary));
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        final long maxCacheSize = getMaxCacheSize();
+        if (totalSize <= maxCacheSize) {
+            return;
+        }
+
+        final Map<Path, Long> accessTimes = new IdentityHashMap<>();
+        for (Path binary : binaries) {
+            accessTimes.put(binary, lastModified(binary));
+        }
+        Collections.sort(binaries, (a, b) -> Long.compare(accessTimes.get(a), accessTimes.get(b)));
+
+        for (Path binary : binaries) {
+            if (totalSize <= maxCacheSize) {
+                break;
+            }
+            final Path source = getSourceFile(binary);
+            final Path domain = getDomainFile(binary);
+            totalSize -= sizeOf(binary) + sizeOf(source) + sizeOf(domain);
+            debug("evicting %s from the code cache", binary.getFileName());
+            delete(binary);
+            delete(source);
+            delete(domain);
+        }
+    }
+
+    private Path getSourceFile(Path binary) {
+        final String name = binary.getFileName().toString();
+        return directory.resolve(name.substring(0, name.length() - BINARY_SUFFIX.length()) + SOURCE_SUFFIX);
+    }
+
+    private Path getDomainFile(Path binary) {
+        final String name = binary.getFileName().toString();
+        return directory.resolve(name.substring(0, name.length() - BINARY_SUFFIX.length()) + DOMAIN_SUFFIX);
+    }
+}
@@ -59,6 +59,8 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.OCLInstalledCode;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class OCLCodeCache {
@@ -113,6 +115,8 @@ public class OCLCodeCache {
 
     private HashMap<String, String> precompiledBinariesPerDevice;
 
+    private OCLBinaryCache binaryCache;
+
     private static class Pair {
         private String taskName;
         private String entryPoint;
@@ -264,6 +268,86 @@ public class OCLCodeCache {
         return resolveDirectory(OPENCL_LOG_DIR);
     }
 
+    /**
+     * Kernels are only stored in the persistent cache for GPUs and CPUs. FPGAs
+     * use their own bitstreams.
+     */
+    private synchronized OCLBinaryCache getBinaryCache() {
+        if (binaryCache == null && OPENCL_CACHE_ENABLE && !deviceContext.isPlatformFPGA() && !isPlatform("apple")) {
+            binaryCache = new OCLBinaryCache(resolveCacheDirectory(), deviceContext);
+        }
+        return binaryCache;
+    }
+
+    /**
+     * It computes the key of a task in the persistent code cache.
+     *
+     * @return the key, or null if the persistent cache is not used for this
+     *         task.
+     */
+    public String computeCacheKey(Sketch sketch, CompilableTask task, long batchThreads) {
+        final OCLBinaryCache binaries = getBinaryCache();
+        return (binaries == null) ? null : binaries.computeKey(sketch, task, batchThreads);
+    }
+
+    /**
+     * It installs a kernel from the persistent code cache. The generated source
+     * and the binary were stored by a previous execution, so neither the Graal
+     * compilation nor the OpenCL build from source are performed.
+     *
+     * @param directArguments
+     *            number of task arguments passed as kernel arguments. It is
+     *            computed with the same rule as the compiler, from inputs that
+     *            are part of the key.
+     * @return the installed code, or null if the kernel is not in the cache.
+     */
+    public OCLInstalledCode installCachedBinary(TaskMetaData meta, String id, String entryPoint, String key, int directArguments) {
+        final OCLBinaryCache binaries = getBinaryCache();
+        if (binaries == null || key == null) {
+            return null;
+        }
+        final OCLBinaryCache.Entry entry = binaries.lookup(key);
+        if (entry == null) {
+            return null;
+        }
+
+        info("Installing cached binary for %s into code cache", entryPoint);
+        final OCLProgram program = deviceContext.createProgramWithBinary(entry.binary, new long[] { entry.binary.length });
+        if (program == null) {
+            return null;
+        }
+        program.build(meta.getCompilerFlags());
+        final OCLBuildStatus status = program.getStatus(deviceContext.getDeviceId());
+        debug("\tOpenCL compilation status = %s", status.toString());
+        if (status != CL_BUILD_SUCCESS) {
+            // The binary is not valid for this driver anymore: compile it again
+            program.cleanup();
+            return null;
+        }
+
+        final OCLKernel kernel = program.getKernel(entryPoint);
+        if (kernel == null) {
+            program.cleanup();
+            return null;
+        }
+        kernelAvailable = true;
+
+        if (OPENCL_PRINT_SOURCE) {
+            System.out.println(new String(entry.source));
+        }
+
+        final OCLInstalledCode code = new OCLInstalledCode(entryPoint, entry.source, deviceContext, program, kernel, directArguments);
+        // The domain is inferred by the compiler, which is skipped
+        if (entry.domain != null) {
+            code.setDomain(entry.domain);
+            if (!meta.hasDomain()) {
+                meta.setDomain(entry.domain);
+            }
+        }
+        cache.put(id + "-" + entryPoint, code);
+        return code;
+    }
+
     boolean isKernelAvailable() {
         return kernelAvailable;
     }
@@ -433,6 +517,10 @@ public class OCLCodeCache {
     }
 
     public OCLInstalledCode installSource(TaskMetaData meta, String id, String entryPoint, byte[] source) {
+        return installSource(meta, id, entryPoint, source, null, 0);
+    }
+
+    public OCLInstalledCode installSource(TaskMetaData meta, String id, String entryPoint, byte[] source, String cacheKey, int directArguments) {
 
         info("Installing code for %s into code cache", entryPoint);
         final OCLProgram program = deviceContext.createProgramWithSource(source, new long[] { source.length });
@@ -493,7 +581,7 @@ public class OCLCodeCache {
             kernelAvailable = true;
         }
 
-        final OCLInstalledCode code = new OCLInstalledCode(entryPoint, source, deviceContext, program, kernel);
+        final OCLInstalledCode code = new OCLInstalledCode(entryPoint, source, deviceContext, program, kernel, directArguments);
 
         if (status == CL_BUILD_SUCCESS) {
             debug("\tOpenCL Kernel id = 0x%x", kernel.getId());
@@ -504,7 +592,9 @@ public class OCLCodeCache {
 
             // BUG Apple does not seem to like implementing the OpenCL spec
             // properly, this causes a sigfault.
-            if ((OPENCL_CACHE_ENABLE || OPENCL_DUMP_BINS) && !deviceContext.getPlatformContext().getPlatform().getVendor().equalsIgnoreCase("Apple")) {
+            if (cacheKey != null && getBinaryCache() != null) {
+                getBinaryCache().store(cacheKey, source, program.getBinary(), meta.getDomain());
+            } else if ((OPENCL_CACHE_ENABLE || OPENCL_DUMP_BINS) && !deviceContext.getPlatformContext().getPlatform().getVendor().equalsIgnoreCase("Apple")) {
                 final Path outDir = resolveCacheDirectory();
                 program.dumpBinaries(outDir.toAbsolutePath().toString() + "/" + entryPoint);
             }
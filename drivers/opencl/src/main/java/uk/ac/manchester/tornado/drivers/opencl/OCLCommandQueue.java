@@ -120,6 +120,10 @@ public class OCLCommandQueue extends TornadoLogger {
 
     native static long readArrayFromDevice(long queueId, double[] buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
 
+    native static long writeBufferToDevice(long queueId, ByteBuffer buffer, long hostOffset, boolean blocking, boolean map, long offset, long bytes, long ptr, long[] events) throws OCLException;
+
+    native static long readBufferFromDevice(long queueId, ByteBuffer buffer, long hostOffset, boolean blocking, boolean map, long offset, long bytes, long ptr, long[] events) throws OCLException;
+
     /*
      * for OpenCL 1.1 compatibility
      */
@@ -377,6 +381,33 @@ public class OCLCommandQueue extends TornadoLogger {
         return -1;
     }
 
+    /**
+     * Copies a direct buffer to the device. The host memory is read by the
+     * OpenCL driver in place, without going through a Java array. If map is
+     * true, the region of the device buffer is mapped and copied on the host
+     * instead of enqueuing a transfer, which is only profitable on devices that
+     * share the host memory.
+     */
+    public long enqueueWrite(long devicePtr, boolean blocking, boolean map, long offset, long bytes, ByteBuffer buffer, long hostOffset, long[] waitEvents) {
+        guarantee(buffer != null && buffer.isDirect(), "buffer is not direct");
+        try {
+            return writeBufferToDevice(id, buffer, hostOffset, blocking, map, offset, bytes, devicePtr, waitEvents);
+        } catch (OCLException e) {
+            error(e.getMessage());
+        }
+        return -1;
+    }
+
+    public long enqueueRead(long devicePtr, boolean blocking, boolean map, long offset, long bytes, ByteBuffer buffer, long hostOffset, long[] waitEvents) {
+        guarantee(buffer != null && buffer.isDirect(), "buffer is not direct");
+        try {
+            return readBufferFromDevice(id, buffer, hostOffset, blocking, map, offset, bytes, devicePtr, waitEvents);
+        } catch (OCLException e) {
+            error(e.getMessage());
+        }
+        return -1;
+    }
+
     public void finish() {
         try {
             clFinish(id);
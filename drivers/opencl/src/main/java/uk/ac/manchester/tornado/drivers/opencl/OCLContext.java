@@ -75,6 +75,7 @@ public class OCLContext extends TornadoLogger {
     private final List<OCLDevice> devices;
     private final List<OCLDeviceContext> deviceContexts;
     private final OCLCommandQueue[] queues;
+    private final List<OCLCommandQueue> additionalQueues;
     private final List<OCLProgram> programs;
     private final long[] allocatedRegions;
     private int allocatedRegionCount;
@@ -88,6 +89,7 @@ public class OCLContext extends TornadoLogger {
         this.devices = devices;
         this.deviceContexts = new ArrayList<>(devices.size());
         this.queues = new OCLCommandQueue[devices.size()];
+        this.additionalQueues = new ArrayList<>();
         this.programs = new ArrayList<>();
         this.allocatedRegions = new long[MAX_ALLOCATED_REGIONS];
         this.allocatedRegionCount = 0;
@@ -141,24 +143,23 @@ public class OCLContext extends TornadoLogger {
         return queues;
     }
 
-    public void createCommandQueue(int index, long properties) {
-        OCLDevice device = devices.get(index);
-        long queueId;
+    private OCLCommandQueue newCommandQueue(OCLDevice device, long properties) {
         try {
-            queueId = clCreateCommandQueue(id, device.getId(), properties);
+            long queueId = clCreateCommandQueue(id, device.getId(), properties);
 
             final int platformVersion = Integer.parseInt(platform.getVersion().split(" ")[1].replace(".", "")) * 10;
             final int deviceVersion = Integer.parseInt(device.getVersion().split(" ")[1].replace(".", "")) * 10;
             info("platform: version=%s (%s) on %s", platformVersion, platform.getVersion(), device.getDeviceName());
             info("device  : version=%s (%s) on %s", deviceVersion, device.getVersion(), device.getDeviceName());
 
-            queues[index] = new OCLCommandQueue(queueId, properties, deviceVersion);
+            return new OCLCommandQueue(queueId, properties, deviceVersion);
         } catch (OCLException e) {
             error(e.getMessage());
+            return null;
         }
     }
 
-    public void createCommandQueue(int index) {
+    private static long getDefaultQueueProperties() {
         long properties = 0;
         if (ENABLE_PROFILING) {
             properties |= CL_QUEUE_PROFILING_ENABLE;
@@ -167,7 +168,34 @@ public class OCLContext extends TornadoLogger {
         if (ENABLE_OOO_EXECUTION) {
             properties |= CL_QUEUE_OUT_OF_ORDER_EXEC_MODE_ENABLE;
         }
-        createCommandQueue(index, properties);
+        return properties;
+    }
+
+    public void createCommandQueue(int index, long properties) {
+        OCLCommandQueue queue = newCommandQueue(devices.get(index), properties);
+        if (queue != null) {
+            queues[index] = queue;
+        }
+    }
+
+    public void createCommandQueue(int index) {
+        createCommandQueue(index, getDefaultQueueProperties());
+    }
+
+    /**
+     * It creates a command queue for the device in addition to the default one.
+     * The queue is released with the context.
+     *
+     * @param device
+     *            OpenCL device of this context.
+     * @return {@link OCLCommandQueue}, or null if the queue cannot be created.
+     */
+    public OCLCommandQueue createAdditionalCommandQueue(OCLDevice device) {
+        OCLCommandQueue queue = newCommandQueue(device, getDefaultQueueProperties());
+        if (queue != null) {
+            additionalQueues.add(queue);
+        }
+        return queue;
     }
 
     public void createAllCommandQueues(long properties) {
@@ -235,6 +263,9 @@ public class OCLContext extends TornadoLogger {
                     queue.cleanup();
                 }
             }
+            for (OCLCommandQueue queue : additionalQueues) {
+                queue.cleanup();
+            }
 
             long t3 = System.nanoTime();
             clReleaseContext(id);
@@ -28,10 +28,13 @@
 package uk.ac.manchester.tornado.drivers.opencl;
 
 import static uk.ac.manchester.tornado.drivers.opencl.OCLCommandQueue.EMPTY_EVENT;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.OPENCL_KERNEL_QUEUES;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.USE_SYNC_FLUSH;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.getProperty;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
@@ -75,6 +78,21 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
     private final OCLDevice device;
     private final OCLCommandQueue queue;
     private final OCLContext context;
+
+    /**
+     * Queues used by the data transfers. They are the default queue unless the
+     * dedicated transfer queues are enabled.
+     */
+    private OCLCommandQueue writeQueue;
+    private OCLCommandQueue readQueue;
+    private OCLCommandQueue uploadQueue;
+    private OCLCommandQueue downloadQueue;
+
+    /**
+     * Pool of queues for the kernels. The first queue of the pool is the default
+     * queue.
+     */
+    private final OCLCommandQueue[] kernelQueues;
     private final OCLMemoryManager memoryManager;
     private boolean needsBump;
     private final long bumpBuffer;
@@ -86,16 +104,27 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
 
     private final OCLEventsWrapper eventsWrapper;
 
+    /**
+     * The device heap is allocated with CL_MEM_ALLOC_HOST_PTR. On devices that
+     * share the host memory, direct buffers are copied through a map of the heap
+     * instead of a transfer.
+     */
+    private final boolean mapDirectBuffers;
+
     protected OCLDeviceContext(OCLDevice device, OCLCommandQueue queue, OCLContext context) {
         this.device = device;
         this.queue = queue;
         this.context = context;
+        this.writeQueue = queue;
+        this.readQueue = queue;
         this.memoryManager = new OCLMemoryManager(this);
         this.codeCache = new OCLCodeCache(this);
 
         setRelativeAddressesFlag();
 
         this.eventsWrapper = new OCLEventsWrapper();
+        this.kernelQueues = createKernelQueues();
+        this.mapDirectBuffers = device.hasDeviceUnifiedMemory();
 
         needsBump = false;
         for (String bumpDevice : BUMP_DEVICES) {
@@ -152,6 +181,93 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
             queue.flush();
         }
         queue.finish();
+        if (uploadQueue != null) {
+            uploadQueue.finish();
+            downloadQueue.finish();
+        }
+        finishKernelQueues();
+    }
+
+    /**
+     * It enables or disables the dedicated transfer queues of the device. While
+     * enabled, writes are enqueued in an upload queue and reads in a download
+     * queue, so they can overlap with the kernels of the default queue. The
+     * operations of different queues are only ordered through events.
+     *
+     * @param enable
+     *            True to use the transfer queues for the next data transfers.
+     */
+    public void useTransferQueues(boolean enable) {
+        if (enable && uploadQueue == null) {
+            uploadQueue = context.createAdditionalCommandQueue(device);
+            downloadQueue = context.createAdditionalCommandQueue(device);
+            if (uploadQueue == null || downloadQueue == null) {
+                warn("unable to create transfer queues for device: %s", device.getDeviceName());
+                uploadQueue = null;
+                downloadQueue = null;
+            }
+        }
+        if (enable && uploadQueue != null) {
+            writeQueue = uploadQueue;
+            readQueue = downloadQueue;
+        } else {
+            writeQueue = queue;
+            readQueue = queue;
+        }
+    }
+
+    public boolean usesTransferQueues() {
+        return writeQueue != queue;
+    }
+
+    /**
+     * It creates the pool of {@code tornado.opencl.queues} kernel queues. The
+     * additional queues are out-of-order queues when the out-of-order execution
+     * is enabled. Kernels of different queues can run concurrently and they are
+     * only ordered through events.
+     */
+    private OCLCommandQueue[] createKernelQueues() {
+        final List<OCLCommandQueue> pool = new ArrayList<>(OPENCL_KERNEL_QUEUES);
+        pool.add(queue);
+        for (int i = 1; i < OPENCL_KERNEL_QUEUES; i++) {
+            final OCLCommandQueue additionalQueue = context.createAdditionalCommandQueue(device);
+            if (additionalQueue == null) {
+                warn("unable to create kernel queue %d for device: %s", i, device.getDeviceName());
+                break;
+            }
+            pool.add(additionalQueue);
+        }
+        return pool.toArray(new OCLCommandQueue[0]);
+    }
+
+    /**
+     * @param index
+     *            Index of the queue. It is taken modulo the size of the pool.
+     */
+    private OCLCommandQueue getKernelQueue(int index) {
+        return kernelQueues[index % kernelQueues.length];
+    }
+
+    private void finishKernelQueues() {
+        for (int i = 1; i < kernelQueues.length; i++) {
+            kernelQueues[i].finish();
+        }
+    }
+
+    /**
+     * Events of a marker in each additional kernel queue. A synchronisation
+     * point of the default queue waits for them, so it also covers the kernels
+     * of the other queues.
+     */
+    private int[] joinKernelQueues() {
+        if (kernelQueues.length == 1 || queue.getOpenclVersion() < 120) {
+            return null;
+        }
+        final int[] events = new int[kernelQueues.length - 1];
+        for (int i = 1; i < kernelQueues.length; i++) {
+            events[i - 1] = eventsWrapper.registerEvent(kernelQueues[i].enqueueMarker(), DESC_SYNC_MARKER, DEFAULT_TAG, kernelQueues[i]);
+        }
+        return events;
     }
 
     public long getDeviceId() {
@@ -159,11 +275,19 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
     }
 
     public int enqueueBarrier() {
+        final int[] kernelQueueEvents = joinKernelQueues();
+        if (kernelQueueEvents != null) {
+            return enqueueBarrier(kernelQueueEvents);
+        }
         long oclEvent = queue.enqueueBarrier();
         return (queue.getOpenclVersion() < 120) ? -1 : eventsWrapper.registerEvent(oclEvent, DESC_SYNC_BARRIER, DEFAULT_TAG, queue);
     }
 
     public int enqueueMarker() {
+        final int[] kernelQueueEvents = joinKernelQueues();
+        if (kernelQueueEvents != null) {
+            return enqueueMarker(kernelQueueEvents);
+        }
         long oclEvent = queue.enqueueMarker();
         return queue.getOpenclVersion() < 120 ? -1 : eventsWrapper.registerEvent(oclEvent, DESC_SYNC_MARKER, DEFAULT_TAG, queue);
     }
@@ -181,7 +305,7 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
     }
 
     public int enqueueTask(OCLKernel kernel, int[] events) {
-        return eventsWrapper.registerEvent(queue.enqueueTask(kernel, eventsWrapper.serialiseEvents(events, queue) ? eventsWrapper.waitEventsBuffer : null), DESC_SERIAL_KERNEL, kernel.getId(), queue);
+        return eventsWrapper.registerEvent(queue.enqueueTask(kernel, eventsWrapper.serialiseEvents(events, queue)), DESC_SERIAL_KERNEL, kernel.getId(), queue);
     }
 
     public int enqueueTask(OCLKernel kernel) {
@@ -189,9 +313,19 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
     }
 
     public int enqueueNDRangeKernel(OCLKernel kernel, int dim, long[] globalWorkOffset, long[] globalWorkSize, long[] localWorkSize, int[] waitEvents) {
+        return enqueueNDRangeKernel(kernel, dim, globalWorkOffset, globalWorkSize, localWorkSize, waitEvents, 0);
+    }
+
+    /**
+     * @param queueIndex
+     *            Index of the kernel queue, taken modulo the number of kernel
+     *            queues ({@code tornado.opencl.queues}).
+     */
+    public int enqueueNDRangeKernel(OCLKernel kernel, int dim, long[] globalWorkOffset, long[] globalWorkSize, long[] localWorkSize, int[] waitEvents, int queueIndex) {
+        final OCLCommandQueue kernelQueue = getKernelQueue(queueIndex);
         return eventsWrapper.registerEvent(
-                queue.enqueueNDRangeKernel(kernel, dim, globalWorkOffset, globalWorkSize, localWorkSize, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_PARALLEL_KERNEL, kernel.getId(), queue);
+                kernelQueue.enqueueNDRangeKernel(kernel, dim, globalWorkOffset, globalWorkSize, localWorkSize, eventsWrapper.serialiseEvents(waitEvents, kernelQueue)),
+                DESC_PARALLEL_KERNEL, kernel.getId(), kernelQueue);
     }
 
     public ByteOrder getByteOrder() {
@@ -203,44 +337,50 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
      */
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_BYTE, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_BYTE, offset, writeQueue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_BYTE, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_BYTE, offset, writeQueue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_INT, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_INT, offset, writeQueue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_LONG, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_LONG, offset, writeQueue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_SHORT, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_SHORT, offset, writeQueue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_FLOAT, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_FLOAT, offset, writeQueue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_DOUBLE, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_DOUBLE, offset, writeQueue);
+    }
+
+    public int enqueueWriteBuffer(long bufferId, long offset, long bytes, ByteBuffer buffer, long hostOffset, int[] waitEvents) {
+        return eventsWrapper.registerEvent(
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, mapDirectBuffers, offset, bytes, buffer, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_BYTE, offset, writeQueue);
     }
 
     /*
@@ -249,44 +389,50 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
      */
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_BYTE, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_BYTE, offset, readQueue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_BYTE, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_BYTE, offset, readQueue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_INT, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_INT, offset, readQueue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_LONG, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_LONG, offset, readQueue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_FLOAT, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_FLOAT, offset, readQueue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_DOUBLE, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_DOUBLE, offset, readQueue);
+    }
+
+    public int enqueueReadBuffer(long bufferId, long offset, long bytes, ByteBuffer buffer, long hostOffset, int[] waitEvents) {
+        return eventsWrapper.registerEvent(
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, mapDirectBuffers, offset, bytes, buffer, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_BYTE, offset, readQueue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_SHORT, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_SHORT, offset, readQueue);
     }
 
     /*
@@ -294,44 +440,50 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
      */
     public void writeBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
         eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_BYTE, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_BYTE, offset, writeQueue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
         eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_BYTE, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_BYTE, offset, writeQueue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
         eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_INT, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_INT, offset, writeQueue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
         eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_LONG, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_LONG, offset, writeQueue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
         eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_SHORT, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_SHORT, offset, writeQueue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
         eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_FLOAT, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_FLOAT, offset, writeQueue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
         eventsWrapper.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_WRITE_DOUBLE, offset, queue);
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_DOUBLE, offset, writeQueue);
+    }
+
+    public void writeBuffer(long bufferId, long offset, long bytes, ByteBuffer buffer, long hostOffset, int[] waitEvents) {
+        eventsWrapper.registerEvent(
+                writeQueue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, mapDirectBuffers, offset, bytes, buffer, hostOffset, eventsWrapper.serialiseEvents(waitEvents, writeQueue)),
+                DESC_WRITE_BYTE, offset, writeQueue);
     }
 
     /*
@@ -339,54 +491,60 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
      */
     public int readBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_BYTE, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_BYTE, offset, readQueue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_BYTE, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_BYTE, offset, readQueue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_INT, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_INT, offset, readQueue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_LONG, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_LONG, offset, readQueue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_FLOAT, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_FLOAT, offset, readQueue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_DOUBLE, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_DOUBLE, offset, readQueue);
+
+    }
 
+    public int readBuffer(long bufferId, long offset, long bytes, ByteBuffer buffer, long hostOffset, int[] waitEvents) {
+        return eventsWrapper.registerEvent(
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, mapDirectBuffers, offset, bytes, buffer, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_BYTE, offset, readQueue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
         return eventsWrapper.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, queue) ? eventsWrapper.waitEventsBuffer : null),
-                DESC_READ_SHORT, offset, queue);
+                readQueue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, eventsWrapper.serialiseEvents(waitEvents, readQueue)),
+                DESC_READ_SHORT, offset, readQueue);
     }
 
     public int enqueueBarrier(int[] events) {
-        long oclEvent = queue.enqueueBarrier(eventsWrapper.serialiseEvents(events, queue) ? eventsWrapper.waitEventsBuffer : null);
+        long oclEvent = queue.enqueueBarrier(eventsWrapper.serialiseEvents(events, queue));
         return queue.getOpenclVersion() < 120 ? -1 : eventsWrapper.registerEvent(oclEvent, DESC_SYNC_BARRIER, DEFAULT_TAG, queue);
     }
 
     public int enqueueMarker(int[] events) {
-        long oclEvent = queue.enqueueMarker(eventsWrapper.serialiseEvents(events, queue) ? eventsWrapper.waitEventsBuffer : null);
+        long oclEvent = queue.enqueueMarker(eventsWrapper.serialiseEvents(events, queue));
         return queue.getOpenclVersion() < 120 ? -1 : eventsWrapper.registerEvent(oclEvent, DESC_SYNC_MARKER, DEFAULT_TAG, queue);
     }
 
@@ -477,10 +635,18 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
 
     public void flush() {
         queue.flush();
+        if (uploadQueue != null) {
+            uploadQueue.flush();
+            downloadQueue.flush();
+        }
+        for (int i = 1; i < kernelQueues.length; i++) {
+            kernelQueues[i].flush();
+        }
     }
 
     public void finish() {
         queue.finish();
+        finishKernelQueues();
     }
 
     public void flushEvents() {
@@ -492,7 +658,15 @@ public class OCLDeviceContext extends TornadoLogger implements Initialisable, To
     }
 
     public OCLInstalledCode installCode(OCLCompilationResult result) {
-        return installCode(result.getMeta(), result.getId(), result.getName(), result.getTargetCode());
+        return installCode(result, null);
+    }
+
+    public OCLInstalledCode installCode(OCLCompilationResult result, String cacheKey) {
+        return codeCache.installSource(result.getMeta(), result.getId(), result.getName(), result.getTargetCode(), cacheKey, result.getDirectArguments());
+    }
+
+    public OCLInstalledCode installCachedCode(TaskMetaData meta, String id, String entryPoint, String cacheKey, int directArguments) {
+        return codeCache.installCachedBinary(meta, id, entryPoint, cacheKey, directArguments);
     }
 
     public OCLInstalledCode installCode(TaskMetaData meta, String id, String entryPoint, byte[] code) {
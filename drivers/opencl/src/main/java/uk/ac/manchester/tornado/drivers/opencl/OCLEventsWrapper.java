@@ -42,7 +42,10 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.getProperty;
  * and handles event registration and serialization. Also contains extra
  * information such as events description and tag.
  * 
- * Only one instance of this class is created per device.
+ * Only one instance of this class is created per device. It is shared by the
+ * threads that execute task-schedules on the device, so the event window is
+ * updated under the lock of the instance and each thread serialises its wait
+ * lists in its own buffer.
  */
 class OCLEventsWrapper {
 
@@ -56,7 +59,7 @@ class OCLEventsWrapper {
     private int eventIndex;
 
     private final OCLEvent internalEvent;
-    protected final long[] waitEventsBuffer;
+    private final ThreadLocal<long[]> waitEventsBuffers;
 
     protected OCLEventsWrapper() {
         this.retain = new BitSet(EVENT_WINDOW);
@@ -66,11 +69,11 @@ class OCLEventsWrapper {
         this.tags = new long[EVENT_WINDOW];
         this.eventQueues = new OCLCommandQueue[EVENT_WINDOW];
         this.eventIndex = 0;
-        this.waitEventsBuffer = new long[MAX_WAIT_EVENTS];
+        this.waitEventsBuffers = ThreadLocal.withInitial(() -> new long[MAX_WAIT_EVENTS]);
         this.internalEvent = new OCLEvent();
     }
 
-    protected int registerEvent(long oclEventId, int descriptorId, long tag, OCLCommandQueue queue) {
+    protected synchronized int registerEvent(long oclEventId, int descriptorId, long tag, OCLCommandQueue queue) {
         if (retain.get(eventIndex)) {
             findNextEventSlot();
         }
@@ -111,18 +114,27 @@ class OCLEventsWrapper {
         guarantee(eventIndex != -1, "event window is full (retained=%d, capacity=%d)", retain.cardinality(), EVENT_WINDOW);
     }
 
-    protected boolean serialiseEvents(int[] dependencies, OCLCommandQueue queue) {
+    /**
+     * It builds the OpenCL wait list of an operation enqueued by the current
+     * thread.
+     *
+     * @return the wait list, or null if the operation does not have to wait for
+     *         any event.
+     */
+    protected synchronized long[] serialiseEvents(int[] dependencies, OCLCommandQueue queue) {
         boolean outOfOrderQueue = (queue.getProperties() & CL_QUEUE_OUT_OF_ORDER_EXEC_MODE_ENABLE) == 1;
-        if (dependencies == null || dependencies.length == 0 || !outOfOrderQueue) {
-            return false;
+        if (dependencies == null || dependencies.length == 0) {
+            return null;
         }
 
+        final long[] waitEventsBuffer = waitEventsBuffers.get();
         Arrays.fill(waitEventsBuffer, 0);
 
         int index = 0;
         for (int i = 0; i < dependencies.length; i++) {
             final int value = dependencies[i];
-            if (value != -1) {
+            // In-order queues only wait explicitly for the events of other queues
+            if (value != -1 && (outOfOrderQueue || eventQueues[value] != queue)) {
                 index++;
                 waitEventsBuffer[index] = events[value];
                 debug("[%d] 0x%x - %s 0x%x\n", index, events[value], EVENT_DESCRIPTIONS[descriptors[value]], tags[value]);
@@ -130,10 +142,10 @@ class OCLEventsWrapper {
             }
         }
         waitEventsBuffer[0] = index;
-        return (index > 0);
+        return (index > 0) ? waitEventsBuffer : null;
     }
 
-    public List<OCLEvent> getEvents() {
+    public synchronized List<OCLEvent> getEvents() {
         List<OCLEvent> result = new ArrayList<>();
         for (int i = 0; i < eventIndex; i++) {
             final long eventId = events[i];
@@ -145,16 +157,16 @@ class OCLEventsWrapper {
         return result;
     }
 
-    protected void reset() {
+    protected synchronized void reset() {
         Arrays.fill(events, 0);
         eventIndex = 0;
     }
 
-    protected void retainEvent(int localEventID) {
+    protected synchronized void retainEvent(int localEventID) {
         retain.set(localEventID);
     }
 
-    protected void releaseEvent(int localEventID) {
+    protected synchronized void releaseEvent(int localEventID) {
         retain.clear(localEventID);
     }
 
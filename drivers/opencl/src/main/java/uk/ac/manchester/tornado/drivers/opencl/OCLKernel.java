@@ -41,6 +41,9 @@ public class OCLKernel extends TornadoLogger {
     private final OCLDeviceContext deviceContext;
     private final ByteBuffer buffer;
     private String kernelName;
+    private int numArgs;
+    private long[] argValues;
+    private boolean[] argSet;
 
     public OCLKernel(long id, OCLDeviceContext deviceContext) {
         this.id = id;
@@ -50,7 +53,7 @@ public class OCLKernel extends TornadoLogger {
         this.kernelName = "unknown";
 
         queryName();
-
+        queryNumArgs();
     }
 
     native static void clReleaseKernel(long kernelId) throws OCLException;
@@ -114,6 +117,38 @@ public class OCLKernel extends TornadoLogger {
         }
     }
 
+    private void queryNumArgs() {
+        Arrays.fill(buffer.array(), (byte) 0);
+        buffer.clear();
+        try {
+            clGetKernelInfo(id, OCLKernelInfo.CL_KERNEL_NUM_ARGS.getValue(), buffer.array());
+            numArgs = buffer.getInt(0);
+        } catch (OCLException e) {
+            e.printStackTrace();
+        }
+        argValues = new long[numArgs];
+        argSet = new boolean[numArgs];
+    }
+
+    public int getNumArgs() {
+        return numArgs;
+    }
+
+    /**
+     * It sets a 64-bit scalar argument. The last value of each argument is
+     * cached, so the call is skipped when the value has not changed.
+     */
+    public void setArg(int index, long value) {
+        if (argSet[index] && argValues[index] == value) {
+            return;
+        }
+        buffer.clear();
+        buffer.putLong(value);
+        setArg(index, buffer);
+        argValues[index] = value;
+        argSet[index] = true;
+    }
+
     public long getId() {
         return id;
     }
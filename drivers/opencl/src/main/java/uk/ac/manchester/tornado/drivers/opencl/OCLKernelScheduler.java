@@ -36,21 +36,32 @@ public abstract class OCLKernelScheduler {
     protected double min;
     protected double max;
 
+    private OCLWorkGroupTuner tuner;
+
     OCLKernelScheduler(final OCLDeviceContext context) {
         deviceContext = context;
     }
 
+    public void setTuner(OCLWorkGroupTuner tuner) {
+        this.tuner = tuner;
+    }
+
     public abstract void calculateGlobalWork(final TaskMetaData meta, long batchThreads);
 
     public abstract void calculateLocalWork(final TaskMetaData meta);
 
     public int submit(final OCLKernel kernel, final TaskMetaData meta, long batchThreads) {
-        return submit(kernel, meta, null, batchThreads);
+        return submit(kernel, meta, null, batchThreads, 0);
     }
 
     private void updateProfiler(final int taskEvent, final TaskMetaData meta) {
         if (TornadoOptions.isProfilerEnabled()) {
             Event tornadoKernelEvent = deviceContext.resolveEvent(taskEvent);
+            if (meta.getProfilerEvents() != null) {
+                // The time is read once all the commands of the task-schedule are submitted
+                meta.getProfilerEvents().addKernel(meta.getId(), tornadoKernelEvent);
+                return;
+            }
             tornadoKernelEvent.waitForEvents();
             long timer = meta.getProfiler().getTimer(ProfilerType.TOTAL_KERNEL_TIME);
             // Register globalTime
@@ -60,12 +71,12 @@ public abstract class OCLKernelScheduler {
         }
     }
 
-    public int launch(final OCLKernel kernel, final TaskMetaData meta, final int[] waitEvents, long batchThreads) {
+    public int launch(final OCLKernel kernel, final TaskMetaData meta, final int[] waitEvents, long batchThreads, int queueIndex) {
         return deviceContext.enqueueNDRangeKernel(kernel, meta.getDims(), meta.getGlobalOffset(), meta.getGlobalWork(), (meta.shouldUseOpenCLDriverScheduling() ? null : meta.getLocalWork()),
-                waitEvents);
+                waitEvents, queueIndex);
     }
 
-    public int submit(final OCLKernel kernel, final TaskMetaData meta, final int[] waitEvents, long batchThreads) {
+    public int submit(final OCLKernel kernel, final TaskMetaData meta, final int[] waitEvents, long batchThreads, int queueIndex) {
         if (!meta.isGlobalWorkDefined()) {
             calculateGlobalWork(meta, batchThreads);
         }
@@ -77,7 +88,12 @@ public abstract class OCLKernelScheduler {
         if (meta.isDebug()) {
             meta.printThreadDims();
         }
-        final int taskEvent = launch(kernel, meta, waitEvents, batchThreads);
+        final int taskEvent;
+        if (tuner != null && tuner.isTunable(meta)) {
+            taskEvent = tuner.launch(kernel, meta, waitEvents, queueIndex);
+        } else {
+            taskEvent = launch(kernel, meta, waitEvents, batchThreads, queueIndex);
+        }
         updateProfiler(taskEvent, meta);
         return taskEvent;
     }
@@ -78,6 +78,14 @@ public class OCLTargetDescription extends TargetDescription {
         return extensions;
     }
 
+    public boolean supportsInt64Atomics() {
+        return extensions != null && extensions.contains("cl_khr_int64_base_atomics");
+    }
+
+    public boolean supportsInt64ExtendedAtomics() {
+        return extensions != null && extensions.contains("cl_khr_int64_extended_atomics");
+    }
+
     // should use OCLKind.lookupLengthIndex instead
     private static int lookupLengthIndex(int vectorLength) {
         switch (vectorLength) {
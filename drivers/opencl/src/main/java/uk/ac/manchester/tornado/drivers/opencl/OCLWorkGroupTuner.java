@@ -0,0 +1,232 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TuningDatabase;
+
+/**
+ * Local work size autotuner of a kernel.
+ * 
+ * On the first executions of each task and problem size class, the kernel is
+ * launched with a different candidate local work size each time, and the time
+ * of the kernel event is recorded. Candidates that do not divide the global
+ * work size are launched with the global work size rounded up: the parallel
+ * loops of the generated kernels iterate up to the original size, so the extra
+ * threads do not execute the loop body. Once all candidates have been measured
+ * {@link TornadoOptions#AUTOTUNE_RUNS} times, the fastest one is stored in the
+ * {@link TuningDatabase} and used by the following executions.
+ * 
+ * Kernels that synchronise or share data within a work group (e.g.
+ * reductions) depend on the local work size and are never tuned.
+ */
+public class OCLWorkGroupTuner {
+
+    private static final long MIN_GROUP_SIZE = 32;
+    private static final long[] GROUP_SIZES_X = { 16, 32, 64, 128, 256 };
+    private static final long[] GROUP_SIZES_Y = { 1, 2, 4, 8, 16 };
+
+    private static final String[] GROUP_DEPENDENT_BUILTINS = { "barrier(", "__local", "get_local_id(", "get_local_size(", "get_group_id(", "get_num_groups(" };
+
+    private final OCLDeviceContext deviceContext;
+    private final String kernelName;
+    private final Map<String, Search> searches;
+
+    private static class Search {
+        final List<long[]> candidates;
+        final long[] times;
+        int iteration;
+
+        Search(List<long[]> candidates) {
+            this.candidates = candidates;
+            this.times = new long[candidates.size()];
+            Arrays.fill(times, Long.MAX_VALUE);
+        }
+
+        long[] next() {
+            return candidates.get(iteration % candidates.size());
+        }
+
+        void record(long time) {
+            final int index = iteration % candidates.size();
+            times[index] = Math.min(times[index], time);
+            iteration++;
+        }
+
+        boolean isDone() {
+            return iteration >= candidates.size() * Math.max(TornadoOptions.AUTOTUNE_RUNS, 1);
+        }
+
+        int best() {
+            int best = 0;
+            for (int i = 1; i < times.length; i++) {
+                if (times[i] < times[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+    }
+
+    private OCLWorkGroupTuner(OCLDeviceContext deviceContext, String kernelName) {
+        this.deviceContext = deviceContext;
+        this.kernelName = kernelName;
+        this.searches = new HashMap<>();
+    }
+
+    /**
+     * It creates the tuner of a kernel.
+     * 
+     * @return {@link OCLWorkGroupTuner}, or null if the local work size of the
+     *         kernel cannot be changed.
+     */
+    public static OCLWorkGroupTuner create(OCLDeviceContext deviceContext, OCLKernelScheduler scheduler, OCLKernel kernel, byte[] source) {
+        if (!TornadoOptions.AUTOTUNE && TuningDatabase.isEmpty()) {
+            return null;
+        }
+        if (kernel == null || source == null || deviceContext.isPlatformFPGA()) {
+            return null;
+        }
+        if (!(scheduler instanceof OCLGPUScheduler || scheduler instanceof OCLAMDScheduler)) {
+            return null;
+        }
+        final String code = new String(source, StandardCharsets.UTF_8);
+        if (!code.contains("__kernel")) {
+            // Binaries cannot be inspected
+            return null;
+        }
+        // The signature of every kernel declares the local memory region
+        final String body = code.substring(code.indexOf('{', code.indexOf("__kernel")) + 1);
+        for (String builtin : GROUP_DEPENDENT_BUILTINS) {
+            if (body.contains(builtin)) {
+                return null;
+            }
+        }
+        return new OCLWorkGroupTuner(deviceContext, kernel.getName());
+    }
+
+    private String getConfiguration(TaskMetaData meta) {
+        return deviceContext.getDevice().getDeviceName() + "|" + kernelName + "|" + TuningDatabase.getSizeClass(meta.getGlobalWork(), meta.getDims());
+    }
+
+    /**
+     * It checks whether the tuner decides the local work size of the next launch
+     * of a task. The sizes set by the user are always respected.
+     */
+    public boolean isTunable(TaskMetaData meta) {
+        if (!TornadoOptions.AUTOTUNE && !meta.hasTunedLocalWork()) {
+            return false;
+        }
+        if (meta.getDims() == 0 || meta.isLocalWorkDefined() || meta.isGlobalWorkDefined() || meta.shouldUseOpenCLDriverScheduling() || meta.enableThreadCoarsener()) {
+            return false;
+        }
+        return TornadoOptions.AUTOTUNE || meta.getTunedLocalWork(getConfiguration(meta)) != null;
+    }
+
+    public int launch(OCLKernel kernel, TaskMetaData meta, int[] waitEvents, int queueIndex) {
+        final String configuration = getConfiguration(meta);
+        final long[] tuned = meta.getTunedLocalWork(configuration);
+        if (tuned != null) {
+            return enqueue(kernel, meta, tuned, waitEvents, queueIndex);
+        }
+
+        final String searchKey = meta.getId() + "|" + configuration;
+        Search search = searches.get(searchKey);
+        if (search == null) {
+            search = new Search(getCandidates(meta));
+            searches.put(searchKey, search);
+        }
+
+        final long[] localWork = search.next();
+        final int task = enqueue(kernel, meta, localWork, waitEvents, queueIndex);
+        final Event event = deviceContext.resolveEvent(task);
+        event.waitForEvents();
+        search.record(event.getExecutionTime());
+
+        if (search.isDone()) {
+            final int best = search.best();
+            meta.setTunedLocalWork(configuration, search.candidates.get(best), search.times[best]);
+            searches.remove(searchKey);
+            if (meta.isDebug()) {
+                System.out.printf("task %s: tuned local work size %s (%d ns)\n", meta.getId(), Arrays.toString(search.candidates.get(best)), search.times[best]);
+            }
+        }
+        return task;
+    }
+
+    private int enqueue(OCLKernel kernel, TaskMetaData meta, long[] localWork, int[] waitEvents, int queueIndex) {
+        final int dims = meta.getDims();
+        final long[] globalWork = new long[dims];
+        for (int i = 0; i < dims; i++) {
+            final long global = meta.getGlobalWork()[i];
+            globalWork[i] = ((global + localWork[i] - 1) / localWork[i]) * localWork[i];
+        }
+        return deviceContext.enqueueNDRangeKernel(kernel, dims, meta.getGlobalOffset(), globalWork, localWork, waitEvents, queueIndex);
+    }
+
+    private List<long[]> getCandidates(TaskMetaData meta) {
+        final OCLDevice device = deviceContext.getDevice();
+        final long maxWorkGroupSize = device.getDeviceMaxWorkGroupSize();
+        final long[] maxWorkItemSizes = device.getDeviceMaxWorkItemSizes();
+        final long[] globalWork = meta.getGlobalWork();
+
+        final List<long[]> candidates = new ArrayList<>();
+        // The size chosen by the scheduler is always a candidate
+        candidates.add(Arrays.copyOf(meta.getLocalWork(), 3));
+
+        if (meta.getDims() == 1) {
+            for (long x = MIN_GROUP_SIZE; x <= Math.min(maxWorkGroupSize, maxWorkItemSizes[0]) && x < 2 * globalWork[0]; x *= 2) {
+                addCandidate(candidates, new long[] { x, 1, 1 });
+            }
+        } else {
+            for (long x : GROUP_SIZES_X) {
+                for (long y : GROUP_SIZES_Y) {
+                    final long size = x * y;
+                    if (size >= MIN_GROUP_SIZE && size <= maxWorkGroupSize && x <= maxWorkItemSizes[0] && y <= maxWorkItemSizes[1] && x < 2 * globalWork[0] && y < 2 * globalWork[1]) {
+                        addCandidate(candidates, new long[] { x, y, 1 });
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static void addCandidate(List<long[]> candidates, long[] localWork) {
+        for (long[] candidate : candidates) {
+            if (Arrays.equals(candidate, localWork)) {
+                return;
+            }
+        }
+        candidates.add(localWork);
+    }
+}
@@ -41,6 +41,7 @@ import uk.ac.manchester.tornado.drivers.opencl.OCLKernel;
 import uk.ac.manchester.tornado.drivers.opencl.OCLKernelScheduler;
 import uk.ac.manchester.tornado.drivers.opencl.OCLProgram;
 import uk.ac.manchester.tornado.drivers.opencl.OCLScheduler;
+import uk.ac.manchester.tornado.drivers.opencl.OCLWorkGroupTuner;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLByteBuffer;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLCallStack;
 import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLTornadoDevice;
@@ -48,6 +49,7 @@ import uk.ac.manchester.tornado.runtime.common.CallStack;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.domain.DomainTree;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class OCLInstalledCode extends InstalledCode implements TornadoInstalledCode {
@@ -67,15 +69,49 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
     private final long[] singleThreadGlobalWorkSize = new long[] { 1 };
     private final long[] singleThreadLocalWorkSize = new long[] { 1 };
 
+    /**
+     * Number of task arguments received as OpenCL kernel arguments instead of
+     * through the call-stack ({@code -Dtornado.opencl.directargs=True}).
+     */
+    private final int directArguments;
+
+    /**
+     * Call-stack whose arguments are currently set in the kernel. Several
+     * instances of a task-schedule running concurrently share the kernel, each
+     * one with its own call-stack.
+     */
+    private OCLCallStack kernelArgumentsStack;
+
+    /**
+     * Domain inferred when the kernel was compiled. Tasks that share the kernel
+     * from the code cache are not compiled, so they take the domain from here.
+     */
+    private DomainTree domain;
+
     public OCLInstalledCode(final String entryPoint, final byte[] code, final OCLDeviceContext deviceContext, final OCLProgram program, final OCLKernel kernel) {
+        this(entryPoint, code, deviceContext, program, kernel, 0);
+    }
+
+    /**
+     * @param directArguments
+     *            number of task arguments that the kernel receives as OpenCL
+     *            kernel arguments, as recorded by the compiler.
+     */
+    public OCLInstalledCode(final String entryPoint, final byte[] code, final OCLDeviceContext deviceContext, final OCLProgram program, final OCLKernel kernel, final int directArguments) {
         super(entryPoint);
         this.code = code;
         this.deviceContext = deviceContext;
         this.scheduler = OCLScheduler.create(deviceContext);
+        if (scheduler != null) {
+            scheduler.setTuner(OCLWorkGroupTuner.create(deviceContext, scheduler, kernel, code));
+        }
         this.DEFAULT_SCHEDULER = new OCLGPUScheduler(deviceContext);
         this.kernel = kernel;
         this.program = program;
         valid = kernel != null;
+        this.directArguments = valid ? directArguments : 0;
+        guarantee(!valid || kernel.getNumArgs() == getNumABIArguments() + this.directArguments, "kernel %s has %d arguments, expected %d", entryPoint, valid ? kernel.getNumArgs() : 0,
+                getNumABIArguments() + this.directArguments);
         buffer.order(deviceContext.getByteOrder());
     }
 
@@ -100,6 +136,14 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         return kernel;
     }
 
+    public DomainTree getDomain() {
+        return domain;
+    }
+
+    public void setDomain(DomainTree domain) {
+        this.domain = domain;
+    }
+
     /**
      * It executes a kernel with 1 thread (the equivalent of calling clEnqueueTask.
      * 
@@ -123,9 +167,9 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         } else {
             if (meta != null && meta.isParallel()) {
                 if (meta.enableThreadCoarsener()) {
-                    task = DEFAULT_SCHEDULER.submit(kernel, meta, null, 0);
+                    task = DEFAULT_SCHEDULER.submit(kernel, meta, 0);
                 } else {
-                    task = scheduler.submit(kernel, meta, null, 0);
+                    task = scheduler.submit(kernel, meta, 0);
                 }
             } else {
                 task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, singleThreadGlobalWorkSize, singleThreadLocalWorkSize, null);
@@ -173,6 +217,14 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         return new String(code);
     }
 
+    private int getNumABIArguments() {
+        return OCLArchitecture.abiRegisters.length + (deviceContext.needsBump() ? 1 : 0);
+    }
+
+    public boolean usesDirectArguments() {
+        return directArguments > 0;
+    }
+
     /**
      * Set arguments into the OpenCL device Kernel.
      * 
@@ -221,9 +273,16 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
             kernel.setArgUnused(index);
         }
         index++;
+
+        // task arguments, read from the host copy of the call-stack
+        for (int i = 0; i < directArguments; i++) {
+            final int slot = i << 3;
+            kernel.setArg(index, (slot + 8 <= stack.buffer().position()) ? stack.getLong(slot) : 0L);
+            index++;
+        }
     }
 
-    public int submitWithEvents(final OCLCallStack stack, final TaskMetaData meta, final int[] events, long batchThreads) {
+    public int submitWithEvents(final OCLCallStack stack, final TaskMetaData meta, final int[] events, long batchThreads, int queueIndex) {
         guarantee(kernel != null, "kernel is null");
 
         if (DEBUG) {
@@ -237,21 +296,30 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         final int[] waitEvents;
         if (!stack.isOnDevice()) {
             setKernelArgs(stack, meta);
-            internalEvents[0] = stack.enqueueWrite(events);
-            waitEvents = internalEvents;
+            if (usesDirectArguments()) {
+                stack.setPassedAsKernelArguments();
+                waitEvents = events;
+            } else {
+                internalEvents[0] = stack.enqueueWrite(events);
+                waitEvents = internalEvents;
+            }
         } else {
+            if (stack != kernelArgumentsStack) {
+                setKernelArgs(stack, meta);
+            }
             waitEvents = events;
         }
+        kernelArgumentsStack = stack;
 
         int task;
         if (meta == null) {
-            task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, singleThreadGlobalWorkSize, singleThreadLocalWorkSize, waitEvents);
+            task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, singleThreadGlobalWorkSize, singleThreadLocalWorkSize, waitEvents, queueIndex);
         } else {
             if (meta.isParallel()) {
                 if (meta.enableThreadCoarsener()) {
-                    task = DEFAULT_SCHEDULER.submit(kernel, meta, waitEvents, batchThreads);
+                    task = DEFAULT_SCHEDULER.submit(kernel, meta, waitEvents, batchThreads, queueIndex);
                 } else {
-                    task = scheduler.submit(kernel, meta, waitEvents, batchThreads);
+                    task = scheduler.submit(kernel, meta, waitEvents, batchThreads, queueIndex);
                 }
             } else {
                 if (meta.isDebug()) {
@@ -262,9 +330,9 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
                     }
                 }
                 if (meta.getGlobalWork() == null) {
-                    task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, singleThreadGlobalWorkSize, singleThreadLocalWorkSize, waitEvents);
+                    task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, singleThreadGlobalWorkSize, singleThreadLocalWorkSize, waitEvents, queueIndex);
                 } else {
-                    task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, meta.getGlobalWork(), meta.getLocalWork(), waitEvents);
+                    task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, meta.getGlobalWork(), meta.getLocalWork(), waitEvents, queueIndex);
                 }
             }
 
@@ -302,7 +370,9 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
             // Ahead Of Time kernel execution
             task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, meta.getGlobalWork(), meta.getLocalWork(), null);
         }
-        if (TornadoOptions.isProfilerEnabled()) {
+        if (TornadoOptions.isProfilerEnabled() && meta.getProfilerEvents() != null) {
+            meta.getProfilerEvents().addKernel(meta.getId(), deviceContext.resolveEvent(task));
+        } else if (TornadoOptions.isProfilerEnabled()) {
             Event tornadoKernelEvent = deviceContext.resolveEvent(task);
             tornadoKernelEvent.waitForEvents();
             long timer = meta.getProfiler().getTimer(ProfilerType.TOTAL_KERNEL_TIME);
@@ -363,8 +433,15 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
          */
         if (!stack.isOnDevice()) {
             setKernelArgs(stack, meta);
-            stack.enqueueWrite();
+            if (usesDirectArguments()) {
+                stack.setPassedAsKernelArguments();
+            } else {
+                stack.enqueueWrite();
+            }
+        } else if (stack != kernelArgumentsStack) {
+            setKernelArgs(stack, meta);
         }
+        kernelArgumentsStack = stack;
 
         guarantee(kernel != null, "kernel is null");
         if (meta == null) {
@@ -374,13 +451,18 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         }
     }
 
+    /*
+     * The kernel arguments are set and the kernel is enqueued under the lock of
+     * the installed code, since the kernel is shared by all the callers of the
+     * task-schedule.
+     */
     @Override
-    public int launchWithDependencies(CallStack stack, TaskMetaData meta, long batchThreads, int[] waitEvents) {
-        return submitWithEvents((OCLCallStack) stack, meta, waitEvents, batchThreads);
+    public synchronized int launchWithDependencies(CallStack stack, TaskMetaData meta, long batchThreads, int[] waitEvents, int queueIndex) {
+        return submitWithEvents((OCLCallStack) stack, meta, waitEvents, batchThreads, queueIndex);
     }
 
     @Override
-    public int launchWithoutDependencies(CallStack stack, TaskMetaData meta, long batchThreads) {
+    public synchronized int launchWithoutDependencies(CallStack stack, TaskMetaData meta, long batchThreads) {
         submitWithoutEvents((OCLCallStack) stack, meta, batchThreads);
         return -1;
     }
@@ -90,11 +90,13 @@ import jdk.vm.ci.meta.ResolvedJavaField;
 import jdk.vm.ci.meta.ResolvedJavaType;
 import uk.ac.manchester.tornado.api.exceptions.Debug;
 import uk.ac.manchester.tornado.drivers.opencl.OCLTargetDescription;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLAtomicAccessNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLLoadHalfNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLStoreHalfNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLWriteAtomicNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLWriteAtomicNode.ATOMIC_OPERATION;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLWriteNode;
-import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.AtomicAddNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.CastNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.FixedArrayNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadIdNode;
@@ -106,11 +108,15 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.vector.VectorStoreNod
 import uk.ac.manchester.tornado.drivers.opencl.graal.snippets.ReduceCPUSnippets;
 import uk.ac.manchester.tornado.drivers.opencl.graal.snippets.ReduceGPUSnippets;
 import uk.ac.manchester.tornado.runtime.TornadoVMConfig;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.LoadHalfIndexedNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.NewArrayNonVirtualizableNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.NewLocalArrayNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.OCLReduceAddNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.OCLReduceMulNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.OCLReduceSubNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreHalfIndexedNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.TornadoDirectCallTargetNode;
 import uk.ac.manchester.tornado.runtime.graal.phases.MarkLocalArray;
 
@@ -160,8 +166,12 @@ public class OCLLoweringProvider extends DefaultJavaLoweringProvider {
             lowerFloatConvertNode((FloatConvertNode) node);
         } else if (node instanceof NewArrayNonVirtualizableNode) {
             lowerNewArrayNode((NewArrayNonVirtualizableNode) node);
-        } else if (node instanceof AtomicAddNode) {
-            lowerAtomicAddNode((AtomicAddNode) node, tool);
+        } else if (node instanceof AtomicIndexedNode) {
+            lowerAtomicIndexedNode((AtomicIndexedNode) node);
+        } else if (node instanceof LoadHalfIndexedNode) {
+            lowerLoadHalfIndexedNode((LoadHalfIndexedNode) node);
+        } else if (node instanceof StoreHalfIndexedNode) {
+            lowerStoreHalfIndexedNode((StoreHalfIndexedNode) node);
         } else if (node instanceof LoadIndexedNode) {
             lowerLoadIndexedNode((LoadIndexedNode) node, tool);
         } else if (node instanceof StoreIndexedNode) {
@@ -363,8 +373,33 @@ public class OCLLoweringProvider extends DefaultJavaLoweringProvider {
         graph.replaceFixedWithFixed(storeField, memoryWrite);
     }
 
-    private void lowerAtomicAddNode(AtomicAddNode atomicAdd, LoweringTool tool) {
-        shouldNotReachHere("need to use builtin nodes");
+    private void lowerAtomicIndexedNode(AtomicIndexedNode atomicNode) {
+        StructuredGraph graph = atomicNode.graph();
+        ValueNode array = atomicNode.array();
+        AddressNode address;
+        if (array instanceof MarkLocalArray || array instanceof NewLocalArrayNode) {
+            address = createArrayLocalAddress(graph, array, atomicNode.index());
+        } else {
+            address = createArrayAddress(graph, array, atomicNode.elementKind(), atomicNode.index());
+        }
+        OCLAtomicAccessNode atomicAccess = graph.add(new OCLAtomicAccessNode(address, atomicNode.stamp(NodeView.DEFAULT), atomicNode.operation(), atomicNode.value(), atomicNode.expected()));
+        atomicAccess.setStateAfter(atomicNode.stateAfter());
+        graph.replaceFixedWithFixed(atomicNode, atomicAccess);
+    }
+
+    private void lowerLoadHalfIndexedNode(LoadHalfIndexedNode loadHalf) {
+        StructuredGraph graph = loadHalf.graph();
+        AddressNode address = createArrayAddress(graph, loadHalf.array(), JavaKind.Short, loadHalf.index());
+        OCLLoadHalfNode memoryRead = graph.add(new OCLLoadHalfNode(address));
+        graph.replaceFixedWithFixed(loadHalf, memoryRead);
+    }
+
+    private void lowerStoreHalfIndexedNode(StoreHalfIndexedNode storeHalf) {
+        StructuredGraph graph = storeHalf.graph();
+        AddressNode address = createArrayAddress(graph, storeHalf.array(), JavaKind.Short, storeHalf.index());
+        OCLStoreHalfNode memoryWrite = graph.add(new OCLStoreHalfNode(address, storeHalf.value()));
+        memoryWrite.setStateAfter(storeHalf.stateAfter());
+        graph.replaceFixedWithFixed(storeHalf, memoryWrite);
     }
 
     private void lowerInvoke(Invoke invoke, LoweringTool tool, StructuredGraph graph) {
@@ -431,7 +466,7 @@ public class OCLLoweringProvider extends DefaultJavaLoweringProvider {
                 final ConstantNode lengthNode = (ConstantNode) firstInput;
                 if (lengthNode.getValue() instanceof PrimitiveConstant) {
                     final int length = ((PrimitiveConstant) lengthNode.getValue()).asInt();
-                    if (gpuSnippet) {
+                    if (gpuSnippet || newArray instanceof NewLocalArrayNode) {
                         lowerLocalNewArray(graph, length, newArray);
                     } else {
                         lowerPrivateNewArray(graph, length, newArray);
@@ -32,6 +32,7 @@ import static uk.ac.manchester.tornado.drivers.opencl.graal.asm.OCLAssemblerCons
 import static uk.ac.manchester.tornado.drivers.opencl.graal.asm.OCLAssemblerConstants.HEAP_REF_NAME;
 import static uk.ac.manchester.tornado.drivers.opencl.graal.asm.OCLAssemblerConstants.LOCAL_REGION_NAME;
 import static uk.ac.manchester.tornado.drivers.opencl.graal.asm.OCLAssemblerConstants.PRIVATE_REGION_NAME;
+import static uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind.DOUBLE;
 import static uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind.FLOAT;
 import static uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind.LONG;
 import static uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind.ULONG;
@@ -50,6 +51,7 @@ import jdk.vm.ci.code.TargetDescription;
 import jdk.vm.ci.hotspot.HotSpotObjectConstant;
 import jdk.vm.ci.meta.Constant;
 import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.Value;
 import uk.ac.manchester.tornado.drivers.opencl.OCLTargetDescription;
 import uk.ac.manchester.tornado.drivers.opencl.graal.compiler.OCLCompilationResultBuilder;
@@ -252,6 +254,8 @@ public final class OCLAssembler extends Assembler {
 
         public static final OCLUnaryIntrinsic AS_FLOAT = new OCLUnaryIntrinsic("as_float");
         public static final OCLUnaryIntrinsic AS_INT = new OCLUnaryIntrinsic("as_int");
+        public static final OCLUnaryIntrinsic AS_DOUBLE = new OCLUnaryIntrinsic("as_double");
+        public static final OCLUnaryIntrinsic AS_LONG = new OCLUnaryIntrinsic("as_long");
 
         public static final OCLUnaryIntrinsic IS_FINITE = new OCLUnaryIntrinsic("isfinite");
         public static final OCLUnaryIntrinsic IS_INF = new OCLUnaryIntrinsic("isinf");
@@ -815,6 +819,14 @@ public final class OCLAssembler extends Assembler {
             emitLine("#pragma OPENCL EXTENSION cl_khr_fp64 : enable  ");
         }
 
+        if (((OCLTargetDescription) target).supportsInt64Atomics()) {
+            emitLine("#pragma OPENCL EXTENSION cl_khr_int64_base_atomics : enable  ");
+        }
+
+        if (((OCLTargetDescription) target).supportsInt64ExtendedAtomics()) {
+            emitLine("#pragma OPENCL EXTENSION cl_khr_int64_extended_atomics : enable  ");
+        }
+
         if (EMIT_INTRINSICS) {
             emitAtomicIntrinsics();
         }
@@ -1036,6 +1048,33 @@ public final class OCLAssembler extends Assembler {
         return result;
     }
 
+    private static boolean isNonFinite(JavaConstant constant) {
+        if (constant.getJavaKind() == JavaKind.Float) {
+            return Float.isNaN(constant.asFloat()) || Float.isInfinite(constant.asFloat());
+        } else if (constant.getJavaKind() == JavaKind.Double) {
+            return Double.isNaN(constant.asDouble()) || Double.isInfinite(constant.asDouble());
+        }
+        return false;
+    }
+
+    /**
+     * Infinities and NaN have no literal in OpenCL C, so they are emitted with
+     * the INFINITY and NAN macros.
+     */
+    private static String formatNonFinite(JavaConstant constant, OCLKind oclKind) {
+        final double value = (constant.getJavaKind() == JavaKind.Float) ? constant.asFloat() : constant.asDouble();
+        String result;
+        if (Double.isNaN(value)) {
+            result = "NAN";
+        } else {
+            result = (value > 0) ? "INFINITY" : "-INFINITY";
+        }
+        if (oclKind == DOUBLE) {
+            result = String.format("((double) %s)", result);
+        }
+        return result;
+    }
+
     public void emitConstant(ConstantValue cv) {
         emit(formatConstant(cv));
     }
@@ -1060,6 +1099,8 @@ public final class OCLAssembler extends Assembler {
             if (objConst.getJavaKind().isObject() && objConst.getType().getName().compareToIgnoreCase("Ljava/lang/String;") == 0) {
                 result = encodeString(objConst.toValueString());
             }
+        } else if (isNonFinite(javaConstant)) {
+            result = formatNonFinite(javaConstant, oclKind);
         } else {
             result = constant.toValueString();
             result = addLiteralSuffix(oclKind, result);
@@ -45,6 +45,7 @@ public class OCLAssemblerConstants {
     public static final String HEAP_REF_NAME = "_heap_base";
     public static final String FRAME_BASE_NAME = "_frame_base";
     public static final String FRAME_REF_NAME = "_frame";
+    public static final String DIRECT_ARGUMENT_NAME = "_arg";
 
     public static final String STMT_DELIMITER = ";";
     public static final String EXPR_DELIMITER = ",";
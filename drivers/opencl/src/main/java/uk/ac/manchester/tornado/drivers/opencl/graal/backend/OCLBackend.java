@@ -31,6 +31,7 @@ import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.unimp
 import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getTornadoRuntime;
 import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.humanReadableByteCount;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.DEBUG_KERNEL_ARGS;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.OPENCL_DIRECT_ARGUMENTS;
 import static uk.ac.manchester.tornado.runtime.graal.compiler.TornadoCodeGenerator.trace;
 
 import java.lang.reflect.Method;
@@ -479,6 +480,22 @@ public class OCLBackend extends TornadoBackend<OCLProviders> implements FrameMap
         asm.emitLine("}");
     }
 
+    /**
+     * Number of task arguments passed as OpenCL kernel arguments
+     * ({@code -Dtornado.opencl.directargs=True}). When it is 0, the kernel reads
+     * its arguments from the call-stack in the device heap. Kernels that return
+     * a value through the call-stack always use it.
+     */
+    public static int getDirectArgumentCount(TaskMetaData meta, ResolvedJavaMethod method) {
+        if (!OPENCL_DIRECT_ARGUMENTS || ENABLE_EXCEPTIONS || meta == null || meta.enableExceptions()) {
+            return 0;
+        }
+        if (method == null || method.getSignature().getReturnKind() != JavaKind.Void) {
+            return 0;
+        }
+        return meta.getArgumentsAccess().length;
+    }
+
     private void emitPrologue(OCLCompilationResultBuilder crb, OCLAssembler asm, ResolvedJavaMethod method, LIR lir) {
 
         String methodName = crb.compilationResult.getName();
@@ -498,12 +515,26 @@ public class OCLBackend extends TornadoBackend<OCLProviders> implements FrameMap
 
             final String bumpBuffer = (deviceContext.needsBump()) ? String.format("%s void *dummy, ", OCLAssemblerConstants.GLOBAL_MEM_MODIFIER) : "";
 
-            asm.emitLine("%s void %s(%s%s)", OCLAssemblerConstants.KERNEL_MODIFIER, methodName, bumpBuffer, architecture.getABI());
+            final int directArguments = getDirectArgumentCount(crb.getResult().getMeta(), method);
+            crb.getResult().setDirectArguments(directArguments);
+            final StringBuilder arguments = new StringBuilder();
+            final StringBuilder frameValues = new StringBuilder();
+            for (int i = 0; i < directArguments; i++) {
+                arguments.append(String.format(", ulong %s%d", OCLAssemblerConstants.DIRECT_ARGUMENT_NAME, i));
+                frameValues.append(String.format("%s%s%d", (i > 0) ? ", " : "", OCLAssemblerConstants.DIRECT_ARGUMENT_NAME, i));
+            }
+
+            asm.emitLine("%s void %s(%s%s%s)", OCLAssemblerConstants.KERNEL_MODIFIER, methodName, bumpBuffer, architecture.getABI(), arguments.toString());
             asm.beginScope();
             emitVariableDefs(crb, asm, lir);
             asm.eol();
-            asm.emitStmt("%s ulong *%s = (%s ulong *) &%s[%s]", OCLAssemblerConstants.GLOBAL_MEM_MODIFIER, OCLAssemblerConstants.FRAME_REF_NAME, OCLAssemblerConstants.GLOBAL_MEM_MODIFIER,
-                    OCLAssemblerConstants.HEAP_REF_NAME, OCLAssemblerConstants.FRAME_BASE_NAME);
+            if (directArguments > 0) {
+                // The arguments are copied to a private frame, so parameter loads are resolved in registers
+                asm.emitStmt("ulong %s[%d] = { %s }", OCLAssemblerConstants.FRAME_REF_NAME, directArguments, frameValues.toString());
+            } else {
+                asm.emitStmt("%s ulong *%s = (%s ulong *) &%s[%s]", OCLAssemblerConstants.GLOBAL_MEM_MODIFIER, OCLAssemblerConstants.FRAME_REF_NAME, OCLAssemblerConstants.GLOBAL_MEM_MODIFIER,
+                        OCLAssemblerConstants.HEAP_REF_NAME, OCLAssemblerConstants.FRAME_BASE_NAME);
+            }
             asm.eol();
 
             if (DEBUG_KERNEL_ARGS && (method != null && !method.getDeclaringClass().getUnqualifiedName().equalsIgnoreCase(this.getClass().getSimpleName()))) {
@@ -40,6 +40,12 @@ public class OCLCompilationResult extends CompilationResult {
     protected OCLBackend backend;
     protected String id;
 
+    /**
+     * Number of task arguments that the kernel receives as OpenCL kernel
+     * arguments ({@code -Dtornado.opencl.directargs=True}).
+     */
+    protected int directArguments;
+
     public OCLCompilationResult(String id, String name, TaskMetaData meta, OCLBackend backend) {
         super(name);
         this.id = id;
@@ -80,4 +86,12 @@ public class OCLCompilationResult extends CompilationResult {
     public String getId() {
         return id;
     }
+
+    public int getDirectArguments() {
+        return directArguments;
+    }
+
+    public void setDirectArguments(int directArguments) {
+        this.directArguments = directArguments;
+    }
 }
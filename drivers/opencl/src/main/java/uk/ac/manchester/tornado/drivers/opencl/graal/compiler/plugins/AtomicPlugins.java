@@ -23,6 +23,8 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.graal.compiler.plugins;
 
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
+
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
 import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
@@ -31,30 +33,91 @@ import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registratio
 
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.atomics.TornadoAtomics;
+import uk.ac.manchester.tornado.api.collections.types.DoubleOps;
 import uk.ac.manchester.tornado.api.collections.types.FloatOps;
-import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.AtomicAddNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicIndexedNode.Operation;
 
 public class AtomicPlugins {
 
     public static void registerPlugins(InvocationPlugins plugins) {
 
         registerAtomicPlugins(plugins);
+        registerTornadoAtomicsPlugins(plugins);
 
     }
 
     private static void registerAtomicPlugins(InvocationPlugins plugins) {
-        Registration r = new Registration(plugins, FloatOps.class);
+        registerAtomicAdd(new Registration(plugins, FloatOps.class), JavaKind.Float);
+        registerAtomicAdd(new Registration(plugins, DoubleOps.class), JavaKind.Double);
+    }
 
-        r.register3("atomicAdd", float[].class, int.class, float.class, new InvocationPlugin() {
+    private static void registerAtomicAdd(Registration r, JavaKind kind) {
+        r.register3("atomicAdd", arrayClass(kind), int.class, kind.toJavaClass(), new InvocationPlugin() {
 
             @Override
             public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode array, ValueNode index, ValueNode value) {
+                b.add(new AtomicIndexedNode(array, index, kind, Operation.ADD, value, null));
+                return true;
+            }
+
+        });
+    }
+
+    private static void registerTornadoAtomicsPlugins(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, TornadoAtomics.class);
+
+        registerAtomicOperation(r, "atomicAdd", Operation.ADD, JavaKind.Int);
+        registerAtomicOperation(r, "atomicAdd", Operation.ADD, JavaKind.Long);
+        registerAtomicOperation(r, "atomicAdd", Operation.ADD, JavaKind.Float);
+        registerAtomicOperation(r, "atomicAdd", Operation.ADD, JavaKind.Double);
+        registerAtomicOperation(r, "atomicMin", Operation.MIN, JavaKind.Int);
+        registerAtomicOperation(r, "atomicMin", Operation.MIN, JavaKind.Long);
+        registerAtomicOperation(r, "atomicMax", Operation.MAX, JavaKind.Int);
+        registerAtomicOperation(r, "atomicMax", Operation.MAX, JavaKind.Long);
+        registerAtomicOperation(r, "atomicExchange", Operation.EXCHANGE, JavaKind.Int);
+        registerAtomicOperation(r, "atomicExchange", Operation.EXCHANGE, JavaKind.Long);
+        registerCompareAndSwap(r, JavaKind.Int);
+        registerCompareAndSwap(r, JavaKind.Long);
+    }
+
+    private static void registerAtomicOperation(Registration r, String name, Operation operation, JavaKind kind) {
+        r.register3(name, arrayClass(kind), int.class, kind.toJavaClass(), new InvocationPlugin() {
 
-                final AtomicAddNode atomicAddNode = new AtomicAddNode(array, index, JavaKind.Float, value);
-                b.append(atomicAddNode);
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode array, ValueNode index, ValueNode value) {
+                b.addPush(kind, new AtomicIndexedNode(array, index, kind, operation, value, null));
                 return true;
             }
 
         });
     }
+
+    private static void registerCompareAndSwap(Registration r, JavaKind kind) {
+        r.register4("atomicCompareAndSwap", arrayClass(kind), int.class, kind.toJavaClass(), kind.toJavaClass(), new InvocationPlugin() {
+
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode array, ValueNode index, ValueNode expected, ValueNode value) {
+                b.addPush(kind, new AtomicIndexedNode(array, index, kind, Operation.COMPARE_AND_SWAP, value, expected));
+                return true;
+            }
+
+        });
+    }
+
+    private static Class<?> arrayClass(JavaKind kind) {
+        switch (kind) {
+            case Int:
+                return int[].class;
+            case Long:
+                return long[].class;
+            case Float:
+                return float[].class;
+            case Double:
+                return double[].class;
+            default:
+                throw shouldNotReachHere("atomic operations not supported for %s", kind);
+        }
+    }
 }
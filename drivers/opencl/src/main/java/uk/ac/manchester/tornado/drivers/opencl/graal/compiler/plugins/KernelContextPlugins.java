@@ -0,0 +1,108 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.compiler.plugins;
+
+import java.util.function.Function;
+
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadSizeNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GroupIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalThreadSizeNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLBarrierNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLBarrierNode.OCLMemFenceFlags;
+import uk.ac.manchester.tornado.runtime.graal.nodes.NewLocalArrayNode;
+
+/**
+ * The methods of the {@link KernelContext} API are replaced by the OpenCL
+ * work-item built-ins, barriers and local arrays.
+ */
+public class KernelContextPlugins {
+
+    public static void registerPlugins(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, KernelContext.class);
+
+        registerWorkItemPlugin(r, "getGlobalId", GlobalThreadIdNode::new);
+        registerWorkItemPlugin(r, "getLocalId", LocalThreadIdNode::new);
+        registerWorkItemPlugin(r, "getGroupId", GroupIdNode::new);
+        registerWorkItemPlugin(r, "getLocalGroupSize", LocalThreadSizeNode::new);
+        registerWorkItemPlugin(r, "getGlobalGroupSize", GlobalThreadSizeNode::new);
+
+        registerBarrierPlugin(r, "localBarrier", OCLMemFenceFlags.LOCAL);
+        registerBarrierPlugin(r, "globalBarrier", OCLMemFenceFlags.GLOBAL);
+
+        registerLocalArrayPlugin(r, "allocateFloatLocalArray", JavaKind.Float);
+        registerLocalArrayPlugin(r, "allocateIntLocalArray", JavaKind.Int);
+        registerLocalArrayPlugin(r, "allocateLongLocalArray", JavaKind.Long);
+        registerLocalArrayPlugin(r, "allocateDoubleLocalArray", JavaKind.Double);
+    }
+
+    private static ConstantNode asConstant(ValueNode value, String methodName) {
+        if (!(value instanceof ConstantNode)) {
+            throw new TornadoBailoutRuntimeException("KernelContext." + methodName + " requires a constant argument");
+        }
+        return (ConstantNode) value;
+    }
+
+    private static void registerWorkItemPlugin(Registration r, String methodName, Function<ConstantNode, ValueNode> builtin) {
+        r.register1(methodName, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode dimension) {
+                b.addPush(JavaKind.Int, builtin.apply(asConstant(dimension, methodName)));
+                return true;
+            }
+        });
+    }
+
+    private static void registerBarrierPlugin(Registration r, String methodName, OCLMemFenceFlags flags) {
+        r.register0(methodName, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                b.add(new OCLBarrierNode(flags));
+                return true;
+            }
+        });
+    }
+
+    private static void registerLocalArrayPlugin(Registration r, String methodName, JavaKind elementKind) {
+        r.register1(methodName, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode size) {
+                b.addPush(JavaKind.Object, new NewLocalArrayNode(b.getMetaAccess().lookupJavaType(elementKind.toJavaClass()), asConstant(size, methodName)));
+                return true;
+            }
+        });
+    }
+}
@@ -73,6 +73,10 @@ public class OCLGraphBuilderPlugins {
 
         TornadoMathPlugins.registerTornadoMathPlugins(plugins);
         VectorPlugins.registerPlugins(ps, plugins);
+        OffHeapPlugins.registerPlugins(plugins);
+        AtomicPlugins.registerPlugins(plugins);
+        HalfPlugins.registerPlugins(plugins);
+        KernelContextPlugins.registerPlugins(plugins);
     }
 
     private static void registerCompilerInstrinsicsPlugins(InvocationPlugins plugins) {
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.compiler.plugins;
+
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin.Receiver;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorDouble;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorFloat;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorInt;
+
+/**
+ * The off-heap collections have the layout of a Java array on the device, so
+ * their accessors are compiled as array accesses on the object itself.
+ */
+public class OffHeapPlugins {
+
+    public static void registerPlugins(InvocationPlugins plugins) {
+        registerOffHeapVectorPlugins(plugins, OffHeapVectorInt.class, JavaKind.Int, int.class);
+        registerOffHeapVectorPlugins(plugins, OffHeapVectorFloat.class, JavaKind.Float, float.class);
+        registerOffHeapVectorPlugins(plugins, OffHeapVectorDouble.class, JavaKind.Double, double.class);
+    }
+
+    private static void registerOffHeapVectorPlugins(InvocationPlugins plugins, Class<?> declaringClass, JavaKind elementKind, Class<?> elementType) {
+        Registration r = new Registration(plugins, declaringClass);
+
+        r.register2("get", Receiver.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index) {
+                b.addPush(elementKind, new LoadIndexedNode(null, receiver.get(), index, null, elementKind));
+                return true;
+            }
+        });
+
+        r.register3("set", Receiver.class, int.class, elementType, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index, ValueNode value) {
+                b.add(new StoreIndexedNode(receiver.get(), index, null, null, elementKind, value));
+                return true;
+            }
+        });
+
+        r.register1("size", Receiver.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                b.addPush(JavaKind.Int, new ArrayLengthNode(receiver.get()));
+                return true;
+            }
+        });
+    }
+}
@@ -181,8 +181,21 @@ public class OCLArithmeticTool extends ArithmeticLIRGenerator {
 
     @Override
     public Value emitReinterpret(LIRKind lirKind, Value x) {
-        unimplemented();
-        return null;
+        trace("emitReinterpret: %s -> %s", x, lirKind);
+        final OCLKind kind = (OCLKind) lirKind.getPlatformKind();
+        switch (kind) {
+            case INT:
+                return emitUnaryAssign(OCLUnaryIntrinsic.AS_INT, lirKind, x);
+            case LONG:
+                return emitUnaryAssign(OCLUnaryIntrinsic.AS_LONG, lirKind, x);
+            case FLOAT:
+                return emitUnaryAssign(OCLUnaryIntrinsic.AS_FLOAT, lirKind, x);
+            case DOUBLE:
+                return emitUnaryAssign(OCLUnaryIntrinsic.AS_DOUBLE, lirKind, x);
+            default:
+                unimplemented("reinterpret %s as %s", x.getPlatformKind(), kind);
+                return null;
+        }
     }
 
     @Override
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.lir;
+
+import static org.graalvm.compiler.nodeinfo.InputType.State;
+
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.type.Stamp;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.Variable;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+import org.graalvm.compiler.nodeinfo.InputType;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.StateSplit;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.memory.MemoryCheckpoint;
+import org.graalvm.compiler.nodes.memory.address.AddressNode;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.Value;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLLIRStmt.AtomicOperationStmt;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary.MemoryAccess;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary.OCLAddressCast;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicIndexedNode.Operation;
+
+/**
+ * Atomic read-modify-write of a memory location. The result of the node is
+ * the value stored before the update.
+ */
+@NodeInfo(nameTemplate = "OCLAtomic{p#operation/s}")
+public class OCLAtomicAccessNode extends FixedWithNextNode implements LIRLowerable, StateSplit, MemoryCheckpoint.Single {
+
+    public static final NodeClass<OCLAtomicAccessNode> TYPE = NodeClass.create(OCLAtomicAccessNode.class);
+
+    //@formatter:off
+    @Input(InputType.Association) private AddressNode address;
+    @Input private ValueNode value;
+    @OptionalInput private ValueNode expected;
+    @OptionalInput(State) private FrameState stateAfter;
+    //@formatter:on
+
+    private final Operation operation;
+
+    public OCLAtomicAccessNode(AddressNode address, Stamp stamp, Operation operation, ValueNode value, ValueNode expected) {
+        super(TYPE, stamp);
+        this.address = address;
+        this.operation = operation;
+        this.value = value;
+        this.expected = expected;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        LIRGeneratorTool tool = gen.getLIRGeneratorTool();
+        LIRKind kind = tool.getLIRKind(stamp);
+        MemoryAccess memAccess = (MemoryAccess) gen.operand(address);
+        OCLAddressCast cast = new OCLAddressCast(memAccess.getBase(), kind);
+        Value expectedValue = (expected == null) ? null : gen.operand(expected);
+
+        Variable result = tool.newVariable(kind);
+        tool.append(new AtomicOperationStmt(result, operation, cast, memAccess, gen.operand(value), expectedValue));
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public FrameState stateAfter() {
+        return stateAfter;
+    }
+
+    @Override
+    public void setStateAfter(FrameState x) {
+        assert x == null || x.isAlive() : "frame state must be in a graph";
+        updateUsages(stateAfter, x);
+        stateAfter = x;
+    }
+
+    @Override
+    public boolean hasSideEffect() {
+        return true;
+    }
+
+    @Override
+    public LocationIdentity getKilledLocationIdentity() {
+        return LocationIdentity.any();
+    }
+}
@@ -23,6 +23,8 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.graal.lir;
 
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
+
 import org.graalvm.compiler.lir.LIRInstruction;
 import org.graalvm.compiler.lir.LIRInstructionClass;
 import org.graalvm.compiler.lir.Opcode;
@@ -37,6 +39,7 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.compiler.OCLCompilationResu
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary.MemoryAccess;
 import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary.OCLAddressCast;
 import uk.ac.manchester.tornado.drivers.opencl.graal.meta.OCLMemorySpace;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicIndexedNode.Operation;
 
 public class OCLLIRStmt {
 
@@ -888,4 +891,218 @@ public class OCLLIRStmt {
 
         }
     }
+
+    @Opcode("ATOMIC")
+    public static class AtomicOperationStmt extends AbstractInstruction {
+
+        public static final LIRInstructionClass<AtomicOperationStmt> TYPE = LIRInstructionClass.create(AtomicOperationStmt.class);
+
+        @Def
+        protected AllocatableValue result;
+        @Use
+        protected OCLAddressCast cast;
+        @Use
+        protected MemoryAccess address;
+        @Use
+        protected Value value;
+        @Use
+        protected Value expected;
+        @Use
+        protected Value index;
+
+        private final Operation operation;
+
+        public AtomicOperationStmt(AllocatableValue result, Operation operation, OCLAddressCast cast, MemoryAccess address, Value value, Value expected) {
+            super(TYPE);
+            this.result = result;
+            this.operation = operation;
+            this.cast = cast;
+            this.address = address;
+            this.value = value;
+            this.expected = expected;
+            this.index = address.getIndex();
+        }
+
+        private boolean isLocalAccess() {
+            return address.getBase().memorySpace == OCLMemorySpace.LOCAL;
+        }
+
+        private String getFunctionName(OCLKind kind) {
+            String prefix = (kind == OCLKind.LONG) ? "atom_" : "atomic_";
+            switch (operation) {
+                case ADD:
+                    return prefix + "add";
+                case MIN:
+                    return prefix + "min";
+                case MAX:
+                    return prefix + "max";
+                case EXCHANGE:
+                    return prefix + "xchg";
+                case COMPARE_AND_SWAP:
+                    return prefix + "cmpxchg";
+                default:
+                    throw shouldNotReachHere("unsupported atomic operation: %s", operation);
+            }
+        }
+
+        /**
+         * Local arrays are declared as arrays of the element type and indexed by
+         * element, so their pointer is the address of the element. Global memory
+         * is addressed in bytes and needs a cast to the element type.
+         */
+        private void emitPointer(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            if (!isLocalAccess()) {
+                cast.emit(crb, asm);
+                asm.space();
+            }
+            emitAddress(crb, asm);
+        }
+
+        private void emitAddress(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            if (isLocalAccess()) {
+                asm.emit("&");
+                address.emit(crb, asm);
+                asm.emit("[");
+                asm.emitValue(crb, index);
+                asm.emit("]");
+            } else {
+                address.emit(crb, asm);
+            }
+        }
+
+        /**
+         * OpenCL has no atomic addition for floating-point types: the update is
+         * retried with a compare-and-swap on the bits of the element until no
+         * other thread modified it in between.
+         */
+        private void emitFloatingPointAdd(OCLCompilationResultBuilder crb, OCLAssembler asm, OCLKind kind) {
+            String bits = (kind == OCLKind.DOUBLE) ? "ulong" : "uint";
+            String cmpxchg = (kind == OCLKind.DOUBLE) ? "atom_cmpxchg" : "atomic_cmpxchg";
+            asm.indent();
+            asm.emit("do {");
+            asm.eol();
+            asm.pushIndent();
+            asm.indent();
+            asm.emitValue(crb, result);
+            asm.space();
+            asm.assign();
+            asm.space();
+            asm.emit("*(");
+            emitPointer(crb, asm);
+            asm.emit(")");
+            asm.delimiter();
+            asm.eol();
+            asm.popIndent();
+            asm.indent();
+            asm.emit("} while (" + cmpxchg + "((volatile " + cast.getMemorySpace().name() + " " + bits + " *) ");
+            emitAddress(crb, asm);
+            asm.emit(", as_" + bits + "(");
+            asm.emitValue(crb, result);
+            asm.emit("), as_" + bits + "(");
+            asm.emitValue(crb, result);
+            asm.emit(" + ");
+            asm.emitValue(crb, value);
+            asm.emit(")) != as_" + bits + "(");
+            asm.emitValue(crb, result);
+            asm.emit("))");
+            asm.delimiter();
+            asm.eol();
+        }
+
+        @Override
+        public void emitCode(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            OCLKind kind = (OCLKind) result.getPlatformKind();
+            if ((kind == OCLKind.FLOAT || kind == OCLKind.DOUBLE) && operation == Operation.ADD) {
+                emitFloatingPointAdd(crb, asm, kind);
+                return;
+            }
+
+            asm.indent();
+            asm.emitValue(crb, result);
+            asm.space();
+            asm.assign();
+            asm.space();
+            asm.emit(getFunctionName(kind) + "(");
+            emitPointer(crb, asm);
+            asm.emit(", ");
+            if (expected != null) {
+                asm.emitValue(crb, expected);
+                asm.emit(", ");
+            }
+            asm.emitValue(crb, value);
+            asm.emit(")");
+            asm.delimiter();
+            asm.eol();
+        }
+    }
+
+    @Opcode("VLOAD_HALF")
+    public static class LoadHalfStmt extends AbstractInstruction {
+
+        public static final LIRInstructionClass<LoadHalfStmt> TYPE = LIRInstructionClass.create(LoadHalfStmt.class);
+
+        @Def
+        protected AllocatableValue result;
+        @Use
+        protected OCLAddressCast cast;
+        @Use
+        protected MemoryAccess address;
+
+        public LoadHalfStmt(AllocatableValue result, OCLAddressCast cast, MemoryAccess address) {
+            super(TYPE);
+            this.result = result;
+            this.cast = cast;
+            this.address = address;
+        }
+
+        @Override
+        public void emitCode(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            asm.indent();
+            asm.emitValue(crb, result);
+            asm.space();
+            asm.assign();
+            asm.space();
+            asm.emit("vload_half(0, ");
+            cast.emit(crb, asm);
+            asm.space();
+            address.emit(crb, asm);
+            asm.emit(")");
+            asm.delimiter();
+            asm.eol();
+        }
+    }
+
+    @Opcode("VSTORE_HALF")
+    public static class StoreHalfStmt extends AbstractInstruction {
+
+        public static final LIRInstructionClass<StoreHalfStmt> TYPE = LIRInstructionClass.create(StoreHalfStmt.class);
+
+        @Use
+        protected OCLAddressCast cast;
+        @Use
+        protected MemoryAccess address;
+        @Use
+        protected Value rhs;
+
+        public StoreHalfStmt(OCLAddressCast cast, MemoryAccess address, Value rhs) {
+            super(TYPE);
+            this.cast = cast;
+            this.address = address;
+            this.rhs = rhs;
+        }
+
+        @Override
+        public void emitCode(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            asm.indent();
+            asm.emit("vstore_half(");
+            asm.emitValue(crb, rhs);
+            asm.emit(", 0, ");
+            cast.emit(crb, asm);
+            asm.space();
+            address.emit(crb, asm);
+            asm.emit(")");
+            asm.delimiter();
+            asm.eol();
+        }
+    }
 }
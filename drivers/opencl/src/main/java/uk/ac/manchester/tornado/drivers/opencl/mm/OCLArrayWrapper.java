@@ -56,12 +56,15 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
 
     private long bytesToAllocate;
 
+    private long allocatedBytes;
+
     protected final OCLDeviceContext deviceContext;
 
     private final JavaKind kind;
     private boolean onDevice;
     private boolean isFinal;
     private long batchSize;
+    private long heapGeneration;
 
     public OCLArrayWrapper(final OCLDeviceContext device, final JavaKind kind, long batchSize) {
         this(device, kind, false, batchSize);
@@ -101,8 +104,18 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
             newBufferSize = sizeOfBatch(batchSize);
         }
 
-        if ((batchSize > 0) && (bufferOffset != -1) && (newBufferSize < bytesToAllocate)) {
-            bytesToAllocate = newBufferSize;
+        if ((batchSize > 0) && (bufferOffset != -1)) {
+            if (newBufferSize <= allocatedBytes) {
+                // Chunks of different sizes reuse the same buffer
+                bytesToAllocate = newBufferSize;
+            } else {
+                deallocate();
+            }
+        }
+
+        if (bufferOffset != -1 && heapGeneration != deviceContext.getMemoryManager().getHeapGeneration()) {
+            // The heap was reset after this buffer was allocated
+            bufferOffset = -1;
         }
 
         if (bufferOffset == -1) {
@@ -118,6 +131,8 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
             }
 
             bufferOffset = deviceContext.getMemoryManager().tryAllocate(bytesToAllocate, arrayHeaderSize, getAlignment());
+            allocatedBytes = bytesToAllocate;
+            heapGeneration = deviceContext.getMemoryManager().getHeapGeneration();
 
             if (Tornado.FULL_DEBUG) {
                 info("allocated: array kind=%s, size=%s, length offset=%d, header size=%d, bo=0x%x", kind.getJavaName(), humanReadableByteCount(bytesToAllocate, true), arrayLengthOffset,
@@ -128,6 +143,15 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
 
     }
 
+    @Override
+    public void deallocate() {
+        if (bufferOffset != -1) {
+            deviceContext.getMemoryManager().free(bufferOffset, heapGeneration);
+            bufferOffset = -1;
+            onDevice = false;
+        }
+    }
+
     @Override
     public long size() {
         return bytesToAllocate;
@@ -207,9 +231,9 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
             // buffer
             final int headerEvent;
             if (batchSize <= 0) {
-                headerEvent = buildArrayHeader(Array.getLength(array)).enqueueWrite((useDeps) ? events : null);
+                headerEvent = buildArrayHeader(getLength(array)).enqueueWrite((useDeps) ? events : null);
             } else {
-                headerEvent = buildArrayHeaderBatch(batchSize).enqueueWrite((useDeps) ? events : null);
+                headerEvent = buildArrayHeaderBatch(batchSize / kind.getByteCount()).enqueueWrite((useDeps) ? events : null);
             }
             returnEvent = enqueueWriteArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
             onDevice = true;
@@ -221,6 +245,26 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         return useDeps ? listEvents : null;
     }
 
+    @Override
+    public List<Integer> enqueueWriteRanges(final Object value, long[] ranges, final int[] events, boolean useDeps) {
+        if (!onDevice) {
+            // The header of the array has not been written yet
+            return enqueueWrite(value, 0, 0, events, useDeps);
+        }
+        final T array = cast(value);
+        if (array == null) {
+            throw new TornadoRuntimeException("ERROR] Data to be copied is NULL");
+        }
+        ArrayList<Integer> listEvents = new ArrayList<>();
+        final long elementSize = kind.getByteCount();
+        for (int i = 0; i < ranges.length; i += 2) {
+            final long hostOffset = ranges[i] * elementSize;
+            final long bytes = (ranges[i + 1] - ranges[i]) * elementSize;
+            listEvents.add(enqueueWriteArrayData(toBuffer(), bufferOffset + arrayHeaderSize + hostOffset, bytes, array, hostOffset, (useDeps) ? events : null));
+        }
+        return useDeps ? listEvents : null;
+    }
+
     /**
      * Copy data that resides in the host to the target device.
      * 
@@ -316,8 +360,16 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
 
     abstract protected int readArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents);
 
+    /**
+     * Number of elements of the host object. Wrappers of objects that are not
+     * Java arrays return the number of elements of their storage.
+     */
+    protected int getLength(T array) {
+        return Array.getLength(array);
+    }
+
     private long sizeOf(final T array) {
-        return (long) arrayHeaderSize + ((long) Array.getLength(array) * (long) kind.getByteCount());
+        return (long) arrayHeaderSize + ((long) getLength(array) * (long) kind.getByteCount());
     }
 
     private long sizeOfBatch(long batchSize) {
@@ -358,9 +410,9 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         final OCLByteBuffer header = prepareArrayHeader();
         header.read();
         final int numElements = header.getInt(arrayLengthOffset);
-        final boolean valid = numElements == Array.getLength(array);
+        final boolean valid = numElements == getLength(array);
         if (!valid) {
-            fatal("Array: expected=%d, got=%d", Array.getLength(array), numElements);
+            fatal("Array: expected=%d, got=%d", getLength(array), numElements);
             header.dump(8);
         }
         return valid;
@@ -372,7 +424,7 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         if (array == null) {
             throw new TornadoRuntimeException("[ERROR] data is NULL");
         }
-        buildArrayHeader(Array.getLength(array)).write();
+        buildArrayHeader(getLength(array)).write();
         // TODO: Writing with offset != 0
         writeArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, 0, null);
         onDevice = true;
@@ -83,6 +83,14 @@ public class OCLCallStack extends OCLByteBuffer implements CallStack {
         return super.enqueueWrite(events);
     }
 
+    /**
+     * The kernel receives the arguments as OpenCL kernel arguments, so the stack
+     * is not written to the device.
+     */
+    public void setPassedAsKernelArguments() {
+        onDevice = true;
+    }
+
     public int getSlotCount() {
         return (int) bytes >> 3;
     }
@@ -26,6 +26,7 @@ package uk.ac.manchester.tornado.drivers.opencl.mm;
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.guarantee;
 
 import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.api.mm.HeapAllocator;
 import uk.ac.manchester.tornado.api.mm.TornadoMemoryProvider;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OpenCL;
@@ -46,7 +47,8 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
     private long deviceHeapPointer;
     private long constantPointer;
     private long heapLimit;
-    private long heapPosition;
+    private final HeapAllocator heapAllocator;
+    private volatile long heapGeneration;
     private boolean initialised;
 
     private static final int STACK_ALIGNMENT_SIZE = 128;
@@ -56,6 +58,7 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
         callStackLimit = OpenCL.OCL_CALL_STACK_LIMIT;
         initialised = false;
         scheduleMeta = new ScheduleMetaData("mm-" + device.getDeviceId());
+        heapAllocator = new HeapAllocator(callStackLimit, heapLimit);
         reset();
     }
 
@@ -76,17 +79,42 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
 
     @Override
     public long getHeapAllocated() {
-        return heapPosition - callStackLimit;
+        return heapAllocator.getAllocatedBytes();
     }
 
     @Override
     public long getHeapRemaining() {
-        return heapLimit - heapPosition;
+        return heapAllocator.getFreeBytes();
     }
 
-    public final void reset() {
+    @Override
+    public long getHeapLargestFreeBlock() {
+        return heapAllocator.getLargestFreeBlock();
+    }
+
+    @Override
+    public int getHeapFreeBlocks() {
+        return heapAllocator.getNumFreeBlocks();
+    }
+
+    @Override
+    public double getHeapFragmentation() {
+        return heapAllocator.getFragmentation();
+    }
+
+    /**
+     * The generation is incremented every time the heap is reset. Buffers keep
+     * the generation of their allocation, so a buffer allocated before a reset
+     * cannot release a region that now belongs to another buffer.
+     */
+    public long getHeapGeneration() {
+        return heapGeneration;
+    }
+
+    public final synchronized void reset() {
         callStackPosition = 0;
-        heapPosition = callStackLimit;
+        heapAllocator.reset(callStackLimit, heapLimit);
+        heapGeneration++;
         Tornado.info("Reset heap @ 0x%x (%s) on %s", deviceBufferAddress, RuntimeUtilities.humanReadableByteCount(heapLimit, true), deviceContext.getDevice().getDeviceName());
     }
 
@@ -99,20 +127,33 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
         return (address % alignment == 0) ? address : address + (alignment - address % alignment);
     }
 
-    long tryAllocate(final long bytes, final int headerSize, int alignment) {
-        final long alignedDataStart = align(heapPosition + headerSize, alignment);
-        final long headerStart = alignedDataStart - headerSize;
-        if (headerStart + bytes < heapLimit) {
-            heapPosition = headerStart + bytes;
-        } else {
+    synchronized long tryAllocate(final long bytes, final int headerSize, int alignment) {
+        final long headerStart = heapAllocator.allocate(bytes, headerSize, alignment);
+        if (headerStart == -1) {
             throw new TornadoOutOfMemoryException("Out of memory on the target device -> " + deviceContext.getDevice().getDeviceName() + ". [Heap Limit is: "
-                    + RuntimeUtilities.humanReadableByteCount(heapLimit, true) + " and the application requires: " + RuntimeUtilities.humanReadableByteCount(headerStart + bytes, true)
+                    + RuntimeUtilities.humanReadableByteCount(heapLimit, true) + ", the largest free block is: " + RuntimeUtilities.humanReadableByteCount(heapAllocator.getLargestFreeBlock(), true)
+                    + " and the application requires: " + RuntimeUtilities.humanReadableByteCount(bytes, true)
                     + "]\nUse flag -Dtornado.heap.allocation=<XGB> to tune the device heap. E.g., -Dtornado.heap.allocation=2GB\n");
         }
         return headerStart;
     }
 
-    public OCLCallStack createCallStack(final int maxArgs) {
+    /**
+     * Releases a region of the heap returned by {@link #tryAllocate}. Regions
+     * allocated before the last reset of the heap are ignored.
+     *
+     * @param offset
+     *            offset of the region within the heap
+     * @param generation
+     *            heap generation at the time of the allocation
+     */
+    synchronized void free(final long offset, final long generation) {
+        if (generation == heapGeneration) {
+            heapAllocator.free(offset);
+        }
+    }
+
+    public synchronized OCLCallStack createCallStack(final int maxArgs) {
 
         OCLCallStack callStack = new OCLCallStack(callStackPosition, maxArgs, deviceContext);
 
@@ -128,7 +169,7 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
     }
 
     public long getBytesRemaining() {
-        return heapLimit - heapPosition;
+        return heapAllocator.getFreeBytes();
     }
 
     /**
@@ -153,6 +194,7 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
      */
     public void allocateRegion(long numBytes) {
         this.heapLimit = numBytes;
+        heapAllocator.reset(callStackLimit, heapLimit);
         this.deviceHeapPointer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_WRITE | OCLMemFlags.CL_MEM_ALLOC_HOST_PTR, numBytes);
         this.constantPointer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_WRITE | OCLMemFlags.CL_MEM_ALLOC_HOST_PTR, 4);
     }
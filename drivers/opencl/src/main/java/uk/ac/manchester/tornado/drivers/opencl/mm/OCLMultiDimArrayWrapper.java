@@ -25,9 +25,14 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.mm;
 
+import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getVMConfig;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.OPENCL_PACKED_ARRAYS;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.fatal;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.function.Function;
 
 import jdk.vm.ci.meta.JavaKind;
@@ -43,6 +48,14 @@ public class OCLMultiDimArrayWrapper<T, E> extends OCLArrayWrapper<T> {
     private OCLArrayWrapper<E>[] wrappers;
     private OCLDeviceContext deviceContext;
 
+    // Packed layout: all the rows, with their headers, in one region of the heap
+    private long packedOffset;
+    private long packedGeneration;
+    private long packedRowStride;
+    private int packedRowHeaderSize;
+    private JavaKind packedRowKind;
+    private ByteBuffer stagingBuffer;
+
     public OCLMultiDimArrayWrapper(OCLDeviceContext device, Function<OCLDeviceContext, ? extends OCLArrayWrapper<E>> factory, long batchSize) {
         this(device, factory, false, batchSize);
     }
@@ -52,6 +65,7 @@ public class OCLMultiDimArrayWrapper<T, E> extends OCLArrayWrapper<T> {
         this.deviceContext = device;
         innerWrapperFactory = factory;
         tableWrapper = new OCLLongArrayWrapper(device, false, batchSize);
+        packedOffset = -1;
     }
 
     @Override
@@ -100,10 +114,171 @@ public class OCLMultiDimArrayWrapper<T, E> extends OCLArrayWrapper<T> {
         if (Array.getLength(value) < 0) {
             throw new TornadoMemoryException("[ERROR] Bytes Allocated < 0: " + Array.getLength(value));
         }
+        // The table and the rows are allocated again on every call
+        deallocate();
         addresses = new long[Array.getLength(value)];
         wrappers = new OCLArrayWrapper[Array.getLength(value)];
         tableWrapper.allocate(addresses, batchSize);
-        allocateElements((T) value, batchSize);
+        if (!OPENCL_PACKED_ARRAYS || !allocatePacked((T) value)) {
+            allocateElements((T) value, batchSize);
+        }
+    }
+
+    @Override
+    public void deallocate() {
+        tableWrapper.deallocate();
+        if (wrappers != null) {
+            for (OCLArrayWrapper<E> wrapper : wrappers) {
+                if (wrapper != null) {
+                    wrapper.deallocate();
+                }
+            }
+            wrappers = null;
+        }
+        if (packedOffset != -1) {
+            deviceContext.getMemoryManager().free(packedOffset, packedGeneration);
+            packedOffset = -1;
+        }
+    }
+
+    private boolean isPacked() {
+        return packedOffset != -1;
+    }
+
+    /**
+     * Allocates the rows of a rectangular array of primitive arrays in a single
+     * region of the device heap. Each row keeps its header and the table of
+     * addresses, so the generated code accesses the rows as in the default
+     * layout, but the whole array is copied with a single transfer through an
+     * off-heap staging buffer.
+     *
+     * @return false if the rows cannot be packed.
+     */
+    private boolean allocatePacked(T values) {
+        final E[] elements = innerCast(values);
+        if (elements.length == 0 || elements[0] == null || !elements[0].getClass().getComponentType().isPrimitive()) {
+            return false;
+        }
+        final int rowLength = Array.getLength(elements[0]);
+        for (E element : elements) {
+            if (element == null || Array.getLength(element) != rowLength) {
+                return false;
+            }
+        }
+
+        final JavaKind rowKind = JavaKind.fromJavaClass(elements[0].getClass().getComponentType());
+        final int rowHeaderSize = getVMConfig().getArrayBaseOffset(rowKind);
+        final long rowBytes = rowHeaderSize + (long) rowLength * rowKind.getByteCount();
+        final long rowStride = ((rowBytes + getAlignment() - 1) / getAlignment()) * getAlignment();
+        final long totalBytes = rowStride * elements.length;
+        if (totalBytes > Integer.MAX_VALUE) {
+            return false;
+        }
+
+        final OCLMemoryManager memoryManager = deviceContext.getMemoryManager();
+        packedOffset = memoryManager.tryAllocate(totalBytes, rowHeaderSize, getAlignment());
+        packedGeneration = memoryManager.getHeapGeneration();
+        packedRowStride = rowStride;
+        packedRowHeaderSize = rowHeaderSize;
+        packedRowKind = rowKind;
+        for (int i = 0; i < elements.length; i++) {
+            final long rowOffset = packedOffset + i * rowStride;
+            addresses[i] = deviceContext.useRelativeAddresses() ? rowOffset : memoryManager.toAbsoluteDeviceAddress(rowOffset);
+        }
+
+        if (stagingBuffer == null || stagingBuffer.capacity() < totalBytes) {
+            stagingBuffer = ByteBuffer.allocateDirect((int) totalBytes).order(deviceContext.getByteOrder());
+        }
+        return true;
+    }
+
+    private long packedBytes(T values) {
+        return packedRowStride * innerCast(values).length;
+    }
+
+    private void packElements(T values) {
+        final E[] elements = innerCast(values);
+        final int lengthOffset = getVMConfig().arrayOopDescLengthOffset();
+        for (int i = 0; i < elements.length; i++) {
+            final int rowOffset = (int) (i * packedRowStride);
+            for (int j = 0; j < packedRowHeaderSize; j++) {
+                stagingBuffer.put(rowOffset + j, (byte) 0);
+            }
+            stagingBuffer.putInt(rowOffset + lengthOffset, Array.getLength(elements[i]));
+            stagingBuffer.position(rowOffset + packedRowHeaderSize);
+            switch (packedRowKind) {
+                case Byte:
+                    stagingBuffer.put((byte[]) elements[i]);
+                    break;
+                case Char:
+                    stagingBuffer.asCharBuffer().put((char[]) elements[i]);
+                    break;
+                case Short:
+                    stagingBuffer.asShortBuffer().put((short[]) elements[i]);
+                    break;
+                case Int:
+                    stagingBuffer.asIntBuffer().put((int[]) elements[i]);
+                    break;
+                case Long:
+                    stagingBuffer.asLongBuffer().put((long[]) elements[i]);
+                    break;
+                case Float:
+                    stagingBuffer.asFloatBuffer().put((float[]) elements[i]);
+                    break;
+                case Double:
+                    stagingBuffer.asDoubleBuffer().put((double[]) elements[i]);
+                    break;
+                default:
+                    shouldNotReachHere("[ERROR] Row kind not supported in packed arrays: " + packedRowKind);
+            }
+        }
+        stagingBuffer.clear();
+    }
+
+    private void unpackElements(T values) {
+        final E[] elements = innerCast(values);
+        for (int i = 0; i < elements.length; i++) {
+            stagingBuffer.position((int) (i * packedRowStride) + packedRowHeaderSize);
+            switch (packedRowKind) {
+                case Byte:
+                    stagingBuffer.get((byte[]) elements[i]);
+                    break;
+                case Char:
+                    stagingBuffer.asCharBuffer().get((char[]) elements[i]);
+                    break;
+                case Short:
+                    stagingBuffer.asShortBuffer().get((short[]) elements[i]);
+                    break;
+                case Int:
+                    stagingBuffer.asIntBuffer().get((int[]) elements[i]);
+                    break;
+                case Long:
+                    stagingBuffer.asLongBuffer().get((long[]) elements[i]);
+                    break;
+                case Float:
+                    stagingBuffer.asFloatBuffer().get((float[]) elements[i]);
+                    break;
+                case Double:
+                    stagingBuffer.asDoubleBuffer().get((double[]) elements[i]);
+                    break;
+                default:
+                    shouldNotReachHere("[ERROR] Row kind not supported in packed arrays: " + packedRowKind);
+            }
+        }
+        stagingBuffer.clear();
+    }
+
+    private int writePacked(T values, int[] waitEvents) {
+        packElements(values);
+        // The staging buffer is reused, so the write blocks until it is copied
+        deviceContext.writeBuffer(toBuffer(), packedOffset, packedBytes(values), stagingBuffer, 0, waitEvents);
+        return deviceContext.enqueueBarrier();
+    }
+
+    private int readPacked(T values, int[] waitEvents) {
+        final int event = deviceContext.readBuffer(toBuffer(), packedOffset, packedBytes(values), stagingBuffer, 0, waitEvents);
+        unpackElements(values);
+        return event;
     }
 
     private void allocateElements(T values, long batchSize) {
@@ -144,20 +319,35 @@ public class OCLMultiDimArrayWrapper<T, E> extends OCLArrayWrapper<T> {
 
     @Override
     protected int enqueueReadArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
+        if (isPacked()) {
+            return readPacked(value, waitEvents);
+        }
         return readElements(value);
     }
 
+    @Override
+    public List<Integer> enqueueWriteRanges(Object value, long[] ranges, int[] events, boolean useDeps) {
+        // The ranges refer to the outer array, whose elements are separate buffers
+        return enqueueWrite(value, 0, 0, events, useDeps);
+    }
+
     @Override
     protected int enqueueWriteArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
         if (hostOffset > 0) {
             System.out.println("[WARNING] writing in offset 0");
         }
         tableWrapper.enqueueWrite(addresses, 0, 0, null, false);
+        if (isPacked()) {
+            return writePacked(value, waitEvents);
+        }
         return writeElements(value);
     }
 
     @Override
     protected int readArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
+        if (isPacked()) {
+            return readPacked(value, waitEvents);
+        }
         return readElements(value);
     }
 
@@ -167,7 +357,11 @@ public class OCLMultiDimArrayWrapper<T, E> extends OCLArrayWrapper<T> {
             System.out.println("[WARNING] writing in offset 0");
         }
         tableWrapper.enqueueWrite(addresses, 0, 0, null, false);
-        writeElements(value);
+        if (isPacked()) {
+            writePacked(value, waitEvents);
+        } else {
+            writeElements(value);
+        }
     }
 
 }
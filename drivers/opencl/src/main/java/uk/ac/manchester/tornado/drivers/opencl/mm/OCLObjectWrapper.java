@@ -74,6 +74,7 @@ public class OCLObjectWrapper implements ObjectBuffer {
     private boolean valid;
     private boolean isFinal;
     private long batchSize;
+    private long heapGeneration;
 
     private static final int BYTES_OBJECT_REFERENCE = 8;
 
@@ -180,8 +181,9 @@ public class OCLObjectWrapper implements ObjectBuffer {
             buffer.order(deviceContext.getByteOrder());
         }
 
-        if (bufferOffset == -1) {
+        if (bufferOffset == -1 || heapGeneration != deviceContext.getMemoryManager().getHeapGeneration()) {
             bufferOffset = deviceContext.getMemoryManager().tryAllocate(bytesToAllocate, 32, getAlignment());
+            heapGeneration = deviceContext.getMemoryManager().getHeapGeneration();
         }
 
         if (DEBUG) {
@@ -511,6 +513,20 @@ public class OCLObjectWrapper implements ObjectBuffer {
         valid = false;
     }
 
+    @Override
+    public void deallocate() {
+        if (bufferOffset != -1) {
+            deviceContext.getMemoryManager().free(bufferOffset, heapGeneration);
+            bufferOffset = -1;
+            valid = false;
+        }
+        for (FieldBuffer fieldBuffer : wrappedFields) {
+            if (fieldBuffer != null) {
+                fieldBuffer.deallocate();
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return String.format("object wrapper: type=%s, fields=%d, valid=%s\n", resolvedType.getName(), wrappedFields.length, valid);
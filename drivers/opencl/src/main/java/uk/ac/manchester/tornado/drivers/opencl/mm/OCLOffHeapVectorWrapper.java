@@ -0,0 +1,72 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.mm;
+
+import java.nio.ByteBuffer;
+
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
+
+/**
+ * Device buffer of an off-heap vector. On the device, the vector has the layout
+ * of a Java array, and the elements are copied directly from the direct buffer
+ * of the vector. On devices that share the host memory, the copies map the
+ * region of the device heap instead of enqueuing a transfer.
+ *
+ * The vector is still copied: kernels address all objects inside the single
+ * device heap, so the direct buffer of the vector cannot be the storage of the
+ * device buffer.
+ */
+public abstract class OCLOffHeapVectorWrapper<T> extends OCLArrayWrapper<T> {
+
+    protected OCLOffHeapVectorWrapper(OCLDeviceContext deviceContext, JavaKind kind, long batchSize) {
+        super(deviceContext, kind, false, batchSize);
+    }
+
+    /**
+     * Direct buffer that stores the elements of the vector.
+     */
+    protected abstract ByteBuffer getByteBuffer(T vector);
+
+    @Override
+    protected int readArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
+        return deviceContext.readBuffer(bufferId, offset, bytes, getByteBuffer(value), hostOffset, waitEvents);
+    }
+
+    @Override
+    protected void writeArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
+        deviceContext.writeBuffer(bufferId, offset, bytes, getByteBuffer(value), hostOffset, waitEvents);
+    }
+
+    @Override
+    protected int enqueueReadArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
+        return deviceContext.enqueueReadBuffer(bufferId, offset, bytes, getByteBuffer(value), hostOffset, waitEvents);
+    }
+
+    @Override
+    protected int enqueueWriteArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
+        return deviceContext.enqueueWriteBuffer(bufferId, offset, bytes, getByteBuffer(value), hostOffset, waitEvents);
+    }
+
+}
@@ -35,6 +35,9 @@ import java.util.Arrays;
 import java.util.List;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorDouble;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorFloat;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorInt;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -70,6 +73,9 @@ import uk.ac.manchester.tornado.drivers.opencl.mm.OCLLongArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLMemoryManager;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLMultiDimArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLObjectWrapper;
+import uk.ac.manchester.tornado.drivers.opencl.mm.OCLOffHeapVectorDoubleWrapper;
+import uk.ac.manchester.tornado.drivers.opencl.mm.OCLOffHeapVectorFloatWrapper;
+import uk.ac.manchester.tornado.drivers.opencl.mm.OCLOffHeapVectorIntWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLShortArrayWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.CallStack;
@@ -82,6 +88,7 @@ import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
 import uk.ac.manchester.tornado.runtime.tasks.PrebuiltTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
@@ -217,23 +224,44 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         final OCLDeviceContext deviceContext = getDeviceContext();
         final CompilableTask executable = (CompilableTask) task;
         final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(executable.getMethod());
-        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod);
+        final Sketch sketch = (task instanceof FusedTask) ? ((FusedTask) task).getSketch() : TornadoSketcher.lookup(resolvedMethod);
         final TaskMetaData sketchMeta = sketch.getMeta();
 
-        // Return the code from the cache
-        if (!task.shouldCompile() && deviceContext.isCached(task.getId(), resolvedMethod.getName())) {
-            return deviceContext.getInstalledCode(task.getId(), resolvedMethod.getName());
-        }
-
         // copy meta data into task
         final TaskMetaData taskMeta = executable.meta();
         final Access[] sketchAccess = sketchMeta.getArgumentsAccess();
         final Access[] taskAccess = taskMeta.getArgumentsAccess();
         System.arraycopy(sketchAccess, 0, taskAccess, 0, sketchAccess.length);
 
+        // Return the code from the cache
+        if (!task.shouldCompile() && deviceContext.isCached(executable.getCodeCacheId(), resolvedMethod.getName())) {
+            final OCLInstalledCode cachedCode = deviceContext.getInstalledCode(executable.getCodeCacheId(), resolvedMethod.getName());
+            if (!taskMeta.hasDomain() && cachedCode.getDomain() != null) {
+                // The code was compiled for another task with the same code
+                taskMeta.setDomain(cachedCode.getDomain());
+            }
+            return cachedCode;
+        }
+
         try {
             OCLProviders providers = (OCLProviders) getBackend().getProviders();
             TornadoProfiler profiler = task.getProfiler();
+
+            // Kernels compiled by previous executions are loaded from the persistent code cache
+            String cacheKey = null;
+            if (!isDeviceAnAccelerator(deviceContext)) {
+                final long batchThreads = (taskMeta.getNumThreads() > 0) ? taskMeta.getNumThreads() : executable.getBatchThreads();
+                cacheKey = deviceContext.getCodeCache().computeCacheKey(sketch, executable, batchThreads);
+                profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                final OCLInstalledCode cachedCode = deviceContext.installCachedCode(taskMeta, executable.getCodeCacheId(), resolvedMethod.getName(), cacheKey,
+                        OCLBackend.getDirectArgumentCount(taskMeta, resolvedMethod));
+                profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                if (cachedCode != null) {
+                    profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
+                    return cachedCode;
+                }
+            }
+
             profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
             final OCLCompilationResult result = OCLCompiler.compileSketchForDevice(sketch, executable, providers, getBackend());
             profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
@@ -247,7 +275,10 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
                 installedCode = deviceContext.installCode(result.getId(), result.getName(), result.getTargetCode(), task.shouldCompile());
             } else {
                 // B) for CPU multi-core or GPU
-                installedCode = deviceContext.installCode(result);
+                installedCode = deviceContext.installCode(result, cacheKey);
+            }
+            if (taskMeta.hasDomain()) {
+                installedCode.setDomain(taskMeta.getDomain());
             }
             profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
             profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
@@ -328,7 +359,8 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
     @Override
     public TornadoInstalledCode getCodeFromCache(SchedulableTask task) {
         String entry = getTaskEntryName(task);
-        return getDeviceContext().getInstalledCode(task.getId(), entry);
+        final String id = (task instanceof CompilableTask) ? ((CompilableTask) task).getCodeCacheId() : task.getId();
+        return getDeviceContext().getInstalledCode(id, entry);
     }
 
     private boolean isJITTaskForFGPA(SchedulableTask task) {
@@ -422,6 +454,12 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
                 }
             }
 
+        } else if (type == OffHeapVectorInt.class) {
+            result = new OCLOffHeapVectorIntWrapper(device, batchSize);
+        } else if (type == OffHeapVectorFloat.class) {
+            result = new OCLOffHeapVectorFloatWrapper(device, batchSize);
+        } else if (type == OffHeapVectorDouble.class) {
+            result = new OCLOffHeapVectorDoubleWrapper(device, batchSize);
         } else if (!type.isPrimitive() && !type.isArray()) {
             result = new OCLObjectWrapper(device, arg, batchSize);
         }
@@ -430,6 +468,14 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         return result;
     }
 
+    /**
+     * Objects with the layout of an array on the device, which are copied by the
+     * stream-in and stream-out operations.
+     */
+    private static boolean isArrayBuffer(Class<?> type) {
+        return type.isArray() || type == OffHeapVectorInt.class || type == OffHeapVectorFloat.class || type == OffHeapVectorDouble.class;
+    }
+
     private void checkBatchSize(long batchSize) {
         if (batchSize > 0) {
             throw new TornadoRuntimeException("[ERROR] Batch computation with non-arrays not supported yet.");
@@ -442,8 +488,7 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         buffer.allocate(object, batchSize);
         state.setBuffer(buffer);
 
-        final Class<?> type = object.getClass();
-        if (!type.isArray()) {
+        if (!isArrayBuffer(object.getClass())) {
             checkBatchSize(batchSize);
             buffer.write(object);
         }
@@ -464,8 +509,7 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
     private void reAllocateInvalidBuffer(Object object, long batchSize, TornadoDeviceObjectState state) {
         try {
             state.getBuffer().allocate(object, batchSize);
-            final Class<?> type = object.getClass();
-            if (!type.isArray()) {
+            if (!isArrayBuffer(object.getClass())) {
                 checkBatchSize(batchSize);
                 state.getBuffer().write(object);
             }
@@ -477,38 +521,80 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
 
     @Override
     public int ensureAllocated(Object object, long batchSize, TornadoDeviceObjectState state) {
-        if (!state.hasBuffer()) {
-            reserveMemory(object, batchSize, state);
-        } else {
-            checkForResizeBuffer(object, batchSize, state);
-        }
+        synchronized (state) {
+            if (!state.hasBuffer()) {
+                reserveMemory(object, batchSize, state);
+            } else {
+                checkForResizeBuffer(object, batchSize, state);
+            }
 
-        if (!state.isValid()) {
-            reAllocateInvalidBuffer(object, batchSize, state);
+            if (!state.isValid()) {
+                reAllocateInvalidBuffer(object, batchSize, state);
+            }
         }
         return -1;
     }
 
     @Override
     public List<Integer> ensurePresent(Object object, TornadoDeviceObjectState state, int[] events, long batchSize, long offset) {
-        if (!state.isValid()) {
-            ensureAllocated(object, batchSize, state);
-        }
+        // Objects shared by concurrent executions of a task-schedule are copied once
+        synchronized (state) {
+            if (!state.isValid()) {
+                ensureAllocated(object, batchSize, state);
+            }
 
-        if (BENCHMARKING_MODE || !state.hasContents()) {
-            state.setContents(true);
-            return state.getBuffer().enqueueWrite(object, batchSize, offset, events, events == null);
+            if (BENCHMARKING_MODE || !state.hasContents()) {
+                if (hasDirtyRanges(state, batchSize)) {
+                    return writeDirtyRanges(object, state, events, events == null);
+                }
+                state.clearDirtyRanges();
+                state.setContents(true);
+                return state.getBuffer().enqueueWrite(object, batchSize, offset, events, events == null);
+            }
         }
         return null;
     }
 
     @Override
     public List<Integer> streamIn(Object object, long batchSize, long offset, TornadoDeviceObjectState state, int[] events) {
-        if (batchSize > 0 || !state.isValid()) {
-            ensureAllocated(object, batchSize, state);
+        synchronized (state) {
+            if (batchSize > 0 || !state.isValid()) {
+                ensureAllocated(object, batchSize, state);
+            }
+            if (hasDirtyRanges(state, batchSize)) {
+                return writeDirtyRanges(object, state, events, forwardEvents(events));
+            }
+            state.clearDirtyRanges();
+            state.setContents(true);
+            return state.getBuffer().enqueueWrite(object, batchSize, offset, events, forwardEvents(events));
         }
-        state.setContents(true);
-        return state.getBuffer().enqueueWrite(object, batchSize, offset, events, events == null);
+    }
+
+    /**
+     * The host declared the ranges of the object modified since the last copy,
+     * and the device still holds the rest of the object.
+     */
+    private boolean hasDirtyRanges(TornadoDeviceObjectState state, long batchSize) {
+        return batchSize <= 0 && state.isValid() && state.hasContents() && state.hasDirtyRanges();
+    }
+
+    private List<Integer> writeDirtyRanges(Object object, TornadoDeviceObjectState state, int[] events, boolean useDeps) {
+        final long[] ranges = state.getDirtyRanges();
+        state.clearDirtyRanges();
+        return state.getBuffer().enqueueWriteRanges(object, ranges, events, useDeps);
+    }
+
+    /**
+     * Transfers enqueued in the dedicated transfer queues have to wait explicitly
+     * for the events of the kernels, since they are in a different queue.
+     */
+    private boolean forwardEvents(int[] events) {
+        return events == null || getDeviceContext().usesTransferQueues();
+    }
+
+    @Override
+    public void useTransferQueues(boolean enable) {
+        getDeviceContext().useTransferQueues(enable);
     }
 
     @Override
@@ -524,7 +610,7 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
     @Override
     public int streamOutBlocking(Object object, long hostOffset, TornadoDeviceObjectState state, int[] events) {
         TornadoInternalError.guarantee(state.isValid(), "invalid variable");
-        return state.getBuffer().read(object, hostOffset, events, events == null);
+        return state.getBuffer().read(object, hostOffset, events, forwardEvents(events));
     }
 
     public void sync(Object... objects) {
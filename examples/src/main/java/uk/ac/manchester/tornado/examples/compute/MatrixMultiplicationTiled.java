@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.examples.compute;
+
+import java.util.Random;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+
+/**
+ * Matrix multiplication with tiles in local memory, written with the
+ * {@link KernelContext} API, compared to the {@code @Parallel} version.
+ */
+public class MatrixMultiplicationTiled {
+
+    private static final int WARMING_UP_ITERATIONS = 15;
+
+    private static final int TILE = 16;
+
+    private static void matrixMultiplication(final float[] A, final float[] B, final float[] C, final int size) {
+        for (@Parallel int i = 0; i < size; i++) {
+            for (@Parallel int j = 0; j < size; j++) {
+                float sum = 0.0f;
+                for (int k = 0; k < size; k++) {
+                    sum += A[i * size + k] * B[k * size + j];
+                }
+                C[i * size + j] = sum;
+            }
+        }
+    }
+
+    private static void matrixMultiplicationTiled(final float[] A, final float[] B, final float[] C, final int size) {
+        int localCol = KernelContext.getLocalId(0);
+        int localRow = KernelContext.getLocalId(1);
+        int col = KernelContext.getGlobalId(0);
+        int row = KernelContext.getGlobalId(1);
+
+        float[] aTile = KernelContext.allocateFloatLocalArray(TILE * TILE);
+        float[] bTile = KernelContext.allocateFloatLocalArray(TILE * TILE);
+
+        float sum = 0.0f;
+        for (int t = 0; t < size / TILE; t++) {
+            aTile[localRow * TILE + localCol] = A[row * size + t * TILE + localCol];
+            bTile[localRow * TILE + localCol] = B[(t * TILE + localRow) * size + col];
+            KernelContext.localBarrier();
+            for (int k = 0; k < TILE; k++) {
+                sum += aTile[localRow * TILE + k] * bTile[k * TILE + localCol];
+            }
+            KernelContext.localBarrier();
+        }
+        C[row * size + col] = sum;
+    }
+
+    private static long run(TaskSchedule t) {
+        for (int i = 0; i < WARMING_UP_ITERATIONS; i++) {
+            t.execute();
+        }
+        long start = System.nanoTime();
+        t.execute();
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) {
+
+        int size = 1024;
+        if (args.length >= 1) {
+            try {
+                size = Integer.parseInt(args[0]);
+            } catch (NumberFormatException nfe) {
+                size = 1024;
+            }
+        }
+        size = Math.max(TILE, (size / TILE) * TILE);
+
+        System.out.println("Computing MxM of " + size + "x" + size);
+
+        float[] matrixA = new float[size * size];
+        float[] matrixB = new float[size * size];
+        float[] matrixC = new float[size * size];
+        float[] matrixCTiled = new float[size * size];
+
+        Random r = new Random();
+        for (int i = 0; i < size * size; i++) {
+            matrixA[i] = r.nextFloat();
+            matrixB[i] = r.nextFloat();
+        }
+
+        //@formatter:off
+        TaskSchedule naive = new TaskSchedule("s0")
+                .task("t0", MatrixMultiplicationTiled::matrixMultiplication, matrixA, matrixB, matrixC, size)
+                .streamOut(matrixC);
+
+        TaskSchedule tiled = new TaskSchedule("s1")
+                .task("t0", MatrixMultiplicationTiled::matrixMultiplicationTiled, matrixA, matrixB, matrixCTiled, size)
+                .setGridSize("t0", new long[] { size, size }, new long[] { TILE, TILE })
+                .streamOut(matrixCTiled);
+        //@formatter:on
+
+        long naiveTime = run(naive);
+        long tiledTime = run(tiled);
+
+        double flops = 2 * Math.pow(size, 3);
+        System.out.println("\tParallel loops: " + String.format("%.2f", flops / naiveTime) + " GFlops, Total time = " + naiveTime + " ns");
+        System.out.println("\tTiled kernel: " + String.format("%.2f", flops / tiledTime) + " GFlops, Total time = " + tiledTime + " ns");
+        System.out.println("\tSpeedup: " + ((double) naiveTime / tiledTime) + "x");
+        System.out.println("\tVerification " + verify(matrixCTiled, matrixC));
+    }
+
+    private static boolean verify(float[] tiled, float[] naive) {
+        for (int i = 0; i < tiled.length; i++) {
+            if (Math.abs(tiled[i] - naive[i]) > 0.1f) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -23,6 +23,7 @@ open module tornado.runtime {
     exports uk.ac.manchester.tornado.runtime.graal.phases.lir;
     exports uk.ac.manchester.tornado.runtime.graph;
     exports uk.ac.manchester.tornado.runtime.graph.nodes;
+    exports uk.ac.manchester.tornado.runtime.jvm;
     exports uk.ac.manchester.tornado.runtime.profiler;
     exports uk.ac.manchester.tornado.runtime.sketcher;
     exports uk.ac.manchester.tornado.runtime.tasks;
@@ -30,4 +31,6 @@ open module tornado.runtime {
     exports uk.ac.manchester.tornado.runtime.utils;
 
     uses uk.ac.manchester.tornado.runtime.TornadoDriverProvider;
+
+    provides uk.ac.manchester.tornado.runtime.TornadoDriverProvider with uk.ac.manchester.tornado.runtime.jvm.JVMDriverProvider;
 }
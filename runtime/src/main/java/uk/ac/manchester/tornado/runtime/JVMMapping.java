@@ -81,6 +81,10 @@ public class JVMMapping implements TornadoAcceleratorDevice {
         TornadoInternalError.unimplemented();
     }
 
+    @Override
+    public void useTransferQueues(boolean enable) {
+    }
+
     @Override
     public String getDescription() {
         return "default JVM";
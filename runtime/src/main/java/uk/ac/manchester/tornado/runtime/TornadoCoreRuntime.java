@@ -29,6 +29,8 @@ package uk.ac.manchester.tornado.runtime;
 
 import static org.graalvm.compiler.debug.GraalError.guarantee;
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.DEBUG;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.SHOULD_LOAD_JVM;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.SHOULD_LOAD_RMI;
 
 import java.lang.reflect.Method;
@@ -117,11 +119,13 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeC
     private final TornadoVMConfig vmConfig;
 
     private static final int DEFAULT_DRIVER = 0;
+    private static final String JVM_DRIVER_NAME = "JVM Driver";
 
     // @formatter:off
     public enum TORNADO_DRIVERS_DESCRIPTION {
         OPENCL("implemented"),
-        PTX("unsupported");
+        PTX("unsupported"),
+        JVM("implemented");
 
         String status;
 
@@ -149,7 +153,7 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeC
         drivers = loadDrivers();
     }
 
-    public void clearObjectState() {
+    public synchronized void clearObjectState() {
         for (GlobalObjectState gs : objectMappings.values()) {
             gs.clear();
         }
@@ -160,24 +164,51 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeC
         ServiceLoader<TornadoDriverProvider> loader = ServiceLoader.load(TornadoDriverProvider.class);
         drivers = new TornadoAcceleratorDriver[TORNADO_DRIVERS_DESCRIPTION.values().length];
         int index = 0;
+        TornadoDriverProvider jvmProvider = null;
         for (TornadoDriverProvider provider : loader) {
             boolean isRMI = provider.getName().equalsIgnoreCase("RMI Driver");
-            if ((!isRMI) || (isRMI && SHOULD_LOAD_RMI)) {
-                drivers[index] = provider.createDriver(options, vmRuntime, vmConfig);
+            if (provider.getName().equalsIgnoreCase(JVM_DRIVER_NAME)) {
+                // The JVM driver is always the last one, so the device drivers
+                // keep their indexes
+                jvmProvider = provider;
+            } else if ((!isRMI) || (isRMI && SHOULD_LOAD_RMI)) {
+                drivers[index] = createDriver(provider);
                 if (drivers[index] != null) {
                     index++;
                 }
             }
         }
+        if (SHOULD_LOAD_JVM && jvmProvider != null) {
+            drivers[index] = jvmProvider.createDriver(options, vmRuntime, vmConfig);
+            if (drivers[index] != null) {
+                index++;
+            }
+        }
         driverCount = index;
         return drivers;
     }
 
+    private TornadoAcceleratorDriver createDriver(TornadoDriverProvider provider) {
+        if (!SHOULD_LOAD_JVM) {
+            return provider.createDriver(options, vmRuntime, vmConfig);
+        }
+        // When the JVM driver is enabled, a machine without the native
+        // libraries of a driver can still run on the JVM device
+        try {
+            return provider.createDriver(options, vmRuntime, vmConfig);
+        } catch (Throwable e) {
+            if (DEBUG) {
+                System.out.println("[TornadoVM] Driver " + provider.getName() + " not loaded: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
     public static OptionValues getOptions() {
         return options;
     }
 
-    public GlobalObjectState resolveObject(Object object) {
+    public synchronized GlobalObjectState resolveObject(Object object) {
         if (!objectMappings.containsKey(object)) {
             final GlobalObjectState state = new GlobalObjectState();
             objectMappings.put(object, state);
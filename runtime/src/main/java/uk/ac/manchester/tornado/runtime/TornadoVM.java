@@ -27,11 +27,13 @@ package uk.ac.manchester.tornado.runtime;
 
 import static uk.ac.manchester.tornado.api.enums.TornadoExecutionStatus.COMPLETE;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.ENABLE_PROFILING;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.OPENCL_KERNEL_QUEUES;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.USE_VM_FLUSH;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.VM_USE_DEPS;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
@@ -53,8 +55,10 @@ import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graph.BatchConfiguration;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphAssembler.TornadoVMBytecodes;
+import uk.ac.manchester.tornado.runtime.profiler.ProfilerEvents;
 import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
 import uk.ac.manchester.tornado.runtime.tasks.TornadoTaskSchedule;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
@@ -68,7 +72,8 @@ import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
  * <p>
  * There is an instance of the {@link TornadoVM} per
  * {@link TornadoTaskSchedule}. Each TornadoVM contains the logic to orchestrate
- * the execution on the parallel device (e.g., a GPU).
+ * the execution on the parallel device (e.g., a GPU). Concurrent executions of
+ * a task-schedule use forks of its TornadoVM (see {@link #fork()}).
  */
 public class TornadoVM extends TornadoLogger {
 
@@ -89,7 +94,13 @@ public class TornadoVM extends TornadoLogger {
     private final List<Object> constants;
     private final List<SchedulableTask> tasks;
 
-    private final ByteBuffer buffer;
+    private final TornadoVMInstruction[] instructions;
+
+    /**
+     * TornadoVM whose installed code is shared by this instance, or null if this
+     * instance is not a fork.
+     */
+    private final TornadoVM parent;
 
     private double totalTime;
     private long invocations;
@@ -97,16 +108,79 @@ public class TornadoVM extends TornadoLogger {
     private boolean finishedWarmup;
     private boolean doUpdate;
 
+    /**
+     * Batch processing with overlapped transfers. Each chunk of a batch uses one
+     * of {@link #numBatchBuffers} device buffers per object, so the upload of a
+     * chunk, the kernels of the previous one and the download of an older one
+     * can run at the same time in different queues of the device.
+     */
+    private final boolean pipelinedBatches;
+    private final BatchConfiguration batchConfiguration;
+    private final int numBatchBuffers;
+    private final DeviceObjectState[][] batchStates;
+    private final int[] batchLastLaunch;
+    private final List<PendingStreamOut> pendingStreamOuts;
+    private final List<PendingStreamOut> freeStreamOuts;
+    private final int[] batchDependencies;
+
+    /**
+     * Events of the transfers and kernels whose times are added to the profiler
+     * at the end of the execution.
+     */
+    private final ProfilerEvents profilerEvents;
+
+    /**
+     * Download of a chunk that is delayed until the kernels of the next chunks
+     * have been launched. Instances are reused across chunks and executions.
+     */
+    private static class PendingStreamOut {
+        private int objectIndex;
+        private int contextIndex;
+        private long offset;
+        private final int[] waitList = new int[MAX_EVENTS];
+        private boolean hasWaitList;
+
+        void set(int objectIndex, int contextIndex, long offset, int[] waitList) {
+            this.objectIndex = objectIndex;
+            this.contextIndex = contextIndex;
+            this.offset = offset;
+            hasWaitList = waitList != null;
+            if (hasWaitList) {
+                System.arraycopy(waitList, 0, this.waitList, 0, waitList.length);
+            }
+        }
+
+        int[] getWaitList() {
+            return (hasWaitList) ? waitList : null;
+        }
+    }
+
     public TornadoVM(TornadoExecutionContext graphContext, byte[] code, int limit, TornadoProfiler timeProfiler) {
+        this(graphContext, code, limit, timeProfiler, null);
+    }
+
+    public TornadoVM(TornadoExecutionContext graphContext, byte[] code, int limit, TornadoProfiler timeProfiler, BatchConfiguration batchConfiguration) {
 
         this.graphContext = graphContext;
         this.timeProfiler = timeProfiler;
-
-        useDependencies = graphContext.meta().enableOooExecution() | VM_USE_DEPS;
+        this.parent = null;
+
+        this.batchConfiguration = batchConfiguration;
+        pipelinedBatches = batchConfiguration != null && TornadoOptions.BATCH_PIPELINE;
+        numBatchBuffers = Math.max(2, TornadoOptions.BATCH_BUFFERS);
+        batchLastLaunch = new int[numBatchBuffers];
+        pendingStreamOuts = new ArrayList<>();
+        freeStreamOuts = new ArrayList<>();
+        batchDependencies = new int[MAX_EVENTS + 1];
+        profilerEvents = new ProfilerEvents();
+
+        // Transfers and kernels of a pipelined batch, or of different kernel
+        // queues, are only ordered by events
+        useDependencies = graphContext.meta().enableOooExecution() | VM_USE_DEPS | pipelinedBatches | OPENCL_KERNEL_QUEUES > 1;
         totalTime = 0;
         invocations = 0;
 
-        buffer = ByteBuffer.wrap(code);
+        final ByteBuffer buffer = ByteBuffer.wrap(code);
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.limit(limit);
 
@@ -140,6 +214,7 @@ public class TornadoVM extends TornadoLogger {
             globalStates[i] = TornadoCoreRuntime.getTornadoRuntime().resolveObject(object);
             debug("\tobject[%d]: [0x%x] %s %s", i, object.hashCode(), object.getClass().getTypeName(), globalStates[i]);
         }
+        batchStates = (pipelinedBatches) ? new DeviceObjectState[objects.size()][numBatchBuffers] : null;
 
         byte op = buffer.get();
         while (op != TornadoVMBytecodes.BEGIN.value()) {
@@ -156,8 +231,90 @@ public class TornadoVM extends TornadoLogger {
         constants = graphContext.getConstants();
         tasks = graphContext.getTasks();
 
+        instructions = TornadoVMInstruction.decode(buffer);
+
         debug("%s - vm ready to go", graphContext.getId());
-        buffer.mark();
+    }
+
+    /**
+     * Instance of the TornadoVM that runs the same code as {@code parent} with
+     * its own call-stacks, event lists and objects. The installed code is shared
+     * with the parent, so the tasks are not compiled again.
+     */
+    private TornadoVM(TornadoVM parent) {
+        this.parent = parent;
+        this.graphContext = parent.graphContext;
+        this.timeProfiler = parent.timeProfiler;
+
+        batchConfiguration = parent.batchConfiguration;
+        pipelinedBatches = parent.pipelinedBatches;
+        numBatchBuffers = parent.numBatchBuffers;
+        batchLastLaunch = new int[numBatchBuffers];
+        pendingStreamOuts = new ArrayList<>();
+        freeStreamOuts = new ArrayList<>();
+        batchDependencies = new int[MAX_EVENTS + 1];
+        profilerEvents = new ProfilerEvents();
+        useDependencies = parent.useDependencies;
+        totalTime = 0;
+        invocations = 0;
+        finishedWarmup = true;
+
+        contexts = parent.contexts;
+        stacks = new CallStack[parent.stacks.length];
+        events = new int[parent.events.length][MAX_EVENTS];
+        eventsIndicies = new int[events.length];
+        installedCodes = parent.installedCodes;
+
+        objects = new ArrayList<>(parent.objects);
+        globalStates = parent.globalStates.clone();
+        batchStates = (pipelinedBatches) ? new DeviceObjectState[objects.size()][numBatchBuffers] : null;
+
+        constants = parent.constants;
+        tasks = parent.tasks;
+        instructions = parent.instructions;
+    }
+
+    /**
+     * It creates a TornadoVM that shares the installed code of this instance.
+     * Each fork has its own call-stacks and event lists, so several forks can
+     * execute the task-schedule at the same time from different threads. The
+     * tasks have to be compiled (see {@link #compile()}) before forking.
+     *
+     * @return a new instance of the TornadoVM.
+     */
+    public TornadoVM fork() {
+        return new TornadoVM(this);
+    }
+
+    public boolean isForkOf(TornadoVM vm) {
+        return parent != null && parent == vm;
+    }
+
+    /**
+     * It replaces the objects used by a fork of the TornadoVM. Each object is
+     * moved to the devices through its own state, so forks bound to different
+     * objects use different device buffers.
+     *
+     * @param newObjects
+     *            Objects of the task-schedule, in the order of the execution
+     *            context.
+     */
+    public void bindObjects(List<Object> newObjects) {
+        TornadoInternalError.guarantee(parent != null, "objects can only be bound to a fork of the TornadoVM");
+        TornadoInternalError.guarantee(newObjects.size() == objects.size(), "invalid number of objects");
+        for (int i = 0; i < objects.size(); i++) {
+            final Object object = newObjects.get(i);
+            if (objects.get(i) != object) {
+                objects.set(i, object);
+                globalStates[i] = TornadoCoreRuntime.getTornadoRuntime().resolveObject(object);
+            }
+        }
+        // The call-stacks hold the device addresses of the previous objects
+        for (CallStack stack : stacks) {
+            if (stack != null) {
+                stack.reset();
+            }
+        }
     }
 
     public void setCompileUpdate() {
@@ -172,6 +329,131 @@ public class TornadoVM extends TornadoLogger {
         return globalStates[index].getDeviceState(contexts.get(device));
     }
 
+    private int getBatchBuffer(long chunk) {
+        return (int) (chunk % numBatchBuffers);
+    }
+
+    /**
+     * The first buffer of a pipelined batch is the device state of the object.
+     * The rest are only used by this task-schedule.
+     */
+    private DeviceObjectState resolveBatchObjectState(int index, int device, int batchBuffer) {
+        if (batchBuffer == 0) {
+            return resolveObjectState(index, device);
+        }
+        if (batchStates[index][batchBuffer] == null) {
+            batchStates[index][batchBuffer] = new DeviceObjectState();
+        }
+        return batchStates[index][batchBuffer];
+    }
+
+    private DeviceObjectState resolveObjectState(int index, int device, long offset) {
+        if (!pipelinedBatches) {
+            return resolveObjectState(index, device);
+        }
+        return resolveBatchObjectState(index, device, getBatchBuffer(batchConfiguration.getChunkIndex(index, offset)));
+    }
+
+    /**
+     * It adds {@code event} to a copy of the wait list. The copy is a buffer of
+     * this TornadoVM that is only valid until the next call.
+     */
+    private int[] appendEvent(int[] waitList, int event) {
+        if (event == -1) {
+            return waitList;
+        }
+        Arrays.fill(batchDependencies, -1);
+        if (waitList != null) {
+            System.arraycopy(waitList, 0, batchDependencies, 0, waitList.length);
+        }
+        batchDependencies[MAX_EVENTS] = event;
+        return batchDependencies;
+    }
+
+    private void addPendingStreamOut(int objectIndex, int contextIndex, long offset, int[] waitList) {
+        final PendingStreamOut streamOut = (freeStreamOuts.isEmpty()) ? new PendingStreamOut() : freeStreamOuts.remove(freeStreamOuts.size() - 1);
+        streamOut.set(objectIndex, contextIndex, offset, waitList);
+        pendingStreamOuts.add(streamOut);
+    }
+
+    private void clearPendingStreamOuts() {
+        for (int i = 0; i < pendingStreamOuts.size(); i++) {
+            freeStreamOuts.add(pendingStreamOuts.get(i));
+        }
+        pendingStreamOuts.clear();
+    }
+
+    /**
+     * Upload of a chunk. The buffer of the chunk is also used by an older chunk,
+     * so the upload waits for its kernels.
+     */
+    private List<Integer> streamInBatch(TornadoAcceleratorDevice device, int objectIndex, long sizeBatch, long offset, DeviceObjectState objectState, int[] waitList) {
+        final Object object = objects.get(objectIndex);
+        final long chunk = batchConfiguration.getChunkIndex(objectIndex, offset);
+        final int[] dependencies = appendEvent(waitList, batchLastLaunch[getBatchBuffer(chunk)]);
+        List<Integer> allEvents;
+        device.useTransferQueues(true);
+        try {
+            allEvents = device.streamIn(object, sizeBatch, offset, objectState, dependencies);
+        } finally {
+            device.useTransferQueues(false);
+        }
+        if (TornadoOptions.isProfilerEnabled() && allEvents != null) {
+            for (int i = 0; i < allEvents.size(); i++) {
+                recordBatchStage(chunk, ProfilerType.COPY_IN_TIME, device.resolveEvent(allEvents.get(i)));
+            }
+        }
+        return allEvents;
+    }
+
+    /**
+     * It performs the pending downloads of all chunks up to {@code lastChunk}.
+     * They block the host, but the kernels of the following chunks are already
+     * enqueued in the device.
+     */
+    private void flushBatchStreamOuts(long lastChunk) {
+        int kept = 0;
+        for (int i = 0; i < pendingStreamOuts.size(); i++) {
+            final PendingStreamOut streamOut = pendingStreamOuts.get(i);
+            final long chunk = batchConfiguration.getChunkIndex(streamOut.objectIndex, streamOut.offset);
+            if (chunk > lastChunk) {
+                pendingStreamOuts.set(kept++, streamOut);
+                continue;
+            }
+            final TornadoAcceleratorDevice device = contexts.get(streamOut.contextIndex);
+            final DeviceObjectState objectState = resolveObjectState(streamOut.objectIndex, streamOut.contextIndex, streamOut.offset);
+            int event;
+            device.useTransferQueues(true);
+            try {
+                event = device.streamOutBlocking(objects.get(streamOut.objectIndex), streamOut.offset, objectState, streamOut.getWaitList());
+            } finally {
+                device.useTransferQueues(false);
+            }
+            if (TornadoOptions.isProfilerEnabled() && event != -1) {
+                recordBatchStage(chunk, ProfilerType.COPY_OUT_TIME, device.resolveEvent(event));
+                recordProfilerEvent(ProfilerType.COPY_OUT_TIME, device.resolveEvent(event));
+            }
+            freeStreamOuts.add(streamOut);
+        }
+        while (pendingStreamOuts.size() > kept) {
+            pendingStreamOuts.remove(pendingStreamOuts.size() - 1);
+        }
+    }
+
+    private void recordProfilerEvent(ProfilerType type, Event event) {
+        profilerEvents.add(type, event);
+        if (profilerEvents.isFull()) {
+            profilerEvents.resolve(timeProfiler);
+        }
+    }
+
+    private void recordBatchStage(long chunk, ProfilerType type, Event event) {
+        profilerEvents.addBatchStage(chunk, type, event);
+        if (profilerEvents.isFull()) {
+            profilerEvents.resolve(timeProfiler);
+        }
+    }
+
     private CallStack resolveStack(int index, int numArgs, CallStack[] stacks, TornadoAcceleratorDevice device, boolean setNewDevice) {
         if (graphContext.meta().isDebug() && setNewDevice) {
             debug("Recompiling task on device " + device);
@@ -218,365 +500,471 @@ public class TornadoVM extends TornadoLogger {
         final long t0 = System.nanoTime();
         int lastEvent = -1;
         initWaitEventList();
+        if (pipelinedBatches) {
+            Arrays.fill(batchLastLaunch, -1);
+            clearPendingStreamOuts();
+        }
 
         StringBuilder tornadoVMBytecodeList = null;
         if (TornadoOptions.printBytecodes) {
             tornadoVMBytecodeList = new StringBuilder();
         }
 
-        while (buffer.hasRemaining()) {
-            final byte op = buffer.get();
-            if (op == TornadoVMBytecodes.ALLOCATE.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final long sizeBatch = buffer.getLong();
+        for (TornadoVMInstruction instruction : instructions) {
+            switch (instruction.bytecode) {
+                case ALLOCATE: {
+                    final int objectIndex = instruction.objectIndex;
+                    final int contextIndex = instruction.contextIndex;
+                    final long sizeBatch = instruction.size;
 
-                if (isWarmup) {
-                    continue;
-                }
+                    if (isWarmup) {
+                        continue;
+                    }
+
+                    final TornadoAcceleratorDevice device = contexts.get(contextIndex);
+                    final Object object = objects.get(objectIndex);
+
+                    if (TornadoOptions.printBytecodes) {
+                        String verbose = String.format("vm: ALLOCATE [0x%x] %s on %s, size=%d", object.hashCode(), object, device, sizeBatch);
+                        tornadoVMBytecodeList.append(verbose + "\n");
+                    }
 
-                final TornadoAcceleratorDevice device = contexts.get(contextIndex);
-                final Object object = objects.get(objectIndex);
+                    final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+                    lastEvent = device.ensureAllocated(object, sizeBatch, objectState);
+                    if (pipelinedBatches && batchConfiguration.isBatched(objectIndex)) {
+                        for (int i = 1; i < numBatchBuffers; i++) {
+                            device.ensureAllocated(object, sizeBatch, resolveBatchObjectState(objectIndex, contextIndex, i));
+                        }
+                    }
 
-                if (TornadoOptions.printBytecodes) {
-                    String verbose = String.format("vm: ALLOCATE [0x%x] %s on %s, size=%d", object.hashCode(), object, device, sizeBatch);
-                    tornadoVMBytecodeList.append(verbose + "\n");
+                    break;
                 }
+                case COPY_IN: {
+                    final int objectIndex = instruction.objectIndex;
+                    final int contextIndex = instruction.contextIndex;
+                    final int eventList = instruction.eventList;
+                    final long offset = instruction.offset;
+                    final long sizeBatch = instruction.size;
 
-                final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
-                lastEvent = device.ensureAllocated(object, sizeBatch, objectState);
+                    final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
 
-            } else if (op == TornadoVMBytecodes.COPY_IN.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
+                    if (isWarmup) {
+                        continue;
+                    }
 
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
+                    final TornadoAcceleratorDevice device = contexts.get(contextIndex);
+                    final Object object = objects.get(objectIndex);
 
-                if (isWarmup) {
-                    continue;
-                }
+                    final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex, offset);
 
-                final TornadoAcceleratorDevice device = contexts.get(contextIndex);
-                final Object object = objects.get(objectIndex);
+                    if (TornadoOptions.printBytecodes) {
+                        String verbose = String.format("vm: COPY_IN [Object Hash Code=0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
+                        tornadoVMBytecodeList.append(verbose + "\n");
+                    }
 
-                final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+                    List<Integer> allEvents;
+                    if (sizeBatch > 0 && pipelinedBatches) {
+                        allEvents = streamInBatch(device, objectIndex, sizeBatch, offset, objectState, waitList);
+                    } else if (sizeBatch > 0) {
+                        // We need to stream-in when using batches, because the
+                        // whole data is not copied yet.
+                        allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
+                    } else {
+                        allEvents = device.ensurePresent(object, objectState, waitList, sizeBatch, offset);
+                    }
+                    if (eventList != -1) {
+                        eventsIndicies[eventList] = 0;
+                    }
 
-                if (TornadoOptions.printBytecodes) {
-                    String verbose = String.format("vm: COPY_IN [Object Hash Code=0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
-                    tornadoVMBytecodeList.append(verbose + "\n");
-                }
+                    if (TornadoOptions.isProfilerEnabled() && allEvents != null) {
+                        for (int i = 0; i < allEvents.size(); i++) {
+                            recordProfilerEvent(ProfilerType.COPY_IN_TIME, device.resolveEvent(allEvents.get(i)));
+                        }
+                    }
 
-                List<Integer> allEvents;
-                if (sizeBatch > 0) {
-                    // We need to stream-in when using batches, because the
-                    // whole data is not copied yet.
-                    allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
-                } else {
-                    allEvents = device.ensurePresent(object, objectState, waitList, sizeBatch, offset);
-                }
-                if (eventList != -1) {
-                    eventsIndicies[eventList] = 0;
+                    break;
                 }
+                case STREAM_IN: {
+                    final int objectIndex = instruction.objectIndex;
+                    final int contextIndex = instruction.contextIndex;
+                    final int eventList = instruction.eventList;
+                    final long offset = instruction.offset;
+                    final long sizeBatch = instruction.size;
+
+                    final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
 
-                if (TornadoOptions.isProfilerEnabled() && allEvents != null) {
-                    for (Integer e : allEvents) {
-                        Event event = device.resolveEvent(e);
-                        event.waitForEvents();
-                        long value = timeProfiler.getTimer(ProfilerType.COPY_IN_TIME);
-                        value += event.getExecutionTime();
-                        timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, value);
+                    if (isWarmup) {
+                        continue;
                     }
-                }
 
-            } else if (op == TornadoVMBytecodes.STREAM_IN.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
+                    final TornadoAcceleratorDevice device = contexts.get(contextIndex);
+                    final Object object = objects.get(objectIndex);
 
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
+                    if (TornadoOptions.printBytecodes) {
+                        String verbose = String.format("vm: STREAM_IN [0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
+                        tornadoVMBytecodeList.append(verbose + "\n");
+                    }
 
-                if (isWarmup) {
-                    continue;
-                }
+                    final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex, offset);
 
-                final TornadoAcceleratorDevice device = contexts.get(contextIndex);
-                final Object object = objects.get(objectIndex);
+                    List<Integer> allEvents;
+                    if (sizeBatch > 0 && pipelinedBatches) {
+                        allEvents = streamInBatch(device, objectIndex, sizeBatch, offset, objectState, waitList);
+                    } else {
+                        allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
+                    }
+                    if (eventList != -1) {
+                        eventsIndicies[eventList] = 0;
+                    }
+                    if (TornadoOptions.isProfilerEnabled() && allEvents != null) {
+                        for (int i = 0; i < allEvents.size(); i++) {
+                            recordProfilerEvent(ProfilerType.COPY_IN_TIME, device.resolveEvent(allEvents.get(i)));
+                        }
+                    }
 
-                if (TornadoOptions.printBytecodes) {
-                    String verbose = String.format("vm: STREAM_IN [0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
-                    tornadoVMBytecodeList.append(verbose + "\n");
+                    break;
                 }
+                case STREAM_OUT: {
+                    final int objectIndex = instruction.objectIndex;
+                    final int contextIndex = instruction.contextIndex;
+                    final int eventList = instruction.eventList;
 
-                final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+                    final long offset = instruction.offset;
+                    final long sizeBatch = instruction.size;
 
-                List<Integer> allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
-                if (eventList != -1) {
-                    eventsIndicies[eventList] = 0;
-                }
-                if (TornadoOptions.isProfilerEnabled() && allEvents != null) {
-                    for (Integer e : allEvents) {
-                        Event event = device.resolveEvent(e);
-                        event.waitForEvents();
-                        long value = timeProfiler.getTimer(ProfilerType.COPY_IN_TIME);
-                        value += event.getExecutionTime();
-                        timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, value);
+                    final int[] waitList = (useDependencies) ? events[eventList] : null;
+
+                    if (isWarmup) {
+                        continue;
                     }
-                }
 
-            } else if (op == TornadoVMBytecodes.STREAM_OUT.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
+                    final TornadoAcceleratorDevice device = contexts.get(contextIndex);
+                    final Object object = objects.get(objectIndex);
 
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
+                    if (TornadoOptions.printBytecodes) {
+                        String verbose = String.format("vm: STREAM_OUT [0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
+                        tornadoVMBytecodeList.append(verbose + "\n");
+                    }
 
-                final int[] waitList = (useDependencies) ? events[eventList] : null;
+                    if (pipelinedBatches) {
+                        // The download is performed once the kernels of the next chunk are launched
+                        addPendingStreamOut(objectIndex, contextIndex, offset, waitList);
+                        lastEvent = -1;
+                        if (eventList != -1) {
+                            eventsIndicies[eventList] = 0;
+                        }
+                        continue;
+                    }
 
-                if (isWarmup) {
-                    continue;
-                }
+                    final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
 
-                final TornadoAcceleratorDevice device = contexts.get(contextIndex);
-                final Object object = objects.get(objectIndex);
+                    lastEvent = device.streamOutBlocking(object, offset, objectState, waitList);
+                    if (eventList != -1) {
+                        eventsIndicies[eventList] = 0;
+                    }
+                    if (TornadoOptions.isProfilerEnabled() && lastEvent != -1) {
+                        recordProfilerEvent(ProfilerType.COPY_OUT_TIME, device.resolveEvent(lastEvent));
+                    }
 
-                if (TornadoOptions.printBytecodes) {
-                    String verbose = String.format("vm: STREAM_OUT [0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
-                    tornadoVMBytecodeList.append(verbose + "\n");
+                    break;
                 }
+                case STREAM_OUT_BLOCKING: {
+                    final int objectIndex = instruction.objectIndex;
+                    final int contextIndex = instruction.contextIndex;
+                    final int eventList = instruction.eventList;
 
-                final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+                    final long offset = instruction.offset;
+                    final long sizeBatch = instruction.size;
 
-                lastEvent = device.streamOutBlocking(object, offset, objectState, waitList);
-                if (eventList != -1) {
-                    eventsIndicies[eventList] = 0;
-                }
-                if (TornadoOptions.isProfilerEnabled() && lastEvent != -1) {
-                    Event event = device.resolveEvent(lastEvent);
-                    event.waitForEvents();
-                    long value = timeProfiler.getTimer(ProfilerType.COPY_OUT_TIME);
-                    value += event.getExecutionTime();
-                    timeProfiler.setTimer(ProfilerType.COPY_OUT_TIME, value);
-                }
+                    final int[] waitList = (useDependencies) ? events[eventList] : null;
 
-            } else if (op == TornadoVMBytecodes.STREAM_OUT_BLOCKING.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
+                    if (isWarmup) {
+                        continue;
+                    }
 
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
+                    final TornadoAcceleratorDevice device = contexts.get(contextIndex);
+                    final Object object = objects.get(objectIndex);
 
-                final int[] waitList = (useDependencies) ? events[eventList] : null;
+                    if (TornadoOptions.printBytecodes) {
+                        String verbose = String.format("vm: STREAM_OUT_BLOCKING [0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
+                        tornadoVMBytecodeList.append(verbose + "\n");
+                    }
 
-                if (isWarmup) {
-                    continue;
-                }
+                    if (pipelinedBatches) {
+                        addPendingStreamOut(objectIndex, contextIndex, offset, waitList);
+                        flushBatchStreamOuts(Long.MAX_VALUE);
+                        if (eventList != -1) {
+                            eventsIndicies[eventList] = 0;
+                        }
+                        continue;
+                    }
 
-                final TornadoAcceleratorDevice device = contexts.get(contextIndex);
-                final Object object = objects.get(objectIndex);
+                    final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
 
-                if (TornadoOptions.printBytecodes) {
-                    String verbose = String.format("vm: STREAM_OUT_BLOCKING [0x%x] %s on %s, size=%d, offset=%d [event list=%d]", object.hashCode(), object, device, sizeBatch, offset, eventList);
-                    tornadoVMBytecodeList.append(verbose + "\n");
-                }
+                    final int tornadoEventID = device.streamOutBlocking(object, offset, objectState, waitList);
 
-                final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+                    if (TornadoOptions.isProfilerEnabled() && tornadoEventID != -1) {
+                        recordProfilerEvent(ProfilerType.COPY_OUT_TIME, device.resolveEvent(tornadoEventID));
+                    }
 
-                final int tornadoEventID = device.streamOutBlocking(object, offset, objectState, waitList);
+                    if (eventList != -1) {
+                        eventsIndicies[eventList] = 0;
+                    }
 
-                if (TornadoOptions.isProfilerEnabled() && tornadoEventID != -1) {
-                    Event event = device.resolveEvent(tornadoEventID);
-                    event.waitForEvents();
-                    long value = timeProfiler.getTimer(ProfilerType.COPY_OUT_TIME);
-                    value += event.getExecutionTime();
-                    timeProfiler.setTimer(ProfilerType.COPY_OUT_TIME, value);
+                    break;
                 }
+                case TRANSFER: {
+                    final int objectIndex = instruction.objectIndex;
+                    final int sourceIndex = instruction.sourceIndex;
+                    final int contextIndex = instruction.contextIndex;
+                    final int eventList = instruction.eventList;
 
-                if (eventList != -1) {
-                    eventsIndicies[eventList] = 0;
-                }
+                    final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
+
+                    if (isWarmup) {
+                        continue;
+                    }
 
-            } else if (op == TornadoVMBytecodes.LAUNCH.value()) {
-                final int stackIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int taskIndex = buffer.getInt();
-                final int numArgs = buffer.getInt();
-                final int eventList = buffer.getInt();
+                    final TornadoAcceleratorDevice source = contexts.get(sourceIndex);
+                    final TornadoAcceleratorDevice device = contexts.get(contextIndex);
+                    final Object object = objects.get(objectIndex);
 
-                final long offset = buffer.getLong();
-                final long batchThreads = buffer.getLong();
+                    if (TornadoOptions.printBytecodes) {
+                        String verbose = String.format("vm: TRANSFER [0x%x] %s from %s to %s [event list=%d]", object.hashCode(), object, source, device, eventList);
+                        tornadoVMBytecodeList.append(verbose + "\n");
+                    }
 
-                final TornadoAcceleratorDevice device = contexts.get(contextIndex);
+                    final DeviceObjectState sourceState = resolveObjectState(objectIndex, sourceIndex);
+                    final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
+
+                    lastEvent = -1;
+                    if (!objectState.isValid() || !objectState.hasContents()) {
+                        // The copy in the destination device is stale. The data goes through the host:
+                        // the read waits for the producer in the source device and the write is
+                        // enqueued in the destination device.
+                        source.streamOutBlocking(object, 0, sourceState, waitList);
+                        List<Integer> allEvents = device.streamIn(object, 0, 0, objectState, null);
+                        if (allEvents != null && !allEvents.isEmpty()) {
+                            lastEvent = allEvents.get(allEvents.size() - 1);
+                        }
+                    }
+                    if (eventList != -1) {
+                        eventsIndicies[eventList] = 0;
+                    }
 
-                if (device.getDeviceContext().wasReset() && finishedWarmup) {
-                    throw new TornadoFailureException("[ERROR] reset() was called after warmup()");
+                    break;
                 }
+                case LAUNCH: {
+                    final int stackIndex = instruction.stackIndex;
+                    final int contextIndex = instruction.contextIndex;
+                    final int taskIndex = instruction.taskIndex;
+                    final int numArgs = instruction.numArgs;
+                    final int eventList = instruction.eventList;
 
-                boolean redeployOnDevice = graphContext.redeployOnDevice();
+                    final long offset = instruction.offset;
+                    final long batchThreads = instruction.size;
 
-                final CallStack stack = resolveStack(stackIndex, numArgs, stacks, device, redeployOnDevice);
+                    final TornadoAcceleratorDevice device = contexts.get(contextIndex);
 
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
-                final SchedulableTask task = tasks.get(taskIndex);
+                    if (device.getDeviceContext().wasReset() && finishedWarmup) {
+                        throw new TornadoFailureException("[ERROR] reset() was called after warmup()");
+                    }
 
-                // Set the batch size in the task information
-                task.setBatchThreads(batchThreads);
-                task.enableDefaultThreadScheduler(graphContext.useDefaultThreadScheduler());
+                    boolean redeployOnDevice = graphContext.redeployOnDevice();
 
-                if (TornadoOptions.printBytecodes) {
-                    String verbose = String.format("vm: LAUNCH %s on %s, size=%d, offset=%d [event list=%d]", task.getFullName(), contexts.get(contextIndex), batchThreads, offset, eventList);
-                    tornadoVMBytecodeList.append(verbose + "\n");
-                }
+                    final CallStack stack = resolveStack(stackIndex, numArgs, stacks, device, redeployOnDevice);
 
-                if (installedCodes[taskIndex] == null) {
-                    task.mapTo(device);
-                    try {
-                        task.attachProfiler(timeProfiler);
-                        if (taskIndex == (tasks.size() - 1)) {
-                            // If last task within the task-schedule -> we force compilation
-                            // This is useful when compiling code for Xilinx/Altera FPGAs, that has to
-                            // be a single source
-                            task.forceCompilation();
-                        }
-                        if (doUpdate) {
-                            task.forceCompilation();
-                        }
-                        installedCodes[taskIndex] = device.installCode(task);
-                        doUpdate = false;
-                    } catch (Exception e) {
-                        throw new TornadoBailoutRuntimeException("Unable to compile task " + task.getFullName() + "\n" + e.getStackTrace(), e);
-                    }
-                }
+                    final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
+                    final SchedulableTask task = tasks.get(taskIndex);
 
-                if (isWarmup) {
-                    popArgumentsFromStack(numArgs);
-                    continue;
-                }
+                    // Set the batch size in the task information
+                    task.setBatchThreads(batchThreads);
+                    task.enableDefaultThreadScheduler(graphContext.useDefaultThreadScheduler());
 
-                if (installedCodes[taskIndex] == null) {
-                    // After warming-up, it is possible to get a null pointer in the task-cache due
-                    // to lazy compilation for FPGAs. In tha case, we check again the code cache.
-                    installedCodes[taskIndex] = device.getCodeFromCache(task);
-                }
-
-                final TornadoInstalledCode installedCode = installedCodes[taskIndex];
-                if (installedCode == null) {
-                    // There was an error during compilation -> bailout
-                    throw new TornadoBailoutRuntimeException("Code generator Failed");
-                }
+                    if (TornadoOptions.printBytecodes) {
+                        String verbose = String.format("vm: LAUNCH %s on %s, size=%d, offset=%d, queue=%d [event list=%d]", task.getFullName(), contexts.get(contextIndex), batchThreads, offset,
+                                instruction.queueIndex, eventList);
+                        tornadoVMBytecodeList.append(verbose + "\n");
+                    }
 
-                final Access[] accesses = task.getArgumentsAccess();
-                if (redeployOnDevice || !stack.isOnDevice()) {
-                    stack.reset();
-                }
-                for (int i = 0; i < numArgs; i++) {
-                    final byte argType = buffer.get();
-                    final int argIndex = buffer.getInt();
+                    if (installedCodes[taskIndex] == null) {
+                        task.mapTo(device);
+                        try {
+                            task.attachProfiler(timeProfiler);
+                            if (taskIndex == (tasks.size() - 1)) {
+                                // If last task within the task-schedule -> we force compilation
+                                // This is useful when compiling code for Xilinx/Altera FPGAs, that has to
+                                // be a single source
+                                task.forceCompilation();
+                            }
+                            if (doUpdate) {
+                                task.forceCompilation();
+                            }
+                            installedCodes[taskIndex] = device.installCode(task);
+                            doUpdate = false;
+                        } catch (Exception e) {
+                            throw new TornadoBailoutRuntimeException("Unable to compile task " + task.getFullName() + "\n" + e.getStackTrace(), e);
+                        }
+                    }
 
-                    if (stack.isOnDevice()) {
+                    if (isWarmup) {
                         continue;
                     }
 
-                    if (argType == TornadoVMBytecodes.CONSTANT_ARGUMENT.value()) {
-                        stack.push(constants.get(argIndex));
-                    } else if (argType == TornadoVMBytecodes.REFERENCE_ARGUMENT.value()) {
-                        final GlobalObjectState globalState = resolveGlobalObjectState(argIndex);
-                        final DeviceObjectState objectState = globalState.getDeviceState(contexts.get(contextIndex));
+                    if (installedCodes[taskIndex] == null) {
+                        // After warming-up, it is possible to get a null pointer in the task-cache due
+                        // to lazy compilation for FPGAs. In tha case, we check again the code cache.
+                        installedCodes[taskIndex] = device.getCodeFromCache(task);
+                    }
 
-                        TornadoInternalError.guarantee(objectState.isValid(), MESSAGE_ERROR, objects.get(argIndex), objectState);
+                    final TornadoInstalledCode installedCode = installedCodes[taskIndex];
+                    if (installedCode == null) {
+                        // There was an error during compilation -> bailout
+                        throw new TornadoBailoutRuntimeException("Code generator Failed");
+                    }
 
-                        stack.push(objects.get(argIndex), objectState);
-                        if (accesses[i] == Access.WRITE || accesses[i] == Access.READ_WRITE) {
-                            globalState.setOwner(device);
-                            objectState.setContents(true);
-                            objectState.setModified(true);
-                        }
-                    } else {
-                        TornadoInternalError.shouldNotReachHere();
+                    final Access[] accesses = task.getArgumentsAccess();
+                    if (redeployOnDevice || !stack.isOnDevice()) {
+                        stack.reset();
                     }
-                }
+                    for (int i = 0; i < numArgs; i++) {
+                        final byte argType = instruction.argTypes[i];
+                        final int argIndex = instruction.argIndices[i];
 
-                TaskMetaData metadata = null;
-                if (task.meta() instanceof TaskMetaData) {
-                    metadata = (TaskMetaData) task.meta();
-                } else {
-                    throw new RuntimeException("task.meta is not instanceof TaskMetada");
-                }
+                        if (stack.isOnDevice()) {
+                            continue;
+                        }
 
-                // We attach the profiler
-                metadata.attachProfiler(timeProfiler);
+                        if (argType == TornadoVMBytecodes.CONSTANT_ARGUMENT.value()) {
+                            stack.push(constants.get(argIndex));
+                        } else if (argType == TornadoVMBytecodes.REFERENCE_ARGUMENT.value()) {
+                            final GlobalObjectState globalState = resolveGlobalObjectState(argIndex);
+                            final DeviceObjectState objectState;
+                            if (pipelinedBatches && batchConfiguration.isBatched(argIndex)) {
+                                objectState = resolveBatchObjectState(argIndex, contextIndex, getBatchBuffer(batchConfiguration.getChunkIndex(offset)));
+                            } else {
+                                objectState = globalState.getDeviceState(contexts.get(contextIndex));
+                            }
+
+                            TornadoInternalError.guarantee(objectState.isValid(), MESSAGE_ERROR, objects.get(argIndex), objectState);
+
+                            stack.push(objects.get(argIndex), objectState);
+                            if (accesses[i] == Access.WRITE || accesses[i] == Access.READ_WRITE) {
+                                globalState.setOwner(device);
+                                globalState.invalidateCopies(device);
+                                objectState.setContents(true);
+                                objectState.setModified(true);
+                            }
+                        } else {
+                            TornadoInternalError.shouldNotReachHere();
+                        }
+                    }
 
-                try {
-                    if (useDependencies) {
-                        lastEvent = installedCode.launchWithDependencies(stack, metadata, batchThreads, waitList);
+                    TaskMetaData metadata = null;
+                    if (task.meta() instanceof TaskMetaData) {
+                        metadata = (TaskMetaData) task.meta();
                     } else {
-                        lastEvent = installedCode.launchWithoutDependencies(stack, metadata, batchThreads);
+                        throw new RuntimeException("task.meta is not instanceof TaskMetada");
                     }
-                    if (eventList != -1) {
-                        eventsIndicies[eventList] = 0;
+
+                    // We attach the profiler
+                    metadata.attachProfiler(timeProfiler);
+                    metadata.attachProfilerEvents(profilerEvents);
+                    if (profilerEvents.isFull()) {
+                        profilerEvents.resolve(timeProfiler);
                     }
-                } catch (Exception e) {
-                    String re = e.toString();
-                    if (Tornado.DEBUG) {
-                        e.printStackTrace();
+
+                    try {
+                        if (useDependencies) {
+                            lastEvent = installedCode.launchWithDependencies(stack, metadata, batchThreads, waitList, instruction.queueIndex);
+                        } else {
+                            lastEvent = installedCode.launchWithoutDependencies(stack, metadata, batchThreads);
+                        }
+                        if (eventList != -1) {
+                            eventsIndicies[eventList] = 0;
+                        }
+                        if (pipelinedBatches) {
+                            final long chunk = batchConfiguration.getChunkIndex(offset);
+                            batchLastLaunch[getBatchBuffer(chunk)] = lastEvent;
+                            if (TornadoOptions.isProfilerEnabled() && lastEvent != -1) {
+                                recordBatchStage(chunk, ProfilerType.TASK_KERNEL_TIME, device.resolveEvent(lastEvent));
+                            }
+                            // The buffers of older chunks are reused by the next uploads
+                            flushBatchStreamOuts(chunk - (numBatchBuffers - 1));
+                        }
+                    } catch (Exception e) {
+                        String re = e.toString();
+                        if (Tornado.DEBUG) {
+                            e.printStackTrace();
+                        }
+                        throw new TornadoBailoutRuntimeException("Bailout from LAUNCH Bytecode: \nReason: " + re, e);
                     }
-                    throw new TornadoBailoutRuntimeException("Bailout from LAUNCH Bytecode: \nReason: " + re, e);
-                }
-            } else if (op == TornadoVMBytecodes.ADD_DEP.value()) {
-                final int eventList = buffer.getInt();
-                if (isWarmup) {
-                    continue;
+                    break;
                 }
-                if (useDependencies && lastEvent != -1) {
+                case ADD_DEP: {
+                    final int eventList = instruction.eventList;
+                    if (isWarmup) {
+                        continue;
+                    }
+                    if (useDependencies && lastEvent != -1) {
 
-                    if (TornadoOptions.printBytecodes) {
-                        String verbose = String.format("vm: ADD_DEP %s to event list %d", lastEvent, eventList);
-                        tornadoVMBytecodeList.append(verbose + "\n");
+                        if (TornadoOptions.printBytecodes) {
+                            String verbose = String.format("vm: ADD_DEP %s to event list %d", lastEvent, eventList);
+                            tornadoVMBytecodeList.append(verbose + "\n");
+                        }
+
+                        TornadoInternalError.guarantee(eventsIndicies[eventList] < events[eventList].length, "event list is too small");
+                        events[eventList][eventsIndicies[eventList]] = lastEvent;
+                        eventsIndicies[eventList]++;
                     }
 
-                    TornadoInternalError.guarantee(eventsIndicies[eventList] < events[eventList].length, "event list is too small");
-                    events[eventList][eventsIndicies[eventList]] = lastEvent;
-                    eventsIndicies[eventList]++;
+                    break;
                 }
+                case BARRIER: {
+                    final int eventList = instruction.eventList;
+                    final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
 
-            } else if (op == TornadoVMBytecodes.BARRIER.value()) {
-                final int eventList = buffer.getInt();
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
+                    if (isWarmup) {
+                        continue;
+                    }
 
-                if (isWarmup) {
-                    continue;
-                }
+                    if (TornadoOptions.printBytecodes) {
+                        tornadoVMBytecodeList.append(String.format("BARRIER event list %d\n", eventList));
+                    }
 
-                if (TornadoOptions.printBytecodes) {
-                    tornadoVMBytecodeList.append(String.format("BARRIER event list %d\n", eventList));
-                }
+                    if (pipelinedBatches) {
+                        flushBatchStreamOuts(Long.MAX_VALUE);
+                    }
 
-                if (contexts.size() == 1) {
-                    final TornadoAcceleratorDevice device = contexts.get(0);
-                    lastEvent = device.enqueueMarker(waitList);
-                } else if (contexts.size() > 1) {
-                    TornadoInternalError.shouldNotReachHere("unimplemented multi-context barrier");
-                }
+                    if (contexts.size() == 1) {
+                        final TornadoAcceleratorDevice device = contexts.get(0);
+                        lastEvent = device.enqueueMarker(waitList);
+                    } else if (contexts.size() > 1) {
+                        // Events are local to each device, so every device is synchronised
+                        for (TornadoAcceleratorDevice device : contexts) {
+                            device.sync();
+                        }
+                        lastEvent = -1;
+                    }
 
-                if (eventList != -1) {
-                    eventsIndicies[eventList] = 0;
-                }
-            } else if (op == TornadoVMBytecodes.END.value()) {
-                if (TornadoOptions.printBytecodes) {
-                    tornadoVMBytecodeList.append(String.format("END\n"));
-                }
-                break;
-            } else {
-                if (graphContext.meta().isDebug()) {
-                    debug("vm: invalid op 0x%x(%d)", op, op);
+                    if (eventList != -1) {
+                        eventsIndicies[eventList] = 0;
+                    }
+                    break;
                 }
-                throw new TornadoRuntimeException("[ERROR] TornadoVM Bytecode not recognized");
+                default:
+                    throw new TornadoRuntimeException("[ERROR] TornadoVM Bytecode not recognized: " + instruction.bytecode);
+            }
+        }
+
+        if (TornadoOptions.printBytecodes) {
+            tornadoVMBytecodeList.append(String.format("END\n"));
+        }
+
+        if (pipelinedBatches && !isWarmup) {
+            flushBatchStreamOuts(Long.MAX_VALUE);
+            for (TornadoAcceleratorDevice device : contexts) {
+                device.sync();
             }
         }
 
@@ -605,7 +993,10 @@ public class TornadoVM extends TornadoLogger {
             debug("vm: complete elapsed=%.9f s (%d iterations, %.9f s mean)", elapsed, invocations, (totalTime / invocations));
         }
 
-        buffer.reset();
+        if (!profilerEvents.isEmpty()) {
+            // All the commands have been submitted, so waiting for them does not delay the execution
+            profilerEvents.resolve(timeProfiler);
+        }
 
         if (TornadoOptions.printBytecodes) {
             System.out.println(tornadoVMBytecodeList.toString());
@@ -614,13 +1005,6 @@ public class TornadoVM extends TornadoLogger {
         return barrier;
     }
 
-    private void popArgumentsFromStack(int numArgs) {
-        for (int i = 0; i < numArgs; i++) {
-            buffer.get();
-            buffer.getInt();
-        }
-    }
-
     public void printTimes() {
         System.out.printf("vm: complete %d iterations - %.9f s mean and %.9f s total\n", invocations, (totalTime / invocations), totalTime);
     }
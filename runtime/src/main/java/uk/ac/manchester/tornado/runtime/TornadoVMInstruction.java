@@ -0,0 +1,165 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.graph.TornadoGraphAssembler.TornadoVMBytecodes;
+
+/**
+ * A TornadoVM bytecode with its operands already decoded. The code of a
+ * task-schedule is decoded once, when the {@link TornadoVM} is created, so each
+ * execution only iterates over an array of instructions.
+ */
+final class TornadoVMInstruction {
+
+    private static final TornadoVMBytecodes[] OPCODES = new TornadoVMBytecodes[Byte.MAX_VALUE + 1];
+
+    static {
+        for (TornadoVMBytecodes bytecode : TornadoVMBytecodes.values()) {
+            OPCODES[bytecode.value()] = bytecode;
+        }
+    }
+
+    final TornadoVMBytecodes bytecode;
+    final int objectIndex;
+    final int sourceIndex;
+    final int contextIndex;
+    final int eventList;
+    final long offset;
+    final long size;
+
+    // Operands of LAUNCH
+    final int stackIndex;
+    final int taskIndex;
+    final int queueIndex;
+    final int numArgs;
+    final byte[] argTypes;
+    final int[] argIndices;
+
+    private TornadoVMInstruction(TornadoVMBytecodes bytecode, int objectIndex, int sourceIndex, int contextIndex, int eventList, long offset, long size, int stackIndex, int taskIndex, int queueIndex,
+            byte[] argTypes, int[] argIndices) {
+        this.bytecode = bytecode;
+        this.objectIndex = objectIndex;
+        this.sourceIndex = sourceIndex;
+        this.contextIndex = contextIndex;
+        this.eventList = eventList;
+        this.offset = offset;
+        this.size = size;
+        this.stackIndex = stackIndex;
+        this.taskIndex = taskIndex;
+        this.queueIndex = queueIndex;
+        this.numArgs = argTypes.length;
+        this.argTypes = argTypes;
+        this.argIndices = argIndices;
+    }
+
+    private static TornadoVMInstruction create(TornadoVMBytecodes bytecode, int objectIndex, int sourceIndex, int contextIndex, int eventList, long offset, long size) {
+        return new TornadoVMInstruction(bytecode, objectIndex, sourceIndex, contextIndex, eventList, offset, size, -1, -1, -1, new byte[0], new int[0]);
+    }
+
+    private static TornadoVMBytecodes lookup(byte op) {
+        final TornadoVMBytecodes bytecode = (op >= 0) ? OPCODES[op] : null;
+        if (bytecode == null) {
+            throw new TornadoRuntimeException(String.format("[ERROR] TornadoVM Bytecode not recognized: 0x%x", op));
+        }
+        return bytecode;
+    }
+
+    /**
+     * Decodes the bytecodes from the current position of the buffer until the END
+     * bytecode, which is not included in the result.
+     *
+     * @param buffer
+     *            TornadoVM code, positioned after the BEGIN bytecode.
+     * @return the decoded instructions.
+     */
+    static TornadoVMInstruction[] decode(ByteBuffer buffer) {
+        final List<TornadoVMInstruction> instructions = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            final TornadoVMBytecodes bytecode = lookup(buffer.get());
+            switch (bytecode) {
+                case ALLOCATE: {
+                    final int objectIndex = buffer.getInt();
+                    final int contextIndex = buffer.getInt();
+                    final long size = buffer.getLong();
+                    instructions.add(create(bytecode, objectIndex, -1, contextIndex, -1, 0, size));
+                    break;
+                }
+                case COPY_IN:
+                case STREAM_IN:
+                case STREAM_OUT:
+                case STREAM_OUT_BLOCKING: {
+                    final int objectIndex = buffer.getInt();
+                    final int contextIndex = buffer.getInt();
+                    final int eventList = buffer.getInt();
+                    final long offset = buffer.getLong();
+                    final long size = buffer.getLong();
+                    instructions.add(create(bytecode, objectIndex, -1, contextIndex, eventList, offset, size));
+                    break;
+                }
+                case TRANSFER: {
+                    final int objectIndex = buffer.getInt();
+                    final int sourceIndex = buffer.getInt();
+                    final int contextIndex = buffer.getInt();
+                    final int eventList = buffer.getInt();
+                    instructions.add(create(bytecode, objectIndex, sourceIndex, contextIndex, eventList, 0, 0));
+                    break;
+                }
+                case LAUNCH: {
+                    final int stackIndex = buffer.getInt();
+                    final int contextIndex = buffer.getInt();
+                    final int taskIndex = buffer.getInt();
+                    final int numArgs = buffer.getInt();
+                    final int eventList = buffer.getInt();
+                    final int queueIndex = buffer.getInt();
+                    final long offset = buffer.getLong();
+                    final long batchThreads = buffer.getLong();
+                    final byte[] argTypes = new byte[numArgs];
+                    final int[] argIndices = new int[numArgs];
+                    for (int i = 0; i < numArgs; i++) {
+                        argTypes[i] = buffer.get();
+                        argIndices[i] = buffer.getInt();
+                    }
+                    instructions.add(new TornadoVMInstruction(bytecode, -1, -1, contextIndex, eventList, offset, batchThreads, stackIndex, taskIndex, queueIndex, argTypes, argIndices));
+                    break;
+                }
+                case ADD_DEP:
+                case BARRIER: {
+                    final int eventList = buffer.getInt();
+                    instructions.add(create(bytecode, -1, -1, -1, eventList, 0, 0));
+                    break;
+                }
+                case END:
+                    return instructions.toArray(new TornadoVMInstruction[instructions.size()]);
+                default:
+                    throw new TornadoRuntimeException("[ERROR] TornadoVM Bytecode not recognized: " + bytecode);
+            }
+        }
+        return instructions.toArray(new TornadoVMInstruction[instructions.size()]);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.analyzer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.loop.CountedLoopInfo;
+import org.graalvm.compiler.loop.InductionVariable;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.ConditionalNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.SignedDivNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.StoreFieldNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.runtime.common.ParallelAnnotationProvider;
+import uk.ac.manchester.tornado.runtime.graal.phases.TornadoApiReplacement;
+
+/**
+ * Analysis and rewriting of {@code @Parallel} loops in the high-level Graal IR
+ * of a task, used to run a task on the host with multiple Java threads. The
+ * loops are identified in the same way as {@link TornadoApiReplacement} does
+ * for the device code: by matching the parallel annotations against the locals
+ * of the frame states of the graph.
+ */
+public class ParallelCodeAnalysis {
+
+    /**
+     * Metadata of the outermost parallel loop of a graph.
+     */
+    private static class ParallelLoop {
+        private final LoopEx loop;
+        private final InductionVariable iv;
+        private final IntegerLessThanNode condition;
+
+        ParallelLoop(LoopEx loop, InductionVariable iv, IntegerLessThanNode condition) {
+            this.loop = loop;
+            this.iv = iv;
+            this.condition = condition;
+        }
+    }
+
+    private static Set<Node> findParallelLocals(StructuredGraph graph) {
+        final ResolvedJavaMethod method = graph.method();
+        final ParallelAnnotationProvider[] annotations = TornadoApiReplacement.getASMClassVisitorProvider().getParallelAnnotations(method);
+        final Set<Node> parallelNodes = new HashSet<>();
+        if (annotations.length == 0) {
+            return parallelNodes;
+        }
+        graph.getNodes().filter(FrameState.class).forEach((fs) -> {
+            if (method.equals(fs.getMethod())) {
+                for (ParallelAnnotationProvider an : annotations) {
+                    if (fs.bci >= an.getStart() && fs.bci < an.getStart() + an.getLength()) {
+                        parallelNodes.add(fs.localAt(an.getIndex()));
+                    }
+                }
+            }
+        });
+        return parallelNodes;
+    }
+
+    private static ParallelLoop findOutermostParallelLoop(StructuredGraph graph) {
+        if (!graph.hasLoops()) {
+            return null;
+        }
+        final Set<Node> parallelNodes = findParallelLocals(graph);
+        if (parallelNodes.isEmpty()) {
+            return null;
+        }
+
+        final LoopsData data = new LoopsData(graph);
+        data.detectedCountedLoops();
+        final List<LoopEx> loops = data.outerFirst();
+        ParallelLoop outermost = null;
+        for (LoopEx loop : loops) {
+            for (InductionVariable iv : loop.getInductionVariables().getValues()) {
+                if (!parallelNodes.contains(iv.valueNode()) || isNestedInParallelLoop(loop, outermost)) {
+                    continue;
+                }
+                if (outermost != null) {
+                    // Sibling parallel loops cannot share the same partition
+                    return null;
+                }
+                IntegerLessThanNode condition = getExitCondition(loop, iv);
+                if (condition == null) {
+                    return null;
+                }
+                outermost = new ParallelLoop(loop, iv, condition);
+            }
+        }
+        return outermost;
+    }
+
+    /**
+     * The comparison that exits the loop is taken from the counted loop
+     * information: the induction variable can also be compared inside the body
+     * of the loop, and only the exit test bounds the iteration space.
+     *
+     * @return the exit test {@code iv < bound}, or null if the loop is not a
+     *         counted loop over the induction variable.
+     */
+    private static IntegerLessThanNode getExitCondition(LoopEx loop, InductionVariable iv) {
+        if (!loop.isCounted()) {
+            return null;
+        }
+        final CountedLoopInfo counted = loop.counted();
+        if (counted.getCounter() != iv || counted.isLimitIncluded() || !(counted.getLimitTest().condition() instanceof IntegerLessThanNode)) {
+            return null;
+        }
+        final IntegerLessThanNode condition = (IntegerLessThanNode) counted.getLimitTest().condition();
+        return (condition.getX() == iv.valueNode() && condition.getY() == counted.getLimit()) ? condition : null;
+    }
+
+    private static boolean isNestedInParallelLoop(LoopEx loop, ParallelLoop parallelLoop) {
+        if (parallelLoop == null) {
+            return false;
+        }
+        for (LoopEx parent = loop; parent != null; parent = parent.parent()) {
+            if (parent == parallelLoop.loop) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Every partition executes the code outside the parallel loop. Therefore, the
+     * loop can only be split if all the side effects of the method happen inside
+     * the loop.
+     */
+    private static boolean hasSideEffectsOutsideLoop(ParallelLoop parallelLoop) {
+        StructuredGraph graph = parallelLoop.loop.loopBegin().graph();
+        for (Node node : graph.getNodes()) {
+            if ((node instanceof StoreIndexedNode || node instanceof StoreFieldNode || node instanceof Invoke) && parallelLoop.loop.isOutsideLoop(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * It checks if the input method contains a parallel loop that can be split
+     * into independent ranges on the host.
+     *
+     * @param graph
+     *            High-level Graal IR of the task.
+     * @return true if the graph contains a partitionable {@code @Parallel} loop.
+     */
+    public static boolean hasPartitionableParallelLoop(StructuredGraph graph) {
+        ParallelLoop parallelLoop = findOutermostParallelLoop(graph);
+        return parallelLoop != null && isPartitionable(parallelLoop);
+    }
+
+    private static boolean isPartitionable(ParallelLoop parallelLoop) {
+        InductionVariable iv = parallelLoop.iv;
+        if (!iv.isConstantInit() || !iv.isConstantStride() || iv.constantStride() <= 0) {
+            return false;
+        }
+        if (hasSideEffectsOutsideLoop(parallelLoop)) {
+            return false;
+        }
+        ValueNode bound = parallelLoop.condition.getY();
+        return bound instanceof ConstantNode || bound instanceof ParameterNode || (bound instanceof ArrayLengthNode && ((ArrayLengthNode) bound).array() instanceof ParameterNode);
+    }
+
+    /**
+     * The loop bound has to be available before entering the loop to compute the
+     * range of each partition. Array lengths are re-materialised before the loop
+     * because the graph builder places them in the loop header.
+     */
+    private static ValueNode materializeBoundBeforeLoop(StructuredGraph graph, ValueNode bound, LoopBeginNode loopBegin) {
+        if (bound instanceof ArrayLengthNode) {
+            ArrayLengthNode length = graph.add(new ArrayLengthNode(((ArrayLengthNode) bound).array()));
+            graph.addBeforeFixed(loopBegin.forwardEnd(), length);
+            return length;
+        }
+        return bound;
+    }
+
+    private static ValueNode divideBeforeLoop(StructuredGraph graph, ValueNode dividend, int divisor, FixedNode insertionPoint) {
+        if (divisor == 1) {
+            return dividend;
+        }
+        SignedDivNode div = graph.add(new SignedDivNode(dividend, graph.addOrUnique(ConstantNode.forInt(divisor)), null));
+        graph.addBeforeFixed(insertionPoint, div);
+        return div;
+    }
+
+    /**
+     * It rewrites the outermost {@code @Parallel} loop of the input graph to
+     * iterate only over the sub-range that corresponds to {@code partition}. The
+     * iteration space is split in {@code numPartitions} contiguous blocks:
+     *
+     * <pre>
+     * iterations = (bound - init + stride - 1) / stride
+     * chunk = (iterations + numPartitions - 1) / numPartitions
+     * low = init + partition * chunk * stride
+     * high = min(bound, low + chunk * stride)
+     * </pre>
+     *
+     * The bounds are computed inside the compiled code, so the same compiled
+     * partition is valid for any input size.
+     *
+     * @param graph
+     *            High-level Graal IR of the task. It is modified in place.
+     * @param partition
+     *            Index of the partition
+     * @param numPartitions
+     *            Total number of partitions
+     * @return true if the loop was partitioned.
+     */
+    public static boolean performLoopPartitionSubstitution(StructuredGraph graph, int partition, int numPartitions) {
+        ParallelLoop parallelLoop = findOutermostParallelLoop(graph);
+        if (parallelLoop == null || !isPartitionable(parallelLoop)) {
+            return false;
+        }
+
+        final InductionVariable iv = parallelLoop.iv;
+        final ValuePhiNode phi = (ValuePhiNode) iv.valueNode();
+        final LoopBeginNode loopBegin = parallelLoop.loop.loopBegin();
+        final FixedNode loopEntry = loopBegin.forwardEnd();
+        final int init = (int) iv.constantInit();
+        final int stride = (int) iv.constantStride();
+        final NodeView view = NodeView.DEFAULT;
+
+        final ValueNode originalBound = parallelLoop.condition.getY();
+        final ValueNode bound = materializeBoundBeforeLoop(graph, originalBound, loopBegin);
+
+        ValueNode span = graph.addOrUniqueWithInputs(SubNode.create(bound, ConstantNode.forInt(init - stride + 1), view));
+        ValueNode iterations = divideBeforeLoop(graph, span, stride, loopEntry);
+        ValueNode roundedIterations = graph.addOrUniqueWithInputs(AddNode.create(iterations, ConstantNode.forInt(numPartitions - 1), view));
+        ValueNode chunk = divideBeforeLoop(graph, roundedIterations, numPartitions, loopEntry);
+
+        ValueNode chunkOffset = graph.addOrUniqueWithInputs(MulNode.create(chunk, ConstantNode.forInt(partition * stride), view));
+        ValueNode low = graph.addOrUniqueWithInputs(AddNode.create(ConstantNode.forInt(init), chunkOffset, view));
+        ValueNode chunkLength = graph.addOrUniqueWithInputs(MulNode.create(chunk, ConstantNode.forInt(stride), view));
+        ValueNode high = graph.addOrUniqueWithInputs(AddNode.create(low, chunkLength, view));
+        ValueNode newBound = graph.addOrUniqueWithInputs(ConditionalNode.create(IntegerLessThanNode.create(bound, high, view), bound, high, view));
+
+        iv.initNode().replaceAtMatchingUsages(low, node -> node.equals(phi));
+
+        // only replace the bound in the loop condition
+        originalBound.replaceAtMatchingUsages(newBound, node -> node.equals(parallelLoop.condition));
+        return true;
+    }
+}
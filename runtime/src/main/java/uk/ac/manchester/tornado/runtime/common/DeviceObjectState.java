@@ -27,22 +27,39 @@ package uk.ac.manchester.tornado.runtime.common;
 
 import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.humanReadableByteCount;
 
+import java.util.Arrays;
+
 import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
 import uk.ac.manchester.tornado.api.mm.TornadoDeviceObjectState;
 
 public class DeviceObjectState implements TornadoDeviceObjectState {
 
+    /**
+     * Above this number of modified ranges, a single copy of the whole object is
+     * cheaper than one copy per range.
+     */
+    private static final int MAX_DIRTY_RANGES = 64;
+
     private boolean valid;
     private boolean modified;
     private boolean contents;
 
     private ObjectBuffer buffer;
 
+    private boolean dirtyRangesTracked;
+    private boolean wholeObjectDirty;
+    private long[] dirtyRanges;
+    private int numDirtyRanges;
+
     public DeviceObjectState() {
         valid = false;
         modified = false;
         contents = false;
         buffer = null;
+        dirtyRangesTracked = false;
+        wholeObjectDirty = false;
+        dirtyRanges = new long[8];
+        numDirtyRanges = 0;
     }
 
     public void setBuffer(ObjectBuffer value) {
@@ -108,4 +125,62 @@ public class DeviceObjectState implements TornadoDeviceObjectState {
         return buffer.toRelativeAddress();
     }
 
+    @Override
+    public void addDirtyRange(long fromIndex, long toIndex) {
+        if (wholeObjectDirty) {
+            return;
+        }
+        dirtyRangesTracked = true;
+        if (fromIndex >= toIndex) {
+            return;
+        }
+
+        // Ranges are kept sorted and merged with the overlapping or adjacent ones
+        int first = 0;
+        while (first < numDirtyRanges && dirtyRanges[2 * first + 1] < fromIndex) {
+            first++;
+        }
+        int last = first;
+        long from = fromIndex;
+        long to = toIndex;
+        while (last < numDirtyRanges && dirtyRanges[2 * last] <= toIndex) {
+            from = Math.min(from, dirtyRanges[2 * last]);
+            to = Math.max(to, dirtyRanges[2 * last + 1]);
+            last++;
+        }
+
+        final int newNumRanges = numDirtyRanges - (last - first) + 1;
+        if (newNumRanges > MAX_DIRTY_RANGES) {
+            // Too many ranges since the last copy: the whole object is copied
+            wholeObjectDirty = true;
+            dirtyRangesTracked = false;
+            numDirtyRanges = 0;
+            return;
+        }
+        if (2 * newNumRanges > dirtyRanges.length) {
+            dirtyRanges = Arrays.copyOf(dirtyRanges, 2 * dirtyRanges.length);
+        }
+        System.arraycopy(dirtyRanges, 2 * last, dirtyRanges, 2 * (first + 1), 2 * (numDirtyRanges - last));
+        dirtyRanges[2 * first] = from;
+        dirtyRanges[2 * first + 1] = to;
+        numDirtyRanges = newNumRanges;
+    }
+
+    @Override
+    public boolean hasDirtyRanges() {
+        return dirtyRangesTracked;
+    }
+
+    @Override
+    public long[] getDirtyRanges() {
+        return Arrays.copyOf(dirtyRanges, 2 * numDirtyRanges);
+    }
+
+    @Override
+    public void clearDirtyRanges() {
+        dirtyRangesTracked = false;
+        wholeObjectDirty = false;
+        numDirtyRanges = 0;
+    }
+
 }
@@ -67,6 +67,9 @@ public final class Tornado implements TornadoCI {
     public static final int EVENT_WINDOW = Integer.parseInt(getProperty("tornado.opencl.eventwindow", "1024"));
     public static final int MAX_WAIT_EVENTS = Integer.parseInt(getProperty("tornado.opencl.maxwaitevents", "32"));
     public static final boolean OPENCL_USE_RELATIVE_ADDRESSES = Boolean.parseBoolean(settings.getProperty("tornado.opencl.userelative", "False"));
+    public static final boolean OPENCL_DIRECT_ARGUMENTS = Boolean.parseBoolean(settings.getProperty("tornado.opencl.directargs", "False"));
+    public static final int OPENCL_KERNEL_QUEUES = Math.max(1, Integer.parseInt(getProperty("tornado.opencl.queues", "1")));
+    public static final boolean OPENCL_PACKED_ARRAYS = Boolean.parseBoolean(getProperty("tornado.opencl.packed.arrays", "True"));
     public static final boolean DUMP_COMPILED_METHODS = Boolean.parseBoolean(getProperty("tornado.compiled.dump", "False"));
 
     public static final boolean ENABLE_PROFILING = Boolean.parseBoolean(settings.getProperty("tornado.profiling.enable", "True"));
@@ -82,6 +85,7 @@ public final class Tornado implements TornadoCI {
     public static final boolean FULL_DEBUG = Boolean.parseBoolean(settings.getProperty("tornado.fullDebug", "False"));
 
     public static final boolean SHOULD_LOAD_RMI = Boolean.parseBoolean(settings.getProperty("tornado.rmi.enable", "false"));
+    public static final boolean SHOULD_LOAD_JVM = Boolean.parseBoolean(settings.getProperty("tornado.jvm.enable", "false"));
     public final static boolean TIME_IN_NANOSECONDS = Boolean.parseBoolean(System.getProperty("tornado.ns.time", "true"));
 
     public final static boolean FPGA_EMULATION = isFPGAEmulation();
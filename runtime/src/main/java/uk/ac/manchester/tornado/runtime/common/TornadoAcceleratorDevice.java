@@ -40,4 +40,15 @@ public interface TornadoAcceleratorDevice extends TornadoDevice {
 
     TornadoInstalledCode getCodeFromCache(SchedulableTask task);
 
+    /**
+     * It enables or disables dedicated queues for the data transfers that are
+     * enqueued next. Transfers on these queues only synchronise with the kernels
+     * through the events passed as dependencies. Devices without multiple queues
+     * ignore this call.
+     *
+     * @param enable
+     *            True to use the transfer queues.
+     */
+    void useTransferQueues(boolean enable);
+
 }
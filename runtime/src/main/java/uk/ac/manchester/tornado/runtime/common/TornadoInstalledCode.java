@@ -29,7 +29,12 @@ import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public interface TornadoInstalledCode {
 
-    int launchWithDependencies(CallStack stack, TaskMetaData meta, long batchThreads, int[] waitEvents);
+    /**
+     * @param queueIndex
+     *            Index of the queue of the device where the kernel is launched.
+     *            Devices with a single queue ignore it.
+     */
+    int launchWithDependencies(CallStack stack, TaskMetaData meta, long batchThreads, int[] waitEvents, int queueIndex);
 
     int launchWithoutDependencies(CallStack stack, TaskMetaData meta, long batchThreads);
 
@@ -53,6 +53,12 @@ public class TornadoOptions {
      */
     public static final boolean EXPERIMENTAL_REDUCE_STREAM_ALL_IN = getBooleanValue("tornado.experimental.reduce.stream.all.in", "False");
 
+    /**
+     * Option to merge element-wise producer/consumer tasks of a task-schedule
+     * into a single kernel. This option is considered experimental.
+     */
+    public static final boolean EXPERIMENTAL_FUSION = getBooleanValue("tornado.experimental.fusion", "False");
+
     /**
      * Option to load FPGA pre-compiled binaries.
      */
@@ -78,6 +84,69 @@ public class TornadoOptions {
      */
     public static final boolean ENABLE_FMA = getBooleanValue("tornado.enable.fma", "True");
 
+    /**
+     * Run the Java code of a task-schedule that bailed out with multiple Java
+     * threads, by splitting the iteration space of the {@code @Parallel} loops.
+     * True by default.
+     */
+    public static final boolean PARALLEL_FALLBACK = getBooleanValue("tornado.fallback.parallel", "True");
+
+    /**
+     * Number of Java threads used when running a task-schedule in the JVM after
+     * a bailout. By default, it is the number of available processors.
+     */
+    public static final int PARALLEL_FALLBACK_THREADS = Integer.parseInt(Tornado.getProperty("tornado.fallback.threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+    /**
+     * Number of Java threads of the JVM device. The JVM driver is loaded with
+     * {@code -Dtornado.jvm.enable=True}. By default, it is the number of
+     * available processors.
+     */
+    public static final int JVM_DEVICE_THREADS = Integer.parseInt(Tornado.getProperty("tornado.jvm.threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+    /**
+     * Overlap the data transfers and the kernels of consecutive chunks when a
+     * task-schedule runs in batches. False by default.
+     */
+    public static final boolean BATCH_PIPELINE = getBooleanValue("tornado.batch.pipeline", "False");
+
+    /**
+     * Number of device buffers per object used by a pipelined batch. The minimum
+     * is 2 (double buffering).
+     */
+    public static final int BATCH_BUFFERS = Integer.parseInt(Tornado.getProperty("tornado.batch.buffers", "2"));
+
+    /**
+     * Compile the tasks of a task-schedule in a background thread. The tasks run
+     * in Java until the device code is ready. False by default.
+     */
+    public static final boolean ASYNC_COMPILATION = getBooleanValue("tornado.compile.async", "False");
+
+    /**
+     * Search the local work size of the parallel kernels on the first executions
+     * of each task and problem size. The fastest configuration is stored in
+     * {@link #AUTOTUNE_FILE}. False by default.
+     */
+    public static final boolean AUTOTUNE = getBooleanValue("tornado.autotune", "False");
+
+    /**
+     * Number of executions per candidate local work size when the autotuner is
+     * enabled. The fastest execution of each candidate is kept.
+     */
+    public static final int AUTOTUNE_RUNS = Integer.parseInt(Tornado.getProperty("tornado.autotune.runs", "3"));
+
+    /**
+     * File with the local work sizes found by the autotuner. The configurations in
+     * this file are used even when the autotuner is disabled.
+     */
+    public static final String AUTOTUNE_FILE = Tornado.getProperty("tornado.autotune.file", "tornado-tuning.properties");
+
+    /**
+     * The tuning file is only read or written when the autotuner is enabled or
+     * when {@link #AUTOTUNE_FILE} is set explicitly.
+     */
+    public static final boolean AUTOTUNE_FILE_ENABLED = AUTOTUNE || Tornado.getProperty("tornado.autotune.file") != null;
+
     /**
      * Option to enable profiler. It can be disabled at any point during runtime.
      * 
@@ -1,9 +1,9 @@
 /*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
  * Copyright (c) 2020, APT Group, Department of Computer Science,
- * School of Engineering, The University of Manchester. All rights reserved.
- * Copyright (c) 2018, 2020, APT Group, Department of Computer Science,
  * The University of Manchester. All rights reserved.
- * Copyright (c) 2009, 2017, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -20,34 +20,27 @@
  * 2 along with this work; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
  *
- * Authors: James Clarkson
- *
  */
-package uk.ac.manchester.tornado.drivers.opencl.graal.nodes;
+package uk.ac.manchester.tornado.runtime.graal.nodes;
 
 import org.graalvm.compiler.core.common.type.StampFactory;
 import org.graalvm.compiler.graph.NodeClass;
 import org.graalvm.compiler.nodeinfo.NodeInfo;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.java.AccessIndexedNode;
-import org.graalvm.compiler.nodes.spi.Lowerable;
 
 import jdk.vm.ci.meta.JavaKind;
 
-@NodeInfo(shortName = "Atomic Add")
-public class AtomicAddNode extends AccessIndexedNode implements Lowerable {
-
-    public static final NodeClass<AtomicAddNode> TYPE = NodeClass.create(AtomicAddNode.class);
-
-    @Input ValueNode value;
+/**
+ * Reads a half-precision element of a {@code short} array and converts it to
+ * float.
+ */
+@NodeInfo(nameTemplate = "LoadHalfIndexed")
+public final class LoadHalfIndexedNode extends AccessIndexedNode {
 
-    public AtomicAddNode(ValueNode array, ValueNode index, JavaKind elementKind, ValueNode value) {
-        super(TYPE, StampFactory.forVoid(), array, index, null, elementKind);
-        this.value = value;
-    }
+    public static final NodeClass<LoadHalfIndexedNode> TYPE = NodeClass.create(LoadHalfIndexedNode.class);
 
-    public ValueNode value() {
-        return value;
+    public LoadHalfIndexedNode(ValueNode array, ValueNode index) {
+        super(TYPE, StampFactory.forKind(JavaKind.Float), array, index, null, JavaKind.Short);
     }
-
 }
@@ -117,6 +117,10 @@ public class TornadoApiReplacement extends BasePhase<TornadoSketchTierContext> {
         }
     }
 
+    public static ASMClassVisitorProvider getASMClassVisitorProvider() {
+        return asmClassVisitorProvider;
+    }
+
     private void replaceLocalAnnotations(StructuredGraph graph, TornadoSketchTierContext context) throws TornadoCompilationException {
         // build node -> annotation mapping
         Map<ResolvedJavaMethod, ParallelAnnotationProvider[]> methodToAnnotations = new HashMap<>();
@@ -50,8 +50,11 @@ import org.graalvm.compiler.phases.BasePhase;
 import jdk.vm.ci.meta.Constant;
 import jdk.vm.ci.meta.MetaAccessProvider;
 import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.LoadHalfIndexedNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreHalfIndexedNode;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class TornadoDataflowAnalysis extends BasePhase<TornadoSketchTierContext> {
@@ -196,17 +199,26 @@ public class TornadoDataflowAnalysis extends BasePhase<TornadoSketchTierContext>
 
         while (!nf.isEmpty()) {
             Node currentNode = nf.remove();
-            if (currentNode instanceof LoadIndexedNode) {
+            if (currentNode instanceof LoadHalfIndexedNode) {
+                isRead = true;
+            } else if (currentNode instanceof LoadIndexedNode) {
                 isRead = true;
                 if (((ValueNode) currentNode).stamp(NodeView.DEFAULT).javaType(metaAccess).isArray()) {
                     nf.addAll(currentNode.usages().snapshot());
                 }
-            } else if (currentNode instanceof StoreIndexedNode || currentNode instanceof StoreAtomicIndexedNode) {
+            } else if (currentNode instanceof StoreIndexedNode || currentNode instanceof StoreAtomicIndexedNode || currentNode instanceof StoreHalfIndexedNode) {
                 MetaControlFlow meta = analyseControlFlowForWriting(currentNode, fatherNodeStore, isWrittenTrueCondition, isWrittenFalseCondition);
                 fatherNodeStore = meta.getFatherNodeStore();
                 isWrittenTrueCondition = meta.isWrittenTrueCondition();
                 isWrittenFalseCondition = meta.isWrittenFalseCondition();
                 isStored = true;
+            } else if (currentNode instanceof AtomicIndexedNode) {
+                MetaControlFlow meta = analyseControlFlowForWriting(currentNode, fatherNodeStore, isWrittenTrueCondition, isWrittenFalseCondition);
+                fatherNodeStore = meta.getFatherNodeStore();
+                isWrittenTrueCondition = meta.isWrittenTrueCondition();
+                isWrittenFalseCondition = meta.isWrittenFalseCondition();
+                isStored = true;
+                isRead = true;
             } else if (currentNode instanceof LoadFieldNode) {
                 LoadFieldNode loadField = (LoadFieldNode) currentNode;
                 if (loadField.stamp(NodeView.DEFAULT) instanceof ObjectStamp) {
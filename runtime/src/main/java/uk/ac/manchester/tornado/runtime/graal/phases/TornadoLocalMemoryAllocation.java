@@ -41,7 +41,8 @@ public class TornadoLocalMemoryAllocation extends BasePhase<TornadoHighTierConte
     @Override
     protected void run(StructuredGraph graph, TornadoHighTierContext context) {
 
-        if (!context.hasMeta()) {
+        if (!context.hasMeta() || context.getMeta().isGridDefined()) {
+            // Local arrays of the KernelContext API keep the size given by the user
             return;
         }
 
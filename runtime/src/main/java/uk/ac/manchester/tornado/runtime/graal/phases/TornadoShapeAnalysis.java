@@ -108,7 +108,9 @@ public class TornadoShapeAnalysis extends BasePhase<TornadoHighTierContext> {
     @Override
     protected void run(StructuredGraph graph, TornadoHighTierContext context) {
 
-        if (!context.hasMeta()) {
+        if (!context.hasMeta() || context.getMeta().isGridDefined()) {
+            // The domain of kernels written with the KernelContext API is set by
+            // the grid
             return;
         }
 
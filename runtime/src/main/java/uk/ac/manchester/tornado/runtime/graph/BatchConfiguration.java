@@ -0,0 +1,183 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graph;
+
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
+
+/**
+ * Chunks of a task-schedule that runs in batches. The iteration space is split
+ * in chunks with the same number of elements. Arrays with the length of the
+ * iteration space are split in chunks, and each chunk of an array starts at a
+ * different byte offset depending on the size of its elements. The rest of the
+ * objects (smaller arrays, such as lookup tables, and non-array objects) are
+ * copied once and they are resident in the device for all chunks.
+ */
+public class BatchConfiguration {
+
+    private static final HashMap<Class<?>, Byte> dataTypesSize = new HashMap<>();
+
+    static {
+        dataTypesSize.put(byte.class, (byte) 1);
+        dataTypesSize.put(char.class, (byte) 2);
+        dataTypesSize.put(short.class, (byte) 2);
+        dataTypesSize.put(int.class, (byte) 4);
+        dataTypesSize.put(float.class, (byte) 4);
+        dataTypesSize.put(long.class, (byte) 8);
+        dataTypesSize.put(double.class, (byte) 8);
+    }
+
+    private final long totalElements;
+    private final long chunkElements;
+    private final int totalChunks;
+    private final long remainingChunkElements;
+    private final byte[] elementSizes;
+    private final boolean[] batched;
+
+    private BatchConfiguration(long totalElements, long chunkElements, byte[] elementSizes, boolean[] batched) {
+        this.totalElements = totalElements;
+        this.chunkElements = chunkElements;
+        this.totalChunks = (int) (totalElements / chunkElements);
+        this.remainingChunkElements = totalElements % chunkElements;
+        this.elementSizes = elementSizes;
+        this.batched = batched;
+    }
+
+    /**
+     * It computes the chunks for the objects of a task-schedule.
+     *
+     * @param context
+     *            Execution context of the task-schedule.
+     * @param batchSize
+     *            Maximum number of bytes of a chunk of any array.
+     * @return {@link BatchConfiguration}
+     */
+    public static BatchConfiguration computeChunkSizes(TornadoExecutionContext context, long batchSize) {
+        final List<Object> inputObjects = context.getObjects();
+        final byte[] elementSizes = new byte[inputObjects.size()];
+        final long[] lengths = new long[inputObjects.size()];
+
+        long totalElements = 0;
+        for (int i = 0; i < inputObjects.size(); i++) {
+            Object o = inputObjects.get(i);
+            lengths[i] = -1;
+            if (o.getClass().isArray()) {
+                lengths[i] = Array.getLength(o);
+                Byte size = dataTypesSize.get(o.getClass().getComponentType());
+                elementSizes[i] = (size == null) ? 0 : size;
+                totalElements = Math.max(totalElements, lengths[i]);
+            }
+        }
+
+        // Only the arrays with the length of the iteration space are split
+        final boolean[] batched = new boolean[inputObjects.size()];
+        byte maxElementSize = 0;
+        for (int i = 0; i < inputObjects.size(); i++) {
+            if (lengths[i] == totalElements && totalElements > 0) {
+                if (elementSizes[i] == 0) {
+                    throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches: " + inputObjects.get(i).getClass().getTypeName());
+                }
+                batched[i] = true;
+                maxElementSize = (byte) Math.max(maxElementSize, elementSizes[i]);
+            }
+        }
+
+        if (maxElementSize == 0) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] Batch processing requires at least one array of primitive types");
+        }
+
+        final long chunkElements = batchSize / maxElementSize;
+        if (chunkElements == 0) {
+            throw new TornadoRuntimeException("[ERROR] Batch size is smaller than one element: " + batchSize + " bytes");
+        }
+
+        BatchConfiguration configuration = new BatchConfiguration(totalElements, chunkElements, elementSizes, batched);
+        if (Tornado.DEBUG) {
+            System.out.println("Batch Size: " + batchSize);
+            System.out.println(configuration);
+        }
+        return configuration;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public long getRemainingChunkElements() {
+        return remainingChunkElements;
+    }
+
+    public long getChunkElements() {
+        return chunkElements;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    /**
+     * @return true if the object is split in chunks, false if it is resident in
+     *         the device for all chunks.
+     */
+    public boolean isBatched(int objectIndex) {
+        return batched[objectIndex];
+    }
+
+    public byte getElementSize(int objectIndex) {
+        return elementSizes[objectIndex];
+    }
+
+    /**
+     * @return the index of the chunk that starts at the given byte offset of an
+     *         object.
+     */
+    public long getChunkIndex(int objectIndex, long byteOffset) {
+        if (!batched[objectIndex]) {
+            return 0;
+        }
+        return byteOffset / (chunkElements * elementSizes[objectIndex]);
+    }
+
+    /**
+     * @return the index of the chunk that starts at the given element of the
+     *         iteration space.
+     */
+    public long getChunkIndex(long elementOffset) {
+        return elementOffset / chunkElements;
+    }
+
+    @Override
+    public String toString() {
+        int numBatched = 0;
+        for (boolean b : batched) {
+            numBatched += (b) ? 1 : 0;
+        }
+        return String.format("Total elements: %d, chunk elements: %d, total chunks: %d, remaining elements: %d, batched objects: %d/%d", totalElements, chunkElements, totalChunks,
+                remainingChunkElements, numBatched, batched.length);
+    }
+}
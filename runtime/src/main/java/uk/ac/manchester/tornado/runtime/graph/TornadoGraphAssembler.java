@@ -39,7 +39,7 @@ public class TornadoGraphAssembler {
         STREAM_IN((byte) 12),           // STREAM_IN(obj, src, dest)
         STREAM_OUT((byte) 13),          // STREAM_OUT(obj, src, dest)
         STREAM_OUT_BLOCKING((byte) 14), // STREAM_OUT(obj, src, dest)
-        LAUNCH((byte) 15),              // LAUNCH(dep list index)
+        LAUNCH((byte) 15),              // LAUNCH(dep list index, queue)
         BARRIER((byte) 16),             // BARRIER <events>
         SETUP((byte) 17),
         BEGIN((byte) 18),               // BEGIN(num contexts, num stacks, num dep lists)
@@ -47,7 +47,8 @@ public class TornadoGraphAssembler {
         CONTEXT((byte) 20),             // CONTEXT(ctx)
         END((byte) 21),                 // END(ctx)
         CONSTANT_ARGUMENT((byte) 22),
-        REFERENCE_ARGUMENT((byte) 23);
+        REFERENCE_ARGUMENT((byte) 23),
+        TRANSFER((byte) 24);            // TRANSFER(obj, src ctx, dest ctx, dep list index)
         // @formatter:on
 
         private byte value;
@@ -135,13 +136,22 @@ public class TornadoGraphAssembler {
         buffer.putLong(size);
     }
 
-    void launch(int gtid, int ctx, int task, int numParameters, int dep, long offset, long size) {
+    void transferToContext(int obj, int srcCtx, int destCtx, int dep) {
+        buffer.put(TornadoVMBytecodes.TRANSFER.value);
+        buffer.putInt(obj);
+        buffer.putInt(srcCtx);
+        buffer.putInt(destCtx);
+        buffer.putInt(dep);
+    }
+
+    void launch(int gtid, int ctx, int task, int numParameters, int dep, int queue, long offset, long size) {
         buffer.put(TornadoVMBytecodes.LAUNCH.value);
         buffer.putInt(gtid);
         buffer.putInt(ctx);
         buffer.putInt(task);
         buffer.putInt(numParameters);
         buffer.putInt(dep);
+        buffer.putInt(queue);
         buffer.putLong(offset);
         buffer.putLong(size);
     }
@@ -45,6 +45,7 @@ import uk.ac.manchester.tornado.runtime.graph.nodes.DependentReadNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ObjectNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.StreamInNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.TransferNode;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
@@ -77,6 +78,49 @@ public class TornadoGraphBuilder {
         args[argIndex] = copyInNode;
     }
 
+    private static void createTransferNode(ContextNode context, TornadoGraph graph, DependentReadNode lastWrite, AbstractNode[] args, int argIndex) {
+        final TransferNode transferNode = new TransferNode(lastWrite.getContext(), context);
+        transferNode.setValue(lastWrite.getValue());
+        transferNode.setLastWrite(lastWrite);
+        graph.add(transferNode);
+        context.addUse(transferNode);
+        args[argIndex] = transferNode;
+    }
+
+    private static ObjectNode getObjectNode(AbstractNode node) {
+        if (node instanceof ObjectNode) {
+            return (ObjectNode) node;
+        } else if (node instanceof DependentReadNode) {
+            return ((DependentReadNode) node).getValue();
+        } else if (node instanceof CopyInNode) {
+            return ((CopyInNode) node).getValue();
+        } else if (node instanceof StreamInNode) {
+            return ((StreamInNode) node).getValue();
+        } else if (node instanceof AllocateNode) {
+            return ((AllocateNode) node).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * The object was last accessed by a task on another device. If that task
+     * wrote the object, the data is transferred between the two devices.
+     * Otherwise, the copy in the host is up to date and it is copied from there.
+     */
+    private static void createCrossContextAccess(ContextNode context, TornadoGraph graph, AbstractNode arg, Access access, LocalObjectState state, AbstractNode[] args, int argIndex) {
+        final ObjectNode objectNode = getObjectNode(arg);
+        TornadoInternalError.guarantee(objectNode != null, "unsupported access to object on multiple devices: %s", arg);
+        if (access == Access.WRITE) {
+            createAllocateNode(context, graph, objectNode, args, argIndex);
+        } else if (arg instanceof DependentReadNode && ((DependentReadNode) arg).getValue() != null) {
+            createTransferNode(context, graph, (DependentReadNode) arg, args, argIndex);
+        } else if (state.isStreamIn()) {
+            createStreamInNode(context, graph, objectNode, args, argIndex);
+        } else {
+            createCopyInNode(context, graph, objectNode, args, argIndex);
+        }
+    }
+
     public static TornadoGraph buildGraph(TornadoExecutionContext graphContext, ByteBuffer buffer) {
         TornadoGraph graph = new TornadoGraph();
         Access[] accesses = null;
@@ -129,6 +173,8 @@ public class TornadoGraphBuilder {
                             createCopyInNode(context, graph, arg, args, argIndex);
                         }
                     }
+                } else if (((ContextOpNode) arg).getContext() != context) {
+                    createCrossContextAccess(context, graph, arg, accesses[argIndex], states.get(variableIndex), args, argIndex);
                 } else {
                     args[argIndex] = arg;
                 }
@@ -155,6 +201,9 @@ public class TornadoGraphBuilder {
                     depRead.setDependent(taskNode);
                     graph.add(depRead);
                     nextAccessNode = depRead;
+                } else if (args[argIndex] instanceof TransferNode) {
+                    // The device that wrote the object keeps the latest copy
+                    nextAccessNode = arg;
                 } else {
                     nextAccessNode = args[argIndex];
                 }
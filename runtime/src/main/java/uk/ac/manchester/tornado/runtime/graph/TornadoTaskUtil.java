@@ -25,46 +25,392 @@
  */
 package uk.ac.manchester.tornado.runtime.graph;
 
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
+
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.compiler.core.common.type.StampPair;
 import org.graalvm.compiler.graph.Node;
-import org.graalvm.compiler.loop.BasicInductionVariable;
-import org.graalvm.compiler.loop.LoopEx;
-import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.LoopExitNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.PiNode;
+import org.graalvm.compiler.nodes.StateSplit;
 import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.util.GraphUtil;
 
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 
 /**
+ * Fusion of the sketches of two tasks that iterate over the same parallel
+ * range. The body of the parallel loop of the producer is moved to the start of
+ * the body of the parallel loop of the consumer. Each thread computes the
+ * elements of the producer before the consumer reads them, so the values
+ * stored by the producer can be forwarded to the consumer in registers.
+ *
+ * Only element-wise tasks are fused: the objects shared between both tasks
+ * have to be accessed in the position of the parallel induction variable, and
+ * the body of the parallel loop of the producer has to be straight-line code.
+ *
  * @author James Clarkson
  */
 class TornadoTaskUtil {
 
-    private static LoopEx findParallelLoop(StructuredGraph graph) {
-        final LoopsData data = new LoopsData(graph);
-        data.detectedCountedLoops();
-
-        final List<LoopEx> loops = data.outerFirst();
-
-        List<ParallelRangeNode> parRanges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
-        for (LoopEx loop : loops) {
-            for (ParallelRangeNode parRange : parRanges) {
-                for (Node n : parRange.offset().usages()) {
-                    if (loop.getInductionVariables().containsKey(n)) {
-                        BasicInductionVariable iv = (BasicInductionVariable) loop.getInductionVariables().get(n);
-                        System.out.printf("[%d] parallel loop: %s -> init=%s, cond=%s, stride=%s, op=%s\n", parRange.index(), loop.loopBegin(), parRange.offset().value(), parRange.value(),
-                                parRange.stride(), iv.getOp());
-                        return loop;
-                    }
+    /**
+     * The single parallel loop of a sketch.
+     */
+    private static class ParallelLoop {
+        private final ParallelRangeNode range;
+        private final ValuePhiNode iv;
+        private final LoopBeginNode loopBegin;
+        private final AbstractBeginNode bodyBegin;
+        private final List<FixedWithNextNode> body;
+
+        ParallelLoop(ParallelRangeNode range, ValuePhiNode iv, LoopBeginNode loopBegin, AbstractBeginNode bodyBegin, List<FixedWithNextNode> body) {
+            this.range = range;
+            this.iv = iv;
+            this.loopBegin = loopBegin;
+            this.bodyBegin = bodyBegin;
+            this.body = body;
+        }
+    }
+
+    /**
+     * It collects the fixed nodes from {@code node} until the first control-flow
+     * split or merge.
+     */
+    private static FixedNode collectStraightLineCode(FixedNode node, List<FixedWithNextNode> code) {
+        FixedNode current = node;
+        while (current instanceof FixedWithNextNode && !(current instanceof AbstractBeginNode)) {
+            code.add((FixedWithNextNode) current);
+            current = ((FixedWithNextNode) current).next();
+        }
+        return current;
+    }
+
+    private static ParallelLoop findParallelLoop(StructuredGraph graph) {
+        final List<ParallelRangeNode> parRanges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        if (parRanges.size() != 1) {
+            return null;
+        }
+        final ParallelRangeNode range = parRanges.get(0);
+        final List<ValuePhiNode> phis = range.offset().usages().filter(ValuePhiNode.class).snapshot();
+        if (phis.size() != 1 || !(phis.get(0).merge() instanceof LoopBeginNode)) {
+            return null;
+        }
+        final ValuePhiNode iv = phis.get(0);
+        final LoopBeginNode loopBegin = (LoopBeginNode) iv.merge();
+        if (loopBegin.phis().count() != 1 || loopBegin.loopEnds().count() != 1) {
+            return null;
+        }
+
+        // loop header: the condition of the parallel loop follows the code that
+        // computes the range
+        final FixedNode header = collectStraightLineCode(loopBegin.next(), new ArrayList<>());
+        if (!(header instanceof IfNode)) {
+            return null;
+        }
+        final IfNode ifNode = (IfNode) header;
+        final LogicNode condition = ifNode.condition();
+        if (!(condition instanceof IntegerLessThanNode) || ((IntegerLessThanNode) condition).getX() != iv || ((IntegerLessThanNode) condition).getY() != range
+                || !(ifNode.falseSuccessor() instanceof LoopExitNode)) {
+            return null;
+        }
+
+        final List<FixedWithNextNode> body = new ArrayList<>();
+        final FixedNode end = collectStraightLineCode(ifNode.trueSuccessor().next(), body);
+        if (!(end instanceof LoopEndNode) || ((LoopEndNode) end).loopBegin() != loopBegin) {
+            return null;
+        }
+        return new ParallelLoop(range, iv, loopBegin, ifNode.trueSuccessor(), body);
+    }
+
+    /**
+     * It evaluates a value of the iteration space with the arguments of the task.
+     *
+     * @return the value, or null if it is not known before running the task.
+     */
+    private static Long evaluate(ValueNode value, Object[] args) {
+        final ValueNode node = GraphUtil.unproxify(value);
+        if (node instanceof ConstantNode && node.asJavaConstant() != null && node.asJavaConstant().getJavaKind().isNumericInteger()) {
+            return node.asJavaConstant().asLong();
+        } else if (node instanceof ParameterNode) {
+            final Object arg = args[((ParameterNode) node).index()];
+            if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+                return ((Number) arg).longValue();
+            }
+        } else if (node instanceof ArrayLengthNode) {
+            final ValueNode array = GraphUtil.unproxify(((ArrayLengthNode) node).array());
+            if (array instanceof ParameterNode) {
+                final Object arg = args[((ParameterNode) array).index()];
+                if (arg != null && arg.getClass().isArray()) {
+                    return (long) Array.getLength(arg);
                 }
             }
         }
         return null;
     }
 
-    public static StructuredGraph merge(CompilableTask t1, CompilableTask t2, StructuredGraph g1, StructuredGraph g2, int[] merges) {
-        LoopEx l1 = findParallelLoop(g1);
-        LoopEx l2 = findParallelLoop(g2);
-        return null;
+    private static boolean isSameIterationSpace(ParallelLoop l1, Object[] args1, ParallelLoop l2, Object[] args2) {
+        final ValueNode[] values1 = { l1.range.value(), l1.range.offset().value(), l1.range.stride().value() };
+        final ValueNode[] values2 = { l2.range.value(), l2.range.offset().value(), l2.range.stride().value() };
+        for (int i = 0; i < values1.length; i++) {
+            final Long v1 = evaluate(values1[i], args1);
+            final Long v2 = evaluate(values2[i], args2);
+            if (v1 == null || !v1.equals(v2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isElementAccess(Node usage, ValueNode array, ValuePhiNode iv) {
+        if (usage instanceof AccessIndexedNode) {
+            final AccessIndexedNode access = (AccessIndexedNode) usage;
+            final boolean storesArray = usage instanceof StoreIndexedNode && ((StoreIndexedNode) usage).value() == array;
+            return access.array() == array && access.index() == iv && !storesArray;
+        } else if (usage instanceof PiNode) {
+            for (Node piUsage : usage.usages()) {
+                if (!isElementAccess(piUsage, (ValueNode) usage, iv)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return usage instanceof ArrayLengthNode || usage instanceof IsNullNode || usage instanceof FrameState;
+    }
+
+    /**
+     * Threads do not synchronise within the fused kernel: an object written by
+     * either task can only be accessed in the element of the current thread.
+     */
+    private static boolean isAccessedByElement(StructuredGraph graph, int index, ValuePhiNode iv) {
+        final ParameterNode param = graph.getParameter(index);
+        if (param == null) {
+            return true;
+        }
+        for (Node usage : param.usages()) {
+            if (!isElementAccess(usage, param, iv)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean writes(Access access) {
+        return access != Access.READ && access != Access.NONE;
+    }
+
+    private static boolean hasSideEffectsOutsideLoop(StructuredGraph graph, ParallelLoop loop) {
+        final Set<Node> body = new HashSet<>(loop.body);
+        for (Node node : graph.getNodes()) {
+            if (node instanceof Invoke || (node instanceof StateSplit && ((StateSplit) node).hasSideEffect() && !body.contains(node))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ParameterNode getOrCreateParameter(StructuredGraph graph, int index, ParameterNode original) {
+        ParameterNode param = graph.getParameter(index);
+        if (param == null) {
+            param = graph.addWithoutUnique(new ParameterNode(index, StampPair.createSingle(original.stamp(NodeView.DEFAULT))));
+        }
+        return param;
+    }
+
+    /**
+     * It collects the nodes of the body of the producer loop and the floating
+     * nodes they depend on. Parameters, the induction variable, the frame states
+     * and the anchors of the loop are mapped to the nodes of the consumer.
+     *
+     * @return the nodes, or null if the body depends on fixed nodes outside the
+     *         loop body.
+     */
+    private static Set<Node> collectBodyNodes(ParallelLoop loop, EconomicMap<Node, Node> replacements, FrameState state) {
+        final Set<Node> nodes = new LinkedHashSet<>(loop.body);
+        final Deque<Node> worklist = new ArrayDeque<>(loop.body);
+        while (!worklist.isEmpty()) {
+            final Node node = worklist.pop();
+            for (Node input : node.inputs()) {
+                if (nodes.contains(input) || replacements.containsKey(input)) {
+                    continue;
+                }
+                if (input instanceof FrameState) {
+                    replacements.put(input, state);
+                } else if (input instanceof FixedNode || input instanceof PhiNode) {
+                    return null;
+                } else {
+                    nodes.add(input);
+                    worklist.push(input);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private static List<AccessIndexedNode> getArrayAccesses(ValueNode array) {
+        final List<AccessIndexedNode> accesses = new ArrayList<>();
+        for (Node usage : array.usages()) {
+            if (usage instanceof AccessIndexedNode && ((AccessIndexedNode) usage).array() == array) {
+                accesses.add((AccessIndexedNode) usage);
+            } else if (usage instanceof PiNode) {
+                accesses.addAll(getArrayAccesses((PiNode) usage));
+            }
+        }
+        return accesses;
+    }
+
+    private static boolean isForwardable(JavaKind kind) {
+        return kind == JavaKind.Int || kind == JavaKind.Long || kind == JavaKind.Float || kind == JavaKind.Double;
+    }
+
+    /**
+     * The consumer reads the elements stored by the producer in the same thread.
+     * These loads are replaced with the stored values, and the stores to
+     * intermediate objects, which are not read after the fused kernel, are
+     * removed.
+     */
+    private static void forwardStores(StructuredGraph graph, ValuePhiNode iv, List<FixedWithNextNode> producerBody, List<FixedWithNextNode> consumerBody, BitSet intermediates) {
+        for (ParameterNode param : graph.getNodes(ParameterNode.TYPE).snapshot()) {
+            final List<StoreIndexedNode> stores = new ArrayList<>();
+            final List<LoadIndexedNode> loads = new ArrayList<>();
+            for (AccessIndexedNode access : getArrayAccesses(param)) {
+                if (access instanceof StoreIndexedNode) {
+                    stores.add((StoreIndexedNode) access);
+                } else if (access instanceof LoadIndexedNode) {
+                    loads.add((LoadIndexedNode) access);
+                }
+            }
+            if (stores.size() != 1 || !producerBody.contains(stores.get(0))) {
+                continue;
+            }
+            final StoreIndexedNode store = stores.get(0);
+            if (store.index() != iv || !isForwardable(store.elementKind())) {
+                continue;
+            }
+
+            boolean forwardedAll = true;
+            for (LoadIndexedNode load : loads) {
+                if (load.index() == iv && load.elementKind() == store.elementKind() && consumerBody.contains(load)) {
+                    load.replaceAtUsages(store.value());
+                    graph.removeFixed(load);
+                } else {
+                    forwardedAll = false;
+                }
+            }
+            if (forwardedAll && intermediates.get(param.index()) && store.hasNoUsages()) {
+                graph.removeFixed(store);
+            }
+        }
+    }
+
+    /**
+     * It builds the sketch of a task that runs the producer and then the consumer
+     * in the same kernel. The parameters of the fused graph follow the arguments
+     * of the fused task: the parameters of the consumer keep their index, and
+     * {@code merges} gives the index of each parameter of the producer.
+     *
+     * @param t1
+     *            Producer task
+     * @param t2
+     *            Consumer task
+     * @param g1
+     *            Sketch of the producer. It is not modified.
+     * @param g2
+     *            Sketch of the consumer. It is not modified.
+     * @param merges
+     *            Index in the fused task of each argument of the producer
+     * @param a1
+     *            Accesses of the producer
+     * @param a2
+     *            Accesses of the consumer
+     * @param intermediates
+     *            Arguments of the fused task that are only used to pass data from
+     *            the producer to the consumer
+     * @return the fused graph, or null if the tasks cannot be fused.
+     */
+    public static StructuredGraph merge(CompilableTask t1, CompilableTask t2, StructuredGraph g1, StructuredGraph g2, int[] merges, Access[] a1, Access[] a2, BitSet intermediates) {
+        final ParallelLoop l1 = findParallelLoop(g1);
+        final ParallelLoop l2 = findParallelLoop(g2);
+        if (l1 == null || l2 == null || l1.body.isEmpty() || l1.range.index() != 0 || l2.range.index() != 0) {
+            return null;
+        }
+        if (!isSameIterationSpace(l1, t1.getArguments(), l2, t2.getArguments()) || hasSideEffectsOutsideLoop(g1, l1)) {
+            return null;
+        }
+        for (int i = 0; i < merges.length; i++) {
+            final boolean shared = merges[i] < a2.length;
+            if (shared && (writes(a1[i]) || writes(a2[merges[i]])) && !(isAccessedByElement(g1, i, l1.iv) && isAccessedByElement(g2, merges[i], l2.iv))) {
+                return null;
+            }
+        }
+
+        final StructuredGraph fused = (StructuredGraph) g2.copy(getDebugContext());
+        final ParallelLoop loop = findParallelLoop(fused);
+        if (loop == null || loop.loopBegin.stateAfter() == null) {
+            return null;
+        }
+
+        final EconomicMap<Node, Node> replacements = EconomicMap.create(Equivalence.IDENTITY);
+        replacements.put(g1.start(), fused.start());
+        replacements.put(l1.iv, loop.iv);
+        replacements.put(l1.bodyBegin, loop.bodyBegin);
+        for (ParameterNode param : g1.getNodes(ParameterNode.TYPE)) {
+            replacements.put(param, getOrCreateParameter(fused, merges[param.index()], param));
+        }
+        final Set<Node> nodes = collectBodyNodes(l1, replacements, loop.loopBegin.stateAfter());
+        if (nodes == null) {
+            return null;
+        }
+
+        final UnmodifiableEconomicMap<Node, Node> duplicates = fused.addDuplicates(nodes, g1, nodes.size(), replacements);
+        final List<FixedWithNextNode> producerBody = new ArrayList<>();
+        for (FixedWithNextNode node : l1.body) {
+            producerBody.add((FixedWithNextNode) duplicates.get(node));
+        }
+        final FixedNode consumerFirst = loop.bodyBegin.next();
+        loop.bodyBegin.setNext(producerBody.get(0));
+        producerBody.get(producerBody.size() - 1).setNext(consumerFirst);
+
+        fused.updateMethods(g1);
+
+        final List<FixedWithNextNode> consumerBody = new ArrayList<>();
+        collectStraightLineCode(consumerFirst, consumerBody);
+        forwardStores(fused, loop.iv, producerBody, consumerBody, intermediates);
+        return fused;
     }
 }
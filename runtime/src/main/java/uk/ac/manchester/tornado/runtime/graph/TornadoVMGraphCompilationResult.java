@@ -36,6 +36,7 @@ public class TornadoVMGraphCompilationResult {
     private byte[] code;
     private TornadoGraphAssembler bitcodeASM;
     private int globalTaskID;
+    private BatchConfiguration batchConfiguration;
 
     public TornadoVMGraphCompilationResult() {
         code = new byte[MAX_TORNADO_VM_BYTECODE_SIZE];
@@ -75,14 +76,62 @@ public class TornadoVMGraphCompilationResult {
             }
         } else if (node instanceof StreamInNode) {
             bitcodeASM.streamInToContext(((StreamInNode) node).getValue().getIndex(), contextID, dependencyBC, offset, batchSize);
+        } else if (node instanceof TransferNode) {
+            final TransferNode transferNode = (TransferNode) node;
+            bitcodeASM.transferToContext(transferNode.getValue().getIndex(), transferNode.getSource().getDeviceIndex(), contextID, dependencyBC);
         } else if (node instanceof TaskNode) {
             final TaskNode taskNode = (TaskNode) node;
-            bitcodeASM.launch(globalTaskID, taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, offset, nThreads);
+            bitcodeASM.launch(globalTaskID, taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, taskNode.getQueueIndex(), offset, nThreads);
             emitArgList(taskNode);
             incTaskID();
         }
     }
 
+    private static int getObjectIndex(AbstractNode node) {
+        if (node instanceof CopyInNode) {
+            return ((CopyInNode) node).getValue().getIndex();
+        } else if (node instanceof AllocateNode) {
+            return ((AllocateNode) node).getValue().getIndex();
+        } else if (node instanceof StreamInNode) {
+            return ((StreamInNode) node).getValue().getIndex();
+        } else if (node instanceof CopyOutNode) {
+            ObjectNode value = ((CopyOutNode) node).getValue().getValue();
+            return (value != null) ? value.getIndex() : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * It emits a node for one chunk of a batch. Arrays that are split in chunks
+     * use the offset and the size of the chunk in bytes for their own element
+     * type. Objects that are resident in the device are only copied in with the
+     * first chunk and copied out with the last chunk.
+     *
+     * @return false if the node is not emitted for this chunk.
+     */
+    boolean emitAsyncNode(AbstractNode node, int contextID, int dependencyBC, BatchConfiguration batch, int chunk, boolean lastChunk) {
+        final long chunkStart = chunk * batch.getChunkElements();
+        final long chunkElements = Math.min(batch.getChunkElements(), batch.getTotalElements() - chunkStart);
+
+        if (node instanceof TaskNode) {
+            emitAsyncNode(node, contextID, dependencyBC, chunkStart, 0, chunkElements);
+            return true;
+        }
+
+        final int objectIndex = getObjectIndex(node);
+        if (objectIndex == -1 || !batch.isBatched(objectIndex)) {
+            if ((node instanceof CopyOutNode) ? !lastChunk : chunk != 0) {
+                return false;
+            }
+            emitAsyncNode(node, contextID, dependencyBC, 0, 0, 0);
+            return true;
+        }
+
+        final long elementSize = batch.getElementSize(objectIndex);
+        emitAsyncNode(node, contextID, dependencyBC, chunkStart * elementSize, chunkElements * elementSize, 0);
+        return true;
+    }
+
     private void emitArgList(TaskNode taskNode) {
         final int numArgs = taskNode.getNumArgs();
         for (int i = 0; i < numArgs; i++) {
@@ -99,6 +148,8 @@ public class TornadoVMGraphCompilationResult {
                 bitcodeASM.referenceArg(((AllocateNode) argNode).getValue().getIndex());
             } else if (argNode instanceof DependentReadNode) {
                 bitcodeASM.referenceArg(((DependentReadNode) argNode).getValue().getIndex());
+            } else if (argNode instanceof TransferNode) {
+                bitcodeASM.referenceArg(((TransferNode) argNode).getValue().getIndex());
             }
         }
     }
@@ -119,4 +170,12 @@ public class TornadoVMGraphCompilationResult {
         return bitcodeASM.position();
     }
 
+    void setBatchConfiguration(BatchConfiguration batchConfiguration) {
+        this.batchConfiguration = batchConfiguration;
+    }
+
+    public BatchConfiguration getBatchConfiguration() {
+        return batchConfiguration;
+    }
+
 }
@@ -25,49 +25,44 @@
  */
 package uk.ac.manchester.tornado.runtime.graph;
 
-import java.lang.reflect.Array;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.OPENCL_KERNEL_QUEUES;
+
+import java.lang.annotation.Annotation;
 import java.nio.BufferOverflowException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 
-import org.graalvm.compiler.graph.Node;
-import org.graalvm.compiler.loop.BasicInductionVariable;
-import org.graalvm.compiler.loop.LoopEx;
-import org.graalvm.compiler.loop.LoopsData;
 import org.graalvm.compiler.nodes.StructuredGraph;
 
-import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
-import uk.ac.manchester.tornado.runtime.common.Tornado;
-import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphAssembler.TornadoVMBytecodes;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.AllocateNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextOpNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.CopyInNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.DependentReadNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.ObjectNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.StreamInNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.TransferNode;
+import uk.ac.manchester.tornado.runtime.jvm.JVMTornadoDevice;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
 
 public class TornadoVMGraphCompiler {
 
-    private static HashMap<Class<?>, Byte> dataTypesSize = new HashMap<>();
-
-    static {
-        dataTypesSize.put(byte.class, (byte) 1);
-        dataTypesSize.put(char.class, (byte) 2);
-        dataTypesSize.put(short.class, (byte) 2);
-        dataTypesSize.put(int.class, (byte) 4);
-        dataTypesSize.put(float.class, (byte) 4);
-        dataTypesSize.put(long.class, (byte) 8);
-        dataTypesSize.put(double.class, (byte) 8);
-    }
-
     /**
      * Generate TornadoVM byte-code from a Tornado Task Graph.
      * 
@@ -78,79 +73,49 @@ public class TornadoVMGraphCompiler {
     public static TornadoVMGraphCompilationResult compile(TornadoGraph graph, TornadoExecutionContext context, long batchSize) {
         final BitSet deviceContexts = graph.filter(ContextNode.class);
         if (deviceContexts.cardinality() == 1) {
-            final ContextNode contextNode = (ContextNode) graph.getNode(deviceContexts.nextSetBit(0));
-            int deviceIndex = contextNode.getDeviceIndex();
+            if (TornadoOptions.EXPERIMENTAL_FUSION) {
+                fuseTasks(graph, context);
+            }
+            assignKernelQueues(graph, context);
             return compileSingleContext(graph, context, batchSize);
         } else {
-            throw new TornadoRuntimeException("Multiple-Contexts are not currently supported");
-        }
-    }
-
-    private static class BatchSizeMetaData {
-
-        private int totalChunks;
-        private int remainingChunkSize;
-        private short numBytesType;
-
-        BatchSizeMetaData(int totalChunks, int remainingChunkSize, short numBytesType) {
-            this.totalChunks = totalChunks;
-            this.remainingChunkSize = remainingChunkSize;
-            this.numBytesType = numBytesType;
-        }
-
-        private int getTotalChunks() {
-            return totalChunks;
-        }
-
-        private int getRemainingChunkSize() {
-            return remainingChunkSize;
-        }
-
-        private short getNumBytesType() {
-            return numBytesType;
+            if (batchSize != -1) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Batch processing is not currently supported for task-schedules with multiple devices");
+            }
+            assignKernelQueues(graph, context);
+            return compileMultipleContexts(graph, deviceContexts);
         }
     }
 
-    private static BatchSizeMetaData computeChunkSizes(TornadoExecutionContext context, long batchSize) {
-        // Get the size of the batch
-        List<Object> inputObjects = context.getObjects();
-        long totalSize = 0;
-        byte typeSize = 1;
-
-        HashSet<Class<?>> classObjects = new HashSet<>();
-        HashSet<Long> inputSizes = new HashSet<>();
-
-        // XXX: Get a list for all objects
-        for (Object o : inputObjects) {
-            if (o.getClass().isArray()) {
-                Class<?> componentType = o.getClass().getComponentType();
-                if (dataTypesSize.get(componentType) == null) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
-                }
-                long size = Array.getLength(o);
-                typeSize = dataTypesSize.get(componentType);
-                totalSize = size * typeSize;
-
-                classObjects.add(componentType);
-                inputSizes.add(totalSize);
-                if (classObjects.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different data types not currently supported");
+    /**
+     * Dependency information of all the asynchronous operations (data transfers
+     * and tasks) of a graph.
+     */
+    private static class AsyncNodes {
+
+        private final BitSet[] dependencies;
+        private final BitSet tasks;
+        private final int[] nodeIds;
+        private int numDepLists;
+
+        AsyncNodes(TornadoGraph graph) {
+            final BitSet asyncNodes = graph.filter((AbstractNode n) -> n instanceof ContextOpNode);
+            dependencies = new BitSet[asyncNodes.cardinality()];
+            tasks = new BitSet(asyncNodes.cardinality());
+            nodeIds = new int[asyncNodes.cardinality()];
+            int index = 0;
+            for (int i = asyncNodes.nextSetBit(0); i != -1 && i < asyncNodes.length(); i = asyncNodes.nextSetBit(i + 1)) {
+                dependencies[index] = calculateDeps(graph, i);
+                nodeIds[index] = i;
+                if (graph.getNode(i) instanceof TaskNode) {
+                    tasks.set(index);
                 }
-                if (inputSizes.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different sizes not currently supported");
+                if (!dependencies[index].isEmpty()) {
+                    numDepLists++;
                 }
+                index++;
             }
         }
-
-        int totalChunks = (int) (totalSize / batchSize);
-        int remainingChunkSize = (int) (totalSize % batchSize);
-
-        if (Tornado.DEBUG) {
-            System.out.println("Batch Size: " + batchSize);
-            System.out.println("Total chunks: " + totalChunks);
-            System.out.println("remainingChunkSize: " + remainingChunkSize);
-        }
-        return new BatchSizeMetaData(totalChunks, remainingChunkSize, typeSize);
     }
 
     /*
@@ -161,52 +126,31 @@ public class TornadoVMGraphCompiler {
 
         final TornadoVMGraphCompilationResult result = new TornadoVMGraphCompilationResult();
 
-        final BitSet asyncNodes = graph.filter((AbstractNode n) -> n instanceof ContextOpNode);
-
-        final BitSet[] dependencies = new BitSet[asyncNodes.cardinality()];
-        final BitSet tasks = new BitSet(asyncNodes.cardinality());
-        final int[] nodeIds = new int[asyncNodes.cardinality()];
-        int index = 0;
-        int numDepLists = 0;
-        for (int i = asyncNodes.nextSetBit(0); i != -1 && i < asyncNodes.length(); i = asyncNodes.nextSetBit(i + 1)) {
-            dependencies[index] = calculateDeps(graph, i);
-            nodeIds[index] = i;
-            if (graph.getNode(i) instanceof TaskNode) {
-                tasks.set(index);
-            }
-            if (!dependencies[index].isEmpty()) {
-                numDepLists++;
-            }
-            index++;
-        }
+        final AsyncNodes asyncNodes = new AsyncNodes(graph);
+        final BitSet[] dependencies = asyncNodes.dependencies;
+        final BitSet tasks = asyncNodes.tasks;
+        final int[] nodeIds = asyncNodes.nodeIds;
+        final int numDepLists = asyncNodes.numDepLists;
 
-        // Generate BEGIN bytecode
-        result.begin(1, tasks.cardinality(), numDepLists + 1);
+        // Generate BEGIN bytecode. Fused tasks keep their index in the execution
+        // context, so the task count is taken from the context.
+        result.begin(1, Math.max(tasks.cardinality(), context.getTasks().size()), numDepLists + 1);
 
-        BatchSizeMetaData sizeBatch = null;
+        BatchConfiguration batchConfiguration = null;
         if (batchSize != -1) {
-            sizeBatch = computeChunkSizes(context, batchSize);
+            batchConfiguration = BatchConfiguration.computeChunkSizes(context, batchSize);
         }
 
-        if (batchSize != -1) {
+        if (batchConfiguration != null && batchConfiguration.getTotalChunks() > 0) {
             // compute in batches
-            long offset = 0;
-            long nthreads = batchSize / sizeBatch.getNumBytesType();
-            for (int i = 0; i < sizeBatch.getTotalChunks(); i++) {
-                offset = (batchSize * i);
-                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, offset, batchSize, nthreads);
-            }
-            // Last chunk
-            if (sizeBatch.getRemainingChunkSize() != 0) {
-                offset += (batchSize);
-                nthreads = sizeBatch.getRemainingChunkSize() / sizeBatch.getNumBytesType();
-                long realBatchSize = sizeBatch.getTotalChunks() == 0 ? 0 : sizeBatch.getRemainingChunkSize();
-                long realOffsetSize = sizeBatch.getTotalChunks() == 0 ? 0 : offset;
-                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, realOffsetSize, realBatchSize, nthreads);
+            result.setBatchConfiguration(batchConfiguration);
+            final int numChunks = batchConfiguration.getTotalChunks() + ((batchConfiguration.getRemainingChunkElements() != 0) ? 1 : 0);
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, batchConfiguration, chunk, chunk == numChunks - 1);
             }
-
         } else {
-            // Generate bytecodes with no batches
+            // Generate bytecodes with no batches. This is also the case when all the
+            // data fits in a single chunk.
             scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies);
         }
 
@@ -219,6 +163,37 @@ public class TornadoVMGraphCompiler {
         return result;
     }
 
+    /*
+     * Tasks within the task-schedule are executed on different devices. Each
+     * device has its own context, and the objects that are shared between devices
+     * are moved with TRANSFER bytecodes. Operations on different devices overlap
+     * unless there is a data dependency between them.
+     */
+    private static TornadoVMGraphCompilationResult compileMultipleContexts(TornadoGraph graph, BitSet deviceContexts) {
+
+        final TornadoVMGraphCompilationResult result = new TornadoVMGraphCompilationResult();
+
+        final AsyncNodes asyncNodes = new AsyncNodes(graph);
+
+        int numContexts = 0;
+        for (int i = deviceContexts.nextSetBit(0); i != -1 && i < deviceContexts.length(); i = deviceContexts.nextSetBit(i + 1)) {
+            numContexts = Math.max(numContexts, ((ContextNode) graph.getNode(i)).getDeviceIndex() + 1);
+        }
+
+        // Generate BEGIN bytecode
+        result.begin(numContexts, asyncNodes.tasks.cardinality(), asyncNodes.numDepLists + 1);
+
+        scheduleAndEmitTornadoVMBytecodes(result, graph, asyncNodes.nodeIds, asyncNodes.dependencies);
+
+        // The last STREAM_OUT only blocks its own device: wait for all of them
+        result.barrier(asyncNodes.numDepLists);
+
+        // Generate END bytecode
+        result.end();
+
+        return result;
+    }
+
     /**
      * It replaces the last STREAM_OUT for STREAM_OUT_BLOCKING byte-code. Otherwise,
      * it adds a barrier
@@ -238,70 +213,299 @@ public class TornadoVMGraphCompiler {
         }
     }
 
-    @SuppressWarnings("unused")
-    private static void optimise(TornadoVMGraphCompilationResult result, TornadoGraph graph, TornadoExecutionContext context, int[] nodeIds, BitSet[] deps, BitSet tasks) {
-        printMatrix(nodeIds, deps, tasks);
+    /**
+     * It merges each task that reads the output of the previous task in the
+     * task-schedule with that task. The pair runs as a single kernel that is
+     * built by {@link TornadoTaskUtil#merge}. The consumer keeps its position in
+     * the task-schedule and the producer is removed from the graph.
+     */
+    private static void fuseTasks(TornadoGraph graph, TornadoExecutionContext context) {
+        // Tasks fused by a previous compilation of the task-schedule
+        for (int i = 0; i < context.getTasks().size(); i++) {
+            if (context.getTask(i) instanceof FusedTask) {
+                context.setTask(i, ((FusedTask) context.getTask(i)).getConsumer());
+            }
+        }
+
+        final BitSet tasks = graph.filter(TaskNode.class);
+        TaskNode producer = null;
+        for (int i = tasks.nextSetBit(0); i >= 0; i = tasks.nextSetBit(i + 1)) {
+            final TaskNode consumer = (TaskNode) graph.getNode(i);
+            if (producer != null && isFusionCandidate(context, producer, consumer)) {
+                fuse(graph, context, producer, consumer);
+            }
+            producer = consumer;
+        }
+    }
+
+    private static boolean isFusionCandidate(TornadoExecutionContext context, TaskNode producer, TaskNode consumer) {
+        if (producer.getContext() != consumer.getContext() || producer.getTaskIndex() + 1 != consumer.getTaskIndex()) {
+            return false;
+        }
+        // Fused tasks are compiled from their own sketch, which the Java device
+        // does not run. FPGAs compile all tasks of the task-schedule together.
+        final TornadoAcceleratorDevice device = context.getDevice(producer.getContext().getDeviceIndex());
+        if (device instanceof JVMTornadoDevice || device.getDeviceType() == TornadoDeviceType.FPGA || device.getDeviceType() == TornadoDeviceType.ACCELERATOR) {
+            return false;
+        }
+        if (!(context.getTask(producer.getTaskIndex()) instanceof CompilableTask) || !(context.getTask(consumer.getTaskIndex()) instanceof CompilableTask)) {
+            return false;
+        }
+        for (AbstractNode arg : consumer.getInputs()) {
+            if (arg instanceof DependentReadNode && ((DependentReadNode) arg).getDependent() == producer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * It assigns the tasks of each device to its kernel queues
+     * ({@code -Dtornado.opencl.queues}). Tasks that read the output of another
+     * task, or that write an object used by another task, form a chain that is
+     * launched in a single queue. Independent chains are distributed round-robin
+     * over the queues of the device, so their kernels can run concurrently.
+     */
+    private static void assignKernelQueues(TornadoGraph graph, TornadoExecutionContext context) {
+        if (OPENCL_KERNEL_QUEUES == 1) {
+            return;
+        }
+        final BitSet tasks = graph.filter(TaskNode.class);
+        final int[] chains = new int[graph.getValid().length()];
         for (int i = tasks.nextSetBit(0); i >= 0; i = tasks.nextSetBit(i + 1)) {
-            BitSet dependents = new BitSet(deps[i].length());
-            for (int j = deps[i].nextSetBit(0); j >= 0; j = deps[i].nextSetBit(j + 1)) {
-                if (graph.getNode(j) instanceof TaskNode) {
-                    dependents.set(j);
+            chains[i] = i;
+        }
+
+        for (int i = tasks.nextSetBit(0); i >= 0; i = tasks.nextSetBit(i + 1)) {
+            final TaskNode task = (TaskNode) graph.getNode(i);
+            for (AbstractNode arg : task.getInputs()) {
+                if (arg instanceof DependentReadNode) {
+                    joinChains(chains, i, ((DependentReadNode) arg).getDependent().getId());
                 }
             }
-            if (!dependents.isEmpty()) {
-                TaskNode dependentTask = (TaskNode) graph.getNode(nodeIds[i]);
-                int firstDepId = dependents.nextSetBit(0);
-                TaskNode firstTask = (TaskNode) graph.getNode(firstDepId);
-                int[] argMerges = new int[dependentTask.getNumArgs()];
-                Arrays.fill(argMerges, -1);
-                for (int arg = 0; arg < dependentTask.getInputs().size(); arg++) {
-                    AbstractNode n = dependentTask.getInputs().get(arg);
-                    if (n instanceof DependentReadNode && ((DependentReadNode) n).getDependent() == firstTask) {
-                        argMerges[arg] = 1;
-                    }
+            for (int j = tasks.nextSetBit(0); j < i; j = tasks.nextSetBit(j + 1)) {
+                if (hasConflictingAccess(context, (TaskNode) graph.getNode(j), task)) {
+                    joinChains(chains, i, j);
                 }
+            }
+        }
 
-                CompilableTask t1 = (CompilableTask) context.getTask(firstTask.getTaskIndex());
-                CompilableTask t2 = (CompilableTask) context.getTask(dependentTask.getTaskIndex());
-                ResolvedJavaMethod rm1 = TornadoCoreRuntime.getTornadoRuntime().getMetaAccess().lookupJavaMethod(t1.getMethod());
-                ResolvedJavaMethod rm2 = TornadoCoreRuntime.getTornadoRuntime().getMetaAccess().lookupJavaMethod(t1.getMethod());
-                Sketch sketch1 = TornadoSketcher.lookup(rm1);
-                Sketch sketch2 = TornadoSketcher.lookup(rm2);
-                StructuredGraph g1 = (StructuredGraph) sketch1.getGraph().getReadonlyCopy();
-                StructuredGraph g2 = (StructuredGraph) sketch2.getGraph().getReadonlyCopy();
-                System.out.printf("dependent task: %s on %s merges = %d\n", t1.getId(), t2.getId(), Arrays.toString(argMerges));
-                printIvs(g1);
-                printIvs(g2);
-                StructuredGraph g3 = TornadoTaskUtil.merge(t1, t2, g1, g2, argMerges);
+        final int[] chainQueues = new int[chains.length];
+        Arrays.fill(chainQueues, -1);
+        final int[] nextQueue = new int[context.getDevices().size()];
+        for (int i = tasks.nextSetBit(0); i >= 0; i = tasks.nextSetBit(i + 1)) {
+            final TaskNode task = (TaskNode) graph.getNode(i);
+            final int chain = findChain(chains, i);
+            if (chainQueues[chain] == -1) {
+                final int device = task.getContext().getDeviceIndex();
+                chainQueues[chain] = nextQueue[device] % OPENCL_KERNEL_QUEUES;
+                nextQueue[device]++;
             }
+            task.setQueueIndex(chainQueues[chain]);
+        }
+    }
+
+    private static int findChain(int[] chains, int node) {
+        int root = node;
+        while (chains[root] != root) {
+            root = chains[root];
         }
+        chains[node] = root;
+        return root;
     }
 
-    private static void printIvs(StructuredGraph graph) {
-        final LoopsData data = new LoopsData(graph);
-        data.detectedCountedLoops();
+    private static void joinChains(int[] chains, int a, int b) {
+        final int rootA = findChain(chains, a);
+        final int rootB = findChain(chains, b);
+        chains[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+    }
 
-        final List<LoopEx> loops = data.outerFirst();
+    private static Access[] getArgumentsAccess(TornadoExecutionContext context, TaskNode task) {
+        final SchedulableTask schedulable = context.getTask(task.getTaskIndex());
+        if (schedulable instanceof CompilableTask) {
+            final Sketch sketch = getSketch((CompilableTask) schedulable);
+            if (sketch != null) {
+                return sketch.getMeta().getArgumentsAccess();
+            }
+        }
+        return null;
+    }
 
-        List<ParallelRangeNode> parRanges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
-        for (LoopEx loop : loops) {
-            for (ParallelRangeNode parRange : parRanges) {
-                for (Node n : parRange.offset().usages()) {
-                    if (loop.getInductionVariables().containsKey(n)) {
-                        BasicInductionVariable iv = (BasicInductionVariable) loop.getInductionVariables().get(n);
-                        System.out.printf("[%d] parallel loop: %s -> init=%s, cond=%s, stride=%s, op=%s\n", parRange.index(), loop.loopBegin(), parRange.offset().value(), parRange.value(),
-                                parRange.stride(), iv.getOp());
-                    }
+    private static boolean isReadOnly(Access[] accesses, int index) {
+        return accesses != null && index < accesses.length && accesses[index] == Access.READ;
+    }
+
+    /**
+     * Two tasks of the same device conflict when they use the same object and at
+     * least one of them might write it. Tasks with unknown accesses conflict with
+     * any task that shares an object.
+     */
+    private static boolean hasConflictingAccess(TornadoExecutionContext context, TaskNode first, TaskNode second) {
+        if (first.getContext().getDeviceIndex() != second.getContext().getDeviceIndex()) {
+            return false;
+        }
+        Access[] firstAccess = null;
+        Access[] secondAccess = null;
+        boolean accessesResolved = false;
+        for (int i = 0; i < first.getNumArgs(); i++) {
+            final int objectIndex = getObjectIndex(first.getArg(i));
+            final int shared = findObjectArgument(second, objectIndex);
+            if (shared == -1) {
+                continue;
+            }
+            if (!accessesResolved) {
+                firstAccess = getArgumentsAccess(context, first);
+                secondAccess = getArgumentsAccess(context, second);
+                accessesResolved = true;
+            }
+            if (!isReadOnly(firstAccess, i) || !isReadOnly(secondAccess, shared)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasReduceParameters(CompilableTask task) {
+        for (Annotation[] annotations : task.getMethod().getParameterAnnotations()) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof Reduce) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Sketch getSketch(CompilableTask task) {
+        if (task instanceof FusedTask) {
+            return ((FusedTask) task).getSketch();
+        }
+        return TornadoSketcher.lookup(TornadoCoreRuntime.getTornadoRuntime().resolveMethod(task.getMethod()));
+    }
+
+    private static int getObjectIndex(AbstractNode node) {
+        if (node instanceof ObjectNode) {
+            return ((ObjectNode) node).getIndex();
+        } else if (node instanceof DependentReadNode) {
+            return ((DependentReadNode) node).getValue().getIndex();
+        } else if (node instanceof CopyInNode) {
+            return ((CopyInNode) node).getValue().getIndex();
+        } else if (node instanceof StreamInNode) {
+            return ((StreamInNode) node).getValue().getIndex();
+        } else if (node instanceof AllocateNode) {
+            return ((AllocateNode) node).getValue().getIndex();
+        }
+        return -1;
+    }
+
+    private static int findObjectArgument(TaskNode task, int objectIndex) {
+        if (objectIndex == -1) {
+            return -1;
+        }
+        for (int i = 0; i < task.getNumArgs(); i++) {
+            if (getObjectIndex(task.getArg(i)) == objectIndex) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasAliasedArguments(TaskNode task) {
+        final BitSet objects = new BitSet();
+        for (int i = 0; i < task.getNumArgs(); i++) {
+            final int objectIndex = getObjectIndex(task.getArg(i));
+            if (objectIndex != -1) {
+                if (objects.get(objectIndex)) {
+                    return true;
                 }
+                objects.set(objectIndex);
             }
         }
+        return false;
+    }
+
+    /**
+     * Access of an object that is accessed first by the producer and then by the
+     * consumer within the same kernel.
+     */
+    private static Access mergeAccess(Access producer, Access consumer) {
+        if (producer == Access.UNKNOWN || consumer == Access.UNKNOWN) {
+            return Access.UNKNOWN;
+        } else if (producer == Access.NONE || producer == Access.WRITE || producer == Access.READ_WRITE) {
+            return (producer == Access.NONE) ? consumer : producer;
+        } else if (consumer == Access.NONE || consumer == Access.READ) {
+            return producer;
+        }
+        return Access.READ_WRITE;
+    }
+
+    private static boolean hasOtherUses(TornadoGraph graph, AbstractNode node, AbstractNode use) {
+        final BitSet uses = graph.filter((AbstractNode n) -> n != use && n.getInputs().contains(node));
+        return !uses.isEmpty();
+    }
+
+    private static void fuse(TornadoGraph graph, TornadoExecutionContext context, TaskNode producerNode, TaskNode consumerNode) {
+        final CompilableTask producer = (CompilableTask) context.getTask(producerNode.getTaskIndex());
+        final CompilableTask consumer = (CompilableTask) context.getTask(consumerNode.getTaskIndex());
+        if (hasReduceParameters(producer) || hasReduceParameters(consumer) || hasAliasedArguments(producerNode) || hasAliasedArguments(consumerNode)) {
+            return;
+        }
+
+        final Sketch producerSketch = getSketch(producer);
+        final Sketch consumerSketch = getSketch(consumer);
+        final Access[] producerAccess = producerSketch.getMeta().getArgumentsAccess();
+        final Access[] consumerAccess = consumerSketch.getMeta().getArgumentsAccess();
+
+        final List<AbstractNode> args = new ArrayList<>(consumerNode.getInputs());
+        final List<Object> values = new ArrayList<>(Arrays.asList(consumer.getArguments()));
+        final List<Access> accesses = new ArrayList<>(Arrays.asList(consumerAccess));
+        final BitSet intermediates = new BitSet(args.size());
+        final int[] merges = new int[producerNode.getNumArgs()];
+        for (int i = 0; i < merges.length; i++) {
+            final int shared = findObjectArgument(consumerNode, getObjectIndex(producerNode.getArg(i)));
+            if (shared == -1) {
+                merges[i] = args.size();
+                args.add(producerNode.getArg(i));
+                values.add(producer.getArguments()[i]);
+                accesses.add(producerAccess[i]);
+                continue;
+            }
+            merges[i] = shared;
+            accesses.set(shared, mergeAccess(producerAccess[i], consumerAccess[shared]));
+            final AbstractNode consumerArg = consumerNode.getArg(shared);
+            if (consumerArg instanceof DependentReadNode && ((DependentReadNode) consumerArg).getDependent() == producerNode) {
+                // The consumer reads the object from the registers of the producer
+                args.set(shared, producerNode.getArg(i));
+                if (producerAccess[i] == Access.WRITE && consumerAccess[shared] == Access.READ && !hasOtherUses(graph, consumerArg, consumerNode)) {
+                    intermediates.set(shared);
+                }
+            }
+        }
+
+        final StructuredGraph producerGraph = (StructuredGraph) producerSketch.getGraph().getReadonlyCopy();
+        final StructuredGraph consumerGraph = (StructuredGraph) consumerSketch.getGraph().getReadonlyCopy();
+        final StructuredGraph fusedGraph = TornadoTaskUtil.merge(producer, consumer, producerGraph, consumerGraph, merges, producerAccess, consumerAccess, intermediates);
+        if (fusedGraph == null) {
+            return;
+        }
+
+        final FusedTask fusedTask = new FusedTask(producer, consumer, values.toArray(), accesses.toArray(new Access[0]), fusedGraph);
+        context.setTask(consumerNode.getTaskIndex(), fusedTask);
+        consumerNode.setArguments(args.toArray(new AbstractNode[0]));
+        graph.apply((AbstractNode n) -> {
+            if (n instanceof DependentReadNode && ((DependentReadNode) n).getDependent() == producerNode) {
+                ((DependentReadNode) n).setDependent(consumerNode);
+            }
+        });
+        graph.delete(producerNode);
     }
 
     private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps) {
-        scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, deps, 0, 0, 0);
+        scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, deps, null, 0, true);
     }
 
-    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps, long offset, long bufferBatchSize, long nThreads) {
+    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps, BatchConfiguration batchConfiguration, int chunk,
+            boolean lastChunk) {
 
         final BitSet scheduled = new BitSet(deps.length);
         scheduled.clear();
@@ -330,18 +534,25 @@ public class TornadoVMGraphCompiler {
                     if (outstandingDeps.isEmpty()) {
                         final ContextOpNode asyncNode = (ContextOpNode) graph.getNode(nodeIds[i]);
 
+                        boolean emitted;
                         try {
-                            result.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), (deps[i].isEmpty()) ? -1 : depLists[i], offset, bufferBatchSize, nThreads);
+                            final int dependencyBC = (deps[i].isEmpty()) ? -1 : depLists[i];
+                            if (batchConfiguration == null) {
+                                result.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), dependencyBC, 0, 0, 0);
+                                emitted = true;
+                            } else {
+                                emitted = result.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), dependencyBC, batchConfiguration, chunk, lastChunk);
+                            }
                         } catch (BufferOverflowException e) {
                             throw new TornadoRuntimeException("[ERROR] Buffer Overflow exception. Use -Dtornado.tvm.maxbytecodesize=<value> with value > "
                                     + TornadoVMGraphCompilationResult.MAX_TORNADO_VM_BYTECODE_SIZE + " to increase the buffer code size");
                         }
 
-                        for (int j = 0; j < deps.length; j++) {
+                        for (int j = 0; j < deps.length && emitted; j++) {
                             if (j == i) {
                                 continue;
                             }
-                            if (deps[j].get(nodeIds[i]) && depLists[j] != -1) {
+                            if (deps[j].get(nodeIds[i]) && depLists[j] != -1 && isSameDeviceDependency(asyncNode, graph.getNode(nodeIds[j]))) {
                                 result.emitAddDep(depLists[j]);
                             }
                         }
@@ -353,24 +564,19 @@ public class TornadoVMGraphCompiler {
         }
     }
 
-    private static String toString(BitSet set) {
-        if (set.isEmpty()) {
-            return "<none>";
-        }
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = set.nextSetBit(0); i != -1 && i < set.length(); i = set.nextSetBit(i + 1)) {
-            sb.append("" + i + " ");
-        }
-        return sb.toString();
-    }
-
-    private static void printMatrix(int[] nodeIds, BitSet[] deps, BitSet tasks) {
-        System.out.println("dependency matrix...");
-        for (int i = 0; i < nodeIds.length; i++) {
-            final int nodeId = nodeIds[i];
-            System.out.printf("%d [%s]| %s\n", nodeId, (tasks.get(i)) ? "task" : "data", toString(deps[i]));
+    /**
+     * Events are only valid in the device that creates them. A dependency with an
+     * operation in another device is resolved by the TRANSFER bytecode, which
+     * waits for the source device before moving the data.
+     */
+    private static boolean isSameDeviceDependency(ContextOpNode producer, AbstractNode consumer) {
+        final ContextNode waitContext;
+        if (consumer instanceof TransferNode) {
+            waitContext = ((TransferNode) consumer).getSource();
+        } else {
+            waitContext = ((ContextOpNode) consumer).getContext();
         }
+        return producer.getContext().getDeviceIndex() == waitContext.getDeviceIndex();
     }
 
     private static BitSet calculateDeps(TornadoGraph graph, int i) {
@@ -32,6 +32,7 @@ public class TaskNode extends ContextOpNode {
 
     private AbstractNode[] arguments;
     private int taskIndex;
+    private int queueIndex;
 
     public TaskNode(ContextNode context, int index, AbstractNode[] arguments) {
         super(context);
@@ -43,10 +44,22 @@ public class TaskNode extends ContextOpNode {
         return arguments[index];
     }
 
+    public void setArguments(AbstractNode[] arguments) {
+        this.arguments = arguments;
+    }
+
     public int getTaskIndex() {
         return taskIndex;
     }
 
+    public int getQueueIndex() {
+        return queueIndex;
+    }
+
+    public void setQueueIndex(int queueIndex) {
+        this.queueIndex = queueIndex;
+    }
+
     @Override
     public List<AbstractNode> getInputs() {
         final List<AbstractNode> inputs = new ArrayList<>();
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import java.util.Arrays;
+
+import uk.ac.manchester.tornado.runtime.common.CallStack;
+import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+
+/**
+ * Call stack of the JVM device. Arguments are kept as Java objects: scalars
+ * are boxed and objects are replaced by their device copy.
+ */
+public class JVMCallStack implements CallStack {
+
+    private final Object[] arguments;
+    private int argCount;
+
+    JVMCallStack(int numArgs) {
+        this.arguments = new Object[numArgs];
+    }
+
+    public Object[] getArguments() {
+        return Arrays.copyOf(arguments, argCount);
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(arguments, null);
+        argCount = 0;
+    }
+
+    @Override
+    public long getDeoptValue() {
+        return 0;
+    }
+
+    @Override
+    public long getReturnValue() {
+        return 0;
+    }
+
+    @Override
+    public int getArgCount() {
+        return argCount;
+    }
+
+    @Override
+    public void push(Object arg) {
+        arguments[argCount++] = arg;
+    }
+
+    @Override
+    public void push(Object arg, DeviceObjectState state) {
+        if (state.hasBuffer() && state.getBuffer() instanceof JVMObjectBuffer) {
+            push(((JVMObjectBuffer) state.getBuffer()).getDeviceObject());
+        } else {
+            push(arg);
+        }
+    }
+
+    @Override
+    public boolean isOnDevice() {
+        return false;
+    }
+
+    @Override
+    public void dump() {
+        for (int i = 0; i < argCount; i++) {
+            System.out.printf("[%d]: %s\n", i, arguments[i]);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import static uk.ac.manchester.tornado.runtime.common.Tornado.EVENT_WINDOW;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import uk.ac.manchester.tornado.api.TornadoDeviceContext;
+import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.runtime.EmptyEvent;
+
+/**
+ * Context of the JVM device. It keeps the thread pool in which the kernels are
+ * executed, the memory accounting, the code cache and a window of the last
+ * {@code EVENT_WINDOW} events.
+ */
+public class JVMDeviceContext implements TornadoDeviceContext {
+
+    private static final Event EMPTY_EVENT = new EmptyEvent();
+
+    private final ForkJoinPool pool;
+    private final int numThreads;
+    private final JVMMemoryManager memoryManager;
+    private final ConcurrentHashMap<String, JVMInstalledCode> codeCache;
+
+    private final JVMEvent[] events;
+    private int eventIndex;
+    private boolean wasReset;
+
+    JVMDeviceContext(int numThreads, long heapSize) {
+        this.numThreads = numThreads;
+        this.pool = new ForkJoinPool(numThreads);
+        this.memoryManager = new JVMMemoryManager(heapSize);
+        this.codeCache = new ConcurrentHashMap<>();
+        this.events = new JVMEvent[EVENT_WINDOW];
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    @Override
+    public JVMMemoryManager getMemoryManager() {
+        return memoryManager;
+    }
+
+    synchronized int registerEvent(String name, long submitTime, long startTime, long endTime) {
+        final int eventId = eventIndex;
+        events[eventId] = new JVMEvent(name, submitTime, startTime, endTime);
+        eventIndex = (eventIndex + 1) % events.length;
+        return eventId;
+    }
+
+    synchronized Event resolveEvent(int event) {
+        if (event == -1 || events[event] == null) {
+            return EMPTY_EVENT;
+        }
+        return events[event];
+    }
+
+    synchronized void flushEvents() {
+        Arrays.fill(events, null);
+        eventIndex = 0;
+    }
+
+    synchronized void dumpEvents(String deviceName) {
+        List<JVMEvent> list = new ArrayList<>();
+        for (JVMEvent event : events) {
+            if (event != null) {
+                list.add(event);
+            }
+        }
+        System.out.printf("Found %d events on device %s:\n", list.size(), deviceName);
+        if (list.isEmpty()) {
+            return;
+        }
+        list.sort(Comparator.comparingLong(JVMEvent::getSubmitTime).thenComparingLong(JVMEvent::getStartTime));
+        long base = list.get(0).getSubmitTime();
+        System.out.println("event: device,type,submitted,start,end,status");
+        list.forEach((e) -> System.out.printf("event: %s,%s,%d,%d,%d,%s\n", deviceName, e.getName(), e.getSubmitTime() - base, e.getStartTime() - base, e.getEndTime() - base, e.getStatus()));
+    }
+
+    boolean isCached(String id, String entryPoint) {
+        return codeCache.containsKey(id + "-" + entryPoint);
+    }
+
+    JVMInstalledCode getInstalledCode(String id, String entryPoint) {
+        return codeCache.get(id + "-" + entryPoint);
+    }
+
+    void installCode(String id, String entryPoint, JVMInstalledCode code) {
+        codeCache.put(id + "-" + entryPoint, code);
+    }
+
+    void reset() {
+        flushEvents();
+        memoryManager.reset();
+        codeCache.clear();
+        wasReset = true;
+    }
+
+    @Override
+    public boolean needsBump() {
+        return false;
+    }
+
+    @Override
+    public boolean wasReset() {
+        return wasReset;
+    }
+
+    @Override
+    public void setResetToFalse() {
+        wasReset = false;
+    }
+
+    @Override
+    public boolean isPlatformFPGA() {
+        return false;
+    }
+
+    @Override
+    public boolean useRelativeAddresses() {
+        return false;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import org.graalvm.compiler.api.runtime.GraalJVMCICompiler;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.util.Providers;
+import org.graalvm.compiler.runtime.RuntimeProvider;
+
+import jdk.vm.ci.runtime.JVMCI;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.TornadoAcceleratorDriver;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Driver with a single device that runs the tasks in the JVM. The number of
+ * threads of the device is set with {@code -Dtornado.jvm.threads}.
+ */
+public class JVMDriver implements TornadoAcceleratorDriver {
+
+    private final JVMTornadoDevice device;
+    private final Providers providers;
+    private final JVMSuitesProvider suitesProvider;
+
+    JVMDriver(OptionValues options) {
+        GraalJVMCICompiler graalCompiler = (GraalJVMCICompiler) JVMCI.getRuntime().getCompiler();
+        this.providers = graalCompiler.getGraalRuntime().getCapability(RuntimeProvider.class).getHostBackend().getProviders();
+        this.suitesProvider = new JVMSuitesProvider(options);
+        this.device = new JVMTornadoDevice(Math.max(1, TornadoOptions.JVM_DEVICE_THREADS), Runtime.getRuntime().maxMemory());
+    }
+
+    @Override
+    public Providers getProviders() {
+        return providers;
+    }
+
+    @Override
+    public JVMSuitesProvider getSuitesProvider() {
+        return suitesProvider;
+    }
+
+    @Override
+    public TornadoAcceleratorDevice getDefaultDevice() {
+        return device;
+    }
+
+    @Override
+    public void setDefaultDevice(int index) {
+        if (index != 0) {
+            throw new TornadoRuntimeException("[ERROR] The JVM driver has a single device");
+        }
+    }
+
+    @Override
+    public int getDeviceCount() {
+        return 1;
+    }
+
+    @Override
+    public TornadoAcceleratorDevice getDevice(int index) {
+        if (index != 0) {
+            throw new TornadoRuntimeException("[ERROR] The JVM driver has a single device");
+        }
+        return device;
+    }
+
+    @Override
+    public TornadoDeviceType getTypeDefaultDevice() {
+        return device.getDeviceType();
+    }
+
+    @Override
+    public String getName() {
+        return "JVM";
+    }
+
+    @Override
+    public int getNumPlatforms() {
+        return 1;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.api.enums.TornadoExecutionStatus;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
+
+/**
+ * Event of the JVM device. All commands of the JVM device are synchronous,
+ * therefore, events are always complete when they are created.
+ */
+public class JVMEvent implements Event {
+
+    private final String name;
+    private final long submitTime;
+    private final long startTime;
+    private final long endTime;
+
+    JVMEvent(String name, long submitTime, long startTime, long endTime) {
+        this.name = name;
+        this.submitTime = submitTime;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    @Override
+    public long getStartTime() {
+        return startTime;
+    }
+
+    @Override
+    public long getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public long getExecutionTime() {
+        return endTime - startTime;
+    }
+
+    @Override
+    public double getExecutionTimeInSeconds() {
+        return RuntimeUtilities.elapsedTimeInSeconds(startTime, endTime);
+    }
+
+    @Override
+    public TornadoExecutionStatus getStatus() {
+        return TornadoExecutionStatus.COMPLETE;
+    }
+
+    @Override
+    public double getTotalTimeInSeconds() {
+        return RuntimeUtilities.elapsedTimeInSeconds(submitTime, endTime);
+    }
+
+    @Override
+    public void waitOn() {
+    }
+
+    @Override
+    public void waitForEvents() {
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[JVM Event] %s: start=%d, end=%d, status=%s", name, startTime, endTime, getStatus());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.CallStack;
+import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Installed code of the JVM device. Tasks with a {@code @Parallel} loop that
+ * can be split run on the thread pool of the device. Otherwise, the task runs
+ * sequentially in the calling thread.
+ */
+public class JVMInstalledCode implements TornadoInstalledCode {
+
+    private final JVMDeviceContext deviceContext;
+    private final JVMParallelCode code;
+
+    JVMInstalledCode(JVMDeviceContext deviceContext, JVMParallelCode code) {
+        this.deviceContext = deviceContext;
+        this.code = code;
+    }
+
+    private void invokeSequential(Object[] args) {
+        final Method method = code.getMethod();
+        try {
+            if (Modifier.isStatic(method.getModifiers())) {
+                method.invoke(null, args);
+            } else {
+                method.invoke(args[0], Arrays.copyOfRange(args, 1, args.length));
+            }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new TornadoRuntimeException(e);
+        }
+    }
+
+    @Override
+    public int launchWithDependencies(CallStack stack, TaskMetaData meta, long batchThreads, int[] waitEvents, int queueIndex) {
+        // All previous commands of the JVM device are already complete
+        return launchWithoutDependencies(stack, meta, batchThreads);
+    }
+
+    @Override
+    public int launchWithoutDependencies(CallStack stack, TaskMetaData meta, long batchThreads) {
+        final Object[] args = ((JVMCallStack) stack).getArguments();
+        final long start = System.nanoTime();
+        final String kind;
+        if (code.isParallel()) {
+            code.execute(args, deviceContext.getPool());
+            kind = "kernel - parallel";
+        } else {
+            invokeSequential(args);
+            kind = "kernel - serial";
+        }
+        final int event = deviceContext.registerEvent(kind, start, start, System.nanoTime());
+        if (meta != null && meta.isDebug()) {
+            System.out.printf("task info: %s\n", meta.getId());
+            System.out.printf("\tdevice            : %s\n", meta.getDevice().getDescription());
+            System.out.printf("\tthreads           : %d\n", code.isParallel() ? deviceContext.getNumThreads() : 1);
+        }
+        return event;
+    }
+}
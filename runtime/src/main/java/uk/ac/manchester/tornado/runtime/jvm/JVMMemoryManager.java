@@ -0,0 +1,111 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.api.mm.TornadoMemoryProvider;
+
+/**
+ * Accounting of the memory used by the JVM device. Device buffers are Java
+ * arrays allocated in the Java heap, so the heap size is bounded by the
+ * maximum heap of the JVM.
+ */
+public class JVMMemoryManager implements TornadoMemoryProvider {
+
+    private final long heapSize;
+    private final AtomicLong heapAllocated;
+
+    JVMMemoryManager(long heapSize) {
+        this.heapSize = heapSize;
+        this.heapAllocated = new AtomicLong();
+    }
+
+    void allocate(long bytes) throws TornadoOutOfMemoryException {
+        if (heapAllocated.addAndGet(bytes) > heapSize) {
+            heapAllocated.addAndGet(-bytes);
+            throw new TornadoOutOfMemoryException("[ERROR] Out of memory in the JVM device: " + bytes + " bytes requested, " + getHeapRemaining() + " bytes available");
+        }
+    }
+
+    void free(long bytes) {
+        // Buffers allocated before a reset are not accounted anymore
+        heapAllocated.updateAndGet(allocated -> Math.max(0, allocated - bytes));
+    }
+
+    void reset() {
+        heapAllocated.set(0);
+    }
+
+    @Override
+    public long getCallStackSize() {
+        return 0;
+    }
+
+    @Override
+    public long getCallStackAllocated() {
+        return 0;
+    }
+
+    @Override
+    public long getCallStackRemaining() {
+        return 0;
+    }
+
+    @Override
+    public long getHeapSize() {
+        return heapSize;
+    }
+
+    @Override
+    public long getHeapRemaining() {
+        return heapSize - heapAllocated.get();
+    }
+
+    @Override
+    public long getHeapAllocated() {
+        return heapAllocated.get();
+    }
+
+    @Override
+    public long getHeapLargestFreeBlock() {
+        return getHeapRemaining();
+    }
+
+    @Override
+    public int getHeapFreeBlocks() {
+        return 1;
+    }
+
+    @Override
+    public double getHeapFragmentation() {
+        return 0;
+    }
+
+    @Override
+    public boolean isInitialised() {
+        return true;
+    }
+}
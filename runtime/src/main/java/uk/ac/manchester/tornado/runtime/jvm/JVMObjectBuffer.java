@@ -0,0 +1,210 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
+
+/**
+ * Device buffer of the JVM device.
+ *
+ * One-dimensional arrays of primitive types are copied into a separate Java
+ * array, so the host copy and the device copy are only synchronised by the
+ * copy-in and copy-out operations, as with any other device. Any other object
+ * is shared with the host.
+ */
+public class JVMObjectBuffer implements ObjectBuffer {
+
+    private final JVMDeviceContext deviceContext;
+    private Object deviceObject;
+    private long bytesAllocated;
+    private boolean valid;
+
+    JVMObjectBuffer(JVMDeviceContext deviceContext) {
+        this.deviceContext = deviceContext;
+    }
+
+    private static boolean isCopiedToDevice(Object reference) {
+        return reference.getClass().isArray() && reference.getClass().getComponentType().isPrimitive();
+    }
+
+    private static int sizeOfElement(Class<?> type) {
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        } else if (type == char.class || type == short.class) {
+            return 2;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        }
+        return 8;
+    }
+
+    /**
+     * It returns the object that represents the buffer in the JVM device.
+     */
+    public Object getDeviceObject() {
+        return deviceObject;
+    }
+
+    @Override
+    public void allocate(Object reference, long batchSize) throws TornadoOutOfMemoryException, TornadoMemoryException {
+        if (!isCopiedToDevice(reference)) {
+            deviceObject = reference;
+            valid = true;
+            return;
+        }
+
+        final Class<?> componentType = reference.getClass().getComponentType();
+        final int elementSize = sizeOfElement(componentType);
+        final int numElements = (batchSize > 0) ? (int) (batchSize / elementSize) : Array.getLength(reference);
+        if (numElements <= 0) {
+            throw new TornadoMemoryException("[ERROR] Bytes Allocated <= 0: " + batchSize);
+        }
+
+        if (deviceObject == null || Array.getLength(deviceObject) != numElements) {
+            deallocate();
+            final long bytes = (long) numElements * elementSize;
+            deviceContext.getMemoryManager().allocate(bytes);
+            deviceObject = Array.newInstance(componentType, numElements);
+            bytesAllocated = bytes;
+        }
+        valid = true;
+    }
+
+    @Override
+    public void deallocate() {
+        if (bytesAllocated > 0) {
+            deviceContext.getMemoryManager().free(bytesAllocated);
+            bytesAllocated = 0;
+        }
+        deviceObject = null;
+        valid = false;
+    }
+
+    private int copy(Object source, int sourcePosition, Object destination, int destinationPosition) {
+        int length = Math.min(Array.getLength(source) - sourcePosition, Array.getLength(destination) - destinationPosition);
+        if (length > 0) {
+            System.arraycopy(source, sourcePosition, destination, destinationPosition, length);
+        }
+        return Math.max(length, 0);
+    }
+
+    private int hostOffsetToIndex(Object reference, long hostOffset) {
+        return (int) (hostOffset / sizeOfElement(reference.getClass().getComponentType()));
+    }
+
+    private int copyToDevice(Object reference, long hostOffset) {
+        final long submit = System.nanoTime();
+        if (deviceObject != reference) {
+            copy(reference, hostOffsetToIndex(reference, hostOffset), deviceObject, 0);
+        }
+        return deviceContext.registerEvent("writeToDevice - " + reference.getClass().getSimpleName(), submit, submit, System.nanoTime());
+    }
+
+    private int copyFromDevice(Object reference, long hostOffset) {
+        final long submit = System.nanoTime();
+        if (deviceObject != reference) {
+            copy(deviceObject, 0, reference, hostOffsetToIndex(reference, hostOffset));
+        }
+        return deviceContext.registerEvent("readFromDevice - " + reference.getClass().getSimpleName(), submit, submit, System.nanoTime());
+    }
+
+    @Override
+    public long toBuffer() {
+        return 0;
+    }
+
+    @Override
+    public long getBufferOffset() {
+        return 0;
+    }
+
+    @Override
+    public long toAbsoluteAddress() {
+        return 0;
+    }
+
+    @Override
+    public long toRelativeAddress() {
+        return 0;
+    }
+
+    @Override
+    public void read(Object reference) {
+        copyFromDevice(reference, 0);
+    }
+
+    @Override
+    public int read(Object reference, long hostOffset, int[] events, boolean useDeps) {
+        return copyFromDevice(reference, hostOffset);
+    }
+
+    @Override
+    public void write(Object reference) {
+        copyToDevice(reference, 0);
+    }
+
+    @Override
+    public int enqueueRead(Object reference, long hostOffset, int[] events, boolean useDeps) {
+        return copyFromDevice(reference, hostOffset);
+    }
+
+    @Override
+    public List<Integer> enqueueWrite(Object reference, long batchSize, long hostOffset, int[] events, boolean useDeps) {
+        ArrayList<Integer> listEvents = new ArrayList<>();
+        listEvents.add(copyToDevice(reference, hostOffset));
+        return listEvents;
+    }
+
+    @Override
+    public int getAlignment() {
+        return 8;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public void invalidate() {
+        valid = false;
+    }
+
+    @Override
+    public void printHeapTrace() {
+        System.out.printf("buffer<%s> %s\n", deviceObject == null ? "null" : deviceObject.getClass().getSimpleName(), RuntimeUtilities.humanReadableByteCount(bytesAllocated, true));
+    }
+
+    @Override
+    public long size() {
+        return bytesAllocated;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+import jdk.vm.ci.code.InstalledCode;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.analyzer.CodeAnalysis;
+import uk.ac.manchester.tornado.runtime.analyzer.ParallelCodeAnalysis;
+import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis;
+import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis.REDUCE_OPERATION;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
+
+/**
+ * Host code of a task that runs with multiple Java threads.
+ *
+ * The outermost {@code @Parallel} loop of the method is split into as many
+ * contiguous ranges as partitions, and a version of the method for each range
+ * is compiled with Graal for the host. Variables annotated with
+ * {@code @Reduce} are privatised per partition and combined after all
+ * partitions finish. Methods that cannot be split are not compiled and
+ * {@link #isParallel()} returns false.
+ */
+public class JVMParallelCode {
+
+    private static final List<String> SUPPORTED_REDUCE_TYPES = Arrays.asList("[I", "[J", "[F", "[D");
+
+    private final Method method;
+    private final InstalledCode[] partitions;
+    private final int[] reduceIndices;
+    private final REDUCE_OPERATION[] operations;
+
+    private JVMParallelCode(Method method, InstalledCode[] partitions, int[] reduceIndices, REDUCE_OPERATION[] operations) {
+        this.method = method;
+        this.partitions = partitions;
+        this.reduceIndices = reduceIndices;
+        this.operations = operations;
+    }
+
+    /**
+     * It compiles one version of the input method per partition.
+     *
+     * @param method
+     *            Java method of the task
+     * @param numPartitions
+     *            number of ranges in which the parallel loop is split
+     * @return {@link JVMParallelCode}
+     */
+    public static JVMParallelCode compile(Method method, int numPartitions) {
+        final JVMParallelCode sequential = new JVMParallelCode(method, null, null, null);
+        if (numPartitions <= 1) {
+            return sequential;
+        }
+        try {
+            StructuredGraph graph = CodeAnalysis.buildHighLevelGraalGraph(method);
+            if (graph == null || !graph.method().isStatic() || !ParallelCodeAnalysis.hasPartitionableParallelLoop(graph)) {
+                return sequential;
+            }
+
+            ArrayList<Integer> reduceIndices = getReduceIndices(graph);
+            for (int index : reduceIndices) {
+                if (!SUPPORTED_REDUCE_TYPES.contains(graph.method().getSignature().getParameterType(index, null).getName())) {
+                    return sequential;
+                }
+            }
+            REDUCE_OPERATION[] operations = new REDUCE_OPERATION[reduceIndices.size()];
+            if (!reduceIndices.isEmpty()) {
+                ArrayList<REDUCE_OPERATION> reduceOperations = ReduceCodeAnalysis.getReduceOperation(graph, reduceIndices);
+                if (reduceOperations.size() != reduceIndices.size()) {
+                    return sequential;
+                }
+                reduceOperations.toArray(operations);
+            }
+
+            InstalledCode[] partitions = new InstalledCode[numPartitions];
+            for (int i = 0; i < numPartitions; i++) {
+                StructuredGraph partitionGraph = (StructuredGraph) graph.copy(getDebugContext());
+                if (!ParallelCodeAnalysis.performLoopPartitionSubstitution(partitionGraph, i, numPartitions)) {
+                    return sequential;
+                }
+                partitions[i] = CodeAnalysis.compileAndInstallMethod(partitionGraph);
+            }
+            return new JVMParallelCode(method, partitions, reduceIndices.stream().mapToInt(Integer::intValue).toArray(), operations);
+        } catch (Throwable e) {
+            if (Tornado.DEBUG) {
+                e.printStackTrace();
+            }
+            return sequential;
+        }
+    }
+
+    private static ArrayList<Integer> getReduceIndices(StructuredGraph graph) {
+        Annotation[][] annotations = graph.method().getParameterAnnotations();
+        ArrayList<Integer> reduceIndices = new ArrayList<>();
+        for (int paramIndex = 0; paramIndex < annotations.length; paramIndex++) {
+            for (Annotation annotation : annotations[paramIndex]) {
+                if (annotation instanceof Reduce) {
+                    reduceIndices.add(paramIndex);
+                }
+            }
+        }
+        return reduceIndices;
+    }
+
+    public boolean isParallel() {
+        return partitions != null;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * It runs all partitions in the input pool and waits for them to finish.
+     *
+     * @param args
+     *            Arguments of the method
+     * @param pool
+     *            Thread pool
+     */
+    public void execute(Object[] args, ForkJoinPool pool) {
+        if (!isParallel()) {
+            throw new TornadoRuntimeException("[ERROR] Method " + method.getName() + " cannot be executed with multiple Java threads");
+        }
+        final int numPartitions = partitions.length;
+        final Object[][] privateReductions = new Object[numPartitions][];
+        final List<Callable<Object>> tasks = new ArrayList<>(numPartitions);
+
+        for (int i = 0; i < numPartitions; i++) {
+            final Object[] partitionArgs = Arrays.copyOf(args, args.length);
+            privateReductions[i] = new Object[reduceIndices.length];
+            for (int r = 0; r < reduceIndices.length; r++) {
+                int argIndex = reduceIndices[r];
+                Object privateCopy = createIdentityCopy(partitionArgs[argIndex], operations[r]);
+                privateReductions[i][r] = privateCopy;
+                partitionArgs[argIndex] = privateCopy;
+            }
+            final InstalledCode code = partitions[i];
+            tasks.add(() -> code.executeVarargs(partitionArgs));
+        }
+
+        for (Future<Object> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new TornadoRuntimeException("[ERROR] Parallel execution of " + method.getName() + " in the JVM failed: " + e.getMessage());
+            }
+        }
+
+        for (int r = 0; r < reduceIndices.length; r++) {
+            Object result = args[reduceIndices[r]];
+            for (int i = 0; i < numPartitions; i++) {
+                combine(result, privateReductions[i][r], operations[r]);
+            }
+        }
+    }
+
+    private static Object createIdentityCopy(Object array, REDUCE_OPERATION operation) {
+        if (array instanceof int[]) {
+            int[] copy = new int[((int[]) array).length];
+            Arrays.fill(copy, operation == REDUCE_OPERATION.ADD ? 0 : operation == REDUCE_OPERATION.MUL ? 1 : operation == REDUCE_OPERATION.MIN ? Integer.MAX_VALUE : Integer.MIN_VALUE);
+            return copy;
+        } else if (array instanceof long[]) {
+            long[] copy = new long[((long[]) array).length];
+            Arrays.fill(copy, operation == REDUCE_OPERATION.ADD ? 0L : operation == REDUCE_OPERATION.MUL ? 1L : operation == REDUCE_OPERATION.MIN ? Long.MAX_VALUE : Long.MIN_VALUE);
+            return copy;
+        } else if (array instanceof float[]) {
+            float[] copy = new float[((float[]) array).length];
+            Arrays.fill(copy, operation == REDUCE_OPERATION.ADD ? 0.0f : operation == REDUCE_OPERATION.MUL ? 1.0f : operation == REDUCE_OPERATION.MIN ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY);
+            return copy;
+        } else if (array instanceof double[]) {
+            double[] copy = new double[((double[]) array).length];
+            Arrays.fill(copy, operation == REDUCE_OPERATION.ADD ? 0.0 : operation == REDUCE_OPERATION.MUL ? 1.0 : operation == REDUCE_OPERATION.MIN ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY);
+            return copy;
+        }
+        throw new TornadoRuntimeException("[ERROR] Reduction type not supported in the JVM fallback: " + array.getClass().getName());
+    }
+
+    private static void combine(Object result, Object partial, REDUCE_OPERATION operation) {
+        if (result instanceof int[]) {
+            int[] a = (int[]) result;
+            int[] b = (int[]) partial;
+            for (int i = 0; i < a.length; i++) {
+                a[i] = operation == REDUCE_OPERATION.ADD ? a[i] + b[i] : operation == REDUCE_OPERATION.MUL ? a[i] * b[i] : operation == REDUCE_OPERATION.MIN ? Math.min(a[i], b[i]) : Math.max(a[i], b[i]);
+            }
+        } else if (result instanceof long[]) {
+            long[] a = (long[]) result;
+            long[] b = (long[]) partial;
+            for (int i = 0; i < a.length; i++) {
+                a[i] = operation == REDUCE_OPERATION.ADD ? a[i] + b[i] : operation == REDUCE_OPERATION.MUL ? a[i] * b[i] : operation == REDUCE_OPERATION.MIN ? Math.min(a[i], b[i]) : Math.max(a[i], b[i]);
+            }
+        } else if (result instanceof float[]) {
+            float[] a = (float[]) result;
+            float[] b = (float[]) partial;
+            for (int i = 0; i < a.length; i++) {
+                a[i] = operation == REDUCE_OPERATION.ADD ? a[i] + b[i] : operation == REDUCE_OPERATION.MUL ? a[i] * b[i] : operation == REDUCE_OPERATION.MIN ? Math.min(a[i], b[i]) : Math.max(a[i], b[i]);
+            }
+        } else if (result instanceof double[]) {
+            double[] a = (double[]) result;
+            double[] b = (double[]) partial;
+            for (int i = 0; i < a.length; i++) {
+                a[i] = operation == REDUCE_OPERATION.ADD ? a[i] + b[i] : operation == REDUCE_OPERATION.MUL ? a[i] * b[i] : operation == REDUCE_OPERATION.MIN ? Math.min(a[i], b[i]) : Math.max(a[i], b[i]);
+            }
+        }
+    }
+}
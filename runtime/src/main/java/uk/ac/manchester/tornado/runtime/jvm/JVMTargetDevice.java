@@ -0,0 +1,87 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+
+/**
+ * Description of the host in which the JVM device runs.
+ */
+public class JVMTargetDevice implements TornadoTargetDevice {
+
+    private final String name;
+    private final int numThreads;
+    private final long heapSize;
+
+    JVMTargetDevice(int numThreads, long heapSize) {
+        this.name = System.getProperty("java.vm.name") + " " + System.getProperty("java.version");
+        this.numThreads = numThreads;
+        this.heapSize = heapSize;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return name;
+    }
+
+    @Override
+    public long getDeviceGlobalMemorySize() {
+        return heapSize;
+    }
+
+    @Override
+    public long getDeviceLocalMemorySize() {
+        return 0;
+    }
+
+    @Override
+    public int getDeviceMaxComputeUnits() {
+        return numThreads;
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkItemSizes() {
+        return new long[] { Integer.MAX_VALUE, 1, 1 };
+    }
+
+    @Override
+    public int getDeviceMaxClockFrequency() {
+        return 0;
+    }
+
+    @Override
+    public long getDeviceMaxConstantBufferSize() {
+        return heapSize;
+    }
+
+    @Override
+    public long getDeviceMaxAllocationSize() {
+        return heapSize;
+    }
+
+    @Override
+    public Object getDeviceInfo() {
+        return String.format("%s, %d threads, heap %d bytes", name, numThreads, heapSize);
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.jvm;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.mm.TornadoDeviceObjectState;
+import uk.ac.manchester.tornado.api.mm.TornadoMemoryProvider;
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.CallStack;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
+import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+
+/**
+ * Tornado device that runs the tasks in the JVM using a pool of Java threads.
+ * It does not need any native library, so task-schedules can be executed and
+ * tested on machines without an OpenCL platform.
+ */
+public class JVMTornadoDevice implements TornadoAcceleratorDevice {
+
+    private final JVMDeviceContext deviceContext;
+    private final JVMTargetDevice device;
+
+    JVMTornadoDevice(int numThreads, long heapSize) {
+        this.deviceContext = new JVMDeviceContext(numThreads, heapSize);
+        this.device = new JVMTargetDevice(numThreads, heapSize);
+    }
+
+    @Override
+    public TornadoSchedulingStrategy getPreferredSchedule() {
+        return TornadoSchedulingStrategy.PER_BLOCK;
+    }
+
+    @Override
+    public CallStack createStack(int numArgs) {
+        return new JVMCallStack(numArgs);
+    }
+
+    @Override
+    public TornadoInstalledCode installCode(SchedulableTask task) {
+        if (!(task instanceof CompilableTask)) {
+            throw new TornadoBailoutRuntimeException("[ERROR] Task " + task.getFullName() + " is not supported by the JVM device");
+        }
+        final CompilableTask executable = (CompilableTask) task;
+        final Method method = executable.getMethod();
+
+        // Return the code from the cache
+        if (!task.shouldCompile() && deviceContext.isCached(task.getId(), method.getName())) {
+            return deviceContext.getInstalledCode(task.getId(), method.getName());
+        }
+
+        // copy meta data into task
+        final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method);
+        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod);
+        final Access[] sketchAccess = sketch.getMeta().getArgumentsAccess();
+        final Access[] taskAccess = executable.meta().getArgumentsAccess();
+        System.arraycopy(sketchAccess, 0, taskAccess, 0, sketchAccess.length);
+
+        TornadoProfiler profiler = task.getProfiler();
+        profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, task.getId());
+        final JVMInstalledCode installedCode = new JVMInstalledCode(deviceContext, JVMParallelCode.compile(method, deviceContext.getNumThreads()));
+        profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, task.getId());
+        profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, task.getId()));
+
+        deviceContext.installCode(task.getId(), method.getName(), installedCode);
+        return installedCode;
+    }
+
+    @Override
+    public boolean isFullJITMode(SchedulableTask task) {
+        return false;
+    }
+
+    @Override
+    public TornadoInstalledCode getCodeFromCache(SchedulableTask task) {
+        return deviceContext.getInstalledCode(task.getId(), task.getTaskName());
+    }
+
+    private void reserveMemory(Object object, long batchSize, TornadoDeviceObjectState state) {
+        final JVMObjectBuffer buffer = new JVMObjectBuffer(deviceContext);
+        buffer.allocate(object, batchSize);
+        state.setBuffer(buffer);
+        state.setValid(true);
+    }
+
+    private void reAllocateBuffer(Object object, long batchSize, TornadoDeviceObjectState state) {
+        state.getBuffer().allocate(object, batchSize);
+        state.setValid(true);
+    }
+
+    @Override
+    public int ensureAllocated(Object object, long batchSize, TornadoDeviceObjectState state) {
+        if (!state.hasBuffer()) {
+            reserveMemory(object, batchSize, state);
+        } else {
+            reAllocateBuffer(object, batchSize, state);
+        }
+        return -1;
+    }
+
+    @Override
+    public List<Integer> ensurePresent(Object object, TornadoDeviceObjectState state, int[] events, long batchSize, long hostOffset) {
+        if (!state.isValid()) {
+            ensureAllocated(object, batchSize, state);
+        }
+        if (!state.hasContents()) {
+            state.setContents(true);
+            return state.getBuffer().enqueueWrite(object, batchSize, hostOffset, events, events == null);
+        }
+        return null;
+    }
+
+    @Override
+    public List<Integer> streamIn(Object object, long batchSize, long hostOffset, TornadoDeviceObjectState state, int[] events) {
+        if (batchSize > 0 || !state.isValid()) {
+            ensureAllocated(object, batchSize, state);
+        }
+        state.setContents(true);
+        return state.getBuffer().enqueueWrite(object, batchSize, hostOffset, events, events == null);
+    }
+
+    @Override
+    public int streamOut(Object object, long hostOffset, TornadoDeviceObjectState state, int[] events) {
+        TornadoInternalError.guarantee(state.isValid(), "invalid variable");
+        return state.getBuffer().enqueueRead(object, hostOffset, events, events == null);
+    }
+
+    @Override
+    public int streamOutBlocking(Object object, long hostOffset, TornadoDeviceObjectState state, int[] events) {
+        TornadoInternalError.guarantee(state.isValid(), "invalid variable");
+        return state.getBuffer().read(object, hostOffset, events, events == null);
+    }
+
+    @Override
+    public Event resolveEvent(int event) {
+        return deviceContext.resolveEvent(event);
+    }
+
+    @Override
+    public void ensureLoaded() {
+    }
+
+    @Override
+    public void flushEvents() {
+        deviceContext.flushEvents();
+    }
+
+    @Override
+    public int enqueueBarrier() {
+        final long time = System.nanoTime();
+        return deviceContext.registerEvent("sync - barrier", time, time, time);
+    }
+
+    @Override
+    public int enqueueBarrier(int[] events) {
+        return enqueueBarrier();
+    }
+
+    @Override
+    public int enqueueMarker() {
+        final long time = System.nanoTime();
+        return deviceContext.registerEvent("sync - marker", time, time, time);
+    }
+
+    @Override
+    public int enqueueMarker(int[] events) {
+        return enqueueMarker();
+    }
+
+    @Override
+    public void sync() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void useTransferQueues(boolean enable) {
+    }
+
+    @Override
+    public void reset() {
+        deviceContext.reset();
+    }
+
+    @Override
+    public void dumpEvents() {
+        deviceContext.dumpEvents(getDeviceName());
+    }
+
+    @Override
+    public void dumpMemory(String file) {
+        TornadoInternalError.unimplemented("The JVM device does not have a contiguous heap to dump");
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "jvm-0";
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("%s JVM (%d threads)", device.getDeviceName(), deviceContext.getNumThreads());
+    }
+
+    @Override
+    public String getPlatformName() {
+        return "Java Virtual Machine";
+    }
+
+    @Override
+    public JVMDeviceContext getDeviceContext() {
+        return deviceContext;
+    }
+
+    @Override
+    public JVMTargetDevice getDevice() {
+        return device;
+    }
+
+    @Override
+    public TornadoMemoryProvider getMemoryProvider() {
+        return deviceContext.getMemoryManager();
+    }
+
+    @Override
+    public TornadoDeviceType getDeviceType() {
+        return TornadoDeviceType.CPU;
+    }
+
+    @Override
+    public long getMaxAllocMemory() {
+        return device.getDeviceMaxAllocationSize();
+    }
+
+    @Override
+    public long getMaxGlobalMemory() {
+        return device.getDeviceGlobalMemorySize();
+    }
+
+    @Override
+    public long getDeviceLocalMemorySize() {
+        return device.getDeviceLocalMemorySize();
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkgroupDimensions() {
+        return device.getDeviceMaxWorkItemSizes();
+    }
+
+    @Override
+    public boolean isDistibutedMemory() {
+        return true;
+    }
+
+    @Override
+    public String getDeviceOpenCLCVersion() {
+        return "N/A";
+    }
+
+    @Override
+    public Object getDeviceInfo() {
+        return device.getDeviceInfo();
+    }
+
+    @Override
+    public String toString() {
+        return getPlatformName() + " -- " + device.getDeviceName();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.profiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
+
+/**
+ * Events of the transfers and kernels of a task-schedule whose times have not
+ * been added to the profiler yet. The events are recorded while the
+ * TornadoVM enqueues the commands, and their times are read in bulk once the
+ * commands are submitted, so profiling does not serialise the execution.
+ */
+public class ProfilerEvents {
+
+    /**
+     * Maximum number of pending events. Device events are recycled after a
+     * while, so the times are read before the window is exhausted.
+     */
+    public static final int MAX_PENDING_EVENTS = 128;
+
+    /**
+     * Prefix of the timers of each chunk of a pipelined batch.
+     */
+    public static final String BATCH_CHUNK_PREFIX = "batch-chunk-";
+
+    private final List<Event> events;
+    private final List<ProfilerType> types;
+    private final List<String> taskIds;
+    private final List<ProfilerType> taskTypes;
+
+    public ProfilerEvents() {
+        events = new ArrayList<>();
+        types = new ArrayList<>();
+        taskIds = new ArrayList<>();
+        taskTypes = new ArrayList<>();
+    }
+
+    /**
+     * It records the event of a data transfer.
+     *
+     * @param type
+     *            {@link ProfilerType#COPY_IN_TIME} or
+     *            {@link ProfilerType#COPY_OUT_TIME}.
+     * @param event
+     *            {@link Event} of the transfer.
+     */
+    public void add(ProfilerType type, Event event) {
+        events.add(event);
+        types.add(type);
+        taskIds.add(null);
+        taskTypes.add(null);
+    }
+
+    /**
+     * It records the event of a kernel. Its time is added to
+     * {@link ProfilerType#TOTAL_KERNEL_TIME} and to the kernel time of the task.
+     */
+    public void addKernel(String taskId, Event event) {
+        events.add(event);
+        types.add(ProfilerType.TOTAL_KERNEL_TIME);
+        taskIds.add(taskId);
+        taskTypes.add(ProfilerType.TASK_KERNEL_TIME);
+    }
+
+    /**
+     * It records the event of one stage of a chunk of a pipelined batch. Its
+     * time is only added to the timer of the chunk, named
+     * {@link #BATCH_CHUNK_PREFIX} followed by the chunk index, so the totals of
+     * the task-schedule are not counted twice.
+     *
+     * @param chunk
+     *            Index of the chunk in the batch.
+     * @param type
+     *            {@link ProfilerType#COPY_IN_TIME},
+     *            {@link ProfilerType#TASK_KERNEL_TIME} or
+     *            {@link ProfilerType#COPY_OUT_TIME}.
+     * @param event
+     *            {@link Event} of the stage.
+     */
+    public void addBatchStage(long chunk, ProfilerType type, Event event) {
+        events.add(event);
+        types.add(null);
+        taskIds.add(BATCH_CHUNK_PREFIX + chunk);
+        taskTypes.add(type);
+    }
+
+    public boolean isFull() {
+        return events.size() >= MAX_PENDING_EVENTS;
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    /**
+     * It waits for the pending events and adds their times to the profiler.
+     */
+    public void resolve(TornadoProfiler profiler) {
+        for (int i = 0; i < events.size(); i++) {
+            final Event event = events.get(i);
+            event.waitForEvents();
+            final long time = event.getExecutionTime();
+            final String taskId = taskIds.get(i);
+            if (types.get(i) != null) {
+                profiler.sum(types.get(i), time);
+                if (taskId != null) {
+                    profiler.setTaskTimer(taskTypes.get(i), taskId, time);
+                }
+            } else {
+                // A chunk has several transfers of the same kind
+                profiler.setTaskTimer(taskTypes.get(i), taskId, profiler.getTaskTimer(taskTypes.get(i), taskId) + time);
+            }
+        }
+        clear();
+    }
+
+    public void clear() {
+        events.clear();
+        types.clear();
+        taskIds.clear();
+        taskTypes.clear();
+    }
+}
@@ -23,21 +23,22 @@
  */
 package uk.ac.manchester.tornado.runtime.profiler;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 
 public class TimeProfiler implements TornadoProfiler {
 
-    private HashMap<ProfilerType, Long> profilerTime;
-    private HashMap<String, HashMap<ProfilerType, Long>> taskTimers;
+    private ConcurrentHashMap<ProfilerType, Long> profilerTime;
+    private ConcurrentHashMap<String, Map<ProfilerType, Long>> taskTimers;
 
     private StringBuffer indent;
 
     public TimeProfiler() {
-        profilerTime = new HashMap<>();
-        taskTimers = new HashMap<>();
+        profilerTime = new ConcurrentHashMap<>();
+        taskTimers = new ConcurrentHashMap<>();
         indent = new StringBuffer("");
     }
 
@@ -50,12 +51,7 @@ public class TimeProfiler implements TornadoProfiler {
     @Override
     public void start(ProfilerType type, String taskName) {
         long start = System.nanoTime();
-        if (!taskTimers.containsKey(taskName)) {
-            taskTimers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, Long> profilerType = taskTimers.get(taskName);
-        profilerType.put(type, start);
-        taskTimers.put(taskName, profilerType);
+        taskTimers.computeIfAbsent(taskName, name -> new ConcurrentHashMap<>()).put(type, start);
     }
 
     @Override
@@ -69,11 +65,10 @@ public class TimeProfiler implements TornadoProfiler {
     @Override
     public void stop(ProfilerType type, String taskName) {
         long end = System.nanoTime();
-        HashMap<ProfilerType, Long> profiledType = taskTimers.get(taskName);
+        Map<ProfilerType, Long> profiledType = taskTimers.get(taskName);
         long start = profiledType.get(type);
         long total = end - start;
         profiledType.put(type, total);
-        taskTimers.put(taskName, profiledType);
     }
 
     @Override
@@ -129,7 +124,7 @@ public class TimeProfiler implements TornadoProfiler {
     }
 
     @Override
-    public String createJson(StringBuffer json, String sectionName) {
+    public synchronized String createJson(StringBuffer json, String sectionName) {
         json.append("{\n");
         increaseIndent();
         json.append(indent.toString() + "\"" + sectionName + "\": " + "{\n");
@@ -171,7 +166,7 @@ public class TimeProfiler implements TornadoProfiler {
     }
 
     @Override
-    public void clean() {
+    public synchronized void clean() {
         profilerTime.clear();
         taskTimers.clear();
         indent = new StringBuffer("");
@@ -179,16 +174,12 @@ public class TimeProfiler implements TornadoProfiler {
 
     @Override
     public void setTaskTimer(ProfilerType type, String taskID, long timer) {
-        if (!taskTimers.containsKey(taskID)) {
-            taskTimers.put(taskID, new HashMap<>());
-        }
-        taskTimers.get(taskID).put(type, timer);
+        taskTimers.computeIfAbsent(taskID, name -> new ConcurrentHashMap<>()).put(type, timer);
     }
 
     @Override
     public void sum(ProfilerType acc, long value) {
-        long sum = getTimer(acc) + value;
-        profilerTime.put(acc, sum);
+        profilerTime.merge(acc, value, Long::sum);
     }
 
 }
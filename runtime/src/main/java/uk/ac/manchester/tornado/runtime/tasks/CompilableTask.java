@@ -32,6 +32,7 @@ import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
@@ -48,6 +49,7 @@ public class CompilableTask implements SchedulableTask {
 
     private TornadoProfiler profiler;
     private boolean forceCompiler;
+    private String sharedCodeCacheId;
 
     public CompilableTask(ScheduleMetaData meta, String id, Method method, Object... args) {
         this.method = method;
@@ -114,6 +116,54 @@ public class CompilableTask implements SchedulableTask {
         return meta.getId();
     }
 
+    /**
+     * @return the name under which the code of the task is installed in the code
+     *         cache of the device.
+     */
+    public String getCodeCacheId() {
+        return (sharedCodeCacheId != null) ? sharedCodeCacheId : getId();
+    }
+
+    /**
+     * It installs the code of this task under the code cache name of
+     * {@code task}, or under its own name if {@code task} is null. The code of
+     * tasks with the same name is compiled once per device.
+     */
+    public void shareCodeWith(CompilableTask task) {
+        sharedCodeCacheId = (task == null) ? null : task.getCodeCacheId();
+    }
+
+    /**
+     * It checks if {@code task} is compiled to the same code as this task: both
+     * run the same method with the same batch size and the same arguments, and
+     * the per-task options, such as the device, the compiler flags and the work
+     * sizes, are the same. Scalar arguments are compared by value, since the
+     * compiler specialises the code for them, and the rest of the arguments by
+     * reference.
+     */
+    public boolean hasSameCode(CompilableTask task) {
+        if (getClass() != CompilableTask.class || task.getClass() != CompilableTask.class) {
+            return false;
+        }
+        if (!method.equals(task.method) || batchNumThreads != task.batchNumThreads || meta.isGridDefined() || task.meta.isGridDefined()) {
+            return false;
+        }
+        if (!meta.hasSameCompilationParameters(task.meta)) {
+            return false;
+        }
+        if (resolvedArgs.length != task.resolvedArgs.length) {
+            return false;
+        }
+        for (int i = 0; i < resolvedArgs.length; i++) {
+            final Object arg = resolvedArgs[i];
+            final Object other = task.resolvedArgs[i];
+            if (arg != other && (arg == null || !RuntimeUtilities.isBoxedPrimitiveClass(arg.getClass()) || !arg.equals(other))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof CompilableTask) {
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import org.graalvm.compiler.graph.CachedGraph;
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Task that runs a producer task and its consumer in a single kernel. It is
+ * built by the TornadoVM graph compiler when task fusion is enabled, and it
+ * takes the place of the consumer in the task-schedule. The arguments of the
+ * consumer come first, followed by the arguments of the producer that are not
+ * shared with the consumer.
+ */
+public class FusedTask extends CompilableTask {
+
+    private final CompilableTask producer;
+    private final CompilableTask consumer;
+    private final Sketch sketch;
+
+    public FusedTask(CompilableTask producer, CompilableTask consumer, Object[] args, Access[] accesses, StructuredGraph graph) {
+        super(consumer.meta().getScheduleMetaData(), consumer.getId(), consumer.getMethod(), args);
+        this.producer = producer;
+        this.consumer = consumer;
+        this.meta = new TaskMetaData(consumer.meta().getScheduleMetaData(), consumer.getId(), args.length);
+        System.arraycopy(accesses, 0, meta.getArgumentsAccess(), 0, accesses.length);
+        if (consumer.getDevice() != null) {
+            meta.setDevice(consumer.getDevice());
+        }
+        this.sketch = new Sketch(CachedGraph.fromReadonlyCopy(graph), meta);
+    }
+
+    public CompilableTask getProducer() {
+        return producer;
+    }
+
+    /**
+     * @return the consumer task as it was added to the task-schedule.
+     */
+    public CompilableTask getConsumer() {
+        return consumer;
+    }
+
+    /**
+     * The sketch of a fused task is not stored in the sketcher: it is specific
+     * to the pair of tasks and to the arguments they share.
+     */
+    public Sketch getSketch() {
+        return sketch;
+    }
+
+    @Override
+    public String getFullName() {
+        return "task " + meta.getId() + " - " + producer.getTaskName() + "+" + method.getName();
+    }
+
+    /**
+     * The fused kernel has the id and the method of the consumer, so it gets its
+     * own name in the code cache of the device. Otherwise it would replace the
+     * code of the consumer on its own.
+     */
+    @Override
+    public String getCodeCacheId() {
+        return producer.getId() + "+" + consumer.getId();
+    }
+}
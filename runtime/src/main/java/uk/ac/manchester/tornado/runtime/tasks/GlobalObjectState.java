@@ -30,10 +30,36 @@ import uk.ac.manchester.tornado.api.mm.TornadoGlobalObjectState;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 
+import java.lang.ref.Cleaner;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class GlobalObjectState implements TornadoGlobalObjectState {
 
+    /**
+     * Releases the device buffers of an object once its state is unreachable,
+     * which happens when the host object is removed from the object mappings
+     * of the runtime.
+     */
+    private static final Cleaner DEVICE_BUFFERS_CLEANER = Cleaner.create();
+
+    private static class DeviceBuffersRelease implements Runnable {
+
+        private final ConcurrentHashMap<TornadoAcceleratorDevice, DeviceObjectState> deviceStates;
+
+        DeviceBuffersRelease(ConcurrentHashMap<TornadoAcceleratorDevice, DeviceObjectState> deviceStates) {
+            this.deviceStates = deviceStates;
+        }
+
+        @Override
+        public void run() {
+            for (DeviceObjectState deviceState : deviceStates.values()) {
+                if (deviceState.hasBuffer()) {
+                    deviceState.getBuffer().deallocate();
+                }
+            }
+        }
+    }
+
     private boolean shared;
     private boolean exclusive;
 
@@ -46,6 +72,7 @@ public class GlobalObjectState implements TornadoGlobalObjectState {
         exclusive = false;
         owner = null;
         deviceStates = new ConcurrentHashMap<>();
+        DEVICE_BUFFERS_CLEANER.register(this, new DeviceBuffersRelease(deviceStates));
     }
 
     public boolean isShared() {
@@ -68,10 +95,7 @@ public class GlobalObjectState implements TornadoGlobalObjectState {
         if (!(device instanceof TornadoAcceleratorDevice)) {
             throw new RuntimeException("Device not compatible");
         }
-        if (!deviceStates.containsKey(device)) {
-            deviceStates.put((TornadoAcceleratorDevice) device, new DeviceObjectState());
-        }
-        return deviceStates.get(device);
+        return deviceStates.computeIfAbsent((TornadoAcceleratorDevice) device, d -> new DeviceObjectState());
     }
 
     public void setOwner(TornadoDevice device) {
@@ -79,8 +103,40 @@ public class GlobalObjectState implements TornadoGlobalObjectState {
             throw new RuntimeException("Device not compatible");
         }
         owner = (TornadoAcceleratorDevice) device;
-        if (!deviceStates.containsKey(owner)) {
-            deviceStates.put((TornadoAcceleratorDevice) device, new DeviceObjectState());
+        deviceStates.computeIfAbsent(owner, d -> new DeviceObjectState());
+    }
+
+    /**
+     * It marks the copies of the object in all devices, except the given one, as
+     * stale. It is called when a task running on {@code device} writes the
+     * object, so the next read from another device transfers the data again.
+     *
+     * @param device
+     *            Device that holds the up-to-date copy of the object.
+     */
+    public void invalidateCopies(TornadoDevice device) {
+        for (TornadoAcceleratorDevice other : deviceStates.keySet()) {
+            if (other != device) {
+                deviceStates.get(other).setContents(false);
+            }
+        }
+    }
+
+    /**
+     * It records a range of elements of the object modified by the host in the
+     * devices that hold a copy of the object, so the next copy only transfers the
+     * modified ranges.
+     *
+     * @param fromIndex
+     *            First modified element (inclusive).
+     * @param toIndex
+     *            Last modified element (exclusive).
+     */
+    public void addDirtyRange(long fromIndex, long toIndex) {
+        for (DeviceObjectState deviceState : deviceStates.values()) {
+            if (deviceState.hasContents()) {
+                deviceState.addDirtyRange(fromIndex, toIndex);
+            }
         }
     }
 
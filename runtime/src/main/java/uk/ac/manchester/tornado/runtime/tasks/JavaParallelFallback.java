@@ -0,0 +1,91 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.jvm.JVMParallelCode;
+
+/**
+ * Multi-threaded execution of a task-schedule in the JVM. It is used when a
+ * task-schedule bails out from the device compilation.
+ *
+ * Each task is compiled with {@link JVMParallelCode}, which splits the
+ * outermost {@code @Parallel} loop across the threads of a
+ * {@link ForkJoinPool}. Tasks that cannot be split run with the sequential
+ * Java implementation.
+ */
+class JavaParallelFallback {
+
+    private static ForkJoinPool pool;
+
+    private final int numThreads;
+
+    /**
+     * Compiled code per task. The key is the object that represents the code of
+     * the task.
+     */
+    private final HashMap<Object, JVMParallelCode> compiledTasks;
+
+    JavaParallelFallback() {
+        this.numThreads = Math.max(1, TornadoOptions.PARALLEL_FALLBACK_THREADS);
+        this.compiledTasks = new HashMap<>();
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(Math.max(1, TornadoOptions.PARALLEL_FALLBACK_THREADS));
+        }
+        return pool;
+    }
+
+    /**
+     * It runs all tasks in order. Each task finishes before the next one starts
+     * to keep the same data dependencies as in the task-schedule.
+     *
+     * @param taskPackages
+     *            List of tasks
+     * @param sequentialExecution
+     *            Sequential Java implementation of a single task
+     */
+    void runAllTasks(List<TaskPackage> taskPackages, Consumer<TaskPackage> sequentialExecution) {
+        for (TaskPackage taskPackage : taskPackages) {
+            Object[] taskParameters = taskPackage.getTaskParameters();
+            JVMParallelCode code = compiledTasks.computeIfAbsent(taskParameters[0], taskCode -> JVMParallelCode.compile(TaskUtils.resolveMethodHandle(taskCode), numThreads));
+            if (code.isParallel()) {
+                Object[] args = new Object[taskParameters.length - 1];
+                System.arraycopy(taskParameters, 1, args, 0, args.length);
+                code.execute(args, getPool());
+            } else {
+                sequentialExecution.accept(taskPackage);
+            }
+        }
+    }
+}
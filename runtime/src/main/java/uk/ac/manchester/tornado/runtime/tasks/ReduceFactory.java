@@ -24,7 +24,11 @@
 package uk.ac.manchester.tornado.runtime.tasks;
 
 import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.ReductionOp;
+import uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations;
+import uk.ac.manchester.tornado.api.collections.algorithms.TornadoReduction;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis.REDUCE_OPERATION;
 
 class ReduceFactory {
 
@@ -231,4 +235,61 @@ class ReduceFactory {
                 throw new TornadoRuntimeException("[ERROR] Reduce data type not supported yet: " + newArray.getClass().getTypeName());
         }
     }
+
+    /**
+     * Adds the final reduction of the partial results of a GPU as two tasks
+     * with work-groups instead of a single-thread task: the first one folds the
+     * partial results into one value per work-group in local memory, and the
+     * second one folds these values with a single work-group into element 0.
+     * See {@link TornadoReduction}. The tasks are named {@code taskName +
+     * "Partial"} and {@code taskName + "Final"}.
+     */
+    static void handleWorkGroups(Object newArray, TaskSchedule task, REDUCE_OPERATION operation, String taskName) {
+        String partialTaskName = taskName + "Partial";
+        String finalTaskName = taskName + "Final";
+        ReductionOp op = ReductionOp.valueOf(operation.name());
+        int numWorkGroups;
+        switch (newArray.getClass().getTypeName()) {
+            case "int[]": {
+                int[] array = (int[]) newArray;
+                int[] partialResults = new int[TornadoReduction.numWorkGroups(array.length, array.length)];
+                int code = ReductionOperations.operation(op, false);
+                task.task(partialTaskName, TornadoReduction::reduceWorkGroups, array, partialResults, code);
+                task.task(finalTaskName, TornadoReduction::reduceWorkGroups, partialResults, array, code);
+                numWorkGroups = partialResults.length;
+                break;
+            }
+            case "long[]": {
+                long[] array = (long[]) newArray;
+                long[] partialResults = new long[TornadoReduction.numWorkGroups(array.length, array.length)];
+                int code = ReductionOperations.operation(op, false);
+                task.task(partialTaskName, TornadoReduction::reduceWorkGroups, array, partialResults, code);
+                task.task(finalTaskName, TornadoReduction::reduceWorkGroups, partialResults, array, code);
+                numWorkGroups = partialResults.length;
+                break;
+            }
+            case "float[]": {
+                float[] array = (float[]) newArray;
+                float[] partialResults = new float[TornadoReduction.numWorkGroups(array.length, array.length)];
+                int code = ReductionOperations.operation(op, true);
+                task.task(partialTaskName, TornadoReduction::reduceWorkGroups, array, partialResults, code);
+                task.task(finalTaskName, TornadoReduction::reduceWorkGroups, partialResults, array, code);
+                numWorkGroups = partialResults.length;
+                break;
+            }
+            case "double[]": {
+                double[] array = (double[]) newArray;
+                double[] partialResults = new double[TornadoReduction.numWorkGroups(array.length, array.length)];
+                int code = ReductionOperations.operation(op, true);
+                task.task(partialTaskName, TornadoReduction::reduceWorkGroups, array, partialResults, code);
+                task.task(finalTaskName, TornadoReduction::reduceWorkGroups, partialResults, array, code);
+                numWorkGroups = partialResults.length;
+                break;
+            }
+            default:
+                throw new TornadoRuntimeException("[ERROR] Reduce data type not supported yet: " + newArray.getClass().getTypeName());
+        }
+        task.setGridSize(partialTaskName, TornadoReduction.globalWork(numWorkGroups), TornadoReduction.localWork());
+        task.setGridSize(finalTaskName, TornadoReduction.globalWork(1), TornadoReduction.localWork());
+    }
 }
@@ -354,6 +354,11 @@ class ReduceTaskSchedule {
         return (deviceType == TornadoDeviceType.ACCELERATOR);
     }
 
+    private boolean isDeviceAGPU(final int deviceToRun) {
+        TornadoDeviceType deviceType = TornadoRuntime.getTornadoRuntime().getDriver(0).getDevice(deviceToRun).getDeviceType();
+        return (deviceType == TornadoDeviceType.GPU);
+    }
+
     private void updateGlobalAndLocalDimensionsFPGA(final int deviceToRun, String taskScheduleReduceName, TaskPackage taskPackage, int inputSize) {
         // Update GLOBAL and LOCAL Dims if device to run is the FPGA
         if (isAheadOfTime() && isDeviceAnAccelerator(deviceToRun)) {
@@ -526,6 +531,16 @@ class ReduceTaskSchedule {
                         TornadoRuntime.setProperty(fullName + ".device", "0:" + deviceToRun);
                         inspectBinariesFPGA(taskScheduleReduceName, tsName, taskPackage.getId(), true);
 
+                        // On GPUs, the partial results are folded by work-groups
+                        // instead of a single thread. MUL is not a ReductionOp.
+                        if (isDeviceAGPU(deviceToRun) && operation != REDUCE_OPERATION.MUL) {
+                            TornadoRuntime.setProperty(fullName + "Partial.device", "0:" + deviceToRun);
+                            TornadoRuntime.setProperty(fullName + "Final.device", "0:" + deviceToRun);
+                            ReduceFactory.handleWorkGroups(newArray, rewrittenTaskSchedule, operation, newTaskSequentialName);
+                            counterSeqName.incrementAndGet();
+                            continue;
+                        }
+
                         switch (operation) {
                             case ADD:
                                 ReduceFactory.handleAdd(newArray, rewrittenTaskSchedule, sizeReduceArray, newTaskSequentialName);
@@ -46,7 +46,10 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
@@ -57,9 +60,9 @@ import org.graalvm.compiler.phases.util.Providers;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.AbstractTaskGraph;
+import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.Policy;
 import uk.ac.manchester.tornado.api.TaskSchedule;
-import uk.ac.manchester.tornado.api.TornadoDriver;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -83,6 +86,7 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.TornadoVM;
 import uk.ac.manchester.tornado.runtime.analyzer.MetaReduceCodeAnalysis;
 import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis;
@@ -105,6 +109,7 @@ import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.SketchRequest;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 /**
  * Implementation of the Tornado API for running on heterogeneous devices.
@@ -118,9 +123,28 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
     private TornadoVMGraphCompilationResult result;
     private long batchSizeBytes = -1;
     private boolean bailout = false;
+    private JavaParallelFallback javaParallelFallback;
+
+    /**
+     * Compilation of the tasks in a background thread when
+     * {@link TornadoOptions#ASYNC_COMPILATION} is enabled.
+     */
+    private CompletableFuture<Void> backgroundCompilation;
+    private boolean backgroundCompilationFinished;
 
     // One TornadoVM instance per TaskSchedule
     private TornadoVM vm;
+
+    /**
+     * Forks of {@link #vm} that are not running an execution with references
+     * ({@link #executeWithReferences}). {@link #concurrentVM} is the last
+     * TornadoVM compiled for these executions, for the device
+     * {@link #concurrentDevice}. It is reset when the task-schedule has to be
+     * compiled again.
+     */
+    private final ConcurrentLinkedQueue<TornadoVM> vmPool = new ConcurrentLinkedQueue<>();
+    private volatile TornadoVM concurrentVM;
+    private TornadoAcceleratorDevice concurrentDevice;
     private Event event;
     private String taskScheduleName;
 
@@ -143,7 +167,6 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
      * Options for Dynamic Reconfiguration
      */
     private static final boolean EXEPERIMENTAL_MULTI_HOST_HEAP = false;
-    private static final int DEFAULT_DRIVER_INDEX = 0;
     private static final int PERFORMANCE_WARMUP = 3;
     private final static boolean TIME_IN_NANOSECONDS = Tornado.TIME_IN_NANOSECONDS;
     private static final String TASK_SCHEDULE_PREFIX = "XXX";
@@ -230,6 +253,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
         // 6. Clear the code cache of the TornadoVM instance
         updateData = true;
+        concurrentVM = null;
         if (vm != null) {
             vm.clearInstalledCode();
             vm.setCompileUpdate();
@@ -368,8 +392,9 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
         // TornadoVM byte-code generation
         result = TornadoVMGraphCompiler.compile(graph, executionContext, batchSizeBytes);
+        shareCompiledCode();
 
-        vm = new TornadoVM(executionContext, result.getCode(), result.getCodeSize(), timeProfiler);
+        vm = new TornadoVM(executionContext, result.getCode(), result.getCodeSize(), timeProfiler, result.getBatchConfiguration());
 
         if (meta().shouldDumpSchedule()) {
             executionContext.print();
@@ -378,6 +403,28 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         }
     }
 
+    /**
+     * Tasks that run the same method with the same arguments, such as the steps
+     * of a sorting network, share their code in the code cache of the device,
+     * so it is compiled once.
+     */
+    private void shareCompiledCode() {
+        final List<SchedulableTask> tasks = executionContext.getTasks();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!(tasks.get(i) instanceof CompilableTask)) {
+                continue;
+            }
+            final CompilableTask task = (CompilableTask) tasks.get(i);
+            task.shareCodeWith(null);
+            for (int j = 0; j < i; j++) {
+                if (tasks.get(j) instanceof CompilableTask && task.hasSameCode((CompilableTask) tasks.get(j))) {
+                    task.shareCodeWith((CompilableTask) tasks.get(j));
+                    break;
+                }
+            }
+        }
+    }
+
     private boolean compareDevices(HashSet<TornadoAcceleratorDevice> lastDevices, TornadoAcceleratorDevice device2) {
         return lastDevices.contains(device2);
     }
@@ -486,16 +533,59 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
     }
 
     private void deoptimizeToSequentialJava(TornadoBailoutRuntimeException e) {
+        reportBailout(e);
         // Execute the sequential code
+        runAllTasksJavaFallback();
+    }
+
+    private static void reportBailout(TornadoBailoutRuntimeException e) {
         if (!Tornado.DEBUG) {
-            System.out.println("[Bailout] Running the sequential implementation. Enable --debug to see the reason.");
+            System.out.println(TornadoOptions.PARALLEL_FALLBACK ? "[Bailout] Running the parallel Java implementation. Enable --debug to see the reason."
+                    : "[Bailout] Running the sequential implementation. Enable --debug to see the reason.");
         } else {
             System.out.println(e.getMessage());
             for (StackTraceElement s : e.getStackTrace()) {
                 System.out.println("\t" + s);
             }
         }
-        runAllTasksJavaSequential();
+    }
+
+    /**
+     * The first compilation of the task-schedule runs in a background thread.
+     * Meanwhile, the tasks run in Java. Once the code is installed, the next
+     * executions use the device. The Java execution only happens before the first
+     * execution on the device, so the host always has the last version of the
+     * data. If the background compilation bails out, the task-schedule keeps
+     * running in Java and it is not compiled again.
+     *
+     * @return true if the tasks have to run in Java.
+     */
+    private boolean isBackgroundCompilationPending() {
+        if (!TornadoOptions.ASYNC_COMPILATION || backgroundCompilationFinished) {
+            return false;
+        }
+
+        if (backgroundCompilation == null) {
+            final TornadoVM vmToCompile = vm;
+            backgroundCompilation = CompletableFuture.runAsync(vmToCompile::compile, TornadoCoreRuntime.getTornadoExecutor());
+        }
+
+        if (!backgroundCompilation.isDone()) {
+            return true;
+        }
+
+        backgroundCompilationFinished = true;
+        try {
+            backgroundCompilation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TornadoBailoutRuntimeException) {
+                bailout = true;
+                reportBailout((TornadoBailoutRuntimeException) e.getCause());
+                return true;
+            }
+            throw new TornadoRuntimeException(e);
+        }
+        return false;
     }
 
     @Override
@@ -504,9 +594,15 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         TornadoAcceleratorDevice deviceForTask = executionContext.getDeviceForTask(0);
         if (compile && deviceForTask.getDeviceContext().isPlatformFPGA()) {
             preCompilationForFPGA();
+            backgroundCompilationFinished = true;
         }
 
         try {
+            if (isBackgroundCompilationPending()) {
+                runAllTasksJavaFallback();
+                timeProfiler.stop(ProfilerType.TOTAL_TASK_SCHEDULE_TIME);
+                return;
+            }
             event = vm.execute();
             timeProfiler.stop(ProfilerType.TOTAL_TASK_SCHEDULE_TIME);
             updateProfiler();
@@ -617,6 +713,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
         compileToTornadoVMBytecode();
         vm.warmup();
+        backgroundCompilationFinished = true;
 
         timeProfiler.dumpJson(new StringBuffer(), this.getId());
     }
@@ -644,6 +741,112 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         return device.resolveEvent(device.streamOutBlocking(object, 0, deviceState, null));
     }
 
+    @Override
+    public void markDirty(Object array, int fromIndex, int toIndex) {
+        if (array == null || !array.getClass().isArray()) {
+            throw new TornadoRuntimeException("[ERROR] Modified ranges can only be declared for arrays");
+        }
+        final int length = Array.getLength(array);
+        if (fromIndex < 0 || toIndex > length || fromIndex > toIndex) {
+            throw new TornadoRuntimeException(String.format("[ERROR] Invalid range [%d, %d) for an array of %d elements", fromIndex, toIndex, length));
+        }
+        getTornadoRuntime().resolveObject(array).addDirtyRange(fromIndex, toIndex);
+    }
+
+    /**
+     * It returns the TornadoVM of the executions with references. Once it is
+     * compiled for the current device, the callers only read it and they do not
+     * modify the state of the task-schedule.
+     */
+    private TornadoVM prepareConcurrentExecution() {
+        final TornadoVM sharedVM = concurrentVM;
+        if (sharedVM != null && concurrentDevice == meta().getDevice()) {
+            return sharedVM;
+        }
+        return compileConcurrentExecution();
+    }
+
+    /**
+     * It compiles the task-schedule for the executions with references. Only
+     * the first caller, and the first caller after the task-schedule changes,
+     * compile it under the lock of the task-schedule.
+     */
+    private synchronized TornadoVM compileConcurrentExecution() {
+        if (concurrentVM != null && concurrentDevice == meta().getDevice()) {
+            return concurrentVM;
+        }
+        if (bailout) {
+            throw new TornadoRuntimeException("[ERROR] The task-schedule " + getId() + " cannot run on the device");
+        }
+        if (TornadoOptions.EXPERIMENTAL_REDUCE && !getId().startsWith(TASK_SCHEDULE_PREFIX)) {
+            reduceAnalysis();
+            if (reduceExpressionRewritten) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Concurrent executions are not supported for task-schedules with reductions");
+            }
+        }
+        compileToTornadoVMBytecode();
+        cleanUp();
+        vm.compile();
+        backgroundCompilationFinished = true;
+        vmPool.clear();
+        concurrentDevice = meta().getDevice();
+        concurrentVM = vm;
+        return vm;
+    }
+
+    private static boolean isCompatibleReference(Object object, Object newObject) {
+        if (newObject == null || object.getClass() != newObject.getClass()) {
+            return false;
+        }
+        return !object.getClass().isArray() || Array.getLength(object) == Array.getLength(newObject);
+    }
+
+    private List<Object> replaceReferences(Object[] references, Object[] newReferences) {
+        if (references.length != newReferences.length) {
+            throw new TornadoRuntimeException("[ERROR] The number of objects and new objects does not match");
+        }
+        final List<Object> objects = new ArrayList<>(executionContext.getObjects());
+        for (int i = 0; i < references.length; i++) {
+            int index = -1;
+            for (int j = 0; j < objects.size() && index == -1; j++) {
+                if (executionContext.getObjects().get(j) == references[i]) {
+                    index = j;
+                }
+            }
+            if (index == -1) {
+                throw new TornadoRuntimeException("[ERROR] Object " + references[i] + " is not a parameter of the task-schedule " + getId());
+            }
+            if (!isCompatibleReference(references[i], newReferences[i])) {
+                throw new TornadoRuntimeException("[ERROR] Object " + newReferences[i] + " does not have the type and size of " + references[i]);
+            }
+            objects.set(index, newReferences[i]);
+        }
+        return objects;
+    }
+
+    @Override
+    public void executeWithReferences(Object[] references, Object[] newReferences) {
+        final TornadoVM sharedVM = prepareConcurrentExecution();
+        final List<Object> objects = replaceReferences(references, newReferences);
+
+        TornadoVM instance = vmPool.poll();
+        while (instance != null && !instance.isForkOf(sharedVM)) {
+            instance = vmPool.poll();
+        }
+        if (instance == null) {
+            instance = sharedVM.fork();
+        }
+
+        instance.bindObjects(objects);
+        try {
+            instance.execute().waitOn();
+        } finally {
+            if (instance.isForkOf(concurrentVM)) {
+                vmPool.offer(instance);
+            }
+        }
+    }
+
     @Override
     public void syncObjects() {
         if (vm == null) {
@@ -725,7 +928,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
     public AbstractTaskGraph schedule() {
 
         if (bailout) {
-            runAllTasksJavaSequential();
+            runAllTasksJavaFallback();
             return this;
         }
 
@@ -746,8 +949,17 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         return this;
     }
 
-    @SuppressWarnings("unchecked")
     private void runSequentialCodeInThread(TaskPackage taskPackage) {
+        if (taskPackage.hasGridSize()) {
+            // Kernels written with the KernelContext API run once per work-item
+            KernelContext.execute(() -> runTaskCode(taskPackage), taskPackage.getGlobalWork(), taskPackage.getLocalWork());
+        } else {
+            runTaskCode(taskPackage);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTaskCode(TaskPackage taskPackage) {
         int type = taskPackage.getTaskType();
         switch (type) {
             case 0:
@@ -951,6 +1163,21 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         }
     }
 
+    /**
+     * It runs the task-schedule in the JVM after a bailout. If enabled, the
+     * {@code @Parallel} loops are split across multiple Java threads.
+     */
+    private void runAllTasksJavaFallback() {
+        if (!TornadoOptions.PARALLEL_FALLBACK) {
+            runAllTasksJavaSequential();
+            return;
+        }
+        if (javaParallelFallback == null) {
+            javaParallelFallback = new JavaParallelFallback();
+        }
+        javaParallelFallback.runAllTasks(taskPackages, this::runSequentialCodeInThread);
+    }
+
     private void runParallelSequential(Policy policy, Thread[] threads, int indexSequential, Timer timer, long[] totalTimers) {
         // Last Thread runs the sequential code
         threads[indexSequential] = new Thread(() -> {
@@ -971,6 +1198,44 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         });
     }
 
+    /**
+     * Number of devices, across all the drivers, that the dynamic
+     * reconfiguration explores.
+     */
+    private static int getNumAcceleratorDevices() {
+        int numDevices = 0;
+        for (int i = 0; i < getTornadoRuntime().getNumDrivers(); i++) {
+            numDevices += getTornadoRuntime().getDriver(i).getDeviceCount();
+        }
+        return numDevices;
+    }
+
+    private static int[] getDriverAndDeviceIndex(int globalDeviceIndex) {
+        int deviceIndex = globalDeviceIndex;
+        for (int i = 0; i < getTornadoRuntime().getNumDrivers(); i++) {
+            int numDevices = getTornadoRuntime().getDriver(i).getDeviceCount();
+            if (deviceIndex < numDevices) {
+                return new int[] { i, deviceIndex };
+            }
+            deviceIndex -= numDevices;
+        }
+        throw new TornadoRuntimeException("[ERROR] Device index out of range: " + globalDeviceIndex);
+    }
+
+    /**
+     * @return The device string ("driver:device") used to assign a task to the
+     *         device in position {@code globalDeviceIndex}.
+     */
+    private static String getDeviceDescriptor(int globalDeviceIndex) {
+        int[] index = getDriverAndDeviceIndex(globalDeviceIndex);
+        return index[0] + ":" + index[1];
+    }
+
+    private static TornadoAcceleratorDevice getAcceleratorDevice(int globalDeviceIndex) {
+        int[] index = getDriverAndDeviceIndex(globalDeviceIndex);
+        return (TornadoAcceleratorDevice) getTornadoRuntime().getDriver(index[0]).getDevice(index[1]);
+    }
+
     private void runParallelTaskSchedules(int numDevices, Thread[] threads, Timer timer, Policy policy, long[] totalTimers) {
         for (int i = 0; i < numDevices; i++) {
             final int taskScheduleNumber = i;
@@ -978,15 +1243,15 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
                 String taskScheduleName = TASK_SCHEDULE_PREFIX + taskScheduleNumber;
                 TaskSchedule task = new TaskSchedule(taskScheduleName);
 
-                Thread.currentThread().setName("Thread-DEV: " + TornadoRuntime.getTornadoRuntime().getDriver(0).getDevice(taskScheduleNumber).getDevice().getDeviceName());
+                Thread.currentThread().setName("Thread-DEV: " + getAcceleratorDevice(taskScheduleNumber).getDevice().getDeviceName());
 
                 long start = timer.time();
                 performStreamInThread(task, streamInObjects);
                 for (int k = 0; k < taskPackages.size(); k++) {
                     String taskID = taskPackages.get(k).getId();
-                    TornadoRuntime.setProperty(taskScheduleName + "." + taskID + ".device", "0:" + taskScheduleNumber);
+                    TornadoRuntime.setProperty(taskScheduleName + "." + taskID + ".device", getDeviceDescriptor(taskScheduleNumber));
                     if (Tornado.DEBUG) {
-                        System.out.println("SET DEVICE: " + taskScheduleName + "." + taskID + ".device=0:" + taskScheduleNumber);
+                        System.out.println("SET DEVICE: " + taskScheduleName + "." + taskID + ".device=" + getDeviceDescriptor(taskScheduleNumber));
                     }
                     task.addTask(taskPackages.get(k));
                 }
@@ -1019,8 +1284,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
     private void runScheduleWithParallelProfiler(Policy policy) {
 
         final Timer timer = (TIME_IN_NANOSECONDS) ? new NanoSecTimer() : new MillesecTimer();
-        TornadoDriver tornadoDriver = getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX);
-        int numDevices = tornadoDriver.getDeviceCount();
+        int numDevices = getNumAcceleratorDevices();
         long masterThreadID = Thread.currentThread().getId();
 
         // One additional threads is reserved for sequential CPU execution
@@ -1078,7 +1342,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         performStreamInThread(taskToCompile, streamInObjects);
         for (TaskPackage taskPackage : taskPackages) {
             String taskID = taskPackage.getId();
-            TornadoRuntime.setProperty(taskScheduleName + "." + taskID + ".device", "0:" + deviceWinnerIndex);
+            TornadoRuntime.setProperty(taskScheduleName + "." + taskID + ".device", getDeviceDescriptor(deviceWinnerIndex));
             taskToCompile.addTask(taskPackage);
         }
         performStreamOutThreads(taskToCompile, streamOutObjects);
@@ -1087,7 +1351,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
     private void runTaskScheduleParallelSelected(int deviceWinnerIndex) {
         for (TaskPackage taskPackage : taskPackages) {
-            TornadoRuntime.setProperty(this.getTaskScheduleName() + "." + taskPackage.getId() + ".device", "0:" + deviceWinnerIndex);
+            TornadoRuntime.setProperty(this.getTaskScheduleName() + "." + taskPackage.getId() + ".device", getDeviceDescriptor(deviceWinnerIndex));
         }
         if (TornadoOptions.DEBUG_POLICY) {
             System.out.println("Running in parallel device: " + deviceWinnerIndex);
@@ -1113,7 +1377,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         } else {
             // Run with the winner device
             int deviceWinnerIndex = policyTimeTable.get(policy);
-            if (deviceWinnerIndex >= TornadoRuntime.getTornadoRuntime().getDriver(0).getDeviceCount()) {
+            if (deviceWinnerIndex >= getNumAcceleratorDevices()) {
                 runSequential();
             } else {
                 runTaskScheduleParallelSelected(deviceWinnerIndex);
@@ -1135,8 +1399,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
     @SuppressWarnings("unused")
     private void cloneInputOutputObjects() {
         final long startSearchProfiler = (TIME_IN_NANOSECONDS) ? System.nanoTime() : System.currentTimeMillis();
-        TornadoDriver tornadoDriver = getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX);
-        int numDevices = tornadoDriver.getDeviceCount();
+        int numDevices = getNumAcceleratorDevices();
         // Clone objects (only outputs) for each device
         for (int deviceNumber = 0; deviceNumber < numDevices; deviceNumber++) {
             ArrayList<Object> newInObjects = new ArrayList<>();
@@ -1202,9 +1465,9 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
                     }
                 }
 
-                TornadoRuntime.setProperty(taskScheduleName + "." + taskID + ".device", "0:" + taskNumber);
+                TornadoRuntime.setProperty(taskScheduleName + "." + taskID + ".device", getDeviceDescriptor(taskNumber));
                 if (Tornado.DEBUG) {
-                    System.out.println("SET DEVICE: " + taskScheduleName + "." + taskID + ".device=0:" + taskNumber);
+                    System.out.println("SET DEVICE: " + taskScheduleName + "." + taskID + ".device=" + getDeviceDescriptor(taskNumber));
                 }
                 task.addTask(taskPackages.get(k));
             }
@@ -1277,9 +1540,9 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
     private String getListDevices() {
         StringBuilder str = new StringBuilder();
         str.append("                  : [");
-        int num = TornadoRuntime.getTornadoRuntime().getDriver(0).getDeviceCount();
+        int num = getNumAcceleratorDevices();
         for (int i = 0; i < num; i++) {
-            TornadoDeviceType deviceType = TornadoRuntime.getTornadoRuntime().getDriver(0).getDevice(i).getDeviceType();
+            TornadoDeviceType deviceType = getAcceleratorDevice(i).getDeviceType();
             String type = "JAVA";
             switch (deviceType) {
                 case CPU:
@@ -1303,7 +1566,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
     private void runWithSequentialProfiler(Policy policy) {
         final Timer timer = (TIME_IN_NANOSECONDS) ? new NanoSecTimer() : new MillesecTimer();
-        int numDevices = getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
+        int numDevices = getNumAcceleratorDevices();
         final int totalTornadoDevices = numDevices + 1;
         long[] totalTimers = new long[totalTornadoDevices];
 
@@ -1418,7 +1681,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
     @Override
     public AbstractTaskGraph scheduleWithProfileSequentialGlobal(Policy policy) {
-        int numDevices = TornadoRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
+        int numDevices = getNumAcceleratorDevices();
 
         if (!executionHistoryPolicy.containsKey(policy)) {
             runWithSequentialProfiler(policy);
@@ -1471,7 +1734,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
     @Override
     public AbstractTaskGraph scheduleWithProfileSequential(Policy policy) {
-        int numDevices = TornadoRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
+        int numDevices = getNumAcceleratorDevices();
 
         if (policyTimeTable.get(policy) == null) {
             runWithSequentialProfiler(policy);
@@ -1576,6 +1839,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
         try {
             addInner(index, type, method, meta, id, parameters);
+            applyGridSize(taskPackage);
         } catch (TornadoBailoutRuntimeException e) {
             this.bailout = true;
             if (!Tornado.DEBUG) {
@@ -1605,6 +1869,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
         try {
             addInner(type, method, meta, id, parameters);
+            applyGridSize(taskPackage);
         } catch (TornadoBailoutRuntimeException e) {
             this.bailout = true;
             if (!Tornado.DEBUG) {
@@ -1615,6 +1880,25 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         }
     }
 
+    @Override
+    public void setGridSize(String taskId, long[] globalWork, long[] localWork) {
+        for (TaskPackage taskPackage : taskPackages) {
+            if (taskPackage.getId().equals(taskId)) {
+                taskPackage.setGridSize(globalWork, localWork);
+                applyGridSize(taskPackage);
+                return;
+            }
+        }
+        throw new TornadoRuntimeException("Task not found: " + taskId);
+    }
+
+    private void applyGridSize(TaskPackage taskPackage) {
+        SchedulableTask task = getTask(taskPackage.getId());
+        if (taskPackage.hasGridSize() && task != null) {
+            ((TaskMetaData) task.meta()).setGridSize(taskPackage.getGlobalWork(), taskPackage.getLocalWork());
+        }
+    }
+
     @Override
     public void addPrebuiltTask(String id, String entryPoint, String filename, Object[] args, Access[] accesses, TornadoDevice device, int[] dimensions) {
         addInner(TaskUtils.createTask(meta(), id, entryPoint, filename, args, accesses, device, dimensions));
@@ -41,6 +41,7 @@ import uk.ac.manchester.tornado.runtime.TornadoAcceleratorDriver;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.profiler.ProfilerEvents;
 
 public abstract class AbstractMetaData implements TaskMetaDataInterface {
 
@@ -55,6 +56,7 @@ public abstract class AbstractMetaData implements TaskMetaDataInterface {
     private final HashSet<String> openCLBuiltOptions = new HashSet<>(Arrays.asList("-cl-single-precision-constant", "-cl-denorms-are-zero", "-cl-opt-disable", "-cl-strict-aliasing", "-cl-mad-enable",
             "-cl-no-signed-zeros", "-cl-unsafe-math-optimizations", "-cl-finite-math-only", "-cl-fast-relaxed-math", "-w"));
     private TornadoProfiler profiler;
+    private final ThreadLocal<ProfilerEvents> profilerEvents = new ThreadLocal<>();
 
     private static final int DEFAULT_DRIVER_INDEX = 0;
     private static final int DEFAULT_DEVICE_INDEX = 0;
@@ -447,6 +449,20 @@ public abstract class AbstractMetaData implements TaskMetaDataInterface {
         return this.profiler;
     }
 
+    /**
+     * It attaches the list of events whose times are added to the profiler at the
+     * end of the execution. Without it, the drivers wait for each event. The list
+     * is attached to the current thread, since concurrent executions of a
+     * task-schedule share the metadata of its tasks.
+     */
+    public void attachProfilerEvents(ProfilerEvents events) {
+        this.profilerEvents.set(events);
+    }
+
+    public ProfilerEvents getProfilerEvents() {
+        return this.profilerEvents.get();
+    }
+
     public void enableDefaultThreadScheduler(boolean use) {
         openclUseDriverScheduling = use;
     }
@@ -36,12 +36,14 @@ import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.TornadoEvents;
 import uk.ac.manchester.tornado.runtime.EventSet;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.domain.IntDomain;
 
 public class TaskMetaData extends AbstractMetaData {
 
@@ -59,7 +61,9 @@ public class TaskMetaData extends AbstractMetaData {
     protected final Map<TornadoAcceleratorDevice, BitSet> profiles;
     private boolean localWorkDefined;
     private boolean globalWorkDefined;
+    private boolean gridDefined;
     private boolean canAssumeExact;
+    private final Map<String, long[]> tunedLocalWork;
 
     public TaskMetaData(ScheduleMetaData scheduleMetaData, String taskID, int numParameters) {
         super(scheduleMetaData.getId() + "." + taskID);
@@ -75,6 +79,7 @@ public class TaskMetaData extends AbstractMetaData {
 
         inspectLocalWork();
         inspectGlobalWork();
+        tunedLocalWork = TuningDatabase.getEntries(getId());
 
         this.canAssumeExact = Boolean.parseBoolean(getDefault("coarsener.exact", getId(), "False"));
 
@@ -90,6 +95,10 @@ public class TaskMetaData extends AbstractMetaData {
         return new TaskMetaData(scheduleMeta, id, Modifier.isStatic(method.getModifiers()) ? method.getParameterCount() : method.getParameterCount() + 1);
     }
 
+    public ScheduleMetaData getScheduleMetaData() {
+        return scheduleMetaData;
+    }
+
     private void inspectLocalWork() {
         localWorkDefined = getProperty(getId() + ".local.dims") != null;
         if (localWorkDefined) {
@@ -150,6 +159,78 @@ public class TaskMetaData extends AbstractMetaData {
         localWorkDefined = true;
     }
 
+    /**
+     * It returns the local work size found by the autotuner for a configuration
+     * (device, kernel and problem size class), or null if it has not been tuned.
+     */
+    public long[] getTunedLocalWork(String configuration) {
+        return tunedLocalWork.get(configuration);
+    }
+
+    public boolean hasTunedLocalWork() {
+        return !tunedLocalWork.isEmpty();
+    }
+
+    public void setTunedLocalWork(String configuration, long[] values, long time) {
+        tunedLocalWork.put(configuration, values.clone());
+        TuningDatabase.store(getId(), configuration, values, time);
+    }
+
+    /**
+     * It sets the grid of a kernel written with the KernelContext API. The
+     * domain is not inferred from the parallel loops of the task, and the local
+     * work is not tuned.
+     */
+    public void setGridSize(long[] global, long[] local) {
+        final DomainTree domainTree = new DomainTree(global.length);
+        for (int i = 0; i < global.length; i++) {
+            domainTree.set(i, new IntDomain(0, 1, (int) global[i]));
+        }
+        globalWork = global.clone();
+        globalWorkDefined = true;
+        if (local != null) {
+            localWork = local.clone();
+            localWorkDefined = true;
+        }
+        gridDefined = true;
+        setDomain(domainTree);
+    }
+
+    public boolean isGridDefined() {
+        return gridDefined;
+    }
+
+    /**
+     * It checks if the options of both tasks that change the compiled code or
+     * its launch are the same: device, compiler flags, work sizes, coarseness
+     * and the compiler switches. If so, the code compiled for one task can be
+     * reused by the other.
+     */
+    public boolean hasSameCompilationParameters(TaskMetaData other) {
+        //@formatter:off
+        return getDevice() == other.getDevice()
+                && Objects.equals(getCompilerFlags(), other.getCompilerFlags())
+                && isGlobalWorkDefined() == other.isGlobalWorkDefined()
+                && (!isGlobalWorkDefined() || Arrays.equals(getGlobalWork(), other.getGlobalWork()))
+                && isLocalWorkDefined() == other.isLocalWorkDefined()
+                && (!isLocalWorkDefined() || Arrays.equals(getLocalWork(), other.getLocalWork()))
+                && !hasTunedLocalWork() && !other.hasTunedLocalWork()
+                && Objects.equals(getProperty(getId() + ".coarseness"), getProperty(other.getId() + ".coarseness"))
+                && Objects.equals(getCpuConfig(), other.getCpuConfig())
+                && enableParallelization() == other.enableParallelization()
+                && enableAutoParallelisation() == other.enableAutoParallelisation()
+                && enableVectors() == other.enableVectors()
+                && enableExceptions() == other.enableExceptions()
+                && enableMemChecks() == other.enableMemChecks()
+                && enableOpenCLBifs() == other.enableOpenCLBifs()
+                && enableThreadCoarsener() == other.enableThreadCoarsener()
+                && shouldUseOpenCLRelativeAddresses() == other.shouldUseOpenCLRelativeAddresses()
+                && getOpenCLGpuBlockX() == other.getOpenCLGpuBlockX()
+                && getOpenCLGpuBlock2DX() == other.getOpenCLGpuBlock2DX()
+                && getOpenCLGpuBlock2DY() == other.getOpenCLGpuBlock2DY();
+        //@formatter:on
+    }
+
     public void setLocalWorkToNull() {
         localWork = null;
     }
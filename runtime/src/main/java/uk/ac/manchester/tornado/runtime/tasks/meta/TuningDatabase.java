@@ -0,0 +1,173 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks.meta;
+
+import static uk.ac.manchester.tornado.runtime.common.Tornado.warn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Local work sizes found by the autotuner, stored in
+ * {@code -Dtornado.autotune.file}. The file is only used when the autotuner is
+ * enabled or when the file is set explicitly.
+ * 
+ * Each entry is keyed by the task id and a configuration string provided by
+ * the driver (device, kernel and problem size class). The value is the local
+ * work size followed by the kernel time in nanoseconds, e.g.
+ * {@code s0.t0|GeForce\ GTX\ 1050|vectorAdd|20=128,1,1;84512}.
+ */
+public final class TuningDatabase {
+
+    private static final char SEPARATOR = '|';
+
+    private static final Path FILE = Paths.get(TornadoOptions.AUTOTUNE_FILE);
+    private static final Properties entries = load();
+
+    private TuningDatabase() {
+    }
+
+    private static Properties load() {
+        final Properties properties = new Properties();
+        if (!TornadoOptions.AUTOTUNE_FILE_ENABLED) {
+            return properties;
+        }
+        try (InputStream input = Files.newInputStream(FILE)) {
+            properties.load(input);
+        } catch (NoSuchFileException e) {
+            // No previous tuning
+        } catch (IOException | IllegalArgumentException e) {
+            warn("unable to read tuning file %s: %s", FILE, e.getMessage());
+        }
+        return properties;
+    }
+
+    public static synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * It returns the problem size class of an NDRange: the number of bits of the
+     * global work size in each dimension. Problem sizes in the same class share
+     * their tuned configuration.
+     */
+    public static String getSizeClass(long[] globalWork, int dims) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < dims; i++) {
+            if (i > 0) {
+                sb.append('x');
+            }
+            sb.append(64 - Long.numberOfLeadingZeros(Math.max(globalWork[i] - 1, 0)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * It returns the tuned local work sizes of a task, indexed by configuration.
+     */
+    static synchronized Map<String, long[]> getEntries(String taskId) {
+        final Map<String, long[]> result = new HashMap<>();
+        if (entries.isEmpty()) {
+            return result;
+        }
+        final String prefix = taskId + SEPARATOR;
+        for (String key : entries.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                final long[] localWork = parse(entries.getProperty(key));
+                if (localWork != null) {
+                    result.put(key.substring(prefix.length()), localWork);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long[] parse(String value) {
+        final String[] sizes = value.split(";")[0].split(",");
+        final long[] localWork = new long[] { 1, 1, 1 };
+        try {
+            for (int i = 0; i < sizes.length && i < localWork.length; i++) {
+                localWork[i] = Long.parseLong(sizes[i].trim());
+                if (localWork[i] <= 0) {
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return localWork;
+    }
+
+    /**
+     * It records a tuned configuration and writes the file. The entries written by
+     * other JVMs since this one started are kept.
+     */
+    static synchronized void store(String taskId, String configuration, long[] localWork, long time) {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < localWork.length; i++) {
+            value.append(i > 0 ? "," : "").append(localWork[i]);
+        }
+        value.append(';').append(time);
+
+        final String key = taskId + SEPARATOR + configuration;
+        entries.setProperty(key, value.toString());
+        if (!TornadoOptions.AUTOTUNE_FILE_ENABLED) {
+            return;
+        }
+
+        final Properties merged = load();
+        merged.setProperty(key, value.toString());
+        try {
+            final Path directory = FILE.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path temporary = Files.createTempFile(directory, FILE.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream output = Files.newOutputStream(temporary)) {
+                    merged.store(output, "TornadoVM local work sizes");
+                }
+                try {
+                    Files.move(temporary, FILE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, FILE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            warn("unable to write tuning file %s: %s", FILE, e.getMessage());
+        }
+    }
+}
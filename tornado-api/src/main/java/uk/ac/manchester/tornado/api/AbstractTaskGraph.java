@@ -70,6 +70,8 @@ public interface AbstractTaskGraph extends ProfileInterface {
 
     void batch(String batchSize);
 
+    void setGridSize(String taskId, long[] globalWork, long[] localWork);
+
     void apply(Consumer<SchedulableTask> consumer);
 
     void mapAllToInner(TornadoDevice device);
@@ -102,6 +104,10 @@ public interface AbstractTaskGraph extends ProfileInterface {
 
     void syncObjects(Object... objects);
 
+    void markDirty(Object array, int fromIndex, int toIndex);
+
+    void executeWithReferences(Object[] objects, Object[] newObjects);
+
     String getId();
 
     TaskMetaDataInterface meta();
@@ -0,0 +1,335 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Kernel-context API to write kernels in terms of work-items and work-groups,
+ * as in OpenCL. A task that uses these methods is not parallelised through
+ * {@code @Parallel} loops: its body runs once per work-item of the grid set
+ * with {@link TaskSchedule#setGridSize(String, long[], long[])}.
+ *
+ * <p>
+ * <code>
+ *     int row = KernelContext.getLocalId(0);
+ *     float[] tile = KernelContext.allocateFloatLocalArray(256);
+ *     ...
+ *     KernelContext.localBarrier();
+ * </code>
+ * </p>
+ *
+ * On the device, each method is replaced by the corresponding OpenCL
+ * built-in. In the JVM, {@link #execute(Runnable, long[], long[])} runs the
+ * work-items of a work-group in separate threads, so barriers and local arrays
+ * keep their semantics. Outside of a grid, the methods describe a single
+ * work-item.
+ */
+public final class KernelContext {
+
+    private static final int MAX_DIMENSIONS = 3;
+
+    private static final WorkItem SEQUENTIAL = new WorkItem(new int[] { 1, 1, 1 }, new int[] { 1, 1, 1 }, new int[MAX_DIMENSIONS], new int[MAX_DIMENSIONS], null);
+
+    private static final ThreadLocal<WorkItem> WORK_ITEM = new ThreadLocal<>();
+
+    private KernelContext() {
+    }
+
+    public static int getGlobalId(int dimension) {
+        return current().globalId[dimension];
+    }
+
+    public static int getLocalId(int dimension) {
+        return current().localId[dimension];
+    }
+
+    public static int getGroupId(int dimension) {
+        return current().groupId[dimension];
+    }
+
+    public static int getLocalGroupSize(int dimension) {
+        return current().localSize[dimension];
+    }
+
+    public static int getGlobalGroupSize(int dimension) {
+        return current().globalSize[dimension];
+    }
+
+    /**
+     * Work-group barrier with a fence on local memory.
+     */
+    public static void localBarrier() {
+        current().barrier();
+    }
+
+    /**
+     * Work-group barrier with a fence on global memory. It does not synchronise
+     * work-items of different work-groups.
+     */
+    public static void globalBarrier() {
+        current().barrier();
+    }
+
+    /**
+     * It allocates an array in local memory, shared by all work-items of a
+     * work-group. The size must be a compile-time constant.
+     */
+    public static float[] allocateFloatLocalArray(int size) {
+        return current().localArray(float[]::new, size);
+    }
+
+    public static int[] allocateIntLocalArray(int size) {
+        return current().localArray(int[]::new, size);
+    }
+
+    public static long[] allocateLongLocalArray(int size) {
+        return current().localArray(long[]::new, size);
+    }
+
+    public static double[] allocateDoubleLocalArray(int size) {
+        return current().localArray(double[]::new, size);
+    }
+
+    private static WorkItem current() {
+        WorkItem workItem = WORK_ITEM.get();
+        return (workItem != null) ? workItem : SEQUENTIAL;
+    }
+
+    /**
+     * It runs a kernel in the JVM, once per work-item of the grid. Work-groups
+     * are executed one after the other. The work-items of a work-group run in
+     * different threads.
+     *
+     * @param kernel
+     *            Code of the kernel.
+     * @param globalWork
+     *            Number of work-items per dimension (up to three dimensions).
+     * @param localWork
+     *            Number of work-items of a work-group per dimension. If null,
+     *            each work-group has a single work-item.
+     */
+    public static void execute(Runnable kernel, long[] globalWork, long[] localWork) {
+        if (globalWork.length < 1 || globalWork.length > MAX_DIMENSIONS || (localWork != null && localWork.length != globalWork.length)) {
+            throw new TornadoRuntimeException("Grid not supported: " + globalWork.length + " dimensions");
+        }
+        final int[] globalSize = { 1, 1, 1 };
+        final int[] localSize = { 1, 1, 1 };
+        final int[] numGroups = { 1, 1, 1 };
+        for (int i = 0; i < globalWork.length; i++) {
+            globalSize[i] = (int) globalWork[i];
+            localSize[i] = (localWork == null) ? 1 : (int) localWork[i];
+            if (localSize[i] < 1 || globalSize[i] % localSize[i] != 0) {
+                throw new TornadoRuntimeException(String.format("Local work %d does not divide global work %d in dimension %d", localSize[i], globalSize[i], i));
+            }
+            numGroups[i] = globalSize[i] / localSize[i];
+        }
+
+        final int groupSize = localSize[0] * localSize[1] * localSize[2];
+        final int totalGroups = numGroups[0] * numGroups[1] * numGroups[2];
+        if (groupSize == 1) {
+            for (int group = 0; group < totalGroups; group++) {
+                runWorkItem(kernel, new WorkItem(globalSize, localSize, unflatten(group, numGroups), new int[MAX_DIMENSIONS], null));
+            }
+            return;
+        }
+
+        final WorkGroup workGroup = new WorkGroup(groupSize);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread[] threads = new Thread[groupSize];
+        for (int t = 0; t < groupSize; t++) {
+            final int[] localId = unflatten(t, localSize);
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int group = 0; group < totalGroups && error.get() == null; group++) {
+                        runWorkItem(kernel, new WorkItem(globalSize, localSize, unflatten(group, numGroups), localId, workGroup));
+                        workGroup.finish();
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                    workGroup.abort();
+                }
+            });
+            threads[t].start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            throw new TornadoRuntimeException(e);
+        }
+
+        final Throwable e = error.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+    }
+
+    private static void runWorkItem(Runnable kernel, WorkItem workItem) {
+        WORK_ITEM.set(workItem);
+        try {
+            kernel.run();
+        } finally {
+            WORK_ITEM.remove();
+        }
+    }
+
+    private static int[] unflatten(int index, int[] sizes) {
+        return new int[] { index % sizes[0], (index / sizes[0]) % sizes[1], index / (sizes[0] * sizes[1]) };
+    }
+
+    private static final class WorkItem {
+
+        private final int[] globalId;
+        private final int[] localId;
+        private final int[] groupId;
+        private final int[] localSize;
+        private final int[] globalSize;
+
+        /**
+         * Work-group of the work-item, or null for a single work-item.
+         */
+        private final WorkGroup workGroup;
+
+        /**
+         * Number of local arrays allocated by the work-item. Work-items allocate
+         * local arrays in the same order, so it identifies the shared array.
+         */
+        private int numLocalArrays;
+
+        WorkItem(int[] globalSize, int[] localSize, int[] groupId, int[] localId, WorkGroup workGroup) {
+            this.globalSize = globalSize;
+            this.localSize = localSize;
+            this.groupId = groupId;
+            this.localId = localId;
+            this.workGroup = workGroup;
+            this.globalId = new int[MAX_DIMENSIONS];
+            for (int i = 0; i < MAX_DIMENSIONS; i++) {
+                globalId[i] = groupId[i] * localSize[i] + localId[i];
+            }
+        }
+
+        void barrier() {
+            if (workGroup != null) {
+                WorkGroup.await(workGroup.barrier);
+            }
+        }
+
+        <T> T localArray(IntFunction<T> allocator, int size) {
+            if (workGroup == null) {
+                return allocator.apply(size);
+            }
+            return workGroup.localArray(numLocalArrays++, allocator, size);
+        }
+    }
+
+    private static final class WorkGroup {
+
+        private final CyclicBarrier barrier;
+        private final CyclicBarrier end;
+        private final List<Object> localArrays;
+
+        WorkGroup(int size) {
+            this.localArrays = new ArrayList<>();
+            this.barrier = new CyclicBarrier(size);
+            this.end = new CyclicBarrier(size, this::clearLocalArrays);
+        }
+
+        private synchronized void clearLocalArrays() {
+            localArrays.clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized <T> T localArray(int index, IntFunction<T> allocator, int size) {
+            if (index == localArrays.size()) {
+                localArrays.add(allocator.apply(size));
+            }
+            return (T) localArrays.get(index);
+        }
+
+        /**
+         * It waits for all work-items of the work-group. The last work-item to
+         * arrive releases the local arrays.
+         */
+        void finish() {
+            await(end);
+        }
+
+        /**
+         * It breaks the barriers, so the rest of the work-items stop instead of
+         * waiting for a work-item that failed.
+         */
+        void abort() {
+            breakBarrier(barrier);
+            breakBarrier(end);
+        }
+
+        private static void breakBarrier(CyclicBarrier cyclicBarrier) {
+            Thread.currentThread().interrupt();
+            try {
+                cyclicBarrier.await();
+            } catch (InterruptedException | BrokenBarrierException e) {
+                // The barrier is broken
+            }
+            Thread.interrupted();
+        }
+
+        static void await(CyclicBarrier cyclicBarrier) {
+            try {
+                cyclicBarrier.await();
+            } catch (InterruptedException | BrokenBarrierException e) {
+                throw new TornadoRuntimeException(e);
+            }
+        }
+    }
+}
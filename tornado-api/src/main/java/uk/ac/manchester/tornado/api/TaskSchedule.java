@@ -41,6 +41,16 @@
  */
 package uk.ac.manchester.tornado.api;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.annotations.ReductionOp;
+import uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations;
+import uk.ac.manchester.tornado.api.collections.algorithms.TornadoHistogram;
+import uk.ac.manchester.tornado.api.collections.algorithms.TornadoReduction;
+import uk.ac.manchester.tornado.api.collections.algorithms.TornadoScan;
+import uk.ac.manchester.tornado.api.collections.algorithms.TornadoSegmentedReduction;
+import uk.ac.manchester.tornado.api.collections.algorithms.TornadoSort;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.common.TaskPackage;
@@ -57,6 +67,7 @@ import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task6;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task7;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task8;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task9;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
 import uk.ac.manchester.tornado.api.profiler.ProfileInterface;
 import uk.ac.manchester.tornado.api.runtime.TornadoAPIProvider;
 
@@ -178,6 +189,525 @@ public class TaskSchedule implements TornadoAPI, ProfileInterface {
         return this;
     }
 
+    /**
+     * The collective operations use work-group kernels with local memory on
+     * GPUs, and kernels with {@code @Parallel} loops on the rest of the
+     * devices. The device is the one of the
+     * task-schedule when the operation is added.
+     */
+    private boolean useWorkGroupKernels() {
+        TornadoDevice device = getDevice();
+        return device != null && device.getDeviceType() == TornadoDeviceType.GPU;
+    }
+
+    @Override
+    public TaskSchedule scan(String id, int[] input, int[] output, ReductionOp op, boolean inclusive) {
+        int operation = ReductionOperations.operation(op, false);
+        if (useWorkGroupKernels()) {
+            TornadoScan.checkLengths(input.length, output.length);
+            List<int[]> levels = new ArrayList<>();
+            int[] source = input;
+            int[] data = output;
+            int exclusive = inclusive ? 0 : 1;
+            while (true) {
+                String taskId = id + "Groups" + levels.size();
+                int[] groupSums = new int[TornadoScan.numWorkGroups(data.length)];
+                task(taskId, TornadoScan::scanWorkGroups, source, data, groupSums, operation, exclusive);
+                setGridSize(taskId, TornadoScan.globalWork(data.length), TornadoScan.localWork());
+                levels.add(data);
+                if (groupSums.length == 1) {
+                    break;
+                }
+                // The totals of the work-groups are scanned in place
+                source = groupSums;
+                data = groupSums;
+                exclusive = 1;
+            }
+            for (int level = levels.size() - 2; level >= 0; level--) {
+                task(id + "Apply" + level, TornadoScan::addGroupOffsets, levels.get(level), levels.get(level + 1), operation);
+            }
+            return this;
+        }
+        int[] blockSums = new int[TornadoScan.numBlocks(input.length, output.length)];
+        task(id + "Blocks", TornadoScan::scanBlocks, input, output, blockSums, operation, inclusive ? 0 : 1);
+        task(id + "Offsets", TornadoScan::scanOffsets, blockSums, operation);
+        task(id + "Apply", TornadoScan::applyOffsets, output, blockSums, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule scan(String id, long[] input, long[] output, ReductionOp op, boolean inclusive) {
+        int operation = ReductionOperations.operation(op, false);
+        if (useWorkGroupKernels()) {
+            TornadoScan.checkLengths(input.length, output.length);
+            List<long[]> levels = new ArrayList<>();
+            long[] source = input;
+            long[] data = output;
+            int exclusive = inclusive ? 0 : 1;
+            while (true) {
+                String taskId = id + "Groups" + levels.size();
+                long[] groupSums = new long[TornadoScan.numWorkGroups(data.length)];
+                task(taskId, TornadoScan::scanWorkGroups, source, data, groupSums, operation, exclusive);
+                setGridSize(taskId, TornadoScan.globalWork(data.length), TornadoScan.localWork());
+                levels.add(data);
+                if (groupSums.length == 1) {
+                    break;
+                }
+                // The totals of the work-groups are scanned in place
+                source = groupSums;
+                data = groupSums;
+                exclusive = 1;
+            }
+            for (int level = levels.size() - 2; level >= 0; level--) {
+                task(id + "Apply" + level, TornadoScan::addGroupOffsets, levels.get(level), levels.get(level + 1), operation);
+            }
+            return this;
+        }
+        long[] blockSums = new long[TornadoScan.numBlocks(input.length, output.length)];
+        task(id + "Blocks", TornadoScan::scanBlocks, input, output, blockSums, operation, inclusive ? 0 : 1);
+        task(id + "Offsets", TornadoScan::scanOffsets, blockSums, operation);
+        task(id + "Apply", TornadoScan::applyOffsets, output, blockSums, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule scan(String id, float[] input, float[] output, ReductionOp op, boolean inclusive) {
+        int operation = ReductionOperations.operation(op, true);
+        if (useWorkGroupKernels()) {
+            TornadoScan.checkLengths(input.length, output.length);
+            List<float[]> levels = new ArrayList<>();
+            float[] source = input;
+            float[] data = output;
+            int exclusive = inclusive ? 0 : 1;
+            while (true) {
+                String taskId = id + "Groups" + levels.size();
+                float[] groupSums = new float[TornadoScan.numWorkGroups(data.length)];
+                task(taskId, TornadoScan::scanWorkGroups, source, data, groupSums, operation, exclusive);
+                setGridSize(taskId, TornadoScan.globalWork(data.length), TornadoScan.localWork());
+                levels.add(data);
+                if (groupSums.length == 1) {
+                    break;
+                }
+                // The totals of the work-groups are scanned in place
+                source = groupSums;
+                data = groupSums;
+                exclusive = 1;
+            }
+            for (int level = levels.size() - 2; level >= 0; level--) {
+                task(id + "Apply" + level, TornadoScan::addGroupOffsets, levels.get(level), levels.get(level + 1), operation);
+            }
+            return this;
+        }
+        float[] blockSums = new float[TornadoScan.numBlocks(input.length, output.length)];
+        task(id + "Blocks", TornadoScan::scanBlocks, input, output, blockSums, operation, inclusive ? 0 : 1);
+        task(id + "Offsets", TornadoScan::scanOffsets, blockSums, operation);
+        task(id + "Apply", TornadoScan::applyOffsets, output, blockSums, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule scan(String id, double[] input, double[] output, ReductionOp op, boolean inclusive) {
+        int operation = ReductionOperations.operation(op, true);
+        if (useWorkGroupKernels()) {
+            TornadoScan.checkLengths(input.length, output.length);
+            List<double[]> levels = new ArrayList<>();
+            double[] source = input;
+            double[] data = output;
+            int exclusive = inclusive ? 0 : 1;
+            while (true) {
+                String taskId = id + "Groups" + levels.size();
+                double[] groupSums = new double[TornadoScan.numWorkGroups(data.length)];
+                task(taskId, TornadoScan::scanWorkGroups, source, data, groupSums, operation, exclusive);
+                setGridSize(taskId, TornadoScan.globalWork(data.length), TornadoScan.localWork());
+                levels.add(data);
+                if (groupSums.length == 1) {
+                    break;
+                }
+                // The totals of the work-groups are scanned in place
+                source = groupSums;
+                data = groupSums;
+                exclusive = 1;
+            }
+            for (int level = levels.size() - 2; level >= 0; level--) {
+                task(id + "Apply" + level, TornadoScan::addGroupOffsets, levels.get(level), levels.get(level + 1), operation);
+            }
+            return this;
+        }
+        double[] blockSums = new double[TornadoScan.numBlocks(input.length, output.length)];
+        task(id + "Blocks", TornadoScan::scanBlocks, input, output, blockSums, operation, inclusive ? 0 : 1);
+        task(id + "Offsets", TornadoScan::scanOffsets, blockSums, operation);
+        task(id + "Apply", TornadoScan::applyOffsets, output, blockSums, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduceSegments(String id, int[] values, int[] offsets, int[] output, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, false);
+        TornadoSegmentedReduction.checkSegments(offsets.length, output.length);
+        if (useWorkGroupKernels() && output.length > 0) {
+            task(id, TornadoSegmentedReduction::reduceSegmentsInWorkGroups, values, offsets, output, operation);
+            setGridSize(id, TornadoSegmentedReduction.globalWork(output.length), TornadoSegmentedReduction.localWork());
+            return this;
+        }
+        task(id, TornadoSegmentedReduction::reduceSegments, values, offsets, output, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduceSegments(String id, long[] values, int[] offsets, long[] output, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, false);
+        TornadoSegmentedReduction.checkSegments(offsets.length, output.length);
+        if (useWorkGroupKernels() && output.length > 0) {
+            task(id, TornadoSegmentedReduction::reduceSegmentsInWorkGroups, values, offsets, output, operation);
+            setGridSize(id, TornadoSegmentedReduction.globalWork(output.length), TornadoSegmentedReduction.localWork());
+            return this;
+        }
+        task(id, TornadoSegmentedReduction::reduceSegments, values, offsets, output, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduceSegments(String id, float[] values, int[] offsets, float[] output, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, true);
+        TornadoSegmentedReduction.checkSegments(offsets.length, output.length);
+        if (useWorkGroupKernels() && output.length > 0) {
+            task(id, TornadoSegmentedReduction::reduceSegmentsInWorkGroups, values, offsets, output, operation);
+            setGridSize(id, TornadoSegmentedReduction.globalWork(output.length), TornadoSegmentedReduction.localWork());
+            return this;
+        }
+        task(id, TornadoSegmentedReduction::reduceSegments, values, offsets, output, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduceSegments(String id, double[] values, int[] offsets, double[] output, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, true);
+        TornadoSegmentedReduction.checkSegments(offsets.length, output.length);
+        if (useWorkGroupKernels() && output.length > 0) {
+            task(id, TornadoSegmentedReduction::reduceSegmentsInWorkGroups, values, offsets, output, operation);
+            setGridSize(id, TornadoSegmentedReduction.globalWork(output.length), TornadoSegmentedReduction.localWork());
+            return this;
+        }
+        task(id, TornadoSegmentedReduction::reduceSegments, values, offsets, output, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduce(String id, int[] input, int[] result, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, false);
+        if (useWorkGroupKernels()) {
+            int[] partialResults = new int[TornadoReduction.numWorkGroups(input.length, result.length)];
+            task(id + "Partial", TornadoReduction::reduceWorkGroups, input, partialResults, operation);
+            setGridSize(id + "Partial", TornadoReduction.globalWork(partialResults.length), TornadoReduction.localWork());
+            task(id + "Final", TornadoReduction::reduceWorkGroups, partialResults, result, operation);
+            setGridSize(id + "Final", TornadoReduction.globalWork(1), TornadoReduction.localWork());
+            return this;
+        }
+        int[] partialResults = new int[TornadoReduction.numPartialResults(input.length, result.length)];
+        task(id + "Partial", TornadoReduction::partialReduce, input, partialResults, operation);
+        task(id + "Final", TornadoReduction::finalReduce, partialResults, result, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduce(String id, long[] input, long[] result, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, false);
+        if (useWorkGroupKernels()) {
+            long[] partialResults = new long[TornadoReduction.numWorkGroups(input.length, result.length)];
+            task(id + "Partial", TornadoReduction::reduceWorkGroups, input, partialResults, operation);
+            setGridSize(id + "Partial", TornadoReduction.globalWork(partialResults.length), TornadoReduction.localWork());
+            task(id + "Final", TornadoReduction::reduceWorkGroups, partialResults, result, operation);
+            setGridSize(id + "Final", TornadoReduction.globalWork(1), TornadoReduction.localWork());
+            return this;
+        }
+        long[] partialResults = new long[TornadoReduction.numPartialResults(input.length, result.length)];
+        task(id + "Partial", TornadoReduction::partialReduce, input, partialResults, operation);
+        task(id + "Final", TornadoReduction::finalReduce, partialResults, result, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduce(String id, float[] input, float[] result, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, true);
+        if (useWorkGroupKernels()) {
+            float[] partialResults = new float[TornadoReduction.numWorkGroups(input.length, result.length)];
+            task(id + "Partial", TornadoReduction::reduceWorkGroups, input, partialResults, operation);
+            setGridSize(id + "Partial", TornadoReduction.globalWork(partialResults.length), TornadoReduction.localWork());
+            task(id + "Final", TornadoReduction::reduceWorkGroups, partialResults, result, operation);
+            setGridSize(id + "Final", TornadoReduction.globalWork(1), TornadoReduction.localWork());
+            return this;
+        }
+        float[] partialResults = new float[TornadoReduction.numPartialResults(input.length, result.length)];
+        task(id + "Partial", TornadoReduction::partialReduce, input, partialResults, operation);
+        task(id + "Final", TornadoReduction::finalReduce, partialResults, result, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule reduce(String id, double[] input, double[] result, ReductionOp op) {
+        int operation = ReductionOperations.operation(op, true);
+        if (useWorkGroupKernels()) {
+            double[] partialResults = new double[TornadoReduction.numWorkGroups(input.length, result.length)];
+            task(id + "Partial", TornadoReduction::reduceWorkGroups, input, partialResults, operation);
+            setGridSize(id + "Partial", TornadoReduction.globalWork(partialResults.length), TornadoReduction.localWork());
+            task(id + "Final", TornadoReduction::reduceWorkGroups, partialResults, result, operation);
+            setGridSize(id + "Final", TornadoReduction.globalWork(1), TornadoReduction.localWork());
+            return this;
+        }
+        double[] partialResults = new double[TornadoReduction.numPartialResults(input.length, result.length)];
+        task(id + "Partial", TornadoReduction::partialReduce, input, partialResults, operation);
+        task(id + "Final", TornadoReduction::finalReduce, partialResults, result, operation);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule histogram(String id, int[] input, int[] bins) {
+        TornadoHistogram.checkBins(bins.length);
+        if (useWorkGroupKernels() && bins.length <= TornadoHistogram.MAX_LOCAL_BINS) {
+            task(id + "Clear", TornadoHistogram::clear, bins);
+            task(id + "Accumulate", TornadoHistogram::accumulateInWorkGroups, input, bins);
+            setGridSize(id + "Accumulate", TornadoHistogram.globalWork(input.length), TornadoHistogram.localWork());
+            return this;
+        }
+        int[] copies = new int[TornadoHistogram.numCopies(input.length, bins.length) * bins.length];
+        task(id + "Clear", TornadoHistogram::clear, copies);
+        task(id + "Accumulate", TornadoHistogram::accumulate, input, copies, bins.length);
+        task(id + "Merge", TornadoHistogram::merge, copies, bins);
+        return this;
+    }
+
+    /**
+     * Adds the passes of the radix sort in work-groups. The number of passes is
+     * even, so the sorted keys and values end up in the input arrays.
+     */
+    private void sortTiles(String id, int[] keys, int[] values) {
+        int[] keysBuffer = new int[keys.length];
+        int[] tileKeys = new int[keys.length];
+        int[] valuesBuffer = (values != null) ? new int[values.length] : null;
+        int[] tileValues = (values != null) ? new int[values.length] : null;
+        int[] counts = new int[TornadoSort.tileCountsLength(keys.length)];
+        for (int pass = 0; pass < Integer.SIZE / TornadoSort.RADIX_BITS; pass++) {
+            int[] passKeys = (pass % 2 == 0) ? keys : keysBuffer;
+            int[] sortedKeys = (pass % 2 == 0) ? keysBuffer : keys;
+            int shift = pass * TornadoSort.RADIX_BITS;
+            String tilesId = id + "Tiles" + pass;
+            String scatterId = id + "Scatter" + pass;
+            if (values == null) {
+                task(tilesId, TornadoSort::sortTiles, passKeys, tileKeys, counts, shift);
+            } else {
+                int[] passValues = (pass % 2 == 0) ? values : valuesBuffer;
+                task(tilesId, TornadoSort::sortTilesByKey, passKeys, passValues, tileKeys, tileValues, counts, shift);
+            }
+            setGridSize(tilesId, TornadoSort.tileGlobalWork(keys.length), TornadoSort.tileLocalWork());
+            scan(id + "Offsets" + pass, counts, counts, ReductionOp.ADD, false);
+            if (values == null) {
+                task(scatterId, TornadoSort::scatterTiles, tileKeys, sortedKeys, counts, shift);
+            } else {
+                int[] sortedValues = (pass % 2 == 0) ? valuesBuffer : values;
+                task(scatterId, TornadoSort::scatterTilesByKey, tileKeys, tileValues, sortedKeys, sortedValues, counts, shift);
+            }
+            setGridSize(scatterId, TornadoSort.tileGlobalWork(keys.length), TornadoSort.tileLocalWork());
+        }
+    }
+
+    private void sortTiles(String id, long[] keys, int[] values) {
+        long[] keysBuffer = new long[keys.length];
+        long[] tileKeys = new long[keys.length];
+        int[] valuesBuffer = (values != null) ? new int[values.length] : null;
+        int[] tileValues = (values != null) ? new int[values.length] : null;
+        int[] counts = new int[TornadoSort.tileCountsLength(keys.length)];
+        for (int pass = 0; pass < Long.SIZE / TornadoSort.RADIX_BITS; pass++) {
+            long[] passKeys = (pass % 2 == 0) ? keys : keysBuffer;
+            long[] sortedKeys = (pass % 2 == 0) ? keysBuffer : keys;
+            int shift = pass * TornadoSort.RADIX_BITS;
+            String tilesId = id + "Tiles" + pass;
+            String scatterId = id + "Scatter" + pass;
+            if (values == null) {
+                task(tilesId, TornadoSort::sortTiles, passKeys, tileKeys, counts, shift);
+            } else {
+                int[] passValues = (pass % 2 == 0) ? values : valuesBuffer;
+                task(tilesId, TornadoSort::sortTilesByKey, passKeys, passValues, tileKeys, tileValues, counts, shift);
+            }
+            setGridSize(tilesId, TornadoSort.tileGlobalWork(keys.length), TornadoSort.tileLocalWork());
+            scan(id + "Offsets" + pass, counts, counts, ReductionOp.ADD, false);
+            if (values == null) {
+                task(scatterId, TornadoSort::scatterTiles, tileKeys, sortedKeys, counts, shift);
+            } else {
+                int[] sortedValues = (pass % 2 == 0) ? valuesBuffer : values;
+                task(scatterId, TornadoSort::scatterTilesByKey, tileKeys, tileValues, sortedKeys, sortedValues, counts, shift);
+            }
+            setGridSize(scatterId, TornadoSort.tileGlobalWork(keys.length), TornadoSort.tileLocalWork());
+        }
+    }
+
+    @Override
+    public TaskSchedule sort(String id, int[] data) {
+        if (useWorkGroupKernels() && data.length > 0) {
+            sortTiles(id, data, null);
+            return this;
+        }
+        int[] buffer = new int[data.length];
+        int[] counts = new int[TornadoSort.countsLength(data.length)];
+        for (int pass = 0; pass < Integer.SIZE / TornadoSort.RADIX_BITS; pass++) {
+            int[] keys = (pass % 2 == 0) ? data : buffer;
+            int[] sortedKeys = (pass % 2 == 0) ? buffer : data;
+            int shift = pass * TornadoSort.RADIX_BITS;
+            task(id + "Histogram" + pass, TornadoSort::histogram, keys, counts, shift);
+            scan(id + "Offsets" + pass, counts, counts, ReductionOp.ADD, false);
+            task(id + "Scatter" + pass, TornadoSort::scatter, keys, sortedKeys, counts, shift);
+        }
+        return this;
+    }
+
+    @Override
+    public TaskSchedule sort(String id, long[] data) {
+        if (useWorkGroupKernels() && data.length > 0) {
+            sortTiles(id, data, null);
+            return this;
+        }
+        long[] buffer = new long[data.length];
+        int[] counts = new int[TornadoSort.countsLength(data.length)];
+        for (int pass = 0; pass < Long.SIZE / TornadoSort.RADIX_BITS; pass++) {
+            long[] keys = (pass % 2 == 0) ? data : buffer;
+            long[] sortedKeys = (pass % 2 == 0) ? buffer : data;
+            int shift = pass * TornadoSort.RADIX_BITS;
+            task(id + "Histogram" + pass, TornadoSort::histogram, keys, counts, shift);
+            scan(id + "Offsets" + pass, counts, counts, ReductionOp.ADD, false);
+            task(id + "Scatter" + pass, TornadoSort::scatter, keys, sortedKeys, counts, shift);
+        }
+        return this;
+    }
+
+    @Override
+    public TaskSchedule sort(String id, float[] data) {
+        if (useWorkGroupKernels() && data.length > 0) {
+            int[] bits = new int[data.length];
+            task(id + "Encode", TornadoSort::toSortableBits, data, bits);
+            sortTiles(id, bits, null);
+            task(id + "Decode", TornadoSort::fromSortableBits, bits, data);
+            return this;
+        }
+        float[] paddedKeys = new float[TornadoSort.paddedLength(data.length)];
+        int[] steps = TornadoSort.bitonicSteps(paddedKeys.length);
+        task(id + "Pad", TornadoSort::pad, data, paddedKeys, steps);
+        for (int step = 0; step < TornadoSort.numBitonicSteps(paddedKeys.length); step++) {
+            task(id + "Step" + step, TornadoSort::bitonicStep, paddedKeys, steps, step % 2);
+        }
+        task(id + "Unpad", TornadoSort::unpad, paddedKeys, data);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule sort(String id, double[] data) {
+        if (useWorkGroupKernels() && data.length > 0) {
+            long[] bits = new long[data.length];
+            task(id + "Encode", TornadoSort::toSortableBits, data, bits);
+            sortTiles(id, bits, null);
+            task(id + "Decode", TornadoSort::fromSortableBits, bits, data);
+            return this;
+        }
+        double[] paddedKeys = new double[TornadoSort.paddedLength(data.length)];
+        int[] steps = TornadoSort.bitonicSteps(paddedKeys.length);
+        task(id + "Pad", TornadoSort::pad, data, paddedKeys, steps);
+        for (int step = 0; step < TornadoSort.numBitonicSteps(paddedKeys.length); step++) {
+            task(id + "Step" + step, TornadoSort::bitonicStep, paddedKeys, steps, step % 2);
+        }
+        task(id + "Unpad", TornadoSort::unpad, paddedKeys, data);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule sortByKey(String id, int[] keys, int[] values) {
+        TornadoSort.checkValues(keys.length, values.length);
+        if (useWorkGroupKernels() && keys.length > 0) {
+            sortTiles(id, keys, values);
+            return this;
+        }
+        int[] keysBuffer = new int[keys.length];
+        int[] valuesBuffer = new int[values.length];
+        int[] counts = new int[TornadoSort.countsLength(keys.length)];
+        for (int pass = 0; pass < Integer.SIZE / TornadoSort.RADIX_BITS; pass++) {
+            int[] passKeys = (pass % 2 == 0) ? keys : keysBuffer;
+            int[] passValues = (pass % 2 == 0) ? values : valuesBuffer;
+            int[] sortedKeys = (pass % 2 == 0) ? keysBuffer : keys;
+            int[] sortedValues = (pass % 2 == 0) ? valuesBuffer : values;
+            int shift = pass * TornadoSort.RADIX_BITS;
+            task(id + "Histogram" + pass, TornadoSort::histogram, passKeys, counts, shift);
+            scan(id + "Offsets" + pass, counts, counts, ReductionOp.ADD, false);
+            task(id + "Scatter" + pass, TornadoSort::scatterByKey, passKeys, passValues, sortedKeys, sortedValues, counts, shift);
+        }
+        return this;
+    }
+
+    @Override
+    public TaskSchedule sortByKey(String id, long[] keys, int[] values) {
+        TornadoSort.checkValues(keys.length, values.length);
+        if (useWorkGroupKernels() && keys.length > 0) {
+            sortTiles(id, keys, values);
+            return this;
+        }
+        long[] keysBuffer = new long[keys.length];
+        int[] valuesBuffer = new int[values.length];
+        int[] counts = new int[TornadoSort.countsLength(keys.length)];
+        for (int pass = 0; pass < Long.SIZE / TornadoSort.RADIX_BITS; pass++) {
+            long[] passKeys = (pass % 2 == 0) ? keys : keysBuffer;
+            int[] passValues = (pass % 2 == 0) ? values : valuesBuffer;
+            long[] sortedKeys = (pass % 2 == 0) ? keysBuffer : keys;
+            int[] sortedValues = (pass % 2 == 0) ? valuesBuffer : values;
+            int shift = pass * TornadoSort.RADIX_BITS;
+            task(id + "Histogram" + pass, TornadoSort::histogram, passKeys, counts, shift);
+            scan(id + "Offsets" + pass, counts, counts, ReductionOp.ADD, false);
+            task(id + "Scatter" + pass, TornadoSort::scatterByKey, passKeys, passValues, sortedKeys, sortedValues, counts, shift);
+        }
+        return this;
+    }
+
+    @Override
+    public TaskSchedule sortByKey(String id, float[] keys, int[] values) {
+        TornadoSort.checkValues(keys.length, values.length);
+        if (useWorkGroupKernels() && keys.length > 0) {
+            int[] bits = new int[keys.length];
+            task(id + "Encode", TornadoSort::toSortableBits, keys, bits);
+            sortTiles(id, bits, values);
+            task(id + "Decode", TornadoSort::fromSortableBits, bits, keys);
+            return this;
+        }
+        float[] paddedKeys = new float[TornadoSort.paddedLength(keys.length)];
+        int[] indices = new int[paddedKeys.length];
+        int[] sortedValues = new int[values.length];
+        int[] steps = TornadoSort.bitonicSteps(paddedKeys.length);
+        task(id + "Pad", TornadoSort::padByKey, keys, paddedKeys, indices, steps);
+        for (int step = 0; step < TornadoSort.numBitonicSteps(paddedKeys.length); step++) {
+            task(id + "Step" + step, TornadoSort::bitonicStepByKey, paddedKeys, indices, steps, step % 2);
+        }
+        task(id + "Unpad", TornadoSort::unpadByKey, paddedKeys, indices, keys, values, sortedValues);
+        task(id + "Values", TornadoSort::copy, sortedValues, values);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule sortByKey(String id, double[] keys, int[] values) {
+        TornadoSort.checkValues(keys.length, values.length);
+        if (useWorkGroupKernels() && keys.length > 0) {
+            long[] bits = new long[keys.length];
+            task(id + "Encode", TornadoSort::toSortableBits, keys, bits);
+            sortTiles(id, bits, values);
+            task(id + "Decode", TornadoSort::fromSortableBits, bits, keys);
+            return this;
+        }
+        double[] paddedKeys = new double[TornadoSort.paddedLength(keys.length)];
+        int[] indices = new int[paddedKeys.length];
+        int[] sortedValues = new int[values.length];
+        int[] steps = TornadoSort.bitonicSteps(paddedKeys.length);
+        task(id + "Pad", TornadoSort::padByKey, keys, paddedKeys, indices, steps);
+        for (int step = 0; step < TornadoSort.numBitonicSteps(paddedKeys.length); step++) {
+            task(id + "Step" + step, TornadoSort::bitonicStepByKey, paddedKeys, indices, steps, step % 2);
+        }
+        task(id + "Unpad", TornadoSort::unpadByKey, paddedKeys, indices, keys, values, sortedValues);
+        task(id + "Values", TornadoSort::copy, sortedValues, values);
+        return this;
+    }
+
     @Override
     public String getTaskScheduleName() {
         return taskScheduleName;
@@ -225,6 +755,12 @@ public class TaskSchedule implements TornadoAPI, ProfileInterface {
         return this;
     }
 
+    @Override
+    public TaskSchedule setGridSize(String taskId, long[] globalWork, long[] localWork) {
+        taskScheduleImpl.setGridSize(taskId, globalWork, localWork);
+        return this;
+    }
+
     @Override
     public void execute() {
         taskScheduleImpl.schedule().waitOn();
@@ -245,6 +781,11 @@ public class TaskSchedule implements TornadoAPI, ProfileInterface {
         taskScheduleImpl.scheduleWithProfileSequentialGlobal(policy).waitOn();
     }
 
+    @Override
+    public void executeWithReferences(Object[] objects, Object[] newObjects) {
+        taskScheduleImpl.executeWithReferences(objects, newObjects);
+    }
+
     @Override
     public void warmup() {
         taskScheduleImpl.warmup();
@@ -290,6 +831,11 @@ public class TaskSchedule implements TornadoAPI, ProfileInterface {
         taskScheduleImpl.syncObjects(objects);
     }
 
+    @Override
+    public void markDirty(Object array, int fromIndex, int toIndex) {
+        taskScheduleImpl.markDirty(array, fromIndex, toIndex);
+    }
+
     @Override
     public SchedulableTask getTask(String id) {
         return taskScheduleImpl.getTask(id);
@@ -41,6 +41,7 @@
  */
 package uk.ac.manchester.tornado.api;
 
+import uk.ac.manchester.tornado.api.annotations.ReductionOp;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.common.TaskPackage;
@@ -370,6 +371,230 @@ public interface TornadoAPI {
      */
     TornadoAPI prebuiltTask(String id, String entryPoint, String filename, Object[] args, Access[] accesses, TornadoDevice device, int[] dimensions);
 
+    /**
+     * Adds a parallel prefix-sum (scan) of an array to the task-schedule. The
+     * output stays on the device unless it is streamed out. If the device of
+     * the task-schedule is a GPU, the scan runs in work-groups with local
+     * memory, in the tasks {@code id + "Groups" + level} and
+     * {@code id + "Apply" + level}. On other devices, it runs in three tasks
+     * with the identifiers {@code id + "Blocks"}, {@code id + "Offsets"} and
+     * {@code id + "Apply"}. See
+     * {@link uk.ac.manchester.tornado.api.collections.algorithms.TornadoScan}.
+     *
+     * @param id
+     *            Prefix of the task identifiers.
+     * @param input
+     *            Input array.
+     * @param output
+     *            Output array. It must have the same length as the input and it
+     *            can be the input array.
+     * @param op
+     *            Associative operation: ADD, MIN, MAX, BITWISE_OR, BITWISE_AND
+     *            or BITWISE_XOR. The bitwise operations are not supported for
+     *            floating point arrays.
+     * @param inclusive
+     *            True for an inclusive scan, where output[i] includes input[i].
+     *            False for an exclusive scan.
+     * @return {@link TornadoAPI}
+     */
+    TornadoAPI scan(String id, int[] input, int[] output, ReductionOp op, boolean inclusive);
+
+    /**
+     * Adds a parallel prefix-sum (scan) of a long array to the task-schedule.
+     * See {@link #scan(String, int[], int[], ReductionOp, boolean)}.
+     */
+    TornadoAPI scan(String id, long[] input, long[] output, ReductionOp op, boolean inclusive);
+
+    /**
+     * Adds a parallel prefix-sum (scan) of a float array to the task-schedule.
+     * See {@link #scan(String, int[], int[], ReductionOp, boolean)}.
+     */
+    TornadoAPI scan(String id, float[] input, float[] output, ReductionOp op, boolean inclusive);
+
+    /**
+     * Adds a parallel prefix-sum (scan) of a double array to the task-schedule.
+     * See {@link #scan(String, int[], int[], ReductionOp, boolean)}.
+     */
+    TornadoAPI scan(String id, double[] input, double[] output, ReductionOp op, boolean inclusive);
+
+    /**
+     * Adds a segmented reduction to the task-schedule: one result per segment
+     * of the values. The segments are described by an offsets array with
+     * {@code output.length + 1} elements, as the row pointers of a CSR matrix:
+     * segment {@code s} covers the values from {@code offsets[s]} to
+     * {@code offsets[s + 1] - 1}. Empty segments get the identity of the
+     * operation, which is an infinity for MIN and MAX of floating point values.
+     * For sorted keys, the offsets are the positions where the key
+     * changes. On GPUs, each segment is reduced by a work-group, see
+     * {@link uk.ac.manchester.tornado.api.collections.algorithms.TornadoSegmentedReduction}.
+     *
+     * @param id
+     *            Task identifier.
+     * @param values
+     *            Values to reduce.
+     * @param offsets
+     *            First value of each segment, followed by the number of values.
+     * @param output
+     *            One result per segment.
+     * @param op
+     *            Associative operation: ADD, MIN, MAX, BITWISE_OR, BITWISE_AND
+     *            or BITWISE_XOR. The bitwise operations are not supported for
+     *            floating point arrays.
+     * @return {@link TornadoAPI}
+     */
+    TornadoAPI reduceSegments(String id, int[] values, int[] offsets, int[] output, ReductionOp op);
+
+    /**
+     * Adds a segmented reduction of a long array to the task-schedule. See
+     * {@link #reduceSegments(String, int[], int[], int[], ReductionOp)}.
+     */
+    TornadoAPI reduceSegments(String id, long[] values, int[] offsets, long[] output, ReductionOp op);
+
+    /**
+     * Adds a segmented reduction of a float array to the task-schedule. See
+     * {@link #reduceSegments(String, int[], int[], int[], ReductionOp)}.
+     */
+    TornadoAPI reduceSegments(String id, float[] values, int[] offsets, float[] output, ReductionOp op);
+
+    /**
+     * Adds a segmented reduction of a double array to the task-schedule. See
+     * {@link #reduceSegments(String, int[], int[], int[], ReductionOp)}.
+     */
+    TornadoAPI reduceSegments(String id, double[] values, int[] offsets, double[] output, ReductionOp op);
+
+    /**
+     * Adds a full reduction of an array to the task-schedule. The result is
+     * written to element 0 of the result array. The result is computed on
+     * the device by two tasks with the identifiers {@code id + "Partial"} and
+     * {@code id + "Final"}, so it can be used by the following tasks without
+     * leaving the device. Each thread of the first task reduces many elements,
+     * and any input size is supported. On GPUs, the first task produces one
+     * partial result per work-group with a reduction in local memory, and the
+     * second task folds them with a single work-group. See
+     * {@link uk.ac.manchester.tornado.api.collections.algorithms.TornadoReduction}.
+     * <p>
+     * Tasks with {@code @Reduce} parameters are still compiled with the
+     * reduction of the OpenCL backend, but on GPUs their per-work-group
+     * results are folded with the same work-group kernel.
+     *
+     * @param id
+     *            Prefix of the task identifiers.
+     * @param input
+     *            Array to reduce.
+     * @param result
+     *            Array that receives the result in its first element.
+     * @param op
+     *            Associative operation: ADD, MIN, MAX, BITWISE_OR, BITWISE_AND
+     *            or BITWISE_XOR. The bitwise operations are not supported for
+     *            floating point arrays.
+     * @return {@link TornadoAPI}
+     */
+    TornadoAPI reduce(String id, int[] input, int[] result, ReductionOp op);
+
+    /**
+     * Adds a full reduction of a long array to the task-schedule. See
+     * {@link #reduce(String, int[], int[], ReductionOp)}.
+     */
+    TornadoAPI reduce(String id, long[] input, long[] result, ReductionOp op);
+
+    /**
+     * Adds a full reduction of a float array to the task-schedule. See
+     * {@link #reduce(String, int[], int[], ReductionOp)}.
+     */
+    TornadoAPI reduce(String id, float[] input, float[] result, ReductionOp op);
+
+    /**
+     * Adds a full reduction of a double array to the task-schedule. See
+     * {@link #reduce(String, int[], int[], ReductionOp)}.
+     */
+    TornadoAPI reduce(String id, double[] input, double[] result, ReductionOp op);
+
+    /**
+     * Adds the tasks to compute the histogram of an int array. Element
+     * {@code v} of the input increments {@code bins[v]}; values outside
+     * {@code [0, bins.length)} are ignored. On GPUs, each work-group counts
+     * its elements with atomic additions on a copy of the histogram in local
+     * memory and adds it to {@code bins} once. On the rest of the devices, or
+     * with more bins than fit in local memory, the counts are accumulated in
+     * private copies of the histogram in global memory, which are merged into
+     * {@code bins} on the device. See
+     * {@link uk.ac.manchester.tornado.api.collections.algorithms.TornadoHistogram}.
+     *
+     * @param id
+     *            Prefix of the task identifiers.
+     * @param input
+     *            Array with the bin of each element.
+     * @param bins
+     *            Array that receives the counts.
+     * @return {@link TornadoAPI}
+     */
+    TornadoAPI histogram(String id, int[] input, int[] bins);
+
+    /**
+     * Adds the tasks to sort an array in ascending order. The sorted array is
+     * written back to the input array, so it can be used by the following
+     * tasks without leaving the device. On GPUs, all arrays are sorted with a
+     * radix sort in work-groups. On the rest of the devices, integer arrays are
+     * sorted with a radix sort and floating point arrays with a bitonic sorting
+     * network. NaN values are sorted last. See
+     * {@link uk.ac.manchester.tornado.api.collections.algorithms.TornadoSort}.
+     *
+     * @param id
+     *            Prefix of the task identifiers.
+     * @param data
+     *            Array to sort.
+     * @return {@link TornadoAPI}
+     */
+    TornadoAPI sort(String id, int[] data);
+
+    /**
+     * Adds the tasks to sort a long array. See {@link #sort(String, int[])}.
+     */
+    TornadoAPI sort(String id, long[] data);
+
+    /**
+     * Adds the tasks to sort a float array. See {@link #sort(String, int[])}.
+     */
+    TornadoAPI sort(String id, float[] data);
+
+    /**
+     * Adds the tasks to sort a double array. See {@link #sort(String, int[])}.
+     */
+    TornadoAPI sort(String id, double[] data);
+
+    /**
+     * Adds the tasks to sort key/value pairs in ascending order of the keys. The
+     * sorted pairs are written back to the input arrays. The sort is stable:
+     * pairs with equal keys keep their original order.
+     *
+     * @param id
+     *            Prefix of the task identifiers.
+     * @param keys
+     *            Keys to sort.
+     * @param values
+     *            Values of the keys, for example their original indices.
+     * @return {@link TornadoAPI}
+     */
+    TornadoAPI sortByKey(String id, int[] keys, int[] values);
+
+    /**
+     * Adds the tasks to sort key/value pairs with long keys. See
+     * {@link #sortByKey(String, int[], int[])}.
+     */
+    TornadoAPI sortByKey(String id, long[] keys, int[] values);
+
+    /**
+     * Adds the tasks to sort key/value pairs with float keys. See
+     * {@link #sortByKey(String, int[], int[])}.
+     */
+    TornadoAPI sortByKey(String id, float[] keys, int[] values);
+
+    /**
+     * Adds the tasks to sort key/value pairs with double keys. See
+     * {@link #sortByKey(String, int[], int[])}.
+     */
+    TornadoAPI sortByKey(String id, double[] keys, int[] values);
+
     /**
      * Obtains the task-schedule name that was assigned.
      * 
@@ -425,6 +650,22 @@ public interface TornadoAPI {
      */
     TornadoAPI batch(String batchSize);
 
+    /**
+     * It sets the grid of a task written with the {@link KernelContext} API. The
+     * task runs once per work-item, instead of parallelising its
+     * {@code @Parallel} loops.
+     *
+     * @param taskId
+     *            Task identifier.
+     * @param globalWork
+     *            Number of work-items per dimension (up to three dimensions).
+     * @param localWork
+     *            Size of the work-groups per dimension. It must divide the global
+     *            work. If null, the driver selects the work-group size.
+     * @return link to the {@TornadoAPI} to allow function composition.
+     */
+    TornadoAPI setGridSize(String taskId, long[] globalWork, long[] localWork);
+
     /**
      * Execute the task-schedule
      */
@@ -457,6 +698,23 @@ public interface TornadoAPI {
      */
     void executeWithProfilerSequentialGlobal(Policy policy);
 
+    /**
+     * Execute the task-schedule with other objects in place of some of its
+     * parameters. The new objects must have the same type and size as the
+     * objects they replace, and they are copied to and from the device as the
+     * original ones. This method can be called from several threads at the same
+     * time: each call runs in its own instance of the TornadoVM, with its own
+     * call-stacks, events and device buffers, and all of them share the compiled
+     * kernels. Objects that are not replaced are shared by all the calls, so the
+     * objects written by the tasks should always be replaced.
+     *
+     * @param objects
+     *            Parameters of the task-schedule to replace.
+     * @param newObjects
+     *            Objects used in this execution, in the same order.
+     */
+    void executeWithReferences(Object[] objects, Object[] newObjects);
+
     /**
      * It performs JIT compilation without running the task-schedule
      */
@@ -478,6 +736,21 @@ public interface TornadoAPI {
 
     void syncObjects(Object... objects);
 
+    /**
+     * Declares that the elements [fromIndex, toIndex) of an array were modified
+     * by the host since the last execution. The next stream-in of the array only
+     * copies the declared ranges to the devices that already hold a copy of the
+     * array. Arrays without declared ranges are copied completely.
+     *
+     * @param array
+     *            Java array used by the task-schedule.
+     * @param fromIndex
+     *            First modified element (inclusive).
+     * @param toIndex
+     *            Last modified element (exclusive).
+     */
+    void markDirty(Object array, int fromIndex, int toIndex);
+
     SchedulableTask getTask(String id);
 
     TornadoDevice getDevice();
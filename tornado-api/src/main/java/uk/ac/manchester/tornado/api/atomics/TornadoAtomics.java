@@ -0,0 +1,208 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.atomics;
+
+import java.lang.reflect.Field;
+
+import sun.misc.Unsafe;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Atomic read-modify-write operations on array elements. Inside a task, each
+ * call is compiled to a single atomic instruction of the device and returns
+ * the value of the element before the update. The addition on {@code float}
+ * and {@code double} arrays is emulated with a compare-and-swap loop. The
+ * operations on {@code long} and {@code double} arrays need the
+ * {@code cl_khr_int64_base_atomics} extension
+ * ({@code cl_khr_int64_extended_atomics} for min and max).
+ *
+ * When the code runs in Java, each call is a lock-free atomic update of the
+ * element: addition and exchange use the atomic instructions of the JVM, and
+ * min, max and the floating-point addition retry a compare-and-swap on the
+ * bits of the element. Updates of different elements do not wait for each
+ * other.
+ */
+@SuppressWarnings("restriction")
+public final class TornadoAtomics {
+
+    private static final Unsafe UNSAFE = getUnsafe();
+
+    private TornadoAtomics() {
+    }
+
+    private static Unsafe getUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new TornadoRuntimeException("[ERROR] Unsafe is not available for the atomic operations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the offset of an element. Unsafe does not check the bounds of the
+     * array, so the index is checked here.
+     */
+    private static long offset(int length, int index, int baseOffset, int indexScale) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return baseOffset + (long) index * indexScale;
+    }
+
+    private static long offset(int[] array, int index) {
+        return offset(array.length, index, Unsafe.ARRAY_INT_BASE_OFFSET, Unsafe.ARRAY_INT_INDEX_SCALE);
+    }
+
+    private static long offset(long[] array, int index) {
+        return offset(array.length, index, Unsafe.ARRAY_LONG_BASE_OFFSET, Unsafe.ARRAY_LONG_INDEX_SCALE);
+    }
+
+    private static long offset(float[] array, int index) {
+        return offset(array.length, index, Unsafe.ARRAY_FLOAT_BASE_OFFSET, Unsafe.ARRAY_FLOAT_INDEX_SCALE);
+    }
+
+    private static long offset(double[] array, int index) {
+        return offset(array.length, index, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
+    }
+
+    public static int atomicAdd(int[] array, int index, int value) {
+        return UNSAFE.getAndAddInt(array, offset(array, index), value);
+    }
+
+    public static long atomicAdd(long[] array, int index, long value) {
+        return UNSAFE.getAndAddLong(array, offset(array, index), value);
+    }
+
+    public static float atomicAdd(float[] array, int index, float value) {
+        long offset = offset(array, index);
+        int old;
+        do {
+            old = UNSAFE.getIntVolatile(array, offset);
+        } while (!UNSAFE.compareAndSwapInt(array, offset, old, Float.floatToRawIntBits(Float.intBitsToFloat(old) + value)));
+        return Float.intBitsToFloat(old);
+    }
+
+    public static double atomicAdd(double[] array, int index, double value) {
+        long offset = offset(array, index);
+        long old;
+        do {
+            old = UNSAFE.getLongVolatile(array, offset);
+        } while (!UNSAFE.compareAndSwapLong(array, offset, old, Double.doubleToRawLongBits(Double.longBitsToDouble(old) + value)));
+        return Double.longBitsToDouble(old);
+    }
+
+    public static int atomicMin(int[] array, int index, int value) {
+        long offset = offset(array, index);
+        int old;
+        do {
+            old = UNSAFE.getIntVolatile(array, offset);
+        } while (value < old && !UNSAFE.compareAndSwapInt(array, offset, old, value));
+        return old;
+    }
+
+    public static long atomicMin(long[] array, int index, long value) {
+        long offset = offset(array, index);
+        long old;
+        do {
+            old = UNSAFE.getLongVolatile(array, offset);
+        } while (value < old && !UNSAFE.compareAndSwapLong(array, offset, old, value));
+        return old;
+    }
+
+    public static int atomicMax(int[] array, int index, int value) {
+        long offset = offset(array, index);
+        int old;
+        do {
+            old = UNSAFE.getIntVolatile(array, offset);
+        } while (value > old && !UNSAFE.compareAndSwapInt(array, offset, old, value));
+        return old;
+    }
+
+    public static long atomicMax(long[] array, int index, long value) {
+        long offset = offset(array, index);
+        long old;
+        do {
+            old = UNSAFE.getLongVolatile(array, offset);
+        } while (value > old && !UNSAFE.compareAndSwapLong(array, offset, old, value));
+        return old;
+    }
+
+    public static int atomicExchange(int[] array, int index, int value) {
+        return UNSAFE.getAndSetInt(array, offset(array, index), value);
+    }
+
+    public static long atomicExchange(long[] array, int index, long value) {
+        return UNSAFE.getAndSetLong(array, offset(array, index), value);
+    }
+
+    /**
+     * Stores {@code value} in {@code array[index]} if the element is equal to
+     * {@code expected}.
+     *
+     * @return the value of the element before the operation.
+     */
+    public static int atomicCompareAndSwap(int[] array, int index, int expected, int value) {
+        long offset = offset(array, index);
+        int old;
+        do {
+            old = UNSAFE.getIntVolatile(array, offset);
+        } while (old == expected && !UNSAFE.compareAndSwapInt(array, offset, expected, value));
+        return old;
+    }
+
+    /**
+     * Stores {@code value} in {@code array[index]} if the element is equal to
+     * {@code expected}.
+     *
+     * @return the value of the element before the operation.
+     */
+    public static long atomicCompareAndSwap(long[] array, int index, long expected, long value) {
+        long offset = offset(array, index);
+        long old;
+        do {
+            old = UNSAFE.getLongVolatile(array, offset);
+        } while (old == expected && !UNSAFE.compareAndSwapLong(array, offset, expected, value));
+        return old;
+    }
+}
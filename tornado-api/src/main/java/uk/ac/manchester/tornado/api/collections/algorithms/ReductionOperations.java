@@ -0,0 +1,205 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import uk.ac.manchester.tornado.api.annotations.ReductionOp;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Associative operations used by the scan and segmented reduction kernels. The
+ * operation is passed to the kernels as an int code, and the methods of this
+ * class are inlined in the generated code.
+ */
+public final class ReductionOperations {
+
+    public static final int ADD = 0;
+    public static final int MIN = 1;
+    public static final int MAX = 2;
+    public static final int BITWISE_OR = 3;
+    public static final int BITWISE_AND = 4;
+    public static final int BITWISE_XOR = 5;
+
+    private ReductionOperations() {
+    }
+
+    /**
+     * Returns the code of a {@link ReductionOp} passed to the kernels.
+     *
+     * @param op
+     *            Associative operation.
+     * @param floatingPoint
+     *            True for float and double arrays.
+     * @return code of the operation.
+     */
+    public static int operation(ReductionOp op, boolean floatingPoint) {
+        switch (op) {
+            case ADD:
+                return ADD;
+            case MIN:
+                return MIN;
+            case MAX:
+                return MAX;
+            case BITWISE_OR:
+                if (!floatingPoint) {
+                    return BITWISE_OR;
+                }
+                break;
+            case BITWISE_AND:
+                if (!floatingPoint) {
+                    return BITWISE_AND;
+                }
+                break;
+            case BITWISE_XOR:
+                if (!floatingPoint) {
+                    return BITWISE_XOR;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new TornadoRuntimeException("[ERROR] Operation " + op + " is not supported" + (floatingPoint ? " for floating point arrays" : ""));
+    }
+
+    public static int intIdentity(int op) {
+        int value = 0;
+        if (op == MIN) {
+            value = Integer.MAX_VALUE;
+        } else if (op == MAX) {
+            value = Integer.MIN_VALUE;
+        } else if (op == BITWISE_AND) {
+            value = -1;
+        }
+        return value;
+    }
+
+    public static int combine(int op, int a, int b) {
+        int result;
+        if (op == MIN) {
+            result = (a < b) ? a : b;
+        } else if (op == MAX) {
+            result = (a > b) ? a : b;
+        } else if (op == BITWISE_OR) {
+            result = a | b;
+        } else if (op == BITWISE_AND) {
+            result = a & b;
+        } else if (op == BITWISE_XOR) {
+            result = a ^ b;
+        } else {
+            result = a + b;
+        }
+        return result;
+    }
+
+    public static long longIdentity(int op) {
+        long value = 0;
+        if (op == MIN) {
+            value = Long.MAX_VALUE;
+        } else if (op == MAX) {
+            value = Long.MIN_VALUE;
+        } else if (op == BITWISE_AND) {
+            value = -1;
+        }
+        return value;
+    }
+
+    public static long combine(int op, long a, long b) {
+        long result;
+        if (op == MIN) {
+            result = (a < b) ? a : b;
+        } else if (op == MAX) {
+            result = (a > b) ? a : b;
+        } else if (op == BITWISE_OR) {
+            result = a | b;
+        } else if (op == BITWISE_AND) {
+            result = a & b;
+        } else if (op == BITWISE_XOR) {
+            result = a ^ b;
+        } else {
+            result = a + b;
+        }
+        return result;
+    }
+
+    public static float floatIdentity(int op) {
+        float value = 0;
+        if (op == MIN) {
+            value = Float.POSITIVE_INFINITY;
+        } else if (op == MAX) {
+            value = Float.NEGATIVE_INFINITY;
+        }
+        return value;
+    }
+
+    public static float combine(int op, float a, float b) {
+        float result;
+        if (op == MIN) {
+            result = (a < b) ? a : b;
+        } else if (op == MAX) {
+            result = (a > b) ? a : b;
+        } else {
+            result = a + b;
+        }
+        return result;
+    }
+
+    public static double doubleIdentity(int op) {
+        double value = 0;
+        if (op == MIN) {
+            value = Double.POSITIVE_INFINITY;
+        } else if (op == MAX) {
+            value = Double.NEGATIVE_INFINITY;
+        }
+        return value;
+    }
+
+    public static double combine(int op, double a, double b) {
+        double result;
+        if (op == MIN) {
+            result = (a < b) ? a : b;
+        } else if (op == MAX) {
+            result = (a > b) ? a : b;
+        } else {
+            result = a + b;
+        }
+        return result;
+    }
+}
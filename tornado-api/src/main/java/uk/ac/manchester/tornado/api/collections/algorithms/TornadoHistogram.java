@@ -0,0 +1,192 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.atomics.TornadoAtomics;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Kernels of the histogram of a task-schedule.
+ * <p>
+ * On GPUs, each work-group privatises the histogram in local memory with
+ * {@code accumulateInWorkGroups}: the work-items clear the local copy, count
+ * the elements {@code g, g + G, g + 2G, ...} with atomic additions on it,
+ * where {@code g} is the global identifier and {@code G} the global size, and
+ * add every non-zero local count to the global bins, which are cleared
+ * beforehand. Only the last step uses global atomics, once per bin and
+ * work-group. The local copy has {@link #MAX_LOCAL_BINS} counters.
+ * <p>
+ * On the rest of the devices, and for histograms with more bins, the counts
+ * are accumulated in several private copies of the histogram in global memory
+ * to reduce the contention of the atomic updates:
+ * <ul>
+ * <li>{@code clear}: sets all the copies to zero.</li>
+ * <li>{@code accumulate}: element {@code i} increments its bin in copy
+ * {@code i % C} with an atomic addition, where {@code C} is the number of
+ * copies. Consecutive threads update different copies.</li>
+ * <li>{@code merge}: each thread sums one bin over all the copies.</li>
+ * </ul>
+ * The kernels are added to a task-schedule with
+ * {@link uk.ac.manchester.tornado.api.TaskSchedule#histogram}.
+ */
+public final class TornadoHistogram {
+
+    /**
+     * Maximum number of private copies of the histogram.
+     */
+    public static final int MAX_COPIES = 64;
+
+    /**
+     * Number of bins of the local copy of {@code accumulateInWorkGroups}, which
+     * uses 4 KB of local memory.
+     */
+    public static final int MAX_LOCAL_BINS = 1024;
+
+    /**
+     * Number of work-items of each work-group of
+     * {@code accumulateInWorkGroups}.
+     */
+    public static final int WORK_GROUP_SIZE = 256;
+
+    /**
+     * Maximum number of work-groups of {@code accumulateInWorkGroups}, which
+     * bounds the global atomic additions to this number per bin.
+     */
+    public static final int MAX_WORK_GROUPS = 256;
+
+    private TornadoHistogram() {
+    }
+
+    /**
+     * Returns the number of private copies used to compute a histogram.
+     *
+     * @param inputLength
+     *            Length of the input array.
+     * @param numBins
+     *            Number of bins of the histogram.
+     * @return number of copies.
+     */
+    public static int numCopies(int inputLength, int numBins) {
+        checkBins(numBins);
+        return Math.max(1, Math.min(MAX_COPIES, inputLength / numBins));
+    }
+
+    /**
+     * Checks that a histogram has at least one bin.
+     *
+     * @param numBins
+     *            Number of bins of the histogram.
+     */
+    public static void checkBins(int numBins) {
+        if (numBins < 1) {
+            throw new TornadoRuntimeException("[ERROR] A histogram must have at least one bin");
+        }
+    }
+
+    /**
+     * Returns the global work of {@code accumulateInWorkGroups}: one work-item
+     * per element, rounded up to a multiple of the work-group size, up to
+     * {@link #MAX_WORK_GROUPS} work-groups.
+     */
+    public static long[] globalWork(int inputLength) {
+        int numWorkGroups = Math.max(1, Math.min(MAX_WORK_GROUPS, (inputLength + WORK_GROUP_SIZE - 1) / WORK_GROUP_SIZE));
+        return new long[] { (long) numWorkGroups * WORK_GROUP_SIZE };
+    }
+
+    public static long[] localWork() {
+        return new long[] { WORK_GROUP_SIZE };
+    }
+
+    public static void clear(int[] copies) {
+        for (@Parallel int i = 0; i < copies.length; i++) {
+            copies[i] = 0;
+        }
+    }
+
+    public static void accumulate(int[] input, int[] copies, int numBins) {
+        int numCopies = copies.length / numBins;
+        for (@Parallel int i = 0; i < input.length; i++) {
+            int bin = input[i];
+            if (bin >= 0 && bin < numBins) {
+                TornadoAtomics.atomicAdd(copies, (i % numCopies) * numBins + bin, 1);
+            }
+        }
+    }
+
+    public static void accumulateInWorkGroups(int[] input, int[] bins) {
+        int localId = KernelContext.getLocalId(0);
+        int globalSize = KernelContext.getGlobalGroupSize(0);
+        int numBins = bins.length;
+        int[] localBins = KernelContext.allocateIntLocalArray(MAX_LOCAL_BINS);
+
+        for (int b = localId; b < numBins; b += WORK_GROUP_SIZE) {
+            localBins[b] = 0;
+        }
+        KernelContext.localBarrier();
+        for (int i = KernelContext.getGlobalId(0); i < input.length; i += globalSize) {
+            int bin = input[i];
+            if (bin >= 0 && bin < numBins) {
+                TornadoAtomics.atomicAdd(localBins, bin, 1);
+            }
+        }
+        KernelContext.localBarrier();
+        for (int b = localId; b < numBins; b += WORK_GROUP_SIZE) {
+            int count = localBins[b];
+            if (count != 0) {
+                TornadoAtomics.atomicAdd(bins, b, count);
+            }
+        }
+    }
+
+    public static void merge(int[] copies, int[] bins) {
+        int numCopies = copies.length / bins.length;
+        for (@Parallel int b = 0; b < bins.length; b++) {
+            int count = 0;
+            for (int c = 0; c < numCopies; c++) {
+                count += copies[c * bins.length + b];
+            }
+            bins[b] = count;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.combine;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.doubleIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.floatIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.intIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.longIdentity;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Kernels of the full reduction of a task-schedule. The reduction runs in two
+ * tasks and the result never goes through the host.
+ * <p>
+ * On GPUs, both tasks run {@code reduceWorkGroups}: each work-item folds the
+ * elements {@code g, g + G, g + 2G, ...} in a register, where {@code g} is its
+ * global identifier and {@code G} the global size, so consecutive work-items
+ * read consecutive elements. The work-group then combines the values of its
+ * work-items with a tree in local memory, and the first work-item writes one
+ * partial result per work-group. The first task runs up to
+ * {@link #MAX_WORK_GROUPS} work-groups, and the second task folds their partial
+ * results with a single work-group into element 0 of the result array.
+ * <p>
+ * On the rest of the devices:
+ * <ul>
+ * <li>{@code partialReduce}: each thread folds the elements
+ * {@code p, p + P, p + 2P, ...} in a register, where {@code P} is the number of
+ * partial results. Consecutive threads read consecutive elements.</li>
+ * <li>{@code finalReduce}: a single thread folds the partial results into
+ * element 0 of the result array.</li>
+ * </ul>
+ * Any input size is supported. The kernels are added to a task-schedule with
+ * {@link uk.ac.manchester.tornado.api.TaskSchedule#reduce}. On GPUs, the tasks
+ * with {@link uk.ac.manchester.tornado.api.annotations.Reduce} parameters also
+ * fold the results of their work-groups with {@code reduceWorkGroups}.
+ */
+public final class TornadoReduction {
+
+    /**
+     * Maximum number of partial results, which is also the number of threads of
+     * the first task.
+     */
+    public static final int MAX_PARTIAL_RESULTS = 8192;
+
+    /**
+     * Number of work-items of each work-group of {@code reduceWorkGroups}.
+     */
+    public static final int WORK_GROUP_SIZE = 256;
+
+    /**
+     * Maximum number of work-groups of the first task on GPUs. Their partial
+     * results are folded by the single work-group of the second task.
+     */
+    public static final int MAX_WORK_GROUPS = 256;
+
+    private TornadoReduction() {
+    }
+
+    /**
+     * Returns the number of partial results used to reduce an array.
+     *
+     * @param inputLength
+     *            Length of the input array.
+     * @param resultLength
+     *            Length of the result array.
+     * @return number of partial results.
+     */
+    public static int numPartialResults(int inputLength, int resultLength) {
+        if (resultLength < 1) {
+            throw new TornadoRuntimeException("[ERROR] The result array of a reduction must have at least one element");
+        }
+        return Math.max(1, Math.min(inputLength, MAX_PARTIAL_RESULTS));
+    }
+
+    /**
+     * Returns the number of work-groups, and of partial results, used to reduce
+     * an array on GPUs.
+     *
+     * @param inputLength
+     *            Length of the input array.
+     * @param resultLength
+     *            Length of the result array.
+     * @return number of work-groups.
+     */
+    public static int numWorkGroups(int inputLength, int resultLength) {
+        if (resultLength < 1) {
+            throw new TornadoRuntimeException("[ERROR] The result array of a reduction must have at least one element");
+        }
+        return Math.max(1, Math.min((inputLength + WORK_GROUP_SIZE - 1) / WORK_GROUP_SIZE, MAX_WORK_GROUPS));
+    }
+
+    /**
+     * Returns the global work of {@code reduceWorkGroups}.
+     *
+     * @param numWorkGroups
+     *            Number of work-groups, which is 1 for the second task.
+     */
+    public static long[] globalWork(int numWorkGroups) {
+        return new long[] { (long) numWorkGroups * WORK_GROUP_SIZE };
+    }
+
+    public static long[] localWork() {
+        return new long[] { WORK_GROUP_SIZE };
+    }
+
+    public static void reduceWorkGroups(int[] input, int[] partialResults, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int globalSize = KernelContext.getGlobalGroupSize(0);
+        int[] localResults = KernelContext.allocateIntLocalArray(WORK_GROUP_SIZE);
+
+        int acc = intIdentity(op);
+        for (int i = KernelContext.getGlobalId(0); i < input.length; i += globalSize) {
+            acc = combine(op, acc, input[i]);
+        }
+        localResults[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                localResults[localId] = combine(op, localResults[localId], localResults[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            partialResults[KernelContext.getGroupId(0)] = localResults[0];
+        }
+    }
+
+    public static void partialReduce(int[] input, int[] partialResults, int op) {
+        for (@Parallel int p = 0; p < partialResults.length; p++) {
+            int acc = intIdentity(op);
+            for (int i = p; i < input.length; i += partialResults.length) {
+                acc = combine(op, acc, input[i]);
+            }
+            partialResults[p] = acc;
+        }
+    }
+
+    public static void finalReduce(int[] partialResults, int[] result, int op) {
+        int acc = intIdentity(op);
+        for (int p = 0; p < partialResults.length; p++) {
+            acc = combine(op, acc, partialResults[p]);
+        }
+        result[0] = acc;
+    }
+
+    public static void reduceWorkGroups(long[] input, long[] partialResults, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int globalSize = KernelContext.getGlobalGroupSize(0);
+        long[] localResults = KernelContext.allocateLongLocalArray(WORK_GROUP_SIZE);
+
+        long acc = longIdentity(op);
+        for (int i = KernelContext.getGlobalId(0); i < input.length; i += globalSize) {
+            acc = combine(op, acc, input[i]);
+        }
+        localResults[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                localResults[localId] = combine(op, localResults[localId], localResults[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            partialResults[KernelContext.getGroupId(0)] = localResults[0];
+        }
+    }
+
+    public static void partialReduce(long[] input, long[] partialResults, int op) {
+        for (@Parallel int p = 0; p < partialResults.length; p++) {
+            long acc = longIdentity(op);
+            for (int i = p; i < input.length; i += partialResults.length) {
+                acc = combine(op, acc, input[i]);
+            }
+            partialResults[p] = acc;
+        }
+    }
+
+    public static void finalReduce(long[] partialResults, long[] result, int op) {
+        long acc = longIdentity(op);
+        for (int p = 0; p < partialResults.length; p++) {
+            acc = combine(op, acc, partialResults[p]);
+        }
+        result[0] = acc;
+    }
+
+    public static void reduceWorkGroups(float[] input, float[] partialResults, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int globalSize = KernelContext.getGlobalGroupSize(0);
+        float[] localResults = KernelContext.allocateFloatLocalArray(WORK_GROUP_SIZE);
+
+        float acc = floatIdentity(op);
+        for (int i = KernelContext.getGlobalId(0); i < input.length; i += globalSize) {
+            acc = combine(op, acc, input[i]);
+        }
+        localResults[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                localResults[localId] = combine(op, localResults[localId], localResults[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            partialResults[KernelContext.getGroupId(0)] = localResults[0];
+        }
+    }
+
+    public static void partialReduce(float[] input, float[] partialResults, int op) {
+        for (@Parallel int p = 0; p < partialResults.length; p++) {
+            float acc = floatIdentity(op);
+            for (int i = p; i < input.length; i += partialResults.length) {
+                acc = combine(op, acc, input[i]);
+            }
+            partialResults[p] = acc;
+        }
+    }
+
+    public static void finalReduce(float[] partialResults, float[] result, int op) {
+        float acc = floatIdentity(op);
+        for (int p = 0; p < partialResults.length; p++) {
+            acc = combine(op, acc, partialResults[p]);
+        }
+        result[0] = acc;
+    }
+
+    public static void reduceWorkGroups(double[] input, double[] partialResults, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int globalSize = KernelContext.getGlobalGroupSize(0);
+        double[] localResults = KernelContext.allocateDoubleLocalArray(WORK_GROUP_SIZE);
+
+        double acc = doubleIdentity(op);
+        for (int i = KernelContext.getGlobalId(0); i < input.length; i += globalSize) {
+            acc = combine(op, acc, input[i]);
+        }
+        localResults[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                localResults[localId] = combine(op, localResults[localId], localResults[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            partialResults[KernelContext.getGroupId(0)] = localResults[0];
+        }
+    }
+
+    public static void partialReduce(double[] input, double[] partialResults, int op) {
+        for (@Parallel int p = 0; p < partialResults.length; p++) {
+            double acc = doubleIdentity(op);
+            for (int i = p; i < input.length; i += partialResults.length) {
+                acc = combine(op, acc, input[i]);
+            }
+            partialResults[p] = acc;
+        }
+    }
+
+    public static void finalReduce(double[] partialResults, double[] result, int op) {
+        double acc = doubleIdentity(op);
+        for (int p = 0; p < partialResults.length; p++) {
+            acc = combine(op, acc, partialResults[p]);
+        }
+        result[0] = acc;
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.combine;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.doubleIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.floatIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.intIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.longIdentity;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Kernels of the parallel prefix-sum (scan) of a task-schedule. There are two
+ * implementations, and {@link uk.ac.manchester.tornado.api.TaskSchedule#scan}
+ * selects one of them with the device of the task-schedule.
+ *
+ * On GPUs, the scan is work-efficient and runs in work-groups of
+ * {@link #WORK_GROUP_SIZE} work-items:
+ * <ul>
+ * <li>{@code scanWorkGroups}: each work-group scans its elements in local
+ * memory with an up-sweep and a down-sweep, and stores its total. The totals
+ * are scanned in the same way, level by level, until they fit in a single
+ * work-group.</li>
+ * <li>{@code addGroupOffsets}: from the top level down, each element is
+ * combined with the scanned total of the previous work-groups.</li>
+ * </ul>
+ *
+ * On the rest of the devices, the input is split in blocks of about sqrt(n)
+ * elements and the scan runs in three tasks:
+ * <ul>
+ * <li>{@code scanBlocks}: each thread scans one block and stores its total.</li>
+ * <li>{@code scanOffsets}: a single thread scans the totals of the blocks.</li>
+ * <li>{@code applyOffsets}: each element is combined with the total of the
+ * previous blocks.</li>
+ * </ul>
+ * Each thread of {@code scanBlocks} works on a contiguous range, which suits
+ * multi-core CPUs and FPGAs.
+ */
+public final class TornadoScan {
+
+    /**
+     * Number of work-items of the work-groups of {@code scanWorkGroups}. It is a
+     * power of two.
+     */
+    public static final int WORK_GROUP_SIZE = 256;
+
+    private TornadoScan() {
+    }
+
+    /**
+     * Returns the number of blocks used to scan an array.
+     *
+     * @param inputLength
+     *            Length of the input array.
+     * @param outputLength
+     *            Length of the output array.
+     * @return number of blocks.
+     */
+    public static int numBlocks(int inputLength, int outputLength) {
+        checkLengths(inputLength, outputLength);
+        return Math.max(1, (int) Math.ceil(Math.sqrt(inputLength)));
+    }
+
+    public static void checkLengths(int inputLength, int outputLength) {
+        if (inputLength != outputLength) {
+            throw new TornadoRuntimeException("[ERROR] The input and output of scan must have the same length: " + inputLength + " != " + outputLength);
+        }
+    }
+
+    /**
+     * Returns the number of work-groups of {@code scanWorkGroups}, which is also
+     * the length of the array of group totals.
+     *
+     * @param length
+     *            Number of elements to scan.
+     * @return number of work-groups.
+     */
+    public static int numWorkGroups(int length) {
+        return Math.max(1, (length + WORK_GROUP_SIZE - 1) / WORK_GROUP_SIZE);
+    }
+
+    /**
+     * Returns the global work of {@code scanWorkGroups}: the number of elements
+     * rounded up to a multiple of the work-group size.
+     */
+    public static long[] globalWork(int length) {
+        return new long[] { (long) numWorkGroups(length) * WORK_GROUP_SIZE };
+    }
+
+    public static long[] localWork() {
+        return new long[] { WORK_GROUP_SIZE };
+    }
+
+    private static int blockSize(int length, int numBlocks) {
+        return (length + numBlocks - 1) / numBlocks;
+    }
+
+    public static void scanBlocks(int[] input, int[] output, int[] blockSums, int op, int exclusive) {
+        int numBlocks = blockSums.length;
+        int blockSize = blockSize(input.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, input.length);
+            int acc = intIdentity(op);
+            for (int i = start; i < end; i++) {
+                int next = combine(op, acc, input[i]);
+                output[i] = (exclusive == 1) ? acc : next;
+                acc = next;
+            }
+            blockSums[block] = acc;
+        }
+    }
+
+    public static void scanOffsets(int[] blockSums, int op) {
+        int acc = intIdentity(op);
+        for (int i = 0; i < blockSums.length; i++) {
+            int total = blockSums[i];
+            blockSums[i] = acc;
+            acc = combine(op, acc, total);
+        }
+    }
+
+    public static void applyOffsets(int[] output, int[] blockSums, int op) {
+        int blockSize = blockSize(output.length, blockSums.length);
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] = combine(op, blockSums[i / blockSize], output[i]);
+        }
+    }
+
+    public static void scanBlocks(long[] input, long[] output, long[] blockSums, int op, int exclusive) {
+        int numBlocks = blockSums.length;
+        int blockSize = blockSize(input.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, input.length);
+            long acc = longIdentity(op);
+            for (int i = start; i < end; i++) {
+                long next = combine(op, acc, input[i]);
+                output[i] = (exclusive == 1) ? acc : next;
+                acc = next;
+            }
+            blockSums[block] = acc;
+        }
+    }
+
+    public static void scanOffsets(long[] blockSums, int op) {
+        long acc = longIdentity(op);
+        for (int i = 0; i < blockSums.length; i++) {
+            long total = blockSums[i];
+            blockSums[i] = acc;
+            acc = combine(op, acc, total);
+        }
+    }
+
+    public static void applyOffsets(long[] output, long[] blockSums, int op) {
+        int blockSize = blockSize(output.length, blockSums.length);
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] = combine(op, blockSums[i / blockSize], output[i]);
+        }
+    }
+
+    public static void scanBlocks(float[] input, float[] output, float[] blockSums, int op, int exclusive) {
+        int numBlocks = blockSums.length;
+        int blockSize = blockSize(input.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, input.length);
+            float acc = floatIdentity(op);
+            for (int i = start; i < end; i++) {
+                float next = combine(op, acc, input[i]);
+                output[i] = (exclusive == 1) ? acc : next;
+                acc = next;
+            }
+            blockSums[block] = acc;
+        }
+    }
+
+    public static void scanOffsets(float[] blockSums, int op) {
+        float acc = floatIdentity(op);
+        for (int i = 0; i < blockSums.length; i++) {
+            float total = blockSums[i];
+            blockSums[i] = acc;
+            acc = combine(op, acc, total);
+        }
+    }
+
+    public static void applyOffsets(float[] output, float[] blockSums, int op) {
+        int blockSize = blockSize(output.length, blockSums.length);
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] = combine(op, blockSums[i / blockSize], output[i]);
+        }
+    }
+
+    public static void scanBlocks(double[] input, double[] output, double[] blockSums, int op, int exclusive) {
+        int numBlocks = blockSums.length;
+        int blockSize = blockSize(input.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, input.length);
+            double acc = doubleIdentity(op);
+            for (int i = start; i < end; i++) {
+                double next = combine(op, acc, input[i]);
+                output[i] = (exclusive == 1) ? acc : next;
+                acc = next;
+            }
+            blockSums[block] = acc;
+        }
+    }
+
+    public static void scanOffsets(double[] blockSums, int op) {
+        double acc = doubleIdentity(op);
+        for (int i = 0; i < blockSums.length; i++) {
+            double total = blockSums[i];
+            blockSums[i] = acc;
+            acc = combine(op, acc, total);
+        }
+    }
+
+    public static void applyOffsets(double[] output, double[] blockSums, int op) {
+        int blockSize = blockSize(output.length, blockSums.length);
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] = combine(op, blockSums[i / blockSize], output[i]);
+        }
+    }
+
+    /**
+     * Scans the elements of each work-group in local memory. The up-sweep builds
+     * a tree of partial results in place, and the down-sweep turns it into the
+     * exclusive scan of the work-group. Work-items past the end of the input
+     * contribute the identity. The input and the output can be the same array.
+     */
+    public static void scanWorkGroups(int[] input, int[] output, int[] groupSums, int op, int exclusive) {
+        int globalId = KernelContext.getGlobalId(0);
+        int localId = KernelContext.getLocalId(0);
+        int[] tree = KernelContext.allocateIntLocalArray(WORK_GROUP_SIZE);
+
+        int value = (globalId < input.length) ? input[globalId] : intIdentity(op);
+        tree[localId] = value;
+        for (int stride = 1; stride < WORK_GROUP_SIZE; stride *= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                tree[index] = combine(op, tree[index - stride], tree[index]);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (localId == 0) {
+            groupSums[KernelContext.getGroupId(0)] = tree[WORK_GROUP_SIZE - 1];
+            tree[WORK_GROUP_SIZE - 1] = intIdentity(op);
+        }
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                int left = tree[index - stride];
+                int prefix = tree[index];
+                tree[index - stride] = prefix;
+                tree[index] = combine(op, prefix, left);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (globalId < output.length) {
+            output[globalId] = (exclusive == 1) ? tree[localId] : combine(op, tree[localId], value);
+        }
+    }
+
+    public static void addGroupOffsets(int[] data, int[] groupOffsets, int op) {
+        for (@Parallel int i = WORK_GROUP_SIZE; i < data.length; i++) {
+            data[i] = combine(op, groupOffsets[i / WORK_GROUP_SIZE], data[i]);
+        }
+    }
+
+    public static void scanWorkGroups(long[] input, long[] output, long[] groupSums, int op, int exclusive) {
+        int globalId = KernelContext.getGlobalId(0);
+        int localId = KernelContext.getLocalId(0);
+        long[] tree = KernelContext.allocateLongLocalArray(WORK_GROUP_SIZE);
+
+        long value = (globalId < input.length) ? input[globalId] : longIdentity(op);
+        tree[localId] = value;
+        for (int stride = 1; stride < WORK_GROUP_SIZE; stride *= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                tree[index] = combine(op, tree[index - stride], tree[index]);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (localId == 0) {
+            groupSums[KernelContext.getGroupId(0)] = tree[WORK_GROUP_SIZE - 1];
+            tree[WORK_GROUP_SIZE - 1] = longIdentity(op);
+        }
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                long left = tree[index - stride];
+                long prefix = tree[index];
+                tree[index - stride] = prefix;
+                tree[index] = combine(op, prefix, left);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (globalId < output.length) {
+            output[globalId] = (exclusive == 1) ? tree[localId] : combine(op, tree[localId], value);
+        }
+    }
+
+    public static void addGroupOffsets(long[] data, long[] groupOffsets, int op) {
+        for (@Parallel int i = WORK_GROUP_SIZE; i < data.length; i++) {
+            data[i] = combine(op, groupOffsets[i / WORK_GROUP_SIZE], data[i]);
+        }
+    }
+
+    public static void scanWorkGroups(float[] input, float[] output, float[] groupSums, int op, int exclusive) {
+        int globalId = KernelContext.getGlobalId(0);
+        int localId = KernelContext.getLocalId(0);
+        float[] tree = KernelContext.allocateFloatLocalArray(WORK_GROUP_SIZE);
+
+        float value = (globalId < input.length) ? input[globalId] : floatIdentity(op);
+        tree[localId] = value;
+        for (int stride = 1; stride < WORK_GROUP_SIZE; stride *= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                tree[index] = combine(op, tree[index - stride], tree[index]);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (localId == 0) {
+            groupSums[KernelContext.getGroupId(0)] = tree[WORK_GROUP_SIZE - 1];
+            tree[WORK_GROUP_SIZE - 1] = floatIdentity(op);
+        }
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                float left = tree[index - stride];
+                float prefix = tree[index];
+                tree[index - stride] = prefix;
+                tree[index] = combine(op, prefix, left);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (globalId < output.length) {
+            output[globalId] = (exclusive == 1) ? tree[localId] : combine(op, tree[localId], value);
+        }
+    }
+
+    public static void addGroupOffsets(float[] data, float[] groupOffsets, int op) {
+        for (@Parallel int i = WORK_GROUP_SIZE; i < data.length; i++) {
+            data[i] = combine(op, groupOffsets[i / WORK_GROUP_SIZE], data[i]);
+        }
+    }
+
+    public static void scanWorkGroups(double[] input, double[] output, double[] groupSums, int op, int exclusive) {
+        int globalId = KernelContext.getGlobalId(0);
+        int localId = KernelContext.getLocalId(0);
+        double[] tree = KernelContext.allocateDoubleLocalArray(WORK_GROUP_SIZE);
+
+        double value = (globalId < input.length) ? input[globalId] : doubleIdentity(op);
+        tree[localId] = value;
+        for (int stride = 1; stride < WORK_GROUP_SIZE; stride *= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                tree[index] = combine(op, tree[index - stride], tree[index]);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (localId == 0) {
+            groupSums[KernelContext.getGroupId(0)] = tree[WORK_GROUP_SIZE - 1];
+            tree[WORK_GROUP_SIZE - 1] = doubleIdentity(op);
+        }
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            int index = (localId + 1) * stride * 2 - 1;
+            if (index < WORK_GROUP_SIZE) {
+                double left = tree[index - stride];
+                double prefix = tree[index];
+                tree[index - stride] = prefix;
+                tree[index] = combine(op, prefix, left);
+            }
+        }
+
+        KernelContext.localBarrier();
+        if (globalId < output.length) {
+            output[globalId] = (exclusive == 1) ? tree[localId] : combine(op, tree[localId], value);
+        }
+    }
+
+    public static void addGroupOffsets(double[] data, double[] groupOffsets, int op) {
+        for (@Parallel int i = WORK_GROUP_SIZE; i < data.length; i++) {
+            data[i] = combine(op, groupOffsets[i / WORK_GROUP_SIZE], data[i]);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.combine;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.doubleIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.floatIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.intIdentity;
+import static uk.ac.manchester.tornado.api.collections.algorithms.ReductionOperations.longIdentity;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Kernels of the segmented reduction of a task-schedule. The segments are
+ * described by an offsets array of {@code numSegments + 1} elements, as the
+ * row pointers of a CSR matrix: segment {@code s} covers the values from
+ * {@code offsets[s]} to {@code offsets[s + 1] - 1}. Empty segments get the
+ * identity of the operation. The kernels are added to a task-schedule with
+ * {@link uk.ac.manchester.tornado.api.TaskSchedule#reduceSegments}.
+ *
+ * On GPUs, each segment is reduced by a work-group of
+ * {@link #WORK_GROUP_SIZE} work-items: the work-items fold the segment with a
+ * stride of the work-group size, so neighbouring work-items read neighbouring
+ * values, and the partial results are combined with a tree in local memory.
+ * On the rest of the devices, each thread of a {@code @Parallel} loop reduces
+ * one segment.
+ */
+public final class TornadoSegmentedReduction {
+
+    /**
+     * Number of work-items that reduce a segment on GPUs. It is a power of two.
+     */
+    public static final int WORK_GROUP_SIZE = 128;
+
+    private TornadoSegmentedReduction() {
+    }
+
+    /**
+     * Checks the sizes of the offsets and output arrays.
+     *
+     * @param offsetsLength
+     *            Length of the offsets array.
+     * @param outputLength
+     *            Length of the output array.
+     */
+    public static void checkSegments(int offsetsLength, int outputLength) {
+        if (offsetsLength != outputLength + 1) {
+            throw new TornadoRuntimeException("[ERROR] The offsets of a segmented reduction must have one element more than the output: " + offsetsLength + " != " + (outputLength + 1));
+        }
+    }
+
+    /**
+     * Returns the global work of {@code reduceSegmentsInWorkGroups}: one
+     * work-group per segment.
+     */
+    public static long[] globalWork(int numSegments) {
+        return new long[] { (long) numSegments * WORK_GROUP_SIZE };
+    }
+
+    public static long[] localWork() {
+        return new long[] { WORK_GROUP_SIZE };
+    }
+
+    public static void reduceSegments(int[] values, int[] offsets, int[] output, int op) {
+        for (@Parallel int segment = 0; segment < output.length; segment++) {
+            int acc = intIdentity(op);
+            for (int i = offsets[segment]; i < offsets[segment + 1]; i++) {
+                acc = combine(op, acc, values[i]);
+            }
+            output[segment] = acc;
+        }
+    }
+
+    public static void reduceSegments(long[] values, int[] offsets, long[] output, int op) {
+        for (@Parallel int segment = 0; segment < output.length; segment++) {
+            long acc = longIdentity(op);
+            for (int i = offsets[segment]; i < offsets[segment + 1]; i++) {
+                acc = combine(op, acc, values[i]);
+            }
+            output[segment] = acc;
+        }
+    }
+
+    public static void reduceSegments(float[] values, int[] offsets, float[] output, int op) {
+        for (@Parallel int segment = 0; segment < output.length; segment++) {
+            float acc = floatIdentity(op);
+            for (int i = offsets[segment]; i < offsets[segment + 1]; i++) {
+                acc = combine(op, acc, values[i]);
+            }
+            output[segment] = acc;
+        }
+    }
+
+    public static void reduceSegments(double[] values, int[] offsets, double[] output, int op) {
+        for (@Parallel int segment = 0; segment < output.length; segment++) {
+            double acc = doubleIdentity(op);
+            for (int i = offsets[segment]; i < offsets[segment + 1]; i++) {
+                acc = combine(op, acc, values[i]);
+            }
+            output[segment] = acc;
+        }
+    }
+
+    public static void reduceSegmentsInWorkGroups(int[] values, int[] offsets, int[] output, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int segment = KernelContext.getGroupId(0);
+        int[] partials = KernelContext.allocateIntLocalArray(WORK_GROUP_SIZE);
+
+        int acc = intIdentity(op);
+        for (int i = offsets[segment] + localId; i < offsets[segment + 1]; i += WORK_GROUP_SIZE) {
+            acc = combine(op, acc, values[i]);
+        }
+        partials[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                partials[localId] = combine(op, partials[localId], partials[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            output[segment] = partials[0];
+        }
+    }
+
+    public static void reduceSegmentsInWorkGroups(long[] values, int[] offsets, long[] output, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int segment = KernelContext.getGroupId(0);
+        long[] partials = KernelContext.allocateLongLocalArray(WORK_GROUP_SIZE);
+
+        long acc = longIdentity(op);
+        for (int i = offsets[segment] + localId; i < offsets[segment + 1]; i += WORK_GROUP_SIZE) {
+            acc = combine(op, acc, values[i]);
+        }
+        partials[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                partials[localId] = combine(op, partials[localId], partials[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            output[segment] = partials[0];
+        }
+    }
+
+    public static void reduceSegmentsInWorkGroups(float[] values, int[] offsets, float[] output, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int segment = KernelContext.getGroupId(0);
+        float[] partials = KernelContext.allocateFloatLocalArray(WORK_GROUP_SIZE);
+
+        float acc = floatIdentity(op);
+        for (int i = offsets[segment] + localId; i < offsets[segment + 1]; i += WORK_GROUP_SIZE) {
+            acc = combine(op, acc, values[i]);
+        }
+        partials[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                partials[localId] = combine(op, partials[localId], partials[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            output[segment] = partials[0];
+        }
+    }
+
+    public static void reduceSegmentsInWorkGroups(double[] values, int[] offsets, double[] output, int op) {
+        int localId = KernelContext.getLocalId(0);
+        int segment = KernelContext.getGroupId(0);
+        double[] partials = KernelContext.allocateDoubleLocalArray(WORK_GROUP_SIZE);
+
+        double acc = doubleIdentity(op);
+        for (int i = offsets[segment] + localId; i < offsets[segment + 1]; i += WORK_GROUP_SIZE) {
+            acc = combine(op, acc, values[i]);
+        }
+        partials[localId] = acc;
+        for (int stride = WORK_GROUP_SIZE / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                partials[localId] = combine(op, partials[localId], partials[localId + stride]);
+            }
+        }
+        if (localId == 0) {
+            output[segment] = partials[0];
+        }
+    }
+}
@@ -0,0 +1,801 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Kernels of the sorting operations of a task-schedule. All of them sort in
+ * ascending order and the result is written back to the input arrays, so it
+ * can be used by the following tasks without leaving the device.
+ * <p>
+ * On GPUs, all key types are sorted with a stable LSD radix sort of 8 bits per
+ * pass over tiles of {@link #TILE_SIZE} keys, one tile per work-group. Each
+ * pass sorts every tile by the digit in local memory, with one stable split
+ * per bit, and takes the histogram of the tile from the runs of equal digits,
+ * also in local memory. An exclusive scan of the histograms gives the position
+ * of each run, and the scatter kernel writes every run of a tile
+ * contiguously. {@code float} and {@code double} keys are sorted by their
+ * bits: negative keys have every bit but the sign flipped, so the bits compare
+ * as signed integers in the order of the keys, and the digits of all key
+ * types are taken after flipping the sign bit. Together, this flips all the
+ * bits of negative keys and only the sign bit of the rest. NaN keys are
+ * sorted last, as in {@link java.util.Arrays#sort(float[])}, and
+ * {@code -0.0} is sorted before {@code 0.0}.
+ * <p>
+ * On the rest of the devices:
+ * <ul>
+ * <li>{@code int} and {@code long} keys are sorted with the same radix sort
+ * over blocks of about sqrt(n) keys. Each pass counts the digits of every
+ * block with one thread per block, computes the positions with an exclusive
+ * scan of the counts and scatters the keys of each block in order.</li>
+ * <li>{@code float} and {@code double} keys are sorted with a bitonic sorting
+ * network on a copy of the keys padded to a power of two with NaN. Each step
+ * of the network is one task, but the steps read their size and stride from a
+ * table on the device (see {@link #bitonicSteps(int)}) instead of receiving
+ * them as scalars, so all of them share two compiled kernels. NaN keys are
+ * sorted last, while {@code -0.0} and {@code 0.0} are equal. The sort by key
+ * compares the original positions of equal keys, so it is stable.</li>
+ * </ul>
+ * The kernels are added to a task-schedule with
+ * {@link uk.ac.manchester.tornado.api.TaskSchedule#sort} and
+ * {@link uk.ac.manchester.tornado.api.TaskSchedule#sortByKey}.
+ */
+public final class TornadoSort {
+
+    /**
+     * Number of buckets of each radix pass.
+     */
+    public static final int RADIX = 256;
+
+    /**
+     * Number of bits of each radix pass.
+     */
+    public static final int RADIX_BITS = 8;
+
+    /**
+     * Number of keys of each work-group of the radix sort on GPUs. Each thread
+     * of the work-group clears and writes the counter of one bucket, so it is
+     * equal to {@link #RADIX}.
+     */
+    public static final int TILE_SIZE = RADIX;
+
+    private static final int CANONICAL_FLOAT_NAN = 0x7fc00000;
+
+    private static final long CANONICAL_DOUBLE_NAN = 0x7ff8000000000000L;
+
+    private TornadoSort() {
+    }
+
+    /**
+     * Returns the length of the counts array of the radix sort, one counter per
+     * bucket and block of keys.
+     *
+     * @param length
+     *            Number of keys.
+     * @return length of the counts array.
+     */
+    public static int countsLength(int length) {
+        return RADIX * Math.max(1, (int) Math.ceil(Math.sqrt(length)));
+    }
+
+    /**
+     * Returns the length of the padded keys of the bitonic sort.
+     *
+     * @param length
+     *            Number of keys.
+     * @return smallest power of two greater or equal than the length.
+     */
+    public static int paddedLength(int length) {
+        return (length <= 1) ? 1 : Integer.highestOneBit(length - 1) << 1;
+    }
+
+    /**
+     * Returns the table of steps of the bitonic sorting network of the padded
+     * keys. The first two entries are the counters of the current step, which
+     * the step kernels read and increment on the device. They are followed by
+     * the size of the sorted sequences and the stride of the comparisons of
+     * every step. As the steps take their size and stride from the table, all
+     * of them run the same two kernels.
+     *
+     * @param paddedLength
+     *            Length of the padded keys, a power of two.
+     * @return table of steps.
+     */
+    public static int[] bitonicSteps(int paddedLength) {
+        int numSteps = numBitonicSteps(paddedLength);
+        int[] steps = new int[2 + 2 * numSteps];
+        int step = 0;
+        for (int size = 2; size <= paddedLength; size <<= 1) {
+            for (int stride = size >> 1; stride > 0; stride >>= 1) {
+                steps[2 + 2 * step] = size;
+                steps[3 + 2 * step] = stride;
+                step++;
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Returns the number of steps of the bitonic sorting network.
+     *
+     * @param paddedLength
+     *            Length of the padded keys, a power of two.
+     * @return number of steps.
+     */
+    public static int numBitonicSteps(int paddedLength) {
+        int log = Integer.numberOfTrailingZeros(paddedLength);
+        return log * (log + 1) / 2;
+    }
+
+    /**
+     * Checks that there is one value per key.
+     *
+     * @param keysLength
+     *            Length of the keys array.
+     * @param valuesLength
+     *            Length of the values array.
+     */
+    public static void checkValues(int keysLength, int valuesLength) {
+        if (keysLength != valuesLength) {
+            throw new TornadoRuntimeException("[ERROR] The keys and values to sort must have the same length: " + keysLength + " != " + valuesLength);
+        }
+    }
+
+    private static int blockSize(int length, int numBlocks) {
+        return (length + numBlocks - 1) / numBlocks;
+    }
+
+    public static void histogram(int[] keys, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        int blockSize = blockSize(keys.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            for (int digit = 0; digit < RADIX; digit++) {
+                counts[digit * numBlocks + block] = 0;
+            }
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, keys.length);
+            for (int i = start; i < end; i++) {
+                int digit = ((keys[i] ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+                counts[digit * numBlocks + block]++;
+            }
+        }
+    }
+
+    public static void scatter(int[] keys, int[] sortedKeys, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        int blockSize = blockSize(keys.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, keys.length);
+            for (int i = start; i < end; i++) {
+                int digit = ((keys[i] ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+                int position = counts[digit * numBlocks + block];
+                sortedKeys[position] = keys[i];
+                counts[digit * numBlocks + block] = position + 1;
+            }
+        }
+    }
+
+    public static void scatterByKey(int[] keys, int[] values, int[] sortedKeys, int[] sortedValues, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        int blockSize = blockSize(keys.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, keys.length);
+            for (int i = start; i < end; i++) {
+                int digit = ((keys[i] ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+                int position = counts[digit * numBlocks + block];
+                sortedKeys[position] = keys[i];
+                sortedValues[position] = values[i];
+                counts[digit * numBlocks + block] = position + 1;
+            }
+        }
+    }
+
+    public static void histogram(long[] keys, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        int blockSize = blockSize(keys.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            for (int digit = 0; digit < RADIX; digit++) {
+                counts[digit * numBlocks + block] = 0;
+            }
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, keys.length);
+            for (int i = start; i < end; i++) {
+                int digit = (int) (((keys[i] ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+                counts[digit * numBlocks + block]++;
+            }
+        }
+    }
+
+    public static void scatter(long[] keys, long[] sortedKeys, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        int blockSize = blockSize(keys.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, keys.length);
+            for (int i = start; i < end; i++) {
+                int digit = (int) (((keys[i] ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+                int position = counts[digit * numBlocks + block];
+                sortedKeys[position] = keys[i];
+                counts[digit * numBlocks + block] = position + 1;
+            }
+        }
+    }
+
+    public static void scatterByKey(long[] keys, int[] values, long[] sortedKeys, int[] sortedValues, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        int blockSize = blockSize(keys.length, numBlocks);
+        for (@Parallel int block = 0; block < numBlocks; block++) {
+            int start = block * blockSize;
+            int end = Math.min(start + blockSize, keys.length);
+            for (int i = start; i < end; i++) {
+                int digit = (int) (((keys[i] ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+                int position = counts[digit * numBlocks + block];
+                sortedKeys[position] = keys[i];
+                sortedValues[position] = values[i];
+                counts[digit * numBlocks + block] = position + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tiles of the work-group radix sort.
+     *
+     * @param length
+     *            Number of keys.
+     * @return number of tiles of {@link #TILE_SIZE} keys.
+     */
+    public static int numTiles(int length) {
+        return Math.max(1, (length + TILE_SIZE - 1) / TILE_SIZE);
+    }
+
+    /**
+     * Returns the length of the counts array of the work-group radix sort, one
+     * counter per bucket and tile.
+     *
+     * @param length
+     *            Number of keys.
+     * @return length of the counts array.
+     */
+    public static int tileCountsLength(int length) {
+        return RADIX * numTiles(length);
+    }
+
+    /**
+     * Returns the global work of the tile kernels: one thread per key, rounded
+     * up to a multiple of the tile size.
+     */
+    public static long[] tileGlobalWork(int length) {
+        return new long[] { (long) numTiles(length) * TILE_SIZE };
+    }
+
+    public static long[] tileLocalWork() {
+        return new long[] { TILE_SIZE };
+    }
+
+    public static void toSortableBits(float[] keys, int[] bits) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            int raw = (keys[i] != keys[i]) ? CANONICAL_FLOAT_NAN : Float.floatToRawIntBits(keys[i]);
+            bits[i] = raw ^ ((raw >> 31) & Integer.MAX_VALUE);
+        }
+    }
+
+    public static void fromSortableBits(int[] bits, float[] keys) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            int raw = bits[i];
+            keys[i] = Float.intBitsToFloat(raw ^ ((raw >> 31) & Integer.MAX_VALUE));
+        }
+    }
+
+    public static void toSortableBits(double[] keys, long[] bits) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            long raw = (keys[i] != keys[i]) ? CANONICAL_DOUBLE_NAN : Double.doubleToRawLongBits(keys[i]);
+            bits[i] = raw ^ ((raw >> 63) & Long.MAX_VALUE);
+        }
+    }
+
+    public static void fromSortableBits(long[] bits, double[] keys) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            long raw = bits[i];
+            keys[i] = Double.longBitsToDouble(raw ^ ((raw >> 63) & Long.MAX_VALUE));
+        }
+    }
+
+    public static void sortTiles(int[] keys, int[] tileKeys, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, keys.length - tile * TILE_SIZE);
+        int[] ranks = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+        int[] runEnds = KernelContext.allocateIntLocalArray(RADIX);
+
+        // Keys past the end are in the last bucket of every pass, after the valid keys
+        int key = (localId < numKeys) ? keys[tile * TILE_SIZE + localId] : Integer.MAX_VALUE;
+        int digit = ((key ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+
+        // Stable split of the tile by each bit of the digit, with a scan of the zeros
+        int position = localId;
+        for (int bit = 0; bit < RADIX_BITS; bit++) {
+            int zero = 1 - ((digit >>> bit) & 1);
+            ranks[position] = zero;
+            for (int offset = 1; offset < TILE_SIZE; offset *= 2) {
+                KernelContext.localBarrier();
+                int previous = (position >= offset) ? ranks[position - offset] : 0;
+                KernelContext.localBarrier();
+                ranks[position] += previous;
+            }
+            KernelContext.localBarrier();
+            int zerosBefore = ranks[position] - zero;
+            int numZeros = ranks[TILE_SIZE - 1];
+            KernelContext.localBarrier();
+            position = (zero == 1) ? zerosBefore : numZeros + position - zerosBefore;
+        }
+
+        // The histogram of the tile is the length of the run of each digit
+        ranks[position] = digit;
+        runStarts[localId] = 0;
+        runEnds[localId] = 0;
+        KernelContext.localBarrier();
+        if (position < numKeys) {
+            if (position == 0 || ranks[position - 1] != digit) {
+                runStarts[digit] = position;
+            }
+            if (position == numKeys - 1 || ranks[position + 1] != digit) {
+                runEnds[digit] = position + 1;
+            }
+            tileKeys[tile * TILE_SIZE + position] = key;
+        }
+        KernelContext.localBarrier();
+        counts[localId * numTiles + tile] = runEnds[localId] - runStarts[localId];
+    }
+
+    public static void sortTilesByKey(int[] keys, int[] values, int[] tileKeys, int[] tileValues, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, keys.length - tile * TILE_SIZE);
+        int[] ranks = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+        int[] runEnds = KernelContext.allocateIntLocalArray(RADIX);
+
+        int key = (localId < numKeys) ? keys[tile * TILE_SIZE + localId] : Integer.MAX_VALUE;
+        int value = (localId < numKeys) ? values[tile * TILE_SIZE + localId] : 0;
+        int digit = ((key ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+
+        int position = localId;
+        for (int bit = 0; bit < RADIX_BITS; bit++) {
+            int zero = 1 - ((digit >>> bit) & 1);
+            ranks[position] = zero;
+            for (int offset = 1; offset < TILE_SIZE; offset *= 2) {
+                KernelContext.localBarrier();
+                int previous = (position >= offset) ? ranks[position - offset] : 0;
+                KernelContext.localBarrier();
+                ranks[position] += previous;
+            }
+            KernelContext.localBarrier();
+            int zerosBefore = ranks[position] - zero;
+            int numZeros = ranks[TILE_SIZE - 1];
+            KernelContext.localBarrier();
+            position = (zero == 1) ? zerosBefore : numZeros + position - zerosBefore;
+        }
+
+        ranks[position] = digit;
+        runStarts[localId] = 0;
+        runEnds[localId] = 0;
+        KernelContext.localBarrier();
+        if (position < numKeys) {
+            if (position == 0 || ranks[position - 1] != digit) {
+                runStarts[digit] = position;
+            }
+            if (position == numKeys - 1 || ranks[position + 1] != digit) {
+                runEnds[digit] = position + 1;
+            }
+            tileKeys[tile * TILE_SIZE + position] = key;
+            tileValues[tile * TILE_SIZE + position] = value;
+        }
+        KernelContext.localBarrier();
+        counts[localId * numTiles + tile] = runEnds[localId] - runStarts[localId];
+    }
+
+    public static void scatterTiles(int[] tileKeys, int[] sortedKeys, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, tileKeys.length - tile * TILE_SIZE);
+        int[] digits = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+
+        int key = (localId < numKeys) ? tileKeys[tile * TILE_SIZE + localId] : Integer.MAX_VALUE;
+        int digit = ((key ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+        digits[localId] = digit;
+        KernelContext.localBarrier();
+        if (localId < numKeys && (localId == 0 || digits[localId - 1] != digit)) {
+            runStarts[digit] = localId;
+        }
+        KernelContext.localBarrier();
+        if (localId < numKeys) {
+            sortedKeys[counts[digit * numTiles + tile] + localId - runStarts[digit]] = key;
+        }
+    }
+
+    public static void scatterTilesByKey(int[] tileKeys, int[] tileValues, int[] sortedKeys, int[] sortedValues, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, tileKeys.length - tile * TILE_SIZE);
+        int[] digits = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+
+        int key = (localId < numKeys) ? tileKeys[tile * TILE_SIZE + localId] : Integer.MAX_VALUE;
+        int digit = ((key ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+        digits[localId] = digit;
+        KernelContext.localBarrier();
+        if (localId < numKeys && (localId == 0 || digits[localId - 1] != digit)) {
+            runStarts[digit] = localId;
+        }
+        KernelContext.localBarrier();
+        if (localId < numKeys) {
+            int position = counts[digit * numTiles + tile] + localId - runStarts[digit];
+            sortedKeys[position] = key;
+            sortedValues[position] = tileValues[tile * TILE_SIZE + localId];
+        }
+    }
+
+    public static void sortTiles(long[] keys, long[] tileKeys, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, keys.length - tile * TILE_SIZE);
+        int[] ranks = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+        int[] runEnds = KernelContext.allocateIntLocalArray(RADIX);
+
+        long key = (localId < numKeys) ? keys[tile * TILE_SIZE + localId] : Long.MAX_VALUE;
+        int digit = (int) (((key ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+
+        int position = localId;
+        for (int bit = 0; bit < RADIX_BITS; bit++) {
+            int zero = 1 - ((digit >>> bit) & 1);
+            ranks[position] = zero;
+            for (int offset = 1; offset < TILE_SIZE; offset *= 2) {
+                KernelContext.localBarrier();
+                int previous = (position >= offset) ? ranks[position - offset] : 0;
+                KernelContext.localBarrier();
+                ranks[position] += previous;
+            }
+            KernelContext.localBarrier();
+            int zerosBefore = ranks[position] - zero;
+            int numZeros = ranks[TILE_SIZE - 1];
+            KernelContext.localBarrier();
+            position = (zero == 1) ? zerosBefore : numZeros + position - zerosBefore;
+        }
+
+        ranks[position] = digit;
+        runStarts[localId] = 0;
+        runEnds[localId] = 0;
+        KernelContext.localBarrier();
+        if (position < numKeys) {
+            if (position == 0 || ranks[position - 1] != digit) {
+                runStarts[digit] = position;
+            }
+            if (position == numKeys - 1 || ranks[position + 1] != digit) {
+                runEnds[digit] = position + 1;
+            }
+            tileKeys[tile * TILE_SIZE + position] = key;
+        }
+        KernelContext.localBarrier();
+        counts[localId * numTiles + tile] = runEnds[localId] - runStarts[localId];
+    }
+
+    public static void sortTilesByKey(long[] keys, int[] values, long[] tileKeys, int[] tileValues, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, keys.length - tile * TILE_SIZE);
+        int[] ranks = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+        int[] runEnds = KernelContext.allocateIntLocalArray(RADIX);
+
+        long key = (localId < numKeys) ? keys[tile * TILE_SIZE + localId] : Long.MAX_VALUE;
+        int value = (localId < numKeys) ? values[tile * TILE_SIZE + localId] : 0;
+        int digit = (int) (((key ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+
+        int position = localId;
+        for (int bit = 0; bit < RADIX_BITS; bit++) {
+            int zero = 1 - ((digit >>> bit) & 1);
+            ranks[position] = zero;
+            for (int offset = 1; offset < TILE_SIZE; offset *= 2) {
+                KernelContext.localBarrier();
+                int previous = (position >= offset) ? ranks[position - offset] : 0;
+                KernelContext.localBarrier();
+                ranks[position] += previous;
+            }
+            KernelContext.localBarrier();
+            int zerosBefore = ranks[position] - zero;
+            int numZeros = ranks[TILE_SIZE - 1];
+            KernelContext.localBarrier();
+            position = (zero == 1) ? zerosBefore : numZeros + position - zerosBefore;
+        }
+
+        ranks[position] = digit;
+        runStarts[localId] = 0;
+        runEnds[localId] = 0;
+        KernelContext.localBarrier();
+        if (position < numKeys) {
+            if (position == 0 || ranks[position - 1] != digit) {
+                runStarts[digit] = position;
+            }
+            if (position == numKeys - 1 || ranks[position + 1] != digit) {
+                runEnds[digit] = position + 1;
+            }
+            tileKeys[tile * TILE_SIZE + position] = key;
+            tileValues[tile * TILE_SIZE + position] = value;
+        }
+        KernelContext.localBarrier();
+        counts[localId * numTiles + tile] = runEnds[localId] - runStarts[localId];
+    }
+
+    public static void scatterTiles(long[] tileKeys, long[] sortedKeys, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, tileKeys.length - tile * TILE_SIZE);
+        int[] digits = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+
+        long key = (localId < numKeys) ? tileKeys[tile * TILE_SIZE + localId] : Long.MAX_VALUE;
+        int digit = (int) (((key ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+        digits[localId] = digit;
+        KernelContext.localBarrier();
+        if (localId < numKeys && (localId == 0 || digits[localId - 1] != digit)) {
+            runStarts[digit] = localId;
+        }
+        KernelContext.localBarrier();
+        if (localId < numKeys) {
+            sortedKeys[counts[digit * numTiles + tile] + localId - runStarts[digit]] = key;
+        }
+    }
+
+    public static void scatterTilesByKey(long[] tileKeys, int[] tileValues, long[] sortedKeys, int[] sortedValues, int[] counts, int shift) {
+        int localId = KernelContext.getLocalId(0);
+        int tile = KernelContext.getGroupId(0);
+        int numTiles = counts.length / RADIX;
+        int numKeys = Math.min(TILE_SIZE, tileKeys.length - tile * TILE_SIZE);
+        int[] digits = KernelContext.allocateIntLocalArray(TILE_SIZE);
+        int[] runStarts = KernelContext.allocateIntLocalArray(RADIX);
+
+        long key = (localId < numKeys) ? tileKeys[tile * TILE_SIZE + localId] : Long.MAX_VALUE;
+        int digit = (int) (((key ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+        digits[localId] = digit;
+        KernelContext.localBarrier();
+        if (localId < numKeys && (localId == 0 || digits[localId - 1] != digit)) {
+            runStarts[digit] = localId;
+        }
+        KernelContext.localBarrier();
+        if (localId < numKeys) {
+            int position = counts[digit * numTiles + tile] + localId - runStarts[digit];
+            sortedKeys[position] = key;
+            sortedValues[position] = tileValues[tile * TILE_SIZE + localId];
+        }
+    }
+
+    public static void copy(int[] source, int[] destination) {
+        for (@Parallel int i = 0; i < destination.length; i++) {
+            destination[i] = source[i];
+        }
+    }
+
+    private static boolean isGreater(float a, float b) {
+        return (a > b) || (Float.isNaN(a) && !Float.isNaN(b));
+    }
+
+    private static boolean isGreater(float a, int indexA, float b, int indexB) {
+        boolean equal = (a == b) || (Float.isNaN(a) && Float.isNaN(b));
+        return isGreater(a, b) || (equal && indexA > indexB);
+    }
+
+    public static void pad(float[] keys, float[] paddedKeys, int[] steps) {
+        for (@Parallel int i = 0; i < paddedKeys.length; i++) {
+            paddedKeys[i] = (i < keys.length) ? keys[i] : Float.NaN;
+            if (i == 0) {
+                steps[0] = 0;
+            }
+        }
+    }
+
+    public static void unpad(float[] paddedKeys, float[] keys) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            keys[i] = paddedKeys[i];
+        }
+    }
+
+    public static void bitonicStep(float[] keys, int[] steps, int parity) {
+        int step = steps[parity];
+        int size = steps[2 + 2 * step];
+        int stride = steps[3 + 2 * step];
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            int partner = i ^ stride;
+            if (partner > i) {
+                float a = keys[i];
+                float b = keys[partner];
+                if (((i & size) == 0) ? isGreater(a, b) : isGreater(b, a)) {
+                    keys[i] = b;
+                    keys[partner] = a;
+                }
+            }
+            if (i == 0) {
+                steps[1 - parity] = step + 1;
+            }
+        }
+    }
+
+    public static void padByKey(float[] keys, float[] paddedKeys, int[] indices, int[] steps) {
+        for (@Parallel int i = 0; i < paddedKeys.length; i++) {
+            paddedKeys[i] = (i < keys.length) ? keys[i] : Float.NaN;
+            indices[i] = i;
+            if (i == 0) {
+                steps[0] = 0;
+            }
+        }
+    }
+
+    public static void unpadByKey(float[] paddedKeys, int[] indices, float[] keys, int[] values, int[] sortedValues) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            keys[i] = paddedKeys[i];
+            sortedValues[i] = values[indices[i]];
+        }
+    }
+
+    public static void bitonicStepByKey(float[] keys, int[] indices, int[] steps, int parity) {
+        int step = steps[parity];
+        int size = steps[2 + 2 * step];
+        int stride = steps[3 + 2 * step];
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            int partner = i ^ stride;
+            if (partner > i) {
+                float a = keys[i];
+                float b = keys[partner];
+                int indexA = indices[i];
+                int indexB = indices[partner];
+                if (((i & size) == 0) ? isGreater(a, indexA, b, indexB) : isGreater(b, indexB, a, indexA)) {
+                    keys[i] = b;
+                    keys[partner] = a;
+                    indices[i] = indexB;
+                    indices[partner] = indexA;
+                }
+            }
+            if (i == 0) {
+                steps[1 - parity] = step + 1;
+            }
+        }
+    }
+
+    private static boolean isGreater(double a, double b) {
+        return (a > b) || (Double.isNaN(a) && !Double.isNaN(b));
+    }
+
+    private static boolean isGreater(double a, int indexA, double b, int indexB) {
+        boolean equal = (a == b) || (Double.isNaN(a) && Double.isNaN(b));
+        return isGreater(a, b) || (equal && indexA > indexB);
+    }
+
+    public static void pad(double[] keys, double[] paddedKeys, int[] steps) {
+        for (@Parallel int i = 0; i < paddedKeys.length; i++) {
+            paddedKeys[i] = (i < keys.length) ? keys[i] : Double.NaN;
+            if (i == 0) {
+                steps[0] = 0;
+            }
+        }
+    }
+
+    public static void unpad(double[] paddedKeys, double[] keys) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            keys[i] = paddedKeys[i];
+        }
+    }
+
+    public static void bitonicStep(double[] keys, int[] steps, int parity) {
+        int step = steps[parity];
+        int size = steps[2 + 2 * step];
+        int stride = steps[3 + 2 * step];
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            int partner = i ^ stride;
+            if (partner > i) {
+                double a = keys[i];
+                double b = keys[partner];
+                if (((i & size) == 0) ? isGreater(a, b) : isGreater(b, a)) {
+                    keys[i] = b;
+                    keys[partner] = a;
+                }
+            }
+            if (i == 0) {
+                steps[1 - parity] = step + 1;
+            }
+        }
+    }
+
+    public static void padByKey(double[] keys, double[] paddedKeys, int[] indices, int[] steps) {
+        for (@Parallel int i = 0; i < paddedKeys.length; i++) {
+            paddedKeys[i] = (i < keys.length) ? keys[i] : Double.NaN;
+            indices[i] = i;
+            if (i == 0) {
+                steps[0] = 0;
+            }
+        }
+    }
+
+    public static void unpadByKey(double[] paddedKeys, int[] indices, double[] keys, int[] values, int[] sortedValues) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            keys[i] = paddedKeys[i];
+            sortedValues[i] = values[indices[i]];
+        }
+    }
+
+    public static void bitonicStepByKey(double[] keys, int[] indices, int[] steps, int parity) {
+        int step = steps[parity];
+        int size = steps[2 + 2 * step];
+        int stride = steps[3 + 2 * step];
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            int partner = i ^ stride;
+            if (partner > i) {
+                double a = keys[i];
+                double b = keys[partner];
+                int indexA = indices[i];
+                int indexB = indices[partner];
+                if (((i & size) == 0) ? isGreater(a, indexA, b, indexB) : isGreater(b, indexB, a, indexA)) {
+                    keys[i] = b;
+                    keys[partner] = a;
+                    indices[i] = indexB;
+                    indices[partner] = indexA;
+                }
+            }
+            if (i == 0) {
+                steps[1 - parity] = step + 1;
+            }
+        }
+    }
+}
@@ -46,6 +46,8 @@ import static java.lang.Math.abs;
 import static java.lang.Math.ulp;
 import static uk.ac.manchester.tornado.api.collections.math.TornadoMath.findULPDistance;
 
+import uk.ac.manchester.tornado.api.atomics.TornadoAtomics;
+
 public class DoubleOps {
 
     public static final double EPSILON = 1e-7f;
@@ -121,6 +123,6 @@ public class DoubleOps {
     }
 
     public static final void atomicAdd(double[] array, int index, double value) {
-        array[index] += value;
+        TornadoAtomics.atomicAdd(array, index, value);
     }
 }
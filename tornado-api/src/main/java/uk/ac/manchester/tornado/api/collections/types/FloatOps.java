@@ -46,6 +46,8 @@ import static java.lang.Math.abs;
 import static java.lang.Math.ulp;
 import static uk.ac.manchester.tornado.api.collections.math.TornadoMath.findULPDistance;
 
+import uk.ac.manchester.tornado.api.atomics.TornadoAtomics;
+
 public class FloatOps {
 
     public static final float EPSILON = 1e-7f;
@@ -121,6 +123,6 @@ public class FloatOps {
     }
 
     public static final void atomicAdd(float[] array, int index, float value) {
-        array[index] += value;
+        TornadoAtomics.atomicAdd(array, index, value);
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+/**
+ * Conversions between {@code float} and IEEE 754 half-precision values. A half
+ * value is stored in the 16 bits of a {@code short}.
+ *
+ * Inside a task, {@link #load} and {@link #store} are compiled to the OpenCL
+ * {@code vload_half} and {@code vstore_half} built-ins: the arithmetic is done
+ * in single precision and only the storage uses 16 bits.
+ */
+public final class HalfOps {
+
+    private HalfOps() {
+    }
+
+    /**
+     * Converts a float to half precision, rounding to the nearest even value.
+     * Values too large for half precision become infinity.
+     *
+     * @param value
+     * @return bits of the half value
+     */
+    public static short fromFloat(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7fffffff;
+
+        if (abs >= 0x7f800000) {
+            // Infinity or NaN
+            return (short) (sign | 0x7c00 | ((abs > 0x7f800000) ? 0x200 : 0));
+        } else if (abs >= 0x477ff000) {
+            // Rounds above the largest half (65504)
+            return (short) (sign | 0x7c00);
+        } else if (abs < 0x33000000) {
+            // Rounds to zero
+            return (short) sign;
+        }
+
+        int result;
+        int remainder;
+        int halfway;
+        if (abs < 0x38800000) {
+            // Subnormal half
+            int shift = 126 - (abs >>> 23);
+            int mantissa = (abs & 0x7fffff) | 0x800000;
+            result = mantissa >> shift;
+            remainder = mantissa & ((1 << shift) - 1);
+            halfway = 1 << (shift - 1);
+        } else {
+            result = (((abs >>> 23) - 112) << 10) | ((abs & 0x7fffff) >>> 13);
+            remainder = abs & 0x1fff;
+            halfway = 0x1000;
+        }
+        if (remainder > halfway || (remainder == halfway && (result & 1) != 0)) {
+            result++;
+        }
+        return (short) (sign | result);
+    }
+
+    /**
+     * Converts a half value to float. The conversion is exact.
+     *
+     * @param half
+     *            bits of the half value
+     * @return value
+     */
+    public static float toFloat(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        } else if (exponent == 0) {
+            // Zero or subnormal: mantissa * 2^-24
+            float value = mantissa * 0x1p-24f;
+            return (sign != 0) ? -value : value;
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * Reads the half value at the given index of an array as a float.
+     */
+    public static float load(short[] array, int index) {
+        return toFloat(array[index]);
+    }
+
+    /**
+     * Stores a float in half precision at the given index of an array.
+     */
+    public static void store(short[] array, int index, float value) {
+        array[index] = fromFloat(value);
+    }
+
+    public static short[] fromFloats(float[] values) {
+        short[] result = new short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = fromFloat(values[i]);
+        }
+        return result;
+    }
+
+    public static float[] toFloats(short[] values) {
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = toFloat(values[i]);
+        }
+        return result;
+    }
+}
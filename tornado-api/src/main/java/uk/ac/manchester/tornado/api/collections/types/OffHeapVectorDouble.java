@@ -0,0 +1,155 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import static java.lang.String.format;
+import static uk.ac.manchester.tornado.api.collections.types.DoubleOps.fmt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Vector of doubles stored outside of the Java heap. The elements live in a
+ * direct buffer, so the device driver copies them without pinning or copying a
+ * Java array. In the kernels, it is used as a double array.
+ */
+public class OffHeapVectorDouble implements PrimitiveStorage<DoubleBuffer> {
+
+    private final int numElements;
+    private final ByteBuffer buffer;
+    private final DoubleBuffer storage;
+
+    /**
+     * Creates a vector with all the elements set to zero.
+     *
+     * @param numElements
+     */
+    public OffHeapVectorDouble(int numElements) {
+        this.numElements = numElements;
+        this.buffer = ByteBuffer.allocateDirect(numElements * Double.BYTES).order(ByteOrder.nativeOrder());
+        this.storage = buffer.asDoubleBuffer();
+    }
+
+    /**
+     * Creates a vector with a copy of the provided array.
+     *
+     * @param values
+     */
+    public OffHeapVectorDouble(double[] values) {
+        this(values.length);
+        storage.duplicate().put(values);
+    }
+
+    /**
+     * Returns the double at the given index of this vector
+     *
+     * @param index
+     * @return value
+     */
+    public double get(int index) {
+        return storage.get(index);
+    }
+
+    /**
+     * Sets the double at the given index of this vector
+     *
+     * @param index
+     * @param value
+     */
+    public void set(int index, double value) {
+        storage.put(index, value);
+    }
+
+    /**
+     * Sets all elements to value
+     *
+     * @param value
+     */
+    public void fill(double value) {
+        for (int i = 0; i < numElements; i++) {
+            storage.put(i, value);
+        }
+    }
+
+    /**
+     * Returns the direct buffer that stores the elements of this vector.
+     *
+     * @return {@link ByteBuffer} in the native byte order.
+     */
+    public ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    public String toString(String fmt) {
+        StringBuilder str = new StringBuilder("[ ");
+        for (int i = 0; i < numElements; i++) {
+            str.append(format(fmt, get(i))).append(" ");
+        }
+        str.append("]");
+        return str.toString();
+    }
+
+    @Override
+    public String toString() {
+        String str = format("OffHeapVectorDouble <%d>", numElements);
+        if (numElements < 32) {
+            str += toString(fmt);
+        }
+        return str;
+    }
+
+    @Override
+    public void loadFromBuffer(DoubleBuffer values) {
+        asBuffer().put(values);
+    }
+
+    @Override
+    public DoubleBuffer asBuffer() {
+        return storage.duplicate();
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import static java.lang.String.format;
+import static uk.ac.manchester.tornado.api.collections.types.IntOps.fmt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Vector of ints stored outside of the Java heap. The elements live in a
+ * direct buffer, so the device driver copies them without pinning or copying a
+ * Java array. In the kernels, it is used as an int array.
+ */
+public class OffHeapVectorInt implements PrimitiveStorage<IntBuffer> {
+
+    private final int numElements;
+    private final ByteBuffer buffer;
+    private final IntBuffer storage;
+
+    /**
+     * Creates a vector with all the elements set to zero.
+     *
+     * @param numElements
+     */
+    public OffHeapVectorInt(int numElements) {
+        this.numElements = numElements;
+        this.buffer = ByteBuffer.allocateDirect(numElements * Integer.BYTES).order(ByteOrder.nativeOrder());
+        this.storage = buffer.asIntBuffer();
+    }
+
+    /**
+     * Creates a vector with a copy of the provided array.
+     *
+     * @param values
+     */
+    public OffHeapVectorInt(int[] values) {
+        this(values.length);
+        storage.duplicate().put(values);
+    }
+
+    /**
+     * Returns the int at the given index of this vector
+     *
+     * @param index
+     * @return value
+     */
+    public int get(int index) {
+        return storage.get(index);
+    }
+
+    /**
+     * Sets the int at the given index of this vector
+     *
+     * @param index
+     * @param value
+     */
+    public void set(int index, int value) {
+        storage.put(index, value);
+    }
+
+    /**
+     * Sets all elements to value
+     *
+     * @param value
+     */
+    public void fill(int value) {
+        for (int i = 0; i < numElements; i++) {
+            storage.put(i, value);
+        }
+    }
+
+    /**
+     * Returns the direct buffer that stores the elements of this vector.
+     *
+     * @return {@link ByteBuffer} in the native byte order.
+     */
+    public ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    public String toString(String fmt) {
+        StringBuilder str = new StringBuilder("[ ");
+        for (int i = 0; i < numElements; i++) {
+            str.append(format(fmt, get(i))).append(" ");
+        }
+        str.append("]");
+        return str.toString();
+    }
+
+    @Override
+    public String toString() {
+        String str = format("OffHeapVectorInt <%d>", numElements);
+        if (numElements < 32) {
+            str += toString(fmt);
+        }
+        return str;
+    }
+
+    @Override
+    public void loadFromBuffer(IntBuffer values) {
+        asBuffer().put(values);
+    }
+
+    @Override
+    public IntBuffer asBuffer() {
+        return storage.duplicate();
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import static java.lang.String.format;
+import static java.nio.ShortBuffer.wrap;
+import static java.util.Arrays.copyOf;
+import static uk.ac.manchester.tornado.api.collections.types.FloatOps.fmt;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Vector of floats stored in half precision. It takes half the memory and the
+ * transfer time of a {@link VectorFloat}; the values are converted to float
+ * when they are read.
+ */
+public class VectorHalf implements PrimitiveStorage<ShortBuffer> {
+
+    private final int numElements;
+    private final short[] storage;
+    private static final int elementSize = 1;
+
+    /**
+     * Creates a vector using the provided backing array
+     * 
+     * @param numElements
+     * @param array
+     *            half values
+     */
+    protected VectorHalf(int numElements, short[] array) {
+        this.numElements = numElements;
+        this.storage = array;
+    }
+
+    /**
+     * Creates an empty vector with
+     * 
+     * @param numElements
+     */
+    public VectorHalf(int numElements) {
+        this(numElements, new short[numElements]);
+    }
+
+    /**
+     * Creates an new vector from the provided storage
+     * 
+     * @param storage
+     *            half values
+     */
+    public VectorHalf(short[] storage) {
+        this(storage.length / elementSize, storage);
+    }
+
+    /**
+     * Creates a vector with the given values converted to half precision
+     * 
+     * @param values
+     */
+    public VectorHalf(float[] values) {
+        this(HalfOps.fromFloats(values));
+    }
+
+    /**
+     * Returns the value at the given index of this vector
+     * 
+     * @param index
+     * @return value
+     */
+    public float get(int index) {
+        return HalfOps.load(storage, index);
+    }
+
+    /**
+     * Sets the value at the given index of this vector
+     * 
+     * @param index
+     * @param value
+     */
+    public void set(int index, float value) {
+        HalfOps.store(storage, index, value);
+    }
+
+    /**
+     * Sets the elements of this vector to that of the provided vector
+     * 
+     * @param values
+     */
+    public void set(VectorHalf values) {
+        for (int i = 0; i < values.storage.length; i++) {
+            storage[i] = values.storage[i];
+        }
+    }
+
+    /**
+     * Sets the elements of this vector to that of the provided array
+     * 
+     * @param values
+     */
+    public void set(float[] values) {
+        for (int i = 0; i < values.length; i++) {
+            storage[i] = HalfOps.fromFloat(values[i]);
+        }
+    }
+
+    /**
+     * Sets all elements to value
+     * 
+     * @param value
+     */
+    public void fill(float value) {
+        short half = HalfOps.fromFloat(value);
+        for (int i = 0; i < storage.length; i++) {
+            storage[i] = half;
+        }
+    }
+
+    /**
+     * Duplicates this vector
+     * 
+     * @return
+     */
+    public VectorHalf duplicate() {
+        return new VectorHalf(copyOf(storage, storage.length));
+    }
+
+    /**
+     * Returns the values of this vector converted to float
+     * 
+     * @return
+     */
+    public float[] toFloatArray() {
+        return HalfOps.toFloats(storage);
+    }
+
+    /**
+     * Prints the vector using the specified format string
+     * 
+     * @param fmt
+     * @return
+     */
+    public String toString(String fmt) {
+        String str = "[ ";
+
+        for (int i = 0; i < numElements; i++) {
+            str += format(fmt, get(i)) + " ";
+        }
+        str += "]";
+        return str;
+    }
+
+    public String toString() {
+        String str = format("VectorHalf <%d>", numElements);
+        if (numElements < 32) {
+            str += toString(fmt);
+        }
+        return str;
+    }
+
+    @Override
+    public void loadFromBuffer(ShortBuffer buffer) {
+        asBuffer().put(buffer);
+    }
+
+    @Override
+    public ShortBuffer asBuffer() {
+        return wrap(storage);
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+}
@@ -60,6 +60,8 @@ public class TaskPackage {
     private final int taskType;
     private final Object[] taskParameters;
     private long numThreadsToRun;
+    private long[] globalWork;
+    private long[] localWork;
 
     public TaskPackage(String id, Task code) {
         this.id = id;
@@ -153,6 +155,26 @@ public class TaskPackage {
         return numThreadsToRun;
     }
 
+    /**
+     * Grid of a task written with the KernelContext API.
+     */
+    public void setGridSize(long[] globalWork, long[] localWork) {
+        this.globalWork = globalWork.clone();
+        this.localWork = (localWork != null) ? localWork.clone() : null;
+    }
+
+    public boolean hasGridSize() {
+        return globalWork != null;
+    }
+
+    public long[] getGlobalWork() {
+        return globalWork;
+    }
+
+    public long[] getLocalWork() {
+        return localWork;
+    }
+
     /**
      * Get all parameters to the lambda expression. First parameter is reserved to
      * the input code.
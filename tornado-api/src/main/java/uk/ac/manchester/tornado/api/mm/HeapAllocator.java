@@ -0,0 +1,262 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.mm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Sub-allocator for a contiguous device heap. Free blocks are kept in
+ * segregated lists, one per power-of-two size class, and in an
+ * address-ordered map used to coalesce neighbouring blocks when an allocation
+ * is released.
+ *
+ * The allocator only manages offsets, so it does not depend on any device and
+ * can be shared by the memory managers of all drivers. All methods are
+ * synchronized because allocations can be released from the cleaner thread.
+ */
+public class HeapAllocator {
+
+    private static final int NUM_SIZE_CLASSES = Long.SIZE;
+
+    /**
+     * Free blocks: start offset -> size in bytes.
+     */
+    private final TreeMap<Long, Long> freeBlocks;
+
+    /**
+     * Start offsets of the free blocks, indexed by size class.
+     */
+    private final List<TreeSet<Long>> sizeClasses;
+
+    /**
+     * Live allocations: start offset -> size in bytes.
+     */
+    private final Map<Long, Long> allocations;
+
+    private long heapStart;
+    private long heapEnd;
+    private long allocatedBytes;
+    private long freeBytes;
+
+    public HeapAllocator(long heapStart, long heapEnd) {
+        freeBlocks = new TreeMap<>();
+        allocations = new HashMap<>();
+        sizeClasses = new ArrayList<>(NUM_SIZE_CLASSES);
+        for (int i = 0; i < NUM_SIZE_CLASSES; i++) {
+            sizeClasses.add(new TreeSet<>());
+        }
+        reset(heapStart, heapEnd);
+    }
+
+    private static int sizeClass(long bytes) {
+        return (bytes <= 1) ? 0 : (NUM_SIZE_CLASSES - 1 - Long.numberOfLeadingZeros(bytes));
+    }
+
+    private static long align(final long address, final long alignment) {
+        return (address % alignment == 0) ? address : address + (alignment - address % alignment);
+    }
+
+    /**
+     * It releases all allocations and sets the range managed by the allocator to
+     * {@code [heapStart, heapEnd)}.
+     */
+    public synchronized void reset(long heapStart, long heapEnd) {
+        this.heapStart = heapStart;
+        this.heapEnd = Math.max(heapStart, heapEnd);
+        freeBlocks.clear();
+        allocations.clear();
+        for (TreeSet<Long> sizeClass : sizeClasses) {
+            sizeClass.clear();
+        }
+        allocatedBytes = 0;
+        freeBytes = 0;
+        if (this.heapEnd > heapStart) {
+            insertFreeBlock(heapStart, this.heapEnd - heapStart);
+        }
+    }
+
+    private void insertFreeBlock(long start, long size) {
+        freeBlocks.put(start, size);
+        sizeClasses.get(sizeClass(size)).add(start);
+        freeBytes += size;
+    }
+
+    private void removeFreeBlock(long start, long size) {
+        freeBlocks.remove(start);
+        sizeClasses.get(sizeClass(size)).remove(start);
+        freeBytes -= size;
+    }
+
+    /**
+     * It reserves {@code bytes} bytes in the heap. The returned offset is placed
+     * so that {@code offset + headerSize} is a multiple of {@code alignment}.
+     *
+     * @param bytes
+     *            Number of bytes to allocate, including the header.
+     * @param headerSize
+     *            Size of the header that precedes the aligned data.
+     * @param alignment
+     *            Alignment in bytes of the data after the header.
+     * @return Offset of the allocation, or -1 if no free block is large enough.
+     */
+    public synchronized long allocate(long bytes, int headerSize, int alignment) {
+        for (int i = sizeClass(bytes); i < NUM_SIZE_CLASSES; i++) {
+            for (long start : sizeClasses.get(i)) {
+                final long size = freeBlocks.get(start);
+                final long offset = align(start + headerSize, alignment) - headerSize;
+                if (offset + bytes <= start + size) {
+                    splitFreeBlock(start, size, offset, bytes);
+                    return offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void splitFreeBlock(long start, long size, long offset, long bytes) {
+        removeFreeBlock(start, size);
+        if (offset > start) {
+            insertFreeBlock(start, offset - start);
+        }
+        final long end = offset + bytes;
+        if (end < start + size) {
+            insertFreeBlock(end, start + size - end);
+        }
+        allocations.put(offset, bytes);
+        allocatedBytes += bytes;
+    }
+
+    /**
+     * It releases the allocation that starts at {@code offset} and coalesces the
+     * released block with its free neighbours.
+     *
+     * @return false if there is no live allocation at {@code offset}.
+     */
+    public synchronized boolean free(long offset) {
+        final Long bytes = allocations.remove(offset);
+        if (bytes == null) {
+            return false;
+        }
+        allocatedBytes -= bytes;
+
+        long start = offset;
+        long size = bytes;
+        final Map.Entry<Long, Long> previous = freeBlocks.floorEntry(start);
+        if (previous != null && previous.getKey() + previous.getValue() == start) {
+            removeFreeBlock(previous.getKey(), previous.getValue());
+            start = previous.getKey();
+            size += previous.getValue();
+        }
+        final Long next = freeBlocks.get(offset + bytes);
+        if (next != null) {
+            removeFreeBlock(offset + bytes, next);
+            size += next;
+        }
+        insertFreeBlock(start, size);
+        return true;
+    }
+
+    public synchronized long getHeapStart() {
+        return heapStart;
+    }
+
+    public synchronized long getHeapSize() {
+        return heapEnd - heapStart;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return Total number of bytes in free blocks, including the padding left
+     *         between allocations.
+     */
+    public synchronized long getFreeBytes() {
+        return freeBytes;
+    }
+
+    public synchronized int getNumAllocations() {
+        return allocations.size();
+    }
+
+    public synchronized int getNumFreeBlocks() {
+        return freeBlocks.size();
+    }
+
+    public synchronized long getLargestFreeBlock() {
+        for (int i = NUM_SIZE_CLASSES - 1; i >= 0; i--) {
+            if (!sizeClasses.get(i).isEmpty()) {
+                long largest = 0;
+                for (long start : sizeClasses.get(i)) {
+                    largest = Math.max(largest, freeBlocks.get(start));
+                }
+                return largest;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * External fragmentation of the heap, computed as
+     * {@code 1 - largestFreeBlock / freeBytes}. It is 0 when all the free space
+     * is in a single block, and it tends to 1 when the free space is split into
+     * many small blocks.
+     */
+    public synchronized double getFragmentation() {
+        if (freeBytes == 0) {
+            return 0;
+        }
+        return 1.0 - ((double) getLargestFreeBlock() / freeBytes);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("heap=[0x%x, 0x%x), allocated=%d bytes (%d allocations), free=%d bytes (%d blocks), fragmentation=%.2f", heapStart, heapEnd, allocatedBytes, allocations.size(), freeBytes,
+                freeBlocks.size(), getFragmentation());
+    }
+}
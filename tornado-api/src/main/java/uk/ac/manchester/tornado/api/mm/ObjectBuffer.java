@@ -66,8 +66,32 @@ public interface ObjectBuffer {
 
     List<Integer> enqueueWrite(Object reference, long batchSize, long hostOffset, int[] events, boolean useDeps);
 
+    /**
+     * Copies some ranges of elements of an array that is already on the device.
+     * Buffers that cannot copy parts of the object copy the whole object.
+     *
+     * @param reference
+     *            Host object.
+     * @param ranges
+     *            Pairs of [fromIndex, toIndex) to copy.
+     * @param events
+     *            List of events to wait for.
+     * @param useDeps
+     *            Use the events to order the copies.
+     * @return the events of the copies.
+     */
+    default List<Integer> enqueueWriteRanges(Object reference, long[] ranges, int[] events, boolean useDeps) {
+        return enqueueWrite(reference, 0, 0, events, useDeps);
+    }
+
     void allocate(Object reference, long batchSize) throws TornadoOutOfMemoryException, TornadoMemoryException;
 
+    /**
+     * Releases the device memory of the buffer. It is called when the host
+     * object is no longer reachable.
+     */
+    void deallocate();
+
     int getAlignment();
 
     boolean isValid();
@@ -66,4 +66,24 @@ public interface TornadoDeviceObjectState {
     long getAddress();
 
     long getOffset();
+
+    /**
+     * Records that the elements [fromIndex, toIndex) of the host array were
+     * modified since the last copy to the device.
+     */
+    void addDirtyRange(long fromIndex, long toIndex);
+
+    /**
+     * @return true if the modified elements of the host array are known, so only
+     *         those ranges have to be copied.
+     */
+    boolean hasDirtyRanges();
+
+    /**
+     * @return sorted and disjoint ranges of modified elements, as pairs of
+     *         [fromIndex, toIndex).
+     */
+    long[] getDirtyRanges();
+
+    void clearDirtyRanges();
 }
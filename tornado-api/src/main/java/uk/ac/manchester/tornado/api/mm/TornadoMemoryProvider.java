@@ -55,6 +55,23 @@ public interface TornadoMemoryProvider {
 
     long getHeapAllocated();
 
+    /**
+     * @return Size in bytes of the largest allocation that currently fits in the
+     *         heap.
+     */
+    long getHeapLargestFreeBlock();
+
+    /**
+     * @return Number of free blocks in the heap.
+     */
+    int getHeapFreeBlocks();
+
+    /**
+     * @return External fragmentation of the heap, from 0 (all the free space is
+     *         contiguous) to 1.
+     */
+    double getHeapFragmentation();
+
     boolean isInitialised();
 
 }
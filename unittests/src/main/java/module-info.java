@@ -4,24 +4,30 @@ open module tornado.unittests {
     requires lucene.core;
 
     exports uk.ac.manchester.tornado.unittests;
+    exports uk.ac.manchester.tornado.unittests.algorithms;
     exports uk.ac.manchester.tornado.unittests.api;
     exports uk.ac.manchester.tornado.unittests.arrays;
     exports uk.ac.manchester.tornado.unittests.atomics;
     exports uk.ac.manchester.tornado.unittests.batches;
     exports uk.ac.manchester.tornado.unittests.bitsets;
     exports uk.ac.manchester.tornado.unittests.branching;
+    exports uk.ac.manchester.tornado.unittests.codecache;
     exports uk.ac.manchester.tornado.unittests.common;
+    exports uk.ac.manchester.tornado.unittests.compilation;
     exports uk.ac.manchester.tornado.unittests.dynamic;
     exports uk.ac.manchester.tornado.unittests.fields;
     exports uk.ac.manchester.tornado.unittests.flatmap;
     exports uk.ac.manchester.tornado.unittests.functional;
     exports uk.ac.manchester.tornado.unittests.images;
     exports uk.ac.manchester.tornado.unittests.instances;
+    exports uk.ac.manchester.tornado.unittests.jvm;
+    exports uk.ac.manchester.tornado.unittests.kernelcontext;
     exports uk.ac.manchester.tornado.unittests.lambdas;
     exports uk.ac.manchester.tornado.unittests.logic;
     exports uk.ac.manchester.tornado.unittests.loops;
     exports uk.ac.manchester.tornado.unittests.math;
     exports uk.ac.manchester.tornado.unittests.matrices;
+    exports uk.ac.manchester.tornado.unittests.memory;
     exports uk.ac.manchester.tornado.unittests.prebuilt;
     exports uk.ac.manchester.tornado.unittests.profiler;
     exports uk.ac.manchester.tornado.unittests.reductions;
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.unittests.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestSort extends TornadoTestBase {
+
+    private static final int SIZE = 10000;
+
+    private static void firstElements(int[] data, int[] result) {
+        for (@Parallel int i = 0; i < result.length; i++) {
+            result[i] = data[i];
+        }
+    }
+
+    @Test
+    public void testSortInt() {
+        int[] data = new int[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = r.nextInt();
+        }
+        int[] sequential = data.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .sort("t0", data)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, data);
+    }
+
+    @Test
+    public void testSortLong() {
+        long[] data = new long[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = r.nextLong();
+        }
+        long[] sequential = data.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .sort("t0", data)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, data);
+    }
+
+    @Test
+    public void testSortFloat() {
+        float[] data = new float[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = r.nextFloat() - 0.5f;
+        }
+        float[] sequential = data.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .sort("t0", data)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, data, 0.0f);
+    }
+
+    @Test
+    public void testSortDouble() {
+        double[] data = new double[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = r.nextGaussian();
+        }
+        double[] sequential = data.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .sort("t0", data)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, data, 0.0);
+    }
+
+    @Test
+    public void testSortFloatNaN() {
+        float[] data = new float[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = (i % 10 == 0) ? Float.NaN : r.nextFloat() - 0.5f;
+        }
+        float[] sequential = data.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .sort("t0", data)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        // NaN values are sorted last, as in Arrays.sort
+        assertArrayEquals(sequential, data, 0.0f);
+    }
+
+    @Test
+    public void testSortFloatSpecialValues() {
+        float[] data = new float[SIZE];
+        float[] special = { Float.NaN, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, -0.0f, 0.0f, Float.MIN_VALUE, -Float.MIN_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE };
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = (i % 3 == 0) ? special[r.nextInt(special.length)] : (r.nextFloat() - 0.5f) * 1e6f;
+        }
+        float[] sequential = data.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .sort("t0", data)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, data, 0.0f);
+    }
+
+    @Test
+    public void testSortIntLarge() {
+        final int size = (1 << 20) + 3;
+        int[] data = new int[size];
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            data[i] = r.nextInt();
+        }
+        int[] sequential = data.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .sort("t0", data)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, data);
+    }
+
+    @Test
+    public void testSortByKeyDouble() {
+        double[] keys = new double[SIZE];
+        int[] values = new int[SIZE];
+        double[] originalKeys = new double[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = (i % 10 == 0) ? Double.NaN : r.nextInt(100) - 50;
+            originalKeys[i] = keys[i];
+            values[i] = i;
+        }
+        double[] sequential = originalKeys.clone();
+        Arrays.sort(sequential);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(keys, values)
+                .sortByKey("t0", keys, values)
+                .streamOut(keys, values)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, keys, 0.0);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(originalKeys[values[i]], keys[i], 0.0);
+            if (i > 0 && Double.compare(keys[i - 1], keys[i]) == 0) {
+                // The sorts by key are stable
+                assertTrue(values[i - 1] < values[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testSortByKeyInt() {
+        int[] keys = new int[SIZE];
+        int[] values = new int[SIZE];
+        int[] originalKeys = new int[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = r.nextInt(1000) - 500;
+            originalKeys[i] = keys[i];
+            values[i] = i;
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(keys, values)
+                .sortByKey("t0", keys, values)
+                .streamOut(keys, values)
+                .execute();
+        //@formatter:on
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(originalKeys[values[i]], keys[i]);
+            if (i > 0) {
+                // The radix sort is stable
+                assertTrue(keys[i - 1] < keys[i] || (keys[i - 1] == keys[i] && values[i - 1] < values[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testTopKFloat() {
+        final int k = 16;
+        float[] scores = new float[SIZE];
+        int[] indices = new int[SIZE];
+        int[] topK = new int[k];
+        float[] originalScores = new float[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            scores[i] = r.nextFloat();
+            originalScores[i] = scores[i];
+            indices[i] = i;
+        }
+
+        // The sorted indices feed the next task without leaving the device
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(scores, indices)
+                .sortByKey("t0", scores, indices)
+                .task("t1", TestSort::firstElements, indices, topK)
+                .streamOut(topK)
+                .execute();
+        //@formatter:on
+
+        float[] sequential = originalScores.clone();
+        Arrays.sort(sequential);
+        for (int i = 0; i < k; i++) {
+            assertEquals(sequential[i], originalScores[topK[i]], 0.0f);
+        }
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testSortByKeyWrongValues() {
+        new TaskSchedule("s0").sortByKey("t0", new int[16], new int[8]);
+    }
+}
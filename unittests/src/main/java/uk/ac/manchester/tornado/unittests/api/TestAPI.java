@@ -26,6 +26,7 @@ import java.util.stream.IntStream;
 import org.junit.Test;
 
 import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.unittests.arrays.TestArrays;
 import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
 
@@ -99,4 +100,63 @@ public class TestAPI extends TornadoTestBase {
         }
     }
 
+    private static void scale(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * 2;
+        }
+    }
+
+    @Test
+    public void testMarkDirty() {
+        final int N = 4096;
+        float[] input = new float[N];
+        float[] output = new float[N];
+
+        IntStream.range(0, N).forEach(idx -> input[idx] = idx);
+
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", TestAPI::scale, input, output) //
+                .streamOut(output);
+        s0.execute();
+
+        for (int i = 100; i < 200; i++) {
+            input[i] = -i;
+        }
+        input[3000] = -1;
+        s0.markDirty(input, 100, 200);
+        s0.markDirty(input, 150, 250);
+        s0.markDirty(input, 3000, 3001);
+        s0.execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(input[i] * 2, output[i], 0.001f);
+        }
+    }
+
+    @Test
+    public void testMarkDirtyOnlyCopiesRanges() {
+        final int N = 1024;
+        float[] input = new float[N];
+        float[] output = new float[N];
+
+        IntStream.range(0, N).forEach(idx -> input[idx] = idx);
+
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", TestAPI::scale, input, output) //
+                .streamOut(output);
+        s0.execute();
+
+        // The first element is modified but not declared, so the device keeps the
+        // previous value
+        input[0] = 100;
+        input[10] = 100;
+        s0.markDirty(input, 10, 11);
+        s0.execute();
+
+        assertEquals(0, output[0], 0.001f);
+        assertEquals(200, output[10], 0.001f);
+    }
+
 }
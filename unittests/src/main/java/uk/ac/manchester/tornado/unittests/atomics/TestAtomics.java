@@ -18,12 +18,19 @@
 
 package uk.ac.manchester.tornado.unittests.atomics;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Ignore;
+import org.junit.Test;
 
 import uk.ac.manchester.tornado.api.TaskSchedule;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.atomics.TornadoAtomics;
+import uk.ac.manchester.tornado.api.collections.algorithms.TornadoHistogram;
 import uk.ac.manchester.tornado.api.type.annotations.Atomic;
 import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
 
@@ -53,4 +60,236 @@ public class TestAtomics extends TornadoTestBase {
         //@formatter:on
     }
 
+    public static void countEven(int[] input, int[] counter) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            if ((input[i] & 1) == 0) {
+                TornadoAtomics.atomicAdd(counter, 0, 1);
+            }
+        }
+    }
+
+    @Test
+    public void testAtomicAddInt() {
+        final int size = 8192;
+        int[] input = new int[size];
+        int[] counter = new int[1];
+
+        Random r = new Random();
+        int expected = 0;
+        for (int i = 0; i < size; i++) {
+            input[i] = r.nextInt(1000);
+            if ((input[i] & 1) == 0) {
+                expected++;
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .task("t0", TestAtomics::countEven, input, counter)
+                .streamOut(counter)
+                .execute();
+        //@formatter:on
+
+        assertEquals(expected, counter[0]);
+    }
+
+    public static void sumLong(long[] input, long[] sum) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoAtomics.atomicAdd(sum, 0, input[i]);
+        }
+    }
+
+    @Test
+    public void testAtomicAddLong() {
+        final int size = 4096;
+        long[] input = new long[size];
+        long[] sum = new long[1];
+
+        long expected = 0;
+        for (int i = 0; i < size; i++) {
+            input[i] = (long) i << 20;
+            expected += input[i];
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .task("t0", TestAtomics::sumLong, input, sum)
+                .streamOut(sum)
+                .execute();
+        //@formatter:on
+
+        assertEquals(expected, sum[0]);
+    }
+
+    public static void sumFloat(float[] input, float[] sum) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoAtomics.atomicAdd(sum, 0, input[i]);
+        }
+    }
+
+    @Test
+    public void testAtomicAddFloat() {
+        final int size = 1024;
+        float[] input = new float[size];
+        float[] sum = new float[1];
+
+        // Small integers keep the sum exact in any order of the additions
+        for (int i = 0; i < size; i++) {
+            input[i] = i % 8;
+        }
+        float expected = 0;
+        for (int i = 0; i < size; i++) {
+            expected += input[i];
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .task("t0", TestAtomics::sumFloat, input, sum)
+                .streamOut(sum)
+                .execute();
+        //@formatter:on
+
+        assertEquals(expected, sum[0], 0.0f);
+    }
+
+    public static void minMax(int[] input, int[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            TornadoAtomics.atomicMin(result, 0, input[i]);
+            TornadoAtomics.atomicMax(result, 1, input[i]);
+        }
+    }
+
+    @Test
+    public void testAtomicMinMax() {
+        final int size = 8192;
+        int[] input = new int[size];
+        int[] result = new int[] { Integer.MAX_VALUE, Integer.MIN_VALUE };
+
+        Random r = new Random();
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            input[i] = r.nextInt();
+            min = Math.min(min, input[i]);
+            max = Math.max(max, input[i]);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(result)
+                .task("t0", TestAtomics::minMax, input, result)
+                .streamOut(result)
+                .execute();
+        //@formatter:on
+
+        assertEquals(min, result[0]);
+        assertEquals(max, result[1]);
+    }
+
+    public static void claimSlots(int[] slots, int[] owners) {
+        for (@Parallel int i = 0; i < owners.length; i++) {
+            int old = TornadoAtomics.atomicCompareAndSwap(slots, i % slots.length, 0, i + 1);
+            owners[i] = (old == 0) ? 1 : 0;
+        }
+    }
+
+    @Test
+    public void testAtomicCompareAndSwap() {
+        final int numSlots = 16;
+        final int size = 1024;
+        int[] slots = new int[numSlots];
+        int[] owners = new int[size];
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .task("t0", TestAtomics::claimSlots, slots, owners)
+                .streamOut(slots, owners)
+                .execute();
+        //@formatter:on
+
+        // Exactly one thread wins each slot
+        int winners = 0;
+        for (int i = 0; i < size; i++) {
+            if (owners[i] == 1) {
+                winners++;
+                assertEquals(i + 1, slots[i % numSlots]);
+            }
+        }
+        assertEquals(numSlots, winners);
+    }
+
+    public static void exchange(int[] slot, int[] previous) {
+        for (@Parallel int i = 0; i < previous.length; i++) {
+            previous[i] = TornadoAtomics.atomicExchange(slot, 0, i + 1);
+        }
+    }
+
+    @Test
+    public void testAtomicExchange() {
+        final int size = 1024;
+        int[] slot = new int[1];
+        int[] previous = new int[size];
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .task("t0", TestAtomics::exchange, slot, previous)
+                .streamOut(slot, previous)
+                .execute();
+        //@formatter:on
+
+        // The exchanges form a chain: every value is returned once, except the
+        // value left in the slot
+        boolean[] seen = new boolean[size + 1];
+        for (int i = 0; i < size; i++) {
+            seen[previous[i]] = true;
+        }
+        seen[slot[0]] = true;
+        for (int i = 0; i <= size; i++) {
+            assertTrue(seen[i]);
+        }
+    }
+
+    private void checkHistogram(final int size, final int numBins) {
+        int[] input = new int[size];
+        int[] bins = new int[numBins];
+        int[] expected = new int[numBins];
+
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            // Some values fall outside the histogram
+            input[i] = r.nextInt(numBins + 8) - 4;
+            if (input[i] >= 0 && input[i] < numBins) {
+                expected[input[i]]++;
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .histogram("h", input, bins)
+                .streamOut(bins)
+                .execute();
+        //@formatter:on
+
+        for (int i = 0; i < numBins; i++) {
+            assertEquals(expected[i], bins[i]);
+        }
+    }
+
+    @Test
+    public void testHistogram() {
+        checkHistogram(16384, 64);
+    }
+
+    @Test
+    public void testHistogramLocalBins() {
+        // The bins fit in local memory, so GPUs use one copy per work-group
+        checkHistogram(1000003, TornadoHistogram.MAX_LOCAL_BINS);
+    }
+
+    @Test
+    public void testHistogramManyBins() {
+        // Too many bins for local memory: the copies are kept in global memory
+        checkHistogram(100000, TornadoHistogram.MAX_LOCAL_BINS * 4 + 1);
+    }
+
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.unittests.batches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Batches whose transfers overlap with the kernels of other chunks. How to
+ * run?
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.batch.pipeline=True -Dtornado.log.profiler=True" uk.ac.manchester.tornado.unittests.batches.TestBatchPipeline
+ * </code>
+ */
+public class TestBatchPipeline extends TornadoTestBase {
+
+    // 4M floats in chunks of 1MB
+    private static final int SIZE = 4 * 1024 * 1024;
+
+    private static void checkPipelineEnabled() {
+        if (!Boolean.parseBoolean(System.getProperty("tornado.batch.pipeline", "False"))) {
+            throw new UnsupportedConfigurationException("Pipelined batches are not enabled. Use -Dtornado.batch.pipeline=True");
+        }
+    }
+
+    @Test
+    public void testPipeline() {
+        checkPipelineEnabled();
+
+        float[] arrayA = new float[SIZE];
+        float[] arrayB = new float[SIZE];
+        IntStream.range(0, arrayA.length).forEach(idx -> arrayA[idx] = idx);
+
+        TaskSchedule ts = new TaskSchedule("s0");
+
+        // @formatter:off
+        ts.batch("1MB")
+                .task("t0", TestBatches::compute, arrayA, arrayB)
+                .streamOut((Object) arrayB)
+                .execute();
+        // @formatter:on
+
+        for (int i = 0; i < arrayB.length; i++) {
+            assertEquals(arrayA[i] + 100, arrayB[i], 0.1f);
+        }
+    }
+
+    @Test
+    public void testPipelineThreeArrays() {
+        checkPipelineEnabled();
+
+        float[] arrayA = new float[SIZE];
+        float[] arrayB = new float[SIZE];
+        float[] arrayC = new float[SIZE];
+        IntStream.range(0, arrayA.length).forEach(idx -> {
+            arrayA[idx] = idx;
+            arrayB[idx] = 2 * idx;
+        });
+
+        TaskSchedule ts = new TaskSchedule("s0");
+
+        // @formatter:off
+        ts.batch("1MB")
+                .task("t0", TestBatches::compute, arrayA, arrayB, arrayC)
+                .streamOut((Object) arrayC)
+                .execute();
+        // @formatter:on
+
+        for (int i = 0; i < arrayC.length; i++) {
+            assertEquals(arrayA[i] + arrayB[i], arrayC[i], 0.1f);
+        }
+    }
+
+    @Test
+    public void testPipelineReexecution() {
+        checkPipelineEnabled();
+
+        float[] arrayA = new float[SIZE];
+        float[] arrayB = new float[SIZE];
+        IntStream.range(0, arrayA.length).forEach(idx -> arrayA[idx] = idx);
+
+        // @formatter:off
+        TaskSchedule ts = new TaskSchedule("s0")
+                .batch("1MB")
+                .task("t0", TestBatches::compute, arrayA, arrayB)
+                .streamOut((Object) arrayB);
+        // @formatter:on
+
+        ts.execute();
+
+        // The buffers of the chunks are reused by the second execution
+        IntStream.range(0, arrayA.length).forEach(idx -> arrayA[idx] = -idx);
+        ts.execute();
+
+        for (int i = 0; i < arrayB.length; i++) {
+            assertEquals(arrayA[i] + 100, arrayB[i], 0.1f);
+        }
+    }
+
+    @Test
+    public void testPipelineStageTimers() {
+        checkPipelineEnabled();
+        if (!Boolean.parseBoolean(System.getProperty("tornado.log.profiler", "False"))) {
+            throw new UnsupportedConfigurationException("The profiler log is not enabled. Use -Dtornado.log.profiler=True");
+        }
+
+        float[] arrayA = new float[SIZE];
+        float[] arrayB = new float[SIZE];
+        IntStream.range(0, arrayA.length).forEach(idx -> arrayA[idx] = idx);
+
+        System.setProperty("tornado.profiler", "True");
+        try {
+            // @formatter:off
+            TaskSchedule ts = new TaskSchedule("s0")
+                    .batch("1MB")
+                    .task("t0", TestBatches::compute, arrayA, arrayB)
+                    .streamOut((Object) arrayB);
+            // @formatter:on
+
+            ts.execute();
+
+            assertTrue(ts.getWriteTime() > 0);
+            assertTrue(ts.getReadTime() > 0);
+            assertTrue(ts.getDeviceKernelTime() > 0);
+
+            // Each chunk has its own copy-in, kernel and copy-out timers
+            final String log = ts.getProfileLog();
+            assertTrue(log.contains("\"batch-chunk-0\""));
+            assertTrue(log.contains("\"batch-chunk-1\""));
+            assertTrue(log.contains("\"COPY_IN_TIME\""));
+            assertTrue(log.contains("\"TASK_KERNEL_TIME\""));
+            assertTrue(log.contains("\"COPY_OUT_TIME\""));
+        } finally {
+            System.setProperty("tornado.profiler", "False");
+        }
+
+        for (int i = 0; i < arrayB.length; i++) {
+            assertEquals(arrayA[i] + 100, arrayB[i], 0.1f);
+        }
+    }
+}
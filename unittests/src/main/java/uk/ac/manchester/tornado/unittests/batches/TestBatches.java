@@ -74,6 +74,12 @@ public class TestBatches extends TornadoTestBase {
         }
     }
 
+    public static void compute(int[] arrayA, float[] lookupTable, double[] arrayC) {
+        for (@Parallel int i = 0; i < arrayA.length; i++) {
+            arrayC[i] = arrayA[i] + lookupTable[arrayA[i] % lookupTable.length];
+        }
+    }
+
     @Test
     public void test100MB() {
 
@@ -335,6 +341,38 @@ public class TestBatches extends TornadoTestBase {
     }
 
 
+    @Test
+    public void test50MBMixedTypes() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        // Fill 80MB of int array and 160MB of double array
+        int size = 20000000;
+        // or as much as we can
+        if (size * 8 > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 8 / 2) * 0.9);
+        }
+        int[] arrayA = new int[size];
+        float[] lookupTable = new float[256];
+        double[] arrayC = new double[size];
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> arrayA[idx] = idx);
+        IntStream.range(0, lookupTable.length).sequential().forEach(idx -> lookupTable[idx] = idx * 2);
+
+        TaskSchedule ts = new TaskSchedule("s0");
+
+        // @formatter:off
+        ts.batch("50MB")   // Chunks of 50 MB for the double array, the lookup table is copied once
+                .task("t0", TestBatches::compute, arrayA, lookupTable, arrayC)
+                .streamOut((Object) arrayC)
+                .execute();
+        // @formatter:on
+
+        for (int i = 0; i < arrayA.length; i++) {
+            assertEquals(arrayA[i] + lookupTable[arrayA[i] % lookupTable.length], arrayC[i], 0.1);
+        }
+    }
+
     private long checkMaxHeapAllocation(int size, MemSize memSize) throws UnsupportedConfigurationException {
         long maxAllocMemory = getTornadoRuntime().getDefaultDevice().getDeviceContext().getMemoryManager().getHeapSize();
 
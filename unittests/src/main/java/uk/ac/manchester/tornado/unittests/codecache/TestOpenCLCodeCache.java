@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.unittests.codecache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task3;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Persistent code cache of OpenCL kernels. The tests clean the cache directory,
+ * so they use their own one. How to run?
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.opencl.codecache.enable=True -Dtornado.opencl.codecache.dir=var/codecache-unittests" uk.ac.manchester.tornado.unittests.codecache.TestOpenCLCodeCache
+ * </code>
+ */
+public class TestOpenCLCodeCache extends TornadoTestBase {
+
+    private static final String BINARY_SUFFIX = ".bin";
+    private static final String SOURCE_SUFFIX = ".cl";
+    private static final String TEST_PROPERTY = "tornado.unittests.codecache";
+
+    // Every execution uses a new task-schedule, so kernels are not taken from
+    // the code cache in memory
+    private static int numSchedules = 0;
+
+    private Path cacheDirectory;
+    private String maxSize;
+
+    public static void add(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void sub(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] - b[i];
+        }
+    }
+
+    @Before
+    public void setUp() {
+        if (!Boolean.parseBoolean(System.getProperty("tornado.opencl.codecache.enable", "False")) || System.getProperty("tornado.opencl.codecache.dir") == null) {
+            throw new UnsupportedConfigurationException("The code cache is not enabled. Use -Dtornado.opencl.codecache.enable=True -Dtornado.opencl.codecache.dir=var/codecache-unittests");
+        }
+        cacheDirectory = Paths.get(System.getenv("TORNADO_SDK"), System.getProperty("tornado.opencl.codecache.dir"));
+        for (Path file : listFiles(BINARY_SUFFIX, SOURCE_SUFFIX)) {
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        maxSize = System.getProperty("tornado.opencl.codecache.maxsize");
+        // Cache hits are detected with the compilation times
+        System.setProperty("tornado.profiler", "True");
+    }
+
+    @After
+    public void tearDown() {
+        System.setProperty("tornado.profiler", "False");
+        System.clearProperty(TEST_PROPERTY);
+        if (maxSize == null) {
+            System.clearProperty("tornado.opencl.codecache.maxsize");
+        } else {
+            System.setProperty("tornado.opencl.codecache.maxsize", maxSize);
+        }
+    }
+
+    private List<Path> listFiles(String... suffixes) {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.walk(cacheDirectory)) {
+            return files.filter(file -> Stream.of(suffixes).anyMatch(suffix -> file.getFileName().toString().endsWith(suffix))).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int getNumEntries() {
+        return listFiles(BINARY_SUFFIX).size();
+    }
+
+    private long getCacheSize() {
+        long size = 0;
+        for (Path file : listFiles(BINARY_SUFFIX, SOURCE_SUFFIX)) {
+            try {
+                size += Files.size(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * It runs a kernel in a new task-schedule and checks the result.
+     *
+     * @return true if the kernel was loaded from the persistent cache.
+     */
+    private static boolean run(Task3<int[], int[], int[]> code, int size, boolean isAdd) {
+        int[] a = new int[size];
+        int[] b = new int[size];
+        int[] c = new int[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = i;
+            b[i] = 2 * i;
+        }
+
+        // @formatter:off
+        TaskSchedule ts = new TaskSchedule("cache" + numSchedules++)
+                .task("t0", code, a, b, c)
+                .streamOut(c);
+        // @formatter:on
+        ts.execute();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(isAdd ? a[i] + b[i] : a[i] - b[i], c[i]);
+        }
+        return ts.getTornadoCompilerTime() == 0;
+    }
+
+    @Test
+    public void testMissAndHit() {
+        assertFalse(run(TestOpenCLCodeCache::add, 256, true));
+        assertEquals(1, getNumEntries());
+
+        assertTrue(run(TestOpenCLCodeCache::add, 256, true));
+        assertEquals(1, getNumEntries());
+    }
+
+    @Test
+    public void testSourceChangesKey() {
+        assertFalse(run(TestOpenCLCodeCache::add, 256, true));
+        // Same signature and arguments, different bytecodes
+        assertFalse(run(TestOpenCLCodeCache::sub, 256, false));
+        assertEquals(2, getNumEntries());
+    }
+
+    @Test
+    public void testArgumentChangesKey() {
+        assertFalse(run(TestOpenCLCodeCache::add, 256, true));
+        // Array lengths are specialised into the kernel
+        assertFalse(run(TestOpenCLCodeCache::add, 512, true));
+        assertEquals(2, getNumEntries());
+    }
+
+    @Test
+    public void testOptionChangesKey() {
+        assertFalse(run(TestOpenCLCodeCache::add, 256, true));
+        // Any Tornado property can change the generated code
+        System.setProperty(TEST_PROPERTY, "True");
+        assertFalse(run(TestOpenCLCodeCache::add, 256, true));
+        assertEquals(2, getNumEntries());
+
+        assertTrue(run(TestOpenCLCodeCache::add, 256, true));
+        System.clearProperty(TEST_PROPERTY);
+        assertTrue(run(TestOpenCLCodeCache::add, 256, true));
+    }
+
+    @Test
+    public void testEviction() {
+        assertFalse(run(TestOpenCLCodeCache::add, 256, true));
+        final long entrySize = getCacheSize();
+
+        // Room for two kernels
+        final long maxCacheSize = entrySize * 5 / 2;
+        System.setProperty("tornado.opencl.codecache.maxsize", maxCacheSize + "B");
+
+        assertFalse(run(TestOpenCLCodeCache::add, 512, true));
+        assertEquals(2, getNumEntries());
+
+        // The first kernel becomes the most recently used
+        assertTrue(run(TestOpenCLCodeCache::add, 256, true));
+
+        // The least recently used kernel is evicted
+        assertFalse(run(TestOpenCLCodeCache::add, 1024, true));
+        assertTrue(getCacheSize() <= maxCacheSize);
+        assertEquals(2, getNumEntries());
+
+        assertTrue(run(TestOpenCLCodeCache::add, 256, true));
+        assertTrue(run(TestOpenCLCodeCache::add, 1024, true));
+        assertFalse(run(TestOpenCLCodeCache::add, 512, true));
+        assertTrue(getCacheSize() <= maxCacheSize);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.unittests.compilation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.types.Matrix2DFloat;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Task-schedules compiled in a background thread. The executions that happen
+ * before the compilation finishes run in Java. How to run?
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.compile.async=True" uk.ac.manchester.tornado.unittests.compilation.TestAsyncCompilation
+ * </code>
+ */
+public class TestAsyncCompilation extends TornadoTestBase {
+
+    private static final int SIZE = 4096;
+    private static final long TIMEOUT_MILLIS = 120000;
+
+    public static void saxpy(float alpha, float[] x, float[] y) {
+        for (@Parallel int i = 0; i < y.length; i++) {
+            y[i] = alpha * x[i] + y[i];
+        }
+    }
+
+    /**
+     * Object allocation is not supported: the compilation bails out.
+     */
+    public static void saxpyWithAllocation(float alpha, float[] x, float[] y) {
+        Matrix2DFloat m = new Matrix2DFloat(2, 2);
+        for (@Parallel int i = 0; i < y.length; i++) {
+            y[i] = alpha * x[i] + y[i] + m.get(0, 0);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        if (!Boolean.parseBoolean(System.getProperty("tornado.compile.async", "False"))) {
+            throw new UnsupportedConfigurationException("Asynchronous compilation is not enabled. Use -Dtornado.compile.async=True");
+        }
+        // The kernel time tells whether an execution ran on the device
+        System.setProperty("tornado.profiler", "True");
+    }
+
+    @After
+    public void tearDown() {
+        System.setProperty("tornado.profiler", "False");
+    }
+
+    private static float[] createInput() {
+        float[] x = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            x[i] = i;
+        }
+        return x;
+    }
+
+    /**
+     * It executes the task-schedule once with {@code y} set to 1, and checks the
+     * result.
+     *
+     * @return true if the execution ran on the device.
+     */
+    private static boolean executeAndCheck(TaskSchedule ts, float[] x, float[] y) {
+        Arrays.fill(y, 1.0f);
+        ts.execute();
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(2.0f * x[i] + 1.0f, y[i], 0.01f);
+        }
+        return ts.getDeviceKernelTime() > 0;
+    }
+
+    @Test
+    public void testJavaWhileCompiling() {
+        float[] x = createInput();
+        float[] y = new float[SIZE];
+
+        // @formatter:off
+        TaskSchedule ts = new TaskSchedule("async0")
+                .task("t0", TestAsyncCompilation::saxpy, 2.0f, x, y)
+                .streamOut(y);
+        // @formatter:on
+
+        // Each test uses its own task-schedule, so nothing is in the code cache.
+        // The compilation has just been submitted: the first execution runs in Java
+        assertFalse(executeAndCheck(ts, x, y));
+    }
+
+    @Test
+    public void testSwitchToDevice() throws InterruptedException {
+        float[] x = createInput();
+        float[] y = new float[SIZE];
+
+        // @formatter:off
+        TaskSchedule ts = new TaskSchedule("async1")
+                .task("t0", TestAsyncCompilation::saxpy, 2.0f, x, y)
+                .streamOut(y);
+        // @formatter:on
+
+        final long start = System.currentTimeMillis();
+        boolean onDevice = executeAndCheck(ts, x, y);
+        while (!onDevice && System.currentTimeMillis() - start < TIMEOUT_MILLIS) {
+            Thread.sleep(10);
+            onDevice = executeAndCheck(ts, x, y);
+        }
+        assertTrue(onDevice);
+
+        // Once on the device, the task-schedule does not go back to Java
+        assertTrue(executeAndCheck(ts, x, y));
+    }
+
+    @Test
+    public void testBailoutInBackground() throws InterruptedException {
+        float[] x = createInput();
+        float[] y = new float[SIZE];
+
+        // @formatter:off
+        TaskSchedule ts = new TaskSchedule("async2")
+                .task("t0", TestAsyncCompilation::saxpyWithAllocation, 2.0f, x, y)
+                .streamOut(y);
+        // @formatter:on
+
+        // The bailout is not thrown: all the executions run in Java
+        final long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < 2000) {
+            assertFalse(executeAndCheck(ts, x, y));
+            Thread.sleep(10);
+        }
+    }
+}
@@ -17,6 +17,9 @@
  */
 package uk.ac.manchester.tornado.unittests.fails;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import org.junit.Test;
 import uk.ac.manchester.tornado.api.TaskSchedule;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
@@ -25,6 +28,10 @@ import uk.ac.manchester.tornado.api.collections.types.Matrix2DFloat;
 import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
 
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 /**
@@ -34,6 +41,9 @@ import java.util.stream.IntStream;
  */
 public class CodeFail extends TornadoTestBase {
 
+    private static final Set<Long> THREADS = ConcurrentHashMap.newKeySet();
+    private static CountDownLatch secondThread;
+
     /**
      * This case is not failing any more. This stresses the local memory allocator.
      */
@@ -121,4 +131,246 @@ public class CodeFail extends TornadoTestBase {
 
         task.execute();
     }
+
+    /**
+     * The task bails out and the fallback runs the {@code @Parallel} loop with
+     * multiple Java threads. The partial reductions of each thread must be
+     * combined into the same result as the sequential implementation.
+     */
+    @Test
+    public void codeFail04() {
+        final int size = 8192;
+        int[] input = new int[size];
+        int[] result1 = new int[] { 0 };
+        int[] result2 = new int[] { 0 };
+
+        IntStream.range(0, size).parallel().forEach(i -> {
+            input[i] = i;
+        });
+
+        TaskSchedule task = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", CodeFail::zoo, input, result1, result2) //
+                .streamOut(result1, result2); //
+
+        task.execute();
+
+        int expected = IntStream.range(0, size).sum();
+        assertEquals(expected, result1[0]);
+        assertEquals(expected, result2[0]);
+    }
+
+    public static void stridedZoo(int[] input, @Reduce int[] output1, @Reduce int[] output2) {
+        for (@Parallel int i = 1; i < input.length; i += 3) {
+            output1[0] += input[i];
+            output2[0] += input[i];
+        }
+    }
+
+    /**
+     * The number of iterations is not a multiple of the number of threads and the
+     * loop does not start at zero: every iteration must run exactly once.
+     */
+    @Test
+    public void codeFail05() {
+        final int size = 10007;
+        int[] input = new int[size];
+        int[] result1 = new int[] { 0 };
+        int[] result2 = new int[] { 0 };
+
+        IntStream.range(0, size).parallel().forEach(i -> {
+            input[i] = i;
+        });
+
+        TaskSchedule task = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", CodeFail::stridedZoo, input, result1, result2) //
+                .streamOut(result1, result2); //
+
+        task.execute();
+
+        int expected = 0;
+        for (int i = 1; i < size; i += 3) {
+            expected += input[i];
+        }
+        assertEquals(expected, result1[0]);
+        assertEquals(expected, result2[0]);
+    }
+
+    public static void productAndMin(int[] input, @Reduce int[] product, @Reduce int[] minimum) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            product[0] *= input[i];
+            minimum[0] = Math.min(minimum[0], input[i]);
+        }
+    }
+
+    public static void productAndMax(float[] input, @Reduce float[] product, @Reduce float[] maximum) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            product[0] *= input[i];
+            maximum[0] = Math.max(maximum[0], input[i]);
+        }
+    }
+
+    /**
+     * The private copies of each thread start with the identity of the operation,
+     * so the initial value of the result is only combined once.
+     */
+    @Test
+    public void codeFail06() {
+        final int size = 4099;
+        int[] input = new int[size];
+        int[] product = new int[] { 3 };
+        int[] minimum = new int[] { 1000 };
+
+        Random r = new Random();
+        IntStream.range(0, size).forEach(i -> {
+            input[i] = 1 + r.nextInt(2000);
+        });
+
+        TaskSchedule task = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", CodeFail::productAndMin, input, product, minimum) //
+                .streamOut(product, minimum); //
+
+        task.execute();
+
+        // Integer multiplication wraps around, but it is still associative
+        int expectedProduct = 3;
+        int expectedMinimum = 1000;
+        for (int value : input) {
+            expectedProduct *= value;
+            expectedMinimum = Math.min(expectedMinimum, value);
+        }
+        assertEquals(expectedProduct, product[0]);
+        assertEquals(expectedMinimum, minimum[0]);
+    }
+
+    @Test
+    public void codeFail07() {
+        final int size = 1031;
+        float[] input = new float[size];
+        float[] product = new float[] { 2.0f };
+        float[] maximum = new float[] { -1.0f };
+
+        Random r = new Random();
+        IntStream.range(0, size).forEach(i -> {
+            // Powers of two keep the product exact in any order
+            input[i] = (i % 7 == 0) ? 0.5f : (i % 5 == 0) ? 2.0f : 1.0f;
+            input[i] *= (r.nextBoolean()) ? 1.0f : -1.0f;
+        });
+
+        TaskSchedule task = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", CodeFail::productAndMax, input, product, maximum) //
+                .streamOut(product, maximum); //
+
+        task.execute();
+
+        float expectedProduct = 2.0f;
+        float expectedMaximum = -1.0f;
+        for (float value : input) {
+            expectedProduct *= value;
+            expectedMaximum = Math.max(expectedMaximum, value);
+        }
+        assertEquals(expectedProduct, product[0], 0.0f);
+        assertEquals(expectedMaximum, maximum[0], 0.0f);
+    }
+
+    private static void recordThread() {
+        THREADS.add(Thread.currentThread().getId());
+    }
+
+    /**
+     * The first iteration of each thread waits until a second thread runs the
+     * loop. If all iterations run in the same thread, it only waits once until
+     * the timeout.
+     */
+    private static void waitForSecondThread() {
+        if (THREADS.add(Thread.currentThread().getId())) {
+            secondThread.countDown();
+            try {
+                secondThread.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void zooInThreads(int[] input, @Reduce int[] output1, @Reduce int[] output2) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            waitForSecondThread();
+            output1[0] += input[i];
+            output2[0] += input[i];
+        }
+    }
+
+    /**
+     * Side effects outside the parallel loop would run once per thread, so the
+     * task cannot be split and runs sequentially.
+     */
+    public static void zooWithSideEffects(int[] input, @Reduce int[] output1, @Reduce int[] output2) {
+        recordThread();
+        output1[0] = 0;
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output1[0] += input[i];
+            output2[0] += input[i];
+        }
+    }
+
+    /**
+     * It checks that the fallback splits the loop across multiple Java threads.
+     * It runs with {@code -Dtornado.fallback.threads=4}.
+     */
+    @Test
+    public void codeFail08() {
+        final int size = 8192;
+        int[] input = new int[size];
+        int[] result1 = new int[] { 0 };
+        int[] result2 = new int[] { 0 };
+
+        IntStream.range(0, size).parallel().forEach(i -> {
+            input[i] = i;
+        });
+
+        THREADS.clear();
+        secondThread = new CountDownLatch(2);
+
+        TaskSchedule task = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", CodeFail::zooInThreads, input, result1, result2) //
+                .streamOut(result1, result2); //
+
+        task.execute();
+
+        int expected = IntStream.range(0, size).sum();
+        assertEquals(expected, result1[0]);
+        assertEquals(expected, result2[0]);
+        assertTrue("The parallel fallback ran in a single thread", THREADS.size() > 1);
+    }
+
+    @Test
+    public void codeFail09() {
+        final int size = 8192;
+        int[] input = new int[size];
+        int[] result1 = new int[] { 100 };
+        int[] result2 = new int[] { 100 };
+
+        IntStream.range(0, size).parallel().forEach(i -> {
+            input[i] = i;
+        });
+
+        THREADS.clear();
+
+        TaskSchedule task = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", CodeFail::zooWithSideEffects, input, result1, result2) //
+                .streamOut(result1, result2); //
+
+        task.execute();
+
+        int expected = IntStream.range(0, size).sum();
+        assertEquals(expected, result1[0]);
+        assertEquals(100 + expected, result2[0]);
+        assertEquals(1, THREADS.size());
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.jvm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static uk.ac.manchester.tornado.api.runtime.TornadoRuntime.getTornadoRuntime;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.TornadoDriver;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Tests for the JVM driver. They only run with {@code -Dtornado.jvm.enable=True}.
+ */
+public class TestJVMDevice extends TornadoTestBase {
+
+    private static TornadoDriver getJVMDriver() {
+        if (!Boolean.parseBoolean(System.getProperty("tornado.jvm.enable", "False"))) {
+            throw new UnsupportedConfigurationException("The JVM driver is not enabled. Use -Dtornado.jvm.enable=True");
+        }
+        TornadoDriver jvmDriver = null;
+        for (int i = 0; i < getTornadoRuntime().getNumDrivers(); i++) {
+            TornadoDriver driver = getTornadoRuntime().getDriver(i);
+            if (driver.getName().equals("JVM")) {
+                jvmDriver = driver;
+            }
+        }
+        assertNotNull("The JVM driver is enabled but it is not loaded", jvmDriver);
+        return jvmDriver;
+    }
+
+    private static void vectorAdd(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    private static void prefixSum(int[] a, int[] b) {
+        b[0] = a[0];
+        for (int i = 1; i < a.length; i++) {
+            b[i] = b[i - 1] + a[i];
+        }
+    }
+
+    @Test
+    public void testParallelTask() {
+        TornadoDriver driver = getJVMDriver();
+
+        final int numElements = 4096;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        int[] c = new int[numElements];
+
+        IntStream.range(0, numElements).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        // @formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+                .task("t0", TestJVMDevice::vectorAdd, a, b, c)
+                .streamOut(c);
+        // @formatter:on
+
+        s0.mapAllTo(driver.getDevice(0));
+        s0.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(3 * i, c[i]);
+        }
+    }
+
+    @Test
+    public void testSequentialTask() {
+        TornadoDriver driver = getJVMDriver();
+
+        final int numElements = 1024;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+
+        Arrays.fill(a, 1);
+
+        // @formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+                .task("t0", TestJVMDevice::prefixSum, a, b)
+                .streamOut(b);
+        // @formatter:on
+
+        s0.mapAllTo(driver.getDevice(0));
+        s0.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(i + 1, b[i]);
+        }
+    }
+}
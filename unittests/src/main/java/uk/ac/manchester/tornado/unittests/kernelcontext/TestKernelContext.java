@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.unittests.kernelcontext;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestKernelContext extends TornadoTestBase {
+
+    private static final int TILE = 16;
+
+    private static final int LOCAL_SIZE = 256;
+
+    public static void vectorAdd(int[] a, int[] b, int[] c) {
+        int i = KernelContext.getGlobalId(0);
+        c[i] = a[i] + b[i];
+    }
+
+    @Test
+    public void testGlobalIds() {
+        final int size = 4096;
+        int[] a = new int[size];
+        int[] b = new int[size];
+        int[] c = new int[size];
+
+        IntStream.range(0, size).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .task("t0", TestKernelContext::vectorAdd, a, b, c)
+            .setGridSize("t0", new long[] { size }, new long[] { 64 })
+            .streamOut(c)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(3 * i, c[i]);
+        }
+    }
+
+    public static void reduceLocal(int[] input, int[] partialSums) {
+        int globalId = KernelContext.getGlobalId(0);
+        int localId = KernelContext.getLocalId(0);
+        int groupSize = KernelContext.getLocalGroupSize(0);
+
+        int[] localSums = KernelContext.allocateIntLocalArray(LOCAL_SIZE);
+        localSums[localId] = input[globalId];
+        for (int stride = groupSize / 2; stride > 0; stride /= 2) {
+            KernelContext.localBarrier();
+            if (localId < stride) {
+                localSums[localId] += localSums[localId + stride];
+            }
+        }
+        if (localId == 0) {
+            partialSums[KernelContext.getGroupId(0)] = localSums[0];
+        }
+    }
+
+    @Test
+    public void testLocalMemoryReduction() {
+        final int size = 8192;
+        int[] input = new int[size];
+        int[] partialSums = new int[size / LOCAL_SIZE];
+
+        Random r = new Random();
+        IntStream.range(0, size).forEach(i -> input[i] = r.nextInt(100));
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .task("t0", TestKernelContext::reduceLocal, input, partialSums)
+            .setGridSize("t0", new long[] { size }, new long[] { LOCAL_SIZE })
+            .streamOut(partialSums)
+            .execute();
+        //@formatter:on
+
+        for (int group = 0; group < partialSums.length; group++) {
+            int expected = 0;
+            for (int i = group * LOCAL_SIZE; i < (group + 1) * LOCAL_SIZE; i++) {
+                expected += input[i];
+            }
+            assertEquals(expected, partialSums[group]);
+        }
+    }
+
+    public static void matrixMultiplicationTiled(float[] a, float[] b, float[] c, int size) {
+        int localCol = KernelContext.getLocalId(0);
+        int localRow = KernelContext.getLocalId(1);
+        int col = KernelContext.getGlobalId(0);
+        int row = KernelContext.getGlobalId(1);
+
+        float[] aTile = KernelContext.allocateFloatLocalArray(TILE * TILE);
+        float[] bTile = KernelContext.allocateFloatLocalArray(TILE * TILE);
+
+        float sum = 0.0f;
+        for (int t = 0; t < size / TILE; t++) {
+            aTile[localRow * TILE + localCol] = a[row * size + t * TILE + localCol];
+            bTile[localRow * TILE + localCol] = b[(t * TILE + localRow) * size + col];
+            KernelContext.localBarrier();
+            for (int k = 0; k < TILE; k++) {
+                sum += aTile[localRow * TILE + k] * bTile[k * TILE + localCol];
+            }
+            KernelContext.localBarrier();
+        }
+        c[row * size + col] = sum;
+    }
+
+    @Test
+    public void testMatrixMultiplicationTiled() {
+        final int size = 128;
+        float[] a = new float[size * size];
+        float[] b = new float[size * size];
+        float[] c = new float[size * size];
+        float[] expected = new float[size * size];
+
+        Random r = new Random();
+        IntStream.range(0, size * size).forEach(i -> {
+            a[i] = r.nextFloat();
+            b[i] = r.nextFloat();
+        });
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .task("t0", TestKernelContext::matrixMultiplicationTiled, a, b, c, size)
+            .setGridSize("t0", new long[] { size, size }, new long[] { TILE, TILE })
+            .streamOut(c)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                float sum = 0.0f;
+                for (int k = 0; k < size; k++) {
+                    sum += a[i * size + k] * b[k * size + j];
+                }
+                expected[i * size + j] = sum;
+            }
+        }
+        assertArrayEquals(expected, c, 0.01f);
+    }
+
+    @Test
+    public void testJavaExecution() {
+        final int size = 1024;
+        int[] input = new int[size];
+        int[] partialSums = new int[size / LOCAL_SIZE];
+        int[] javaSums = new int[size / LOCAL_SIZE];
+
+        IntStream.range(0, size).forEach(i -> input[i] = i);
+
+        KernelContext.execute(() -> reduceLocal(input, javaSums), new long[] { size }, new long[] { LOCAL_SIZE });
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .task("t0", TestKernelContext::reduceLocal, input, partialSums)
+            .setGridSize("t0", new long[] { size }, new long[] { LOCAL_SIZE })
+            .streamOut(partialSums)
+            .execute();
+        //@formatter:on
+
+        assertArrayEquals(javaSums, partialSums);
+    }
+}
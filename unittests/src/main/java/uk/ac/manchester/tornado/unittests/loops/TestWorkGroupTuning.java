@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package uk.ac.manchester.tornado.unittests.loops;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.manchester.tornado.unittests.virtualization.TestsVirtualLayer.getTornadoRuntime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+import uk.ac.manchester.tornado.unittests.tools.Exceptions.UnsupportedConfigurationException;
+
+/**
+ * Parallel loops with prime sizes executed several times, so the autotuner
+ * launches them with padded global work sizes:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.autotune=True -Dtornado.autotune.file=/tmp/tornado-tuning-unittests.properties" uk.ac.manchester.tornado.unittests.loops.TestWorkGroupTuning
+ * </code>
+ */
+public class TestWorkGroupTuning extends TornadoTestBase {
+
+    private static final int ITERATIONS = 50;
+
+    public static void saxpy(float alpha, float[] x, float[] y) {
+        for (@Parallel int i = 0; i < x.length; i++) {
+            y[i] = alpha * x[i] + y[i];
+        }
+    }
+
+    public static void transpose(int[] input, int[] output, int rows, int columns) {
+        for (@Parallel int i = 0; i < rows; i++) {
+            for (@Parallel int j = 0; j < columns; j++) {
+                output[j * rows + i] = input[i * columns + j];
+            }
+        }
+    }
+
+    @Test
+    public void testPrimeSize1D() {
+        final int numElements = 10007;
+        float[] x = new float[numElements];
+        float[] y = new float[numElements];
+
+        IntStream.range(0, numElements).forEach(i -> x[i] = i);
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+            .streamIn(y)
+            .task("t0", TestWorkGroupTuning::saxpy, 2.0f, x, y)
+            .streamOut(y);
+        //@formatter:on
+
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            s0.execute();
+        }
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(2.0f * i * ITERATIONS, y[i], 0.01f * i * ITERATIONS + 0.01f);
+        }
+    }
+
+    /**
+     * The local work size chosen for a task is stored in the tuning file. Only
+     * GPU kernels are tuned.
+     */
+    @Test
+    public void testTuningFile() throws IOException {
+        final String file = System.getProperty("tornado.autotune.file");
+        if (!Boolean.parseBoolean(System.getProperty("tornado.autotune", "False")) || file == null) {
+            throw new UnsupportedConfigurationException("The autotuner is not enabled. Use -Dtornado.autotune=True -Dtornado.autotune.file=PATH");
+        }
+        if (getTornadoRuntime().getDefaultDevice().getDeviceType() != TornadoDeviceType.GPU) {
+            throw new UnsupportedConfigurationException("The autotuner only tunes GPU kernels");
+        }
+
+        final int numElements = 10007;
+        float[] x = new float[numElements];
+        float[] y = new float[numElements];
+
+        IntStream.range(0, numElements).forEach(i -> x[i] = i);
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("tuning")
+            .streamIn(y)
+            .task("t0", TestWorkGroupTuning::saxpy, 2.0f, x, y)
+            .streamOut(y);
+        //@formatter:on
+
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            s0.execute();
+        }
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(2.0f * i * ITERATIONS, y[i], 0.01f * i * ITERATIONS + 0.01f);
+        }
+
+        final Properties entries = new Properties();
+        try (InputStream input = Files.newInputStream(Paths.get(file))) {
+            entries.load(input);
+        }
+        String value = null;
+        for (String key : entries.stringPropertyNames()) {
+            if (key.startsWith("tuning.t0|")) {
+                value = entries.getProperty(key);
+            }
+        }
+        assertNotNull(value);
+
+        // <x>,<y>,<z>;<time>: a 1D candidate is a power of two in [16, 256]
+        final String[] sizes = value.split(";")[0].split(",");
+        final long localX = Long.parseLong(sizes[0]);
+        assertTrue(localX >= 16 && localX <= 256 && Long.bitCount(localX) == 1);
+        for (int i = 1; i < sizes.length; i++) {
+            assertEquals(1, Long.parseLong(sizes[i]));
+        }
+        assertTrue(Long.parseLong(value.split(";")[1]) > 0);
+    }
+
+    @Test
+    public void testPrimeSize2D() {
+        final int rows = 131;
+        final int columns = 257;
+        int[] input = new int[rows * columns];
+        int[] output = new int[rows * columns];
+
+        IntStream.range(0, input.length).forEach(i -> input[i] = i);
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+            .task("t0", TestWorkGroupTuning::transpose, input, output, rows, columns)
+            .streamOut(output);
+        //@formatter:on
+
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            s0.execute();
+        }
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                assertEquals(input[i * columns + j], output[j * rows + i]);
+            }
+        }
+    }
+}
@@ -55,6 +55,14 @@ public class TestMatrices extends TornadoTestBase {
         }
     }
 
+    public static void addOne2D(float[][] input, float[][] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            for (int j = 0; j < input[i].length; j++) {
+                output[i][j] = input[i][j] + 1.0f;
+            }
+        }
+    }
+
     public static void matrixVector(float[] matrix, float[] vector, float[] result, final int size) {
         for (@Parallel int i = 0; i < size; i++) {
             float sum = 0.0f;
@@ -326,4 +334,63 @@ public class TestMatrices extends TornadoTestBase {
         }
     }
 
+    @Test
+    public void testRectangularMatrixCopies() {
+        // Rectangular arrays are copied with a single transfer
+        final int rows = 1000;
+        final int columns = 257;
+        float[][] input = new float[rows][columns];
+        float[][] output = new float[rows][columns];
+        Random r = new Random();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                input[i][j] = r.nextFloat();
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestMatrices::addOne2D, input, output)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                assertEquals(input[i][j] + 1.0f, output[i][j], 0.001f);
+            }
+        }
+    }
+
+    @Test
+    public void testJaggedMatrixCopies() {
+        // Rows of different lengths are copied one by one
+        final int rows = 64;
+        float[][] input = new float[rows][];
+        float[][] output = new float[rows][];
+        Random r = new Random();
+        for (int i = 0; i < rows; i++) {
+            input[i] = new float[i + 1];
+            output[i] = new float[i + 1];
+            for (int j = 0; j <= i; j++) {
+                input[i][j] = r.nextFloat();
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestMatrices::addOne2D, input, output)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j <= i; j++) {
+                assertEquals(input[i][j] + 1.0f, output[i][j], 0.001f);
+            }
+        }
+    }
+
 }
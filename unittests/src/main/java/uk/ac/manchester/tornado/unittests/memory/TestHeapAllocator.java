@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.mm.HeapAllocator;
+
+/**
+ * Tests for the device heap sub-allocator. They do not need a device.
+ */
+public class TestHeapAllocator {
+
+    private static final int HEAP_START = 1024;
+    private static final int HEAP_SIZE = 4096;
+
+    @Test
+    public void testAllocateAndFree() {
+        HeapAllocator heap = new HeapAllocator(HEAP_START, HEAP_START + HEAP_SIZE);
+
+        long a = heap.allocate(1000, 0, 1);
+        long b = heap.allocate(1000, 0, 1);
+        assertEquals(HEAP_START, a);
+        assertEquals(HEAP_START + 1000, b);
+        assertEquals(2000, heap.getAllocatedBytes());
+        assertEquals(HEAP_SIZE - 2000, heap.getFreeBytes());
+
+        assertTrue(heap.free(a));
+        assertTrue(heap.free(b));
+        assertFalse(heap.free(b));
+        assertEquals(0, heap.getAllocatedBytes());
+        assertEquals(HEAP_SIZE, heap.getFreeBytes());
+        assertEquals(1, heap.getNumFreeBlocks());
+    }
+
+    @Test
+    public void testAlignment() {
+        HeapAllocator heap = new HeapAllocator(HEAP_START, HEAP_START + HEAP_SIZE);
+
+        heap.allocate(3, 0, 1);
+        long offset = heap.allocate(64, 16, 128);
+        assertEquals(0, (offset + 16) % 128);
+        assertTrue(offset >= HEAP_START + 3);
+    }
+
+    @Test
+    public void testReuseAfterFree() {
+        HeapAllocator heap = new HeapAllocator(HEAP_START, HEAP_START + HEAP_SIZE);
+
+        long a = heap.allocate(2048, 0, 1);
+        heap.allocate(2048, 0, 1);
+        assertEquals(-1, heap.allocate(1, 0, 1));
+
+        heap.free(a);
+        assertEquals(a, heap.allocate(2048, 0, 1));
+    }
+
+    @Test
+    public void testCoalescing() {
+        HeapAllocator heap = new HeapAllocator(HEAP_START, HEAP_START + HEAP_SIZE);
+
+        long[] blocks = new long[4];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = heap.allocate(HEAP_SIZE / blocks.length, 0, 1);
+        }
+
+        // Free two non-adjacent blocks: the free space is fragmented
+        heap.free(blocks[0]);
+        heap.free(blocks[2]);
+        assertEquals(2, heap.getNumFreeBlocks());
+        assertEquals(HEAP_SIZE / 4, heap.getLargestFreeBlock());
+        assertEquals(0.5, heap.getFragmentation(), 1e-9);
+        assertEquals(-1, heap.allocate(HEAP_SIZE / 2, 0, 1));
+
+        // Freeing the block in the middle merges the three blocks
+        heap.free(blocks[1]);
+        assertEquals(1, heap.getNumFreeBlocks());
+        assertEquals(3 * HEAP_SIZE / 4, heap.getLargestFreeBlock());
+        assertEquals(0, heap.getFragmentation(), 1e-9);
+        assertNotEquals(-1, heap.allocate(HEAP_SIZE / 2, 0, 1));
+    }
+
+    @Test
+    public void testReset() {
+        HeapAllocator heap = new HeapAllocator(HEAP_START, HEAP_START + HEAP_SIZE);
+
+        long a = heap.allocate(HEAP_SIZE, 0, 1);
+        assertEquals(HEAP_START, a);
+        heap.reset(HEAP_START, HEAP_START + HEAP_SIZE);
+
+        assertFalse(heap.free(a));
+        assertEquals(0, heap.getNumAllocations());
+        assertEquals(HEAP_SIZE, heap.getLargestFreeBlock());
+    }
+}
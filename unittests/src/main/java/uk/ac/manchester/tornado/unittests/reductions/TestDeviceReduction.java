@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.unittests.reductions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.annotations.ReductionOp;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestDeviceReduction extends TornadoTestBase {
+
+    // Not a power of two
+    private static final int SIZE = 1000003;
+
+    private static void normalise(float[] input, float[] sum, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] / sum[0];
+        }
+    }
+
+    @Test
+    public void testReduceSumInt() {
+        int[] input = new int[SIZE];
+        int[] result = new int[1];
+        Random r = new Random();
+        int sequential = 0;
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextInt(100);
+            sequential += input[i];
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .reduce("t0", input, result, ReductionOp.ADD)
+                .streamOut(result)
+                .execute();
+        //@formatter:on
+
+        assertEquals(sequential, result[0]);
+    }
+
+    @Test
+    public void testReduceMinLong() {
+        long[] input = new long[SIZE];
+        long[] result = new long[1];
+        Random r = new Random();
+        long sequential = Long.MAX_VALUE;
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextLong();
+            sequential = Math.min(sequential, input[i]);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .reduce("t0", input, result, ReductionOp.MIN)
+                .streamOut(result)
+                .execute();
+        //@formatter:on
+
+        assertEquals(sequential, result[0]);
+    }
+
+    @Test
+    public void testReduceMaxDouble() {
+        double[] input = new double[SIZE];
+        double[] result = new double[1];
+        Random r = new Random();
+        double sequential = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextGaussian();
+            sequential = Math.max(sequential, input[i]);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .reduce("t0", input, result, ReductionOp.MAX)
+                .streamOut(result)
+                .execute();
+        //@formatter:on
+
+        assertEquals(sequential, result[0], 0.0);
+    }
+
+    @Test
+    public void testReduceSmallInput() {
+        int[] input = new int[] { 3, 5, 7 };
+        int[] result = new int[1];
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .reduce("t0", input, result, ReductionOp.BITWISE_OR)
+                .streamOut(result)
+                .execute();
+        //@formatter:on
+
+        assertEquals(7, result[0]);
+    }
+
+    @Test
+    public void testReduceFeedsNextTask() {
+        float[] input = new float[SIZE];
+        float[] sum = new float[1];
+        float[] output = new float[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextFloat();
+        }
+
+        // The sum stays on the device and is used by the next task
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .reduce("t0", input, sum, ReductionOp.ADD)
+                .task("t1", TestDeviceReduction::normalise, input, sum, output)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        double total = 0;
+        for (int i = 0; i < SIZE; i++) {
+            total += input[i];
+        }
+        double check = 0;
+        for (int i = 0; i < SIZE; i++) {
+            check += output[i];
+        }
+        assertEquals(1.0, check, 0.01);
+        assertEquals(input[0] / total, output[0], 0.001);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.unittests.reductions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.ReductionOp;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestScan extends TornadoTestBase {
+
+    private static final int SIZE = 8191;
+
+    @Test
+    public void testInclusiveScanInt() {
+        int[] input = new int[SIZE];
+        int[] output = new int[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextInt(100);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .scan("t0", input, output, ReductionOp.ADD, true)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        int acc = 0;
+        for (int i = 0; i < SIZE; i++) {
+            acc += input[i];
+            assertEquals(acc, output[i]);
+        }
+    }
+
+    @Test
+    public void testExclusiveScanLong() {
+        long[] input = new long[SIZE];
+        long[] output = new long[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextInt(1000);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .scan("t0", input, output, ReductionOp.ADD, false)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        long acc = 0;
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(acc, output[i]);
+            acc += input[i];
+        }
+    }
+
+    @Test
+    public void testInclusiveScanMaxFloat() {
+        float[] input = new float[SIZE];
+        float[] output = new float[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextFloat() - 0.5f;
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .scan("t0", input, output, ReductionOp.MAX, true)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < SIZE; i++) {
+            max = Math.max(max, input[i]);
+            assertEquals(max, output[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void testExclusiveScanMinDoubleInPlace() {
+        double[] data = new double[SIZE];
+        double[] sequential = new double[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = r.nextDouble();
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < SIZE; i++) {
+            sequential[i] = min;
+            min = Math.min(min, data[i]);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .scan("t0", data, data, ReductionOp.MIN, false)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, data, 0.0);
+    }
+
+    /**
+     * The identity of MAX is negative infinity, so it is also the first value of
+     * an exclusive scan with infinite inputs.
+     */
+    @Test
+    public void testExclusiveScanMaxFloatInfinity() {
+        float[] input = new float[SIZE];
+        float[] output = new float[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextFloat();
+        }
+        input[0] = Float.NEGATIVE_INFINITY;
+        input[SIZE / 2] = Float.POSITIVE_INFINITY;
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .scan("t0", input, output, ReductionOp.MAX, false)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(max, output[i], 0.0f);
+            max = Math.max(max, input[i]);
+        }
+    }
+
+    /**
+     * On GPUs, the totals of the work-groups are scanned in two more levels.
+     */
+    @Test
+    public void testExclusiveScanIntLarge() {
+        final int size = 70001;
+        int[] input = new int[size];
+        int[] output = new int[size];
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            input[i] = r.nextInt(100);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(input)
+                .scan("t0", input, output, ReductionOp.ADD, false)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        int acc = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(acc, output[i]);
+            acc += input[i];
+        }
+    }
+
+    @Test
+    public void testInclusiveScanSingleElement() {
+        long[] data = new long[] { 42 };
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(data)
+                .scan("t0", data, data, ReductionOp.ADD, true)
+                .streamOut(data)
+                .execute();
+        //@formatter:on
+
+        assertEquals(42, data[0]);
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testUnsupportedOperation() {
+        float[] input = new float[SIZE];
+        float[] output = new float[SIZE];
+        new TaskSchedule("s0").scan("t0", input, output, ReductionOp.BITWISE_OR, true);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.unittests.reductions;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.ReductionOp;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestSegmentedReduction extends TornadoTestBase {
+
+    private static final int SEGMENTS = 512;
+
+    private static int[] createOffsets(int numSegments) {
+        Random r = new Random();
+        int[] offsets = new int[numSegments + 1];
+        for (int i = 0; i < numSegments; i++) {
+            // Some segments are empty
+            offsets[i + 1] = offsets[i] + r.nextInt(32);
+        }
+        return offsets;
+    }
+
+    @Test
+    public void testSegmentedSumInt() {
+        int[] offsets = createOffsets(SEGMENTS);
+        int[] values = new int[offsets[SEGMENTS]];
+        int[] output = new int[SEGMENTS];
+        int[] sequential = new int[SEGMENTS];
+        Random r = new Random();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = r.nextInt(100);
+        }
+        for (int s = 0; s < SEGMENTS; s++) {
+            for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                sequential[s] += values[i];
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(values, offsets)
+                .reduceSegments("t0", values, offsets, output, ReductionOp.ADD)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, output);
+    }
+
+    @Test
+    public void testSegmentedMaxLong() {
+        int[] offsets = createOffsets(SEGMENTS);
+        long[] values = new long[offsets[SEGMENTS]];
+        long[] output = new long[SEGMENTS];
+        long[] sequential = new long[SEGMENTS];
+        Random r = new Random();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = r.nextLong();
+        }
+        for (int s = 0; s < SEGMENTS; s++) {
+            sequential[s] = Long.MIN_VALUE;
+            for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                sequential[s] = Math.max(sequential[s], values[i]);
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(values, offsets)
+                .reduceSegments("t0", values, offsets, output, ReductionOp.MAX)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, output);
+    }
+
+    @Test
+    public void testSparseMatrixRowSums() {
+        // Row sums of a CSR matrix
+        int[] rowPointers = createOffsets(SEGMENTS);
+        float[] matrixValues = new float[rowPointers[SEGMENTS]];
+        float[] rowSums = new float[SEGMENTS];
+        float[] sequential = new float[SEGMENTS];
+        Random r = new Random();
+        for (int i = 0; i < matrixValues.length; i++) {
+            matrixValues[i] = r.nextFloat();
+        }
+        for (int row = 0; row < SEGMENTS; row++) {
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                sequential[row] += matrixValues[i];
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(matrixValues, rowPointers)
+                .reduceSegments("t0", matrixValues, rowPointers, rowSums, ReductionOp.ADD)
+                .streamOut(rowSums)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, rowSums, 0.01f);
+    }
+
+    @Test
+    public void testSegmentedMinDouble() {
+        int[] offsets = createOffsets(SEGMENTS);
+        double[] values = new double[offsets[SEGMENTS]];
+        double[] output = new double[SEGMENTS];
+        double[] sequential = new double[SEGMENTS];
+        Random r = new Random();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = r.nextDouble();
+        }
+        for (int s = 0; s < SEGMENTS; s++) {
+            sequential[s] = Double.POSITIVE_INFINITY;
+            for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                sequential[s] = Math.min(sequential[s], values[i]);
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(values, offsets)
+                .reduceSegments("t0", values, offsets, output, ReductionOp.MIN)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, output, 0.0);
+    }
+
+    /**
+     * A few segments with many more values than work-items, and many short
+     * ones.
+     */
+    @Test
+    public void testSegmentedSumIntLongSegments() {
+        final int numSegments = 64;
+        Random r = new Random();
+        int[] offsets = new int[numSegments + 1];
+        for (int i = 0; i < numSegments; i++) {
+            offsets[i + 1] = offsets[i] + ((i % 8 == 0) ? 5000 + r.nextInt(5000) : r.nextInt(4));
+        }
+        int[] values = new int[offsets[numSegments]];
+        int[] output = new int[numSegments];
+        int[] sequential = new int[numSegments];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = r.nextInt(100);
+        }
+        for (int s = 0; s < numSegments; s++) {
+            for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                sequential[s] += values[i];
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .streamIn(values, offsets)
+                .reduceSegments("t0", values, offsets, output, ReductionOp.ADD)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        assertArrayEquals(sequential, output);
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testWrongOffsets() {
+        int[] values = new int[16];
+        int[] offsets = new int[4];
+        int[] output = new int[4];
+        new TaskSchedule("s0").reduceSegments("t0", values, offsets, output, ReductionOp.ADD);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Executions of the same task-schedule from several threads, each one with its
+ * own input and output arrays.
+ */
+public class TestConcurrentExecution extends TornadoTestBase {
+
+    private static final int NUM_ELEMENTS = 4096;
+    private static final int NUM_THREADS = 4;
+    private static final int ITERATIONS = 16;
+
+    public static void saxpy(float alpha, float[] x, float[] y, float[] z) {
+        for (@Parallel int i = 0; i < z.length; i++) {
+            z[i] = alpha * x[i] + y[i];
+        }
+    }
+
+    @Test
+    public void testExecuteWithReferences() {
+        float[] x = new float[NUM_ELEMENTS];
+        float[] y = new float[NUM_ELEMENTS];
+        float[] z = new float[NUM_ELEMENTS];
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+                .streamIn(x, y)
+                .task("t0", TestConcurrentExecution::saxpy, 2.0f, x, y, z)
+                .streamOut(z);
+        //@formatter:on
+
+        float[] newX = new float[NUM_ELEMENTS];
+        float[] newY = new float[NUM_ELEMENTS];
+        float[] newZ = new float[NUM_ELEMENTS];
+        IntStream.range(0, NUM_ELEMENTS).forEach(i -> {
+            newX[i] = i;
+            newY[i] = 1;
+        });
+
+        s0.executeWithReferences(new Object[] { x, y, z }, new Object[] { newX, newY, newZ });
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(2.0f * i + 1, newZ[i], 0.01f);
+            assertEquals(0.0f, z[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testConcurrentExecutions() throws Exception {
+        float[] x = new float[NUM_ELEMENTS];
+        float[] y = new float[NUM_ELEMENTS];
+        float[] z = new float[NUM_ELEMENTS];
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+                .streamIn(x, y)
+                .task("t0", TestConcurrentExecution::saxpy, 2.0f, x, y, z)
+                .streamOut(z);
+        //@formatter:on
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < NUM_THREADS; t++) {
+                final int request = t;
+                results.add(executor.submit(() -> {
+                    float[] newX = new float[NUM_ELEMENTS];
+                    float[] newY = new float[NUM_ELEMENTS];
+                    float[] newZ = new float[NUM_ELEMENTS];
+                    boolean correct = true;
+                    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                        final float value = request * ITERATIONS + iteration;
+                        for (int i = 0; i < NUM_ELEMENTS; i++) {
+                            newX[i] = value;
+                            newY[i] = i;
+                        }
+                        s0.executeWithReferences(new Object[] { x, y, z }, new Object[] { newX, newY, newZ });
+                        for (int i = 0; i < NUM_ELEMENTS; i++) {
+                            correct &= Math.abs(newZ[i] - (2.0f * value + i)) < 0.01f;
+                        }
+                    }
+                    return correct;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertEquals(true, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testIncompatibleReference() {
+        float[] x = new float[NUM_ELEMENTS];
+        float[] y = new float[NUM_ELEMENTS];
+        float[] z = new float[NUM_ELEMENTS];
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+                .streamIn(x, y)
+                .task("t0", TestConcurrentExecution::saxpy, 2.0f, x, y, z)
+                .streamOut(z);
+        //@formatter:on
+
+        s0.executeWithReferences(new Object[] { z }, new Object[] { new float[NUM_ELEMENTS / 2] });
+    }
+
+}
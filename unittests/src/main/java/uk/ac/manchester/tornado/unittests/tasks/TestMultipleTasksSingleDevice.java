@@ -149,4 +149,34 @@ public class TestMultipleTasksSingleDevice extends TornadoTestBase {
         }
     }
 
+    /**
+     * The tasks of {@code a} and {@code b} are independent chains. They are
+     * launched in different queues with {@code -Dtornado.opencl.queues=2}.
+     */
+    @Test
+    public void testIndependentTasks() {
+        final int numElements = 1024;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        int[] c = new int[numElements];
+        int[] d = new int[numElements];
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(a, b)
+            .task("t0", TestMultipleTasksSingleDevice::task0Initialization, a)
+            .task("t1", TestMultipleTasksSingleDevice::task0Initialization, b)
+            .task("t2", TestMultipleTasksSingleDevice::task1Multiplication, a, 12)
+            .task("t3", TestMultipleTasksSingleDevice::task3Copy, b, d, 0)
+            .task("t4", TestMultipleTasksSingleDevice::task2Saxpy, a, a, c, 2)
+            .streamOut(c, d)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(360, c[i]);
+            assertEquals(10, d[i]);
+        }
+    }
+
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Task-schedules with producer/consumer tasks that can be merged into a single
+ * kernel. The results have to be the same with and without task fusion. With
+ * the profiler log, the tests also check which tasks run on the device:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.experimental.fusion=True -Dtornado.log.profiler=True" uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion
+ * </code>
+ */
+public class TestTaskFusion extends TornadoTestBase {
+
+    private static final boolean FUSION = Boolean.parseBoolean(System.getProperty("tornado.experimental.fusion", "False"));
+    private static final boolean PROFILER_LOG = Boolean.parseBoolean(System.getProperty("tornado.log.profiler", "False"));
+
+    @Before
+    public void enableProfiler() {
+        System.setProperty("tornado.profiler", "True");
+    }
+
+    @After
+    public void disableProfiler() {
+        System.setProperty("tornado.profiler", "False");
+    }
+
+    /**
+     * The tasks that are compiled or launched on the device have timers in the
+     * profiler log. A producer merged into its consumer has none.
+     */
+    private static void checkDeviceTasks(TaskSchedule ts, String producer, String consumer, boolean canFuse) {
+        if (!PROFILER_LOG) {
+            return;
+        }
+        final String log = ts.getProfileLog();
+        assertTrue(log.contains("\"" + consumer + "\""));
+        assertEquals(!(FUSION && canFuse), log.contains("\"" + producer + "\""));
+    }
+
+    public static void scale(float[] input, float[] output, float alpha) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * alpha;
+        }
+    }
+
+    public static void add(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void square(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * input[i];
+        }
+    }
+
+    public static void shiftLeft(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length - 1; i++) {
+            output[i] = input[i + 1];
+        }
+    }
+
+    @Test
+    public void testMapMap() {
+        final int numElements = 4096;
+        float[] a = new float[numElements];
+        float[] tmp = new float[numElements];
+        float[] b = new float[numElements];
+        float[] c = new float[numElements];
+
+        IntStream.range(0, numElements).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        //@formatter:off
+        TaskSchedule ts = new TaskSchedule("s0")
+            .streamIn(a, b)
+            .task("t0", TestTaskFusion::scale, a, tmp, 3.0f)
+            .task("t1", TestTaskFusion::add, tmp, b, c)
+            .streamOut(c);
+        //@formatter:on
+        ts.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(3.0f * i + 2 * i, c[i], 0.01f);
+        }
+        checkDeviceTasks(ts, "s0.t0", "s0.t1", true);
+    }
+
+    /**
+     * The fused kernel has its own entry in the code cache of the device: it is
+     * reused by a new task-schedule with the same tasks, and the consumer on its
+     * own still gets its own kernel.
+     */
+    @Test
+    public void testCodeCache() {
+        final int numElements = 4096;
+        float[] a = new float[numElements];
+        float[] tmp = new float[numElements];
+        float[] b = new float[numElements];
+        float[] c = new float[numElements];
+
+        IntStream.range(0, numElements).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        for (int run = 0; run < 2; run++) {
+            //@formatter:off
+            TaskSchedule ts = new TaskSchedule("fusion")
+                .streamIn(a, b)
+                .task("t0", TestTaskFusion::scale, a, tmp, 3.0f)
+                .task("t1", TestTaskFusion::add, tmp, b, c)
+                .streamOut(c);
+            //@formatter:on
+            ts.execute();
+
+            for (int i = 0; i < numElements; i++) {
+                assertEquals(3.0f * i + 2 * i, c[i], 0.01f);
+            }
+            if (run == 1) {
+                assertEquals(0, ts.getTornadoCompilerTime());
+            }
+        }
+
+        //@formatter:off
+        new TaskSchedule("fusion")
+            .streamIn(a, b)
+            .task("t1", TestTaskFusion::add, a, b, c)
+            .streamOut(c)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(i + 2 * i, c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testChain() {
+        final int numElements = 4096;
+        float[] a = new float[numElements];
+        float[] b = new float[numElements];
+        float[] c = new float[numElements];
+        float[] d = new float[numElements];
+
+        IntStream.range(0, numElements).forEach(i -> a[i] = i);
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(a)
+            .task("t0", TestTaskFusion::scale, a, b, 0.5f)
+            .task("t1", TestTaskFusion::square, b, c)
+            .task("t2", TestTaskFusion::add, b, c, d)
+            .streamOut(b, d)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < numElements; i++) {
+            float half = 0.5f * i;
+            assertEquals(half, b[i], 0.01f);
+            assertEquals(half + half * half, d[i], 0.01f);
+        }
+    }
+
+    /**
+     * The consumer reads the elements of the neighbour thread, so the tasks
+     * cannot be merged.
+     */
+    @Test
+    public void testNeighbourAccess() {
+        final int numElements = 4096;
+        float[] a = new float[numElements];
+        float[] b = new float[numElements];
+        float[] c = new float[numElements];
+
+        IntStream.range(0, numElements).forEach(i -> a[i] = i);
+
+        //@formatter:off
+        TaskSchedule ts = new TaskSchedule("s0")
+            .streamIn(a)
+            .task("t0", TestTaskFusion::scale, a, b, 2.0f)
+            .task("t1", TestTaskFusion::shiftLeft, b, c)
+            .streamOut(c);
+        //@formatter:on
+        ts.execute();
+
+        for (int i = 0; i < numElements - 1; i++) {
+            assertEquals(2.0f * (i + 1), c[i], 0.01f);
+        }
+        checkDeviceTasks(ts, "s0.t0", "s0.t1", false);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.unittests.vectortypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.types.HalfOps;
+import uk.ac.manchester.tornado.api.collections.types.VectorHalf;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestHalfs extends TornadoTestBase {
+
+    @Test
+    public void testConversions() {
+        assertEquals(0x3c00, HalfOps.fromFloat(1.0f));
+        assertEquals((short) 0xc000, HalfOps.fromFloat(-2.0f));
+        assertEquals(0x7bff, HalfOps.fromFloat(65504.0f));
+        assertEquals(0x7c00, HalfOps.fromFloat(65520.0f));
+        assertEquals(0x0001, HalfOps.fromFloat(0x1p-24f));
+        assertEquals(0x2e66, HalfOps.fromFloat(0.1f));
+        assertEquals(0, HalfOps.fromFloat(0x1p-26f));
+
+        assertEquals(1.0f, HalfOps.toFloat((short) 0x3c00), 0.0f);
+        assertEquals(65504.0f, HalfOps.toFloat((short) 0x7bff), 0.0f);
+        assertEquals(0x1p-24f, HalfOps.toFloat((short) 0x0001), 0.0f);
+        assertEquals(Float.NEGATIVE_INFINITY, HalfOps.toFloat((short) 0xfc00), 0.0f);
+        assertEquals(true, Float.isNaN(HalfOps.toFloat(HalfOps.fromFloat(Float.NaN))));
+
+        // Every half value survives a round trip through float
+        for (int i = 0; i < 0x10000; i++) {
+            short half = (short) i;
+            float value = HalfOps.toFloat(half);
+            if (!Float.isNaN(value)) {
+                assertEquals(half, HalfOps.fromFloat(value));
+            }
+        }
+    }
+
+    public static void scale(short[] input, short[] output, float factor) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            HalfOps.store(output, i, HalfOps.load(input, i) * factor);
+        }
+    }
+
+    @Test
+    public void testHalfArrays() {
+        final int size = 1024;
+        float[] values = new float[size];
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            values[i] = r.nextFloat() * 100;
+        }
+        short[] input = HalfOps.fromFloats(values);
+        short[] output = new short[size];
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .task("t0", TestHalfs::scale, input, output, 0.5f)
+                .streamOut(output)
+                .execute();
+        //@formatter:on
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(HalfOps.fromFloat(HalfOps.toFloat(input[i]) * 0.5f), output[i]);
+        }
+    }
+
+    public static void addHalfs(VectorHalf a, VectorHalf b, VectorHalf c) {
+        for (@Parallel int i = 0; i < c.size(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    @Test
+    public void testVectorHalf() {
+        final int size = 1024;
+        VectorHalf a = new VectorHalf(size);
+        VectorHalf b = new VectorHalf(size);
+        VectorHalf c = new VectorHalf(size);
+
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            a.set(i, r.nextFloat());
+            b.set(i, r.nextFloat());
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+                .task("t0", TestHalfs::addHalfs, a, b, c)
+                .streamOut(c)
+                .execute();
+        //@formatter:on
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(HalfOps.toFloat(HalfOps.fromFloat(a.get(i) + b.get(i))), c.get(i), 0.0f);
+        }
+    }
+}
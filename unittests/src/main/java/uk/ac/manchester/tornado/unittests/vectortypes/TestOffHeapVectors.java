@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.unittests.vectortypes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorDouble;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorFloat;
+import uk.ac.manchester.tornado.api.collections.types.OffHeapVectorInt;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestOffHeapVectors extends TornadoTestBase {
+
+    private static void saxpy(float alpha, OffHeapVectorFloat x, OffHeapVectorFloat y) {
+        for (@Parallel int i = 0; i < x.size(); i++) {
+            y.set(i, alpha * x.get(i) + y.get(i));
+        }
+    }
+
+    private static void copyToArray(OffHeapVectorFloat x, float[] y) {
+        for (@Parallel int i = 0; i < x.size(); i++) {
+            y[i] = x.get(i);
+        }
+    }
+
+    private static void addInt(OffHeapVectorInt a, OffHeapVectorInt b, OffHeapVectorInt c) {
+        for (@Parallel int i = 0; i < c.size(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    private static void daxpy(double alpha, OffHeapVectorDouble x, OffHeapVectorDouble y) {
+        for (@Parallel int i = 0; i < x.size(); i++) {
+            y.set(i, alpha * x.get(i) + y.get(i));
+        }
+    }
+
+    @Test
+    public void testSaxpy() {
+        final int size = 4096;
+        OffHeapVectorFloat x = new OffHeapVectorFloat(size);
+        OffHeapVectorFloat y = new OffHeapVectorFloat(size);
+        float[] expected = new float[size];
+
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            x.set(i, r.nextFloat());
+            y.set(i, r.nextFloat());
+            expected[i] = 2.0f * x.get(i) + y.get(i);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(x, y)
+            .task("t0", TestOffHeapVectors::saxpy, 2.0f, x, y)
+            .streamOut(y)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(expected[i], y.get(i), 0.001f);
+        }
+    }
+
+    @Test
+    public void testMixedWithArrays() {
+        final int size = 1024;
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        OffHeapVectorFloat x = new OffHeapVectorFloat(values);
+        float[] output = new float[size];
+
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .streamIn(x) //
+                .task("t0", TestOffHeapVectors::copyToArray, x, output) //
+                .streamOut(output);
+        s0.execute();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(values[i], output[i], 0.001f);
+        }
+
+        // The vector is copied again on the next execution
+        x.fill(3.0f);
+        s0.execute();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(3.0f, output[i], 0.001f);
+        }
+    }
+
+    @Test
+    public void testAddInt() {
+        final int size = 2048;
+        OffHeapVectorInt a = new OffHeapVectorInt(size);
+        OffHeapVectorInt b = new OffHeapVectorInt(size);
+        OffHeapVectorInt c = new OffHeapVectorInt(size);
+
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            a.set(i, r.nextInt());
+            b.set(i, r.nextInt());
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(a, b)
+            .task("t0", TestOffHeapVectors::addInt, a, b, c)
+            .streamOut(c)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(a.get(i) + b.get(i), c.get(i));
+        }
+    }
+
+    @Test
+    public void testDaxpy() {
+        final int size = 4096;
+        OffHeapVectorDouble x = new OffHeapVectorDouble(size);
+        OffHeapVectorDouble y = new OffHeapVectorDouble(size);
+        double[] expected = new double[size];
+
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            x.set(i, r.nextDouble());
+            y.set(i, r.nextDouble());
+            expected[i] = 2.0 * x.get(i) + y.get(i);
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(x, y)
+            .task("t0", TestOffHeapVectors::daxpy, 2.0, x, y)
+            .streamOut(y)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(expected[i], y.get(i), 0.001);
+        }
+    }
+
+}
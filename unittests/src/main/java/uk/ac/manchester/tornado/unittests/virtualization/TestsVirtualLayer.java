@@ -352,4 +352,67 @@ public class TestsVirtualLayer extends TornadoTestBase {
         }
     }
 
+    /**
+     * It creates one task scheduler with two independent tasks, each one mapped to
+     * a different device. Both tasks run within the same execution.
+     */
+    @Test
+    public void testMultipleDevicesIndependentTasks() {
+        final int N = 128;
+        int[] dataA = new int[N];
+        int[] dataB = new int[N];
+
+        Arrays.fill(dataA, 100);
+        Arrays.fill(dataB, 200);
+
+        TaskSchedule s0 = new TaskSchedule("s0");
+        TornadoRuntime.setProperty("s0.t0.device", "0:0");
+        TornadoRuntime.setProperty("s0.t1.device", "0:1");
+
+        //@formatter:off
+        s0.task("t0", TestsVirtualLayer::testA, dataA, 1)
+          .task("t1", TestsVirtualLayer::testA, dataB, 2)
+          .streamOut(dataA, dataB);
+        //@formatter:on
+
+        s0.execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(101, dataA[i]);
+            assertEquals(202, dataB[i]);
+        }
+    }
+
+    /**
+     * It creates one task scheduler with two tasks mapped to different devices.
+     * The second task consumes the output of the first one, so the data is
+     * transferred between the two devices.
+     */
+    @Test
+    public void testMultipleDevicesDataDependency() {
+        final int N = 128;
+        int[] data = new int[N];
+
+        Arrays.fill(data, 100);
+
+        TaskSchedule s0 = new TaskSchedule("s0");
+        TornadoRuntime.setProperty("s0.t0.device", "0:0");
+        TornadoRuntime.setProperty("s0.t1.device", "0:1");
+
+        //@formatter:off
+        s0.streamIn(data)
+          .task("t0", TestsVirtualLayer::testA, data, 10)
+          .task("t1", TestsVirtualLayer::testB, data, 2)
+          .streamOut(data);
+        //@formatter:on
+
+        for (int iteration = 0; iteration < 2; iteration++) {
+            Arrays.fill(data, 100);
+            s0.execute();
+            for (int i = 0; i < N; i++) {
+                assertEquals(220, data[i]);
+            }
+        }
+    }
+
 }